@@ -0,0 +1,30 @@
+package com.project.citymanagement.aspect;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a method, or every method of a class, in a named bulkhead, which limits how many calls of
+ * that class of work run at once. A call finding the bulkhead full is rejected instead of waiting
+ * for a thread or a database connection used by other classes of work. The limits are configured
+ * per name with {@code bulkhead.<name>.max-concurrent-calls} and {@code bulkhead.<name>.max-wait-ms}.
+ * An annotation on a method takes precedence over the one on its class.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+  /** Bulkhead of CSV imports, batch creations and period deletions. */
+  String IMPORT = "import";
+
+  /** Bulkhead of aggregations, trends and dashboards. */
+  String ANALYTICS = "analytics";
+
+  /** Bulkhead of interactive reads and writes of single records. */
+  String CRUD = "crud";
+
+  /** @return Name of the bulkhead, used for configuration and metrics */
+  String value();
+}
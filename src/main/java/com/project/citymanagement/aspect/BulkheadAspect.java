@@ -0,0 +1,151 @@
+package com.project.citymanagement.aspect;
+
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents the aspect running {@link Bulkhead} methods in their bulkhead. Each
+ * bulkhead holds a number of permits; a call takes one for its whole duration, or is rejected with
+ * 503 when none frees up within the bulkhead's maximum wait. With the permits of the import and
+ * analytics bulkheads kept below the size of the connection pool, heavy work can never take all
+ * connections from interactive calls.
+ */
+@Aspect
+@Component
+@Order(0)
+public class BulkheadAspect {
+
+  /** The environment holding the bulkhead limits. */
+  @Autowired
+  private Environment environment;
+
+  /** The registry the bulkhead metrics are published to. */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** The bulkheads per name. */
+  private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+  /**
+   * Run a call of a method annotated with its own bulkhead.
+   *
+   * @param joinPoint The intercepted call
+   * @param bulkhead The annotation of the intercepted method
+   * @return The result of the call
+   * @throws Throwable The exception thrown by the call
+   */
+  @Around("execution(* *(..)) && @annotation(bulkhead)")
+  public Object isolateMethod(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+    return isolate(joinPoint, bulkhead.value());
+  }
+
+  /**
+   * Run a call of a method in the bulkhead of its class.
+   *
+   * @param joinPoint The intercepted call
+   * @param bulkhead The annotation of the class of the intercepted method
+   * @return The result of the call
+   * @throws Throwable The exception thrown by the call
+   */
+  @Around("execution(* *(..)) && @within(bulkhead) && !@annotation(com.project.citymanagement.aspect.Bulkhead)")
+  public Object isolateClass(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+    return isolate(joinPoint, bulkhead.value());
+  }
+
+  private Object isolate(ProceedingJoinPoint joinPoint, String name) throws Throwable {
+    if (!environment.getProperty("bulkhead.enabled", Boolean.class, true)) {
+      return joinPoint.proceed();
+    }
+    Compartment compartment = compartments.computeIfAbsent(name, this::register);
+    if (!compartment.tryAcquire()) {
+      compartment.rejected.increment();
+      throw new ServiceUnavailableException("Too many concurrent " + name + " requests, retry later");
+    }
+    compartment.permitted.increment();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      return joinPoint.proceed();
+    } finally {
+      sample.stop(compartment.duration);
+      compartment.permits.release();
+    }
+  }
+
+  private Compartment register(String name) {
+    int maxConcurrentCalls = environment.getProperty("bulkhead." + name + ".max-concurrent-calls", Integer.class,
+        environment.getProperty("bulkhead.max-concurrent-calls", Integer.class, 25));
+    long maxWaitMs = environment.getProperty("bulkhead." + name + ".max-wait-ms", Long.class,
+        environment.getProperty("bulkhead.max-wait-ms", Long.class, 0L));
+    Compartment compartment = new Compartment(maxConcurrentCalls, maxWaitMs,
+        Counter.builder("bulkhead.calls")
+            .description("Calls that got a permit of the bulkhead")
+            .tag("name", name)
+            .tag("outcome", "permitted")
+            .register(meterRegistry),
+        Counter.builder("bulkhead.calls")
+            .description("Calls rejected because the bulkhead was full")
+            .tag("name", name)
+            .tag("outcome", "rejected")
+            .register(meterRegistry),
+        Timer.builder("bulkhead.call.duration")
+            .description("Duration of the calls run in the bulkhead")
+            .tag("name", name)
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry));
+    Gauge.builder("bulkhead.active-calls", compartment, c -> c.maxConcurrentCalls - c.permits.availablePermits())
+        .description("Calls currently running in the bulkhead")
+        .tag("name", name)
+        .register(meterRegistry);
+    Gauge.builder("bulkhead.max-concurrent-calls", compartment, c -> c.maxConcurrentCalls)
+        .description("Calls the bulkhead runs at once")
+        .tag("name", name)
+        .register(meterRegistry);
+    return compartment;
+  }
+
+  /** The permits and meters of one bulkhead. */
+  private static final class Compartment {
+    private final int maxConcurrentCalls;
+    private final long maxWaitMs;
+    private final Semaphore permits;
+    private final Counter permitted;
+    private final Counter rejected;
+    private final Timer duration;
+
+    private Compartment(int maxConcurrentCalls, long maxWaitMs, Counter permitted, Counter rejected, Timer duration) {
+      this.maxConcurrentCalls = maxConcurrentCalls;
+      this.maxWaitMs = maxWaitMs;
+      this.permits = new Semaphore(maxConcurrentCalls);
+      this.permitted = permitted;
+      this.rejected = rejected;
+      this.duration = duration;
+    }
+
+    private boolean tryAcquire() {
+      if (maxWaitMs <= 0) {
+        return permits.tryAcquire();
+      }
+      try {
+        return permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.project.citymanagement.aspect;
+
+import com.project.citymanagement.model.UtilityType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only method whose results are cached per argument list and served stale while
+ * being refreshed in the background. Cached results are dropped when records of {@link #type()}
+ * change. Settings are read from {@code result-cache.<name>.*}, falling back to
+ * {@code result-cache.*}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedResult {
+
+  /** @return Name of the cached call, used for configuration and metrics */
+  String value();
+
+  /** @return Kind of utility the result is computed from */
+  UtilityType type();
+
+  /** @return Index of the city ID argument, or -1 when the result spans all cities */
+  int cityIdArgument() default -1;
+}
@@ -0,0 +1,19 @@
+package com.project.citymanagement.aspect;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only method whose concurrent calls with equal arguments share one execution.
+ * Coalescing is switched on or off per name with {@code coalescing.<name>.enabled}, falling back
+ * to {@code coalescing.enabled}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+
+  /** @return Name of the coalesced call, used for configuration and metrics */
+  String value();
+}
@@ -0,0 +1,97 @@
+package com.project.citymanagement.aspect;
+
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import com.project.citymanagement.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class represents the aspect coalescing concurrent identical calls of {@link Coalesced}
+ * methods. Calls are identical when they target the same name with equal arguments; all of them
+ * share the result of the first one still in flight, waiting for it at most
+ * {@code coalescing.follower-timeout-ms} before they are answered with 503.
+ */
+@Aspect
+@Component
+@Order(2)
+public class CoalescingAspect {
+
+  /** The environment holding the per-name switches. */
+  @Autowired
+  private Environment environment;
+
+  /** The registry the coalescing metrics are published to. */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** The in-flight calls per name. */
+  private final Map<String, SingleFlight<List<Object>, Object>> flights = new ConcurrentHashMap<>();
+
+  /**
+   * Run the call, or join the identical call already in flight.
+   *
+   * @param joinPoint The intercepted call
+   * @param coalesced The annotation of the intercepted method
+   * @return The result of the call
+   * @throws Throwable The exception thrown by the call
+   */
+  @Around("@annotation(coalesced)")
+  public Object coalesce(ProceedingJoinPoint joinPoint, Coalesced coalesced) throws Throwable {
+    String name = coalesced.value();
+    if (!isEnabled(name)) {
+      return joinPoint.proceed();
+    }
+    try {
+      return flights.computeIfAbsent(name, this::register)
+          .execute(Arrays.asList(joinPoint.getArgs()), joinPoint::proceed);
+    } catch (TimeoutException e) {
+      throw new ServiceUnavailableException("Timed out waiting for an identical " + name + " request in flight.");
+    }
+  }
+
+  private boolean isEnabled(String name) {
+    boolean enabledByDefault = environment.getProperty("coalescing.enabled", Boolean.class, true);
+    return environment.getProperty("coalescing." + name + ".enabled", Boolean.class, enabledByDefault);
+  }
+
+  private SingleFlight<List<Object>, Object> register(String name) {
+    long defaultTimeoutMs = environment.getProperty("coalescing.follower-timeout-ms", Long.class, 30_000L);
+    long timeoutMs = environment.getProperty("coalescing." + name + ".follower-timeout-ms", Long.class, defaultTimeoutMs);
+    SingleFlight<List<Object>, Object> flight = new SingleFlight<>(Duration.ofMillis(timeoutMs));
+    FunctionCounter.builder("coalescing.calls", flight, SingleFlight::getExecutionCount)
+        .description("Calls that ran the underlying computation")
+        .tag("name", name)
+        .tag("outcome", "executed")
+        .register(meterRegistry);
+    FunctionCounter.builder("coalescing.calls", flight, SingleFlight::getCoalescedCount)
+        .description("Calls that shared the result of an identical call in flight")
+        .tag("name", name)
+        .tag("outcome", "coalesced")
+        .register(meterRegistry);
+    FunctionCounter.builder("coalescing.calls", flight, SingleFlight::getTimedOutCount)
+        .description("Calls that gave up waiting for an identical call in flight")
+        .tag("name", name)
+        .tag("outcome", "timed-out")
+        .register(meterRegistry);
+    Gauge.builder("coalescing.in-flight", flight, SingleFlight::getInFlightCount)
+        .description("Distinct calls currently in flight")
+        .tag("name", name)
+        .register(meterRegistry);
+    return flight;
+  }
+}
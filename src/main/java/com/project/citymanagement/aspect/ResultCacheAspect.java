@@ -0,0 +1,209 @@
+package com.project.citymanagement.aspect;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.model.UtilityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * This class represents the aspect caching the results of {@link CachedResult} methods with
+ * stale-while-revalidate semantics. A fresh result is returned as is. A stale result is still
+ * returned at once, while a single background task recomputes it. Only a missing or expired result
+ * is computed by the caller. The aspect wraps {@link CoalescingAspect}, so concurrent misses still
+ * share one computation.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(1)
+public class ResultCacheAspect {
+
+  /** Key of a cached result. */
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  private static final class Key {
+    private final UtilityType type;
+    private final Long cityId;
+    private final List<Object> arguments;
+  }
+
+  /** A cached result with the time it was computed at. */
+  @AllArgsConstructor
+  private static final class Entry {
+    private final Object value;
+    private final long computedAt;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+  }
+
+  /** The cached results of one name with its settings. */
+  @AllArgsConstructor
+  private static final class Region {
+    private final Cache<Key, Entry> entries;
+    private final long freshNanos;
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+  }
+
+  /** The environment holding the cache settings. */
+  @Autowired
+  private Environment environment;
+
+  /** The registry the cache metrics are published to. */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** The executor running background refreshes. */
+  @Autowired
+  @Qualifier("resultCacheRefreshExecutor")
+  private TaskExecutor refreshExecutor;
+
+  /** The cached results per name. */
+  private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+  /**
+   * Version of the data of each utility type, bumped on every change so that computations started
+   * before a change never overwrite the invalidation.
+   */
+  private final Map<UtilityType, AtomicLong> versions = new EnumMap<>(UtilityType.class);
+
+  /** The time source, in nanoseconds. */
+  private LongSupplier clock = System::nanoTime;
+
+  public ResultCacheAspect() {
+    for (UtilityType type : UtilityType.values()) {
+      versions.put(type, new AtomicLong());
+    }
+  }
+
+  /**
+   * Serve the cached result of the call, computing or refreshing it when needed.
+   *
+   * @param joinPoint The intercepted call
+   * @param cachedResult The annotation of the intercepted method
+   * @return The result of the call
+   * @throws Throwable The exception thrown by the call
+   */
+  @Around("@annotation(cachedResult)")
+  public Object cache(ProceedingJoinPoint joinPoint, CachedResult cachedResult) throws Throwable {
+    String name = cachedResult.value();
+    if (!getProperty(name, "enabled", Boolean.class, true)) {
+      return joinPoint.proceed();
+    }
+
+    Region region = regions.computeIfAbsent(name, this::createRegion);
+    Object[] args = joinPoint.getArgs();
+    Long cityId = cachedResult.cityIdArgument() < 0 ? null : (Long) args[cachedResult.cityIdArgument()];
+    Key key = new Key(cachedResult.type(), cityId, Arrays.asList(args));
+
+    Entry entry = region.entries.getIfPresent(key);
+    if (entry == null) {
+      region.misses.increment();
+      return compute(region, key, joinPoint);
+    }
+    if (clock.getAsLong() - entry.computedAt < region.freshNanos) {
+      region.hits.increment();
+      return entry.value;
+    }
+
+    region.staleHits.increment();
+    if (entry.refreshing.compareAndSet(false, true)) {
+      try {
+        refreshExecutor.execute(() -> refresh(region, key, entry, joinPoint));
+      } catch (TaskRejectedException e) {
+        entry.refreshing.set(false);
+      }
+    }
+    return entry.value;
+  }
+
+  /**
+   * Drop the cached results computed from the changed records, once the change is committed so
+   * no result is recomputed from the records before it.
+   *
+   * @param event The change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUtilityDataChanged(UtilityDataChangedEvent event) {
+    versions.get(event.getType()).incrementAndGet();
+    for (Region region : regions.values()) {
+      region.entries.asMap().keySet().removeIf(key -> key.type == event.getType()
+          && (event.getCityId() == null || key.cityId == null || key.cityId.equals(event.getCityId())));
+    }
+  }
+
+  private Object compute(Region region, Key key, ProceedingJoinPoint joinPoint) throws Throwable {
+    long version = versions.get(key.type).get();
+    long computedAt = clock.getAsLong();
+    Object value = joinPoint.proceed();
+    if (value != null) {
+      // Checked and stored in one map operation. A change bumps the version before it removes the
+      // entries through the same map, so either it removes this entry or the check here sees it
+      Entry computed = new Entry(value, computedAt);
+      region.entries.asMap().compute(key,
+          (ignored, current) -> versions.get(key.type).get() == version ? computed : current);
+    }
+    return value;
+  }
+
+  private void refresh(Region region, Key key, Entry stale, ProceedingJoinPoint joinPoint) {
+    try {
+      compute(region, key, joinPoint);
+    } catch (Throwable t) {
+      log.warn("Background refresh of {} failed, keeping the stale result", key.arguments, t);
+    } finally {
+      stale.refreshing.set(false);
+    }
+  }
+
+  private Region createRegion(String name) {
+    Duration fresh = Duration.ofMillis(getProperty(name, "fresh-ms", Long.class, 5_000L));
+    Duration maxStale = Duration.ofMillis(getProperty(name, "max-stale-ms", Long.class, 30_000L));
+    Cache<Key, Entry> entries = Caffeine.newBuilder()
+        .maximumSize(getProperty(name, "maximum-size", Long.class, 1_000L))
+        .expireAfterWrite(fresh.plus(maxStale))
+        .ticker(clock::getAsLong)
+        .build();
+    return new Region(entries, fresh.toNanos(),
+        requests(name, "hit"), requests(name, "stale"), requests(name, "miss"));
+  }
+
+  private Counter requests(String name, String result) {
+    return Counter.builder("result-cache.requests")
+        .description("Calls of cached methods by cache outcome")
+        .tag("name", name)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private <T> T getProperty(String name, String setting, Class<T> type, T defaultValue) {
+    T fallback = environment.getProperty("result-cache." + setting, type, defaultValue);
+    return environment.getProperty("result-cache." + name + "." + setting, type, fallback);
+  }
+}
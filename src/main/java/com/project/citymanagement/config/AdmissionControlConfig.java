@@ -0,0 +1,34 @@
+package com.project.citymanagement.config;
+
+import com.project.citymanagement.filter.AdmissionControlInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/** This class represents the configuration admitting API requests through rate and concurrency limits. */
+@Configuration
+public class AdmissionControlConfig {
+
+  /**
+   * Run the admission control in front of the API endpoints.
+   *
+   * @param admissionControlInterceptor Admission control interceptor
+   * @return WebMvcConfigurer
+   */
+  @Bean
+  public WebMvcConfigurer admissionControlConfigurer(AdmissionControlInterceptor admissionControlInterceptor) {
+    return new WebMvcConfigurer() {
+
+      /**
+       * Add the admission control interceptor.
+       *
+       * @param registry Interceptor registry
+       */
+      @Override
+      public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionControlInterceptor).addPathPatterns("/api/**");
+      }
+    };
+  }
+}
@@ -31,8 +31,9 @@ public class CorsConfig {
         registry
             .addMapping("/**")
             .allowedOriginPatterns("*") // Allows all origins with patterns
-            .allowedMethods("GET", "POST", "PUT", "DELETE") // List all allowed HTTP methods
+            .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE") // List all allowed HTTP methods
             .allowedHeaders("*") // Allows all headers
+            .exposedHeaders("ETag") // Lets clients read the version to send back in If-Match
             .allowCredentials(true); // Allow credentials (cookies, etc.)
       }
     };
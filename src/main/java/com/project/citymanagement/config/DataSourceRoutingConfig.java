@@ -0,0 +1,111 @@
+package com.project.citymanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * This class represents the configuration sending read-only transactions to a read replica,
+ * enabled with {@code datasource.replica.enabled}. The primary is configured under
+ * {@code spring.datasource} as before and the replica under {@code datasource.replica}; each has
+ * its own connection pool. Reads fall back to the primary while the replica lags behind by more
+ * than {@code datasource.replica.max-lag-ms} or cannot be reached.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+  /**
+   * Connection pool of the primary, taking all writes and the reads the replica cannot serve.
+   *
+   * @param properties Properties of {@code spring.datasource}
+   * @return Primary data source
+   */
+  @Bean(name = "primaryDataSource")
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  /**
+   * Connection pool of the replica, taking the read-only transactions.
+   *
+   * @param url JDBC URL of the replica
+   * @param username Username on the replica
+   * @param password Password on the replica
+   * @return Replica data source
+   */
+  @Bean(name = "replicaDataSource")
+  @ConfigurationProperties("datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(
+      @Value("${datasource.replica.url}") String url,
+      @Value("${datasource.replica.username:}") String username,
+      @Value("${datasource.replica.password:}") String password) {
+    HikariDataSource dataSource = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .url(url)
+        .username(username)
+        .password(password)
+        .build();
+    dataSource.setPoolName("replica");
+    dataSource.setReadOnly(true);
+    return dataSource;
+  }
+
+  /**
+   * Monitor of the replication lag.
+   *
+   * @param primary Primary data source
+   * @param replica Replica data source
+   * @param maxLagMs Largest lag at which the replica still serves reads
+   * @return Replica lag monitor
+   */
+  @Bean
+  public ReplicaLagMonitor replicaLagMonitor(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica,
+      @Value("${datasource.replica.max-lag-ms:5000}") long maxLagMs) {
+    return new ReplicaLagMonitor(primary, replica, maxLagMs);
+  }
+
+  /**
+   * Data source choosing the primary or the replica per transaction.
+   *
+   * @param primary Primary data source
+   * @param replica Replica data source
+   * @param replicaLagMonitor Replica lag monitor
+   * @return Routing data source
+   */
+  @Bean
+  public ReplicaRoutingDataSource routingDataSource(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica,
+      ReplicaLagMonitor replicaLagMonitor) {
+    return new ReplicaRoutingDataSource(primary, replica, replicaLagMonitor::isReplicaUsable);
+  }
+
+  /**
+   * The data source of the application, taking a connection from the routing data source only
+   * once the transaction has declared whether it is read-only.
+   *
+   * @param routingDataSource Routing data source
+   * @return Data source of the application
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+}
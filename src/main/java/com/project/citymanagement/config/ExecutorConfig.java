@@ -0,0 +1,136 @@
+package com.project.citymanagement.config;
+
+import com.project.citymanagement.util.VirtualThreads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/** This class represents the configuration for the application's background executors. */
+@Configuration
+public class ExecutorConfig {
+
+  /**
+   * Executor used to compute dashboard sections in parallel. Both the number of threads and the
+   * queue are bounded, so a burst of dashboard requests is rejected instead of piling up work. In
+   * virtual thread mode every section gets its own virtual thread instead, and the JDBC connection
+   * pool bounds how many sections query the database at once.
+   *
+   * @param poolSize Number of worker threads
+   * @param queueCapacity Number of sections that may wait for a worker
+   * @param virtualThreads Whether to run the sections on virtual threads
+   * @return Dashboard executor
+   */
+  @Bean(name = "dashboardExecutor")
+  public Executor dashboardExecutor(
+      @Value("${dashboard.executor.pool-size:8}") int poolSize,
+      @Value("${dashboard.executor.queue-capacity:64}") int queueCapacity,
+      @Value("${virtual-threads.enabled:false}") boolean virtualThreads) {
+    if (virtualThreads) {
+      return VirtualThreads.newThreadPerTaskExecutor("dashboard-");
+    }
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("dashboard-");
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    return executor;
+  }
+
+  /**
+   * Executor of streamed reads, running their page queries and writing the records to the
+   * response. A stream only occupies a thread while a page is queried or written, not while the
+   * client is reading. In virtual thread mode every task gets its own virtual thread instead.
+   *
+   * @param poolSize Number of worker threads
+   * @param queueCapacity Number of pages that may wait for a worker
+   * @param virtualThreads Whether to run the tasks on virtual threads
+   * @return Record stream executor
+   */
+  @Bean(name = "recordStreamExecutor")
+  public AsyncTaskExecutor recordStreamExecutor(
+      @Value("${record-stream.executor.pool-size:16}") int poolSize,
+      @Value("${record-stream.executor.queue-capacity:1024}") int queueCapacity,
+      @Value("${virtual-threads.enabled:false}") boolean virtualThreads) {
+    if (virtualThreads) {
+      return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("record-stream-"));
+    }
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("record-stream-");
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    return executor;
+  }
+
+  /**
+   * Executor recomputing stale cached results in the background. A refresh rejected by the full
+   * queue is simply retried by a later call, which keeps serving the stale result meanwhile.
+   *
+   * @param poolSize Number of worker threads
+   * @param queueCapacity Number of refreshes that may wait for a worker
+   * @return Result cache refresh executor
+   */
+  @Bean(name = "resultCacheRefreshExecutor")
+  public ThreadPoolTaskExecutor resultCacheRefreshExecutor(
+      @Value("${result-cache.refresh-executor.pool-size:2}") int poolSize,
+      @Value("${result-cache.refresh-executor.queue-capacity:32}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("result-cache-");
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    return executor;
+  }
+
+  /**
+   * Executor hashing and verifying passwords. It is kept small, by default half of the processors,
+   * so authentication bursts leave CPU for the rest of the API, and its queue is bounded so excess
+   * logins are rejected instead of piling up.
+   *
+   * @param poolSize Number of worker threads, 0 for half of the available processors
+   * @param queueCapacity Number of hashes that may wait for a worker
+   * @return Password hashing executor
+   */
+  @Bean(name = "passwordHashingExecutor")
+  public ThreadPoolTaskExecutor passwordHashingExecutor(
+      @Value("${security.password-hashing.pool-size:0}") int poolSize,
+      @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity) {
+    int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("password-hashing-");
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    return executor;
+  }
+
+  /**
+   * Executor running asynchronous city deletions. A single thread by default, so deletions of
+   * several cities run one after another instead of competing for the database.
+   *
+   * @param poolSize Number of worker threads
+   * @param queueCapacity Number of deletions that may wait for a worker
+   * @return City deletion executor
+   */
+  @Bean(name = "cityDeletionExecutor")
+  public ThreadPoolTaskExecutor cityDeletionExecutor(
+      @Value("${city-deletion.executor.pool-size:1}") int poolSize,
+      @Value("${city-deletion.executor.queue-capacity:16}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("city-deletion-");
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    return executor;
+  }
+}
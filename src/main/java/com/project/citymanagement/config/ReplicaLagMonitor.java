@@ -0,0 +1,107 @@
+package com.project.citymanagement.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * This class represents the monitor of the replication lag. It writes a heartbeat, the current
+ * time, to the primary at every check and reads back the last heartbeat the replica has applied:
+ * a replica holding the previous heartbeat is caught up, otherwise its lag is the age of the
+ * heartbeat it holds. The replica is usable while that lag stays within the allowed maximum and
+ * it answers at all; it starts unusable until the first check proves otherwise.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+
+  /** Table holding the single heartbeat row, created on the primary and replicated like any other. */
+  static final String CREATE_TABLE =
+      "create table if not exists replication_heartbeat (id int primary key, beat_at bigint not null)";
+
+  private final JdbcTemplate primary;
+  private final JdbcTemplate replica;
+  private final long maxLagMs;
+
+  /** Heartbeat written by the previous check, 0 before the first one. */
+  private long lastBeat;
+
+  /** Lag measured by the last check, -1 when the replica could not be read. */
+  private volatile long lagMs = -1;
+
+  /** Whether the last check found the replica usable. */
+  private volatile boolean replicaUsable;
+
+  /**
+   * Constructor for the monitor.
+   *
+   * @param primary Data source of the primary
+   * @param replica Data source of the replica
+   * @param maxLagMs Largest lag at which the replica still serves reads
+   */
+  public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMs) {
+    this.primary = new JdbcTemplate(primary);
+    this.replica = new JdbcTemplate(replica);
+    this.maxLagMs = maxLagMs;
+    try {
+      this.primary.execute(CREATE_TABLE);
+    } catch (DataAccessException e) {
+      log.warn("Creating the replication heartbeat table failed, reads stay on the primary until it exists", e);
+    }
+  }
+
+  /** Measure the lag of the replica, then write the next heartbeat to the primary. */
+  @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+  public synchronized void check() {
+    long now = System.currentTimeMillis();
+    long lag;
+    try {
+      List<Long> beats = replica.queryForList("select beat_at from replication_heartbeat where id = 1", Long.class);
+      if (beats.isEmpty() || lastBeat == 0) {
+        lag = -1;
+      } else {
+        lag = beats.get(0) >= lastBeat ? 0 : Math.max(0, now - beats.get(0));
+      }
+    } catch (DataAccessException e) {
+      log.warn("Reading the replication heartbeat from the replica failed, sending reads to the primary", e);
+      lag = -1;
+    }
+    lagMs = lag;
+    replicaUsable = lag >= 0 && lag <= maxLagMs;
+
+    try {
+      if (primary.update("update replication_heartbeat set beat_at = ? where id = 1", now) == 0) {
+        primary.update("insert into replication_heartbeat (id, beat_at) values (1, ?)", now);
+      }
+      lastBeat = now;
+    } catch (DataAccessException e) {
+      log.warn("Writing the replication heartbeat to the primary failed", e);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("datasource.replica.lag", this, ReplicaLagMonitor::getLagMs)
+        .description("Replication lag in milliseconds, -1 when the replica could not be read")
+        .register(registry);
+    Gauge.builder("datasource.replica.usable", this, monitor -> monitor.isReplicaUsable() ? 1 : 0)
+        .description("Whether read-only transactions are sent to the replica")
+        .register(registry);
+  }
+
+  /** @return Lag measured by the last check in milliseconds, -1 when unknown */
+  public long getLagMs() {
+    return lagMs;
+  }
+
+  /** @return Whether the replica is currently usable for reads */
+  public boolean isReplicaUsable() {
+    return replicaUsable;
+  }
+}
@@ -0,0 +1,67 @@
+package com.project.citymanagement.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Data source sending the connections of read-only transactions to the replica while it is usable,
+ * and every other connection to the primary. The transaction is only known once it has started, so
+ * this data source must sit behind a {@code LazyConnectionDataSourceProxy}, which asks for the
+ * connection at the first statement rather than at the start of the transaction. Its metrics are
+ * bound once the registry exists, as the registry itself depends on the data sources.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+
+  /** Target of a connection. */
+  public enum Target {
+    PRIMARY, REPLICA
+  }
+
+  /** Whether the replica is currently caught up enough to serve reads. */
+  private final BooleanSupplier replicaUsable;
+
+  private final LongAdder primaryConnections = new LongAdder();
+  private final LongAdder replicaConnections = new LongAdder();
+
+  /**
+   * Constructor for the data source.
+   *
+   * @param primary Data source of the primary
+   * @param replica Data source of the replica
+   * @param replicaUsable Whether the replica is currently usable
+   */
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaUsable) {
+    this.replicaUsable = replicaUsable;
+    setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaUsable.getAsBoolean()) {
+      replicaConnections.increment();
+      return Target.REPLICA;
+    }
+    primaryConnections.increment();
+    return Target.PRIMARY;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("datasource.routing.connections", primaryConnections, LongAdder::sum)
+        .tag("target", "primary")
+        .register(registry);
+    FunctionCounter.builder("datasource.routing.connections", replicaConnections, LongAdder::sum)
+        .tag("target", "replica")
+        .register(registry);
+  }
+}
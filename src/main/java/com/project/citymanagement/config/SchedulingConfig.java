@@ -0,0 +1,10 @@
+package com.project.citymanagement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** This class represents the configuration enabling the application's scheduled tasks. */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,53 @@
+package com.project.citymanagement.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * This class represents the configuration for streamed reads. Controllers return them as a
+ * {@code Flux}, which Spring MVC writes as NDJSON or server-sent events asking the stream for the
+ * next record only once the previous one is written, so a slow client slows down the queries
+ * instead of buffering the result.
+ */
+@Configuration
+public class StreamingConfig {
+
+  /**
+   * Scheduler running the page queries of streamed reads on the record stream executor.
+   *
+   * @param recordStreamExecutor Record stream executor
+   * @return Record stream scheduler
+   */
+  @Bean(name = "recordStreamScheduler", destroyMethod = "dispose")
+  public Scheduler recordStreamScheduler(@Qualifier("recordStreamExecutor") AsyncTaskExecutor recordStreamExecutor) {
+    return Schedulers.fromExecutor(recordStreamExecutor);
+  }
+
+  /**
+   * Write streamed responses on the record stream executor rather than on a new thread per record.
+   *
+   * @param recordStreamExecutor Record stream executor
+   * @return WebMvcConfigurer
+   */
+  @Bean
+  public WebMvcConfigurer streamingConfigurer(@Qualifier("recordStreamExecutor") AsyncTaskExecutor recordStreamExecutor) {
+    return new WebMvcConfigurer() {
+
+      /**
+       * Configure the executor of asynchronous requests.
+       *
+       * @param configurer Async support configurer
+       */
+      @Override
+      public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(recordStreamExecutor);
+      }
+    };
+  }
+}
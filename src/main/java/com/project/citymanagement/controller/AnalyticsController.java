@@ -0,0 +1,110 @@
+package com.project.citymanagement.controller;
+
+import com.project.citymanagement.aspect.Bulkhead;
+import com.project.citymanagement.filter.RequestCost;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.analytics.ConsumptionAnomalyDto;
+import com.project.citymanagement.model.analytics.TopAreasDto;
+import com.project.citymanagement.service.AnomalyDetectionService;
+import com.project.citymanagement.service.HeavyHitterService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * This class represents the REST API controller for consumption analytics.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:3000")
+@Tag(name = "Analytics APIs", description = "API Operations related to consumption analytics")
+@Bulkhead(Bulkhead.ANALYTICS)
+@RequestCost(RequestCost.EXPENSIVE)
+public class AnalyticsController {
+
+    /**
+     * The heavy hitter service.
+     */
+    @Autowired
+    private HeavyHitterService heavyHitterService;
+
+    /**
+     * The anomaly detection service.
+     */
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+
+    /**
+     * Get the top consuming areas of a week API.
+     *
+     * @param type   Utility type to rank
+     * @param cityId ID of the city, or all cities when omitted
+     * @param weekOf Any day of the week, the current week when omitted
+     * @param k      Number of areas to return
+     * @return Top consuming areas with their error bounds
+     */
+    @Operation(
+            summary = "Get top consuming areas",
+            description = "Retrieve the top K consuming areas of a week, per city or across all cities, with error bounds")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Top areas retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid parameters provided")
+            })
+    @GetMapping("/top-areas")
+    public ResponseEntity<TopAreasDto> getTopAreas(
+            @RequestParam("type") @Parameter(description = "ELECTRICITY or WATER_SUPPLY") UtilityType type,
+            @RequestParam(value = "cityId", required = false) @Parameter(description = "ID of the city, all cities when omitted") Long cityId,
+            @RequestParam(value = "weekOf", required = false) @Parameter(description = "Any day of the week in yyyy-MM-dd format") String weekOf,
+            @RequestParam(value = "k", defaultValue = "10") @Parameter(description = "Number of areas to return") int k) {
+
+        LocalDate week = weekOf == null ? LocalDate.now() : LocalDate.parse(weekOf);
+        return ResponseEntity.ok(heavyHitterService.getTopAreas(type, cityId, week, k));
+    }
+
+    /**
+     * Get the consumption anomalies of a city within a specific date range API.
+     *
+     * @param cityId    ID of the city
+     * @param startDate Start date (inclusive)
+     * @param endDate   End date (inclusive)
+     * @param type      Utility type, or all types when omitted
+     * @return List of anomalies flagged for the period
+     */
+    @Operation(
+            summary = "Get consumption anomalies for a specific period",
+            description = "Retrieve the readings of a city flagged as anomalous on ingest within a specified date range")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Anomalies retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range provided")
+            })
+    @GetMapping("/anomalies/city/{cityId}")
+    public ResponseEntity<List<ConsumptionAnomalyDto>> getAnomaliesForPeriod(
+            @PathVariable Long cityId,
+            @RequestParam("startDate") @Parameter(description = "Start date in yyyy-MM-dd format") String startDate,
+            @RequestParam("endDate") @Parameter(description = "End date in yyyy-MM-dd format") String endDate,
+            @RequestParam(value = "type", required = false) @Parameter(description = "ELECTRICITY or WATER_SUPPLY, all types when omitted") UtilityType type) {
+
+        // Parse dates
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+
+        // Validate date range
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before or equal to end date.");
+        }
+
+        List<ConsumptionAnomalyDto> anomalies =
+                AnomalyDetectionService.recordsToDto(anomalyDetectionService.getAnomaliesForPeriod(cityId, type, start, end));
+        return ResponseEntity.ok(anomalies);
+    }
+}
@@ -1,18 +1,24 @@
 package com.project.citymanagement.controller;
 
 import com.project.citymanagement.entity.User;
+import com.project.citymanagement.event.UserCredentialsChangedEvent;
+import com.project.citymanagement.exception.ServiceUnavailableException;
 import com.project.citymanagement.repository.UserRepository;
 import com.project.citymanagement.security.JwtTokenUtil;
+import com.project.citymanagement.security.UsernameIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -48,6 +54,14 @@ public class AuthController {
   @Autowired
   private JwtTokenUtil jwtTokenUtil;
 
+  /** The index answering username existence checks without a query when the answer is no. */
+  @Autowired
+  private UsernameIndex usernameIndex;
+
+  /** The publisher of credential changes, evicting cached principals. */
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
   /**
    * Register user API.
    *
@@ -59,16 +73,26 @@ public class AuthController {
       value = {
           @ApiResponse(responseCode = "200", description = "User registered successfully"),
           @ApiResponse(responseCode = "409", description = "Username already exists"),
-          @ApiResponse(responseCode = "500", description = "Unable to register user")
+          @ApiResponse(responseCode = "500", description = "Unable to register user"),
+          @ApiResponse(responseCode = "503", description = "Too many authentication requests")
       })
   @PostMapping("/register")
   public ResponseEntity<?> registerUser(@RequestBody User user) {
     try {
+      // Reject taken usernames before spending a hash on them; the unique constraint still covers races
+      if (usernameIndex.mightExist(user.getUsername())
+          && userRepository.findByUsername(user.getUsername()).isPresent()) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Error: Username already exists");
+      }
       user.setPassword(passwordEncoder.encode(user.getPassword()));
       userRepository.save(user);
+      usernameIndex.add(user.getUsername());
+      eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getUsername()));
       return ResponseEntity.ok("User registered successfully!");
     } catch (DataIntegrityViolationException e) {
       return ResponseEntity.status(HttpStatus.CONFLICT).body("Error: Username already exists");
+    } catch (ServiceUnavailableException e) {
+      return serviceUnavailable(e);
     } catch (Exception e) {
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: Unable to register user");
     }
@@ -86,7 +110,8 @@ public class AuthController {
       value = {
           @ApiResponse(responseCode = "200", description = "User authenticated successfully"),
           @ApiResponse(responseCode = "401", description = "Invalid username or password"),
-          @ApiResponse(responseCode = "500", description = "Unable to authenticate user")
+          @ApiResponse(responseCode = "500", description = "Unable to authenticate user"),
+          @ApiResponse(responseCode = "503", description = "Too many authentication requests")
       })
   @PostMapping("/authenticate")
   public ResponseEntity<?> createAuthenticationToken(@RequestBody User user) {
@@ -104,6 +129,14 @@ public class AuthController {
 
     } catch (BadCredentialsException e) {
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Error: Invalid username or password");
+    } catch (ServiceUnavailableException e) {
+      return serviceUnavailable(e);
+    } catch (InternalAuthenticationServiceException e) {
+      // Hashing done while looking up an unknown user is wrapped by the authentication provider
+      if (e.getCause() instanceof ServiceUnavailableException) {
+        return serviceUnavailable((ServiceUnavailableException) e.getCause());
+      }
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: Unable to authenticate");
     } catch (Exception e) {
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: Unable to authenticate");
     }
@@ -123,6 +156,9 @@ public class AuthController {
       })
   @GetMapping("/verify-username/{username}")
   public ResponseEntity<?> verifyUsername(@PathVariable String username) {
+    if (!usernameIndex.mightExist(username)) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Error: Username not found");
+    }
     Optional<User> user = userRepository.findByUsername(username);
     if (user.isPresent()) {
       return ResponseEntity.ok("Username exists");
@@ -142,7 +178,8 @@ public class AuthController {
       value = {
           @ApiResponse(responseCode = "200", description = "Password reset successfully"),
           @ApiResponse(responseCode = "404", description = "Username not found"),
-          @ApiResponse(responseCode = "500", description = "Unable to reset password")
+          @ApiResponse(responseCode = "500", description = "Unable to reset password"),
+          @ApiResponse(responseCode = "503", description = "Too many authentication requests")
       })
   @PostMapping("/reset-password")
   public ResponseEntity<?> resetPassword(@RequestBody Map<String, String> request) {
@@ -153,11 +190,28 @@ public class AuthController {
 
     if (user.isPresent()) {
       User existingUser = user.get();
-      existingUser.setPassword(passwordEncoder.encode(newPassword));
+      try {
+        existingUser.setPassword(passwordEncoder.encode(newPassword));
+      } catch (ServiceUnavailableException e) {
+        return serviceUnavailable(e);
+      }
       userRepository.save(existingUser);
+      eventPublisher.publishEvent(new UserCredentialsChangedEvent(username));
       return ResponseEntity.ok("Password reset successfully");
     } else {
       return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Error: Username not found");
     }
   }
+
+  /**
+   * Build the response for a request shed because password hashing is saturated.
+   *
+   * @param e The rejection
+   * @return Service unavailable response asking the client to retry shortly
+   */
+  private ResponseEntity<?> serviceUnavailable(ServiceUnavailableException e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body("Error: " + e.getMessage());
+  }
 }
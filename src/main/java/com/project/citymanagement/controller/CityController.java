@@ -1,10 +1,18 @@
 package com.project.citymanagement.controller;
 
+import com.project.citymanagement.aspect.Bulkhead;
 import com.project.citymanagement.entity.City;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.filter.RequestCost;
+import com.project.citymanagement.model.city.CityDashboardDto;
+import com.project.citymanagement.model.city.CityDeletionJobDto;
 import com.project.citymanagement.model.city.CityDto;
+import com.project.citymanagement.model.city.CityOverviewDto;
+import com.project.citymanagement.service.CityDataSummaryService;
 import com.project.citymanagement.service.CityService;
+import com.project.citymanagement.service.DashboardService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,6 +20,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -21,6 +31,7 @@ import java.util.List;
 @RequestMapping("/api/city")
 @CrossOrigin(origins = "http://localhost:3000")
 @Tag(name = "Cities APIs", description = "API Operations related to managing cities")
+@Bulkhead(Bulkhead.CRUD)
 public class CityController {
 
     /**
@@ -29,6 +40,18 @@ public class CityController {
     @Autowired
     private CityService cityService;
 
+    /**
+     * The dashboard service.
+     */
+    @Autowired
+    private DashboardService dashboardService;
+
+    /**
+     * The service of the per-city record summaries.
+     */
+    @Autowired
+    private CityDataSummaryService cityDataSummaryService;
+
     /**
      * Get all cities API.
      *
@@ -37,10 +60,23 @@ public class CityController {
     @Operation(summary = "Get all cities", description = "Retrieve a list of all cities")
     @GetMapping
     public ResponseEntity<List<CityDto>> getAllCities() {
-        List<CityDto> cityList = CityService.recordsToDto(cityService.getAllCities());
+        List<CityDto> cityList = cityService.getAllCities();
         return ResponseEntity.ok(cityList);
     }
 
+    /**
+     * Get all cities with their record counts API.
+     *
+     * @return List of all cities with the number of records they have per type and the dates they cover
+     */
+    @Operation(
+            summary = "Get city overview",
+            description = "Retrieve all cities with the number of records they have per type and the dates they cover, refreshed within seconds of a write")
+    @GetMapping("/overview")
+    public ResponseEntity<List<CityOverviewDto>> getCityOverviews() {
+        return ResponseEntity.ok(cityDataSummaryService.getCityOverviews());
+    }
+
     /**
      * Get city by ID API.
      *
@@ -57,11 +93,48 @@ public class CityController {
             })
     @GetMapping("/{id}")
     public ResponseEntity<CityDto> getCityById(@PathVariable Long id) {
-        City city =
+        CityDto city =
                 cityService
                         .getCityById(id)
                         .orElseThrow(() -> new ResourceNotFoundException("City not found with id: " + id));
-        return ResponseEntity.ok(city.dto());
+        return ResponseEntity.ok(city);
+    }
+
+    /**
+     * Get the dashboard of a city for a specific period API.
+     *
+     * @param id        ID of the city
+     * @param startDate Start date (inclusive)
+     * @param endDate   End date (inclusive)
+     * @return Electricity, water supply and waste aggregates of the city for the period
+     */
+    @Operation(
+            summary = "Get city dashboard",
+            description = "Retrieve the electricity, water supply and waste aggregates of a city for a period in a single call")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Dashboard retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range provided"),
+                    @ApiResponse(responseCode = "404", description = "City not found")
+            })
+    @Bulkhead(Bulkhead.ANALYTICS)
+    @RequestCost(RequestCost.EXPENSIVE)
+    @GetMapping("/{id}/dashboard")
+    public ResponseEntity<CityDashboardDto> getCityDashboard(
+            @PathVariable Long id,
+            @RequestParam("startDate") @Parameter(description = "Start date in yyyy-MM-dd format") String startDate,
+            @RequestParam("endDate") @Parameter(description = "End date in yyyy-MM-dd format") String endDate) {
+
+        // Parse dates
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+
+        // Validate date range
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before or equal to end date.");
+        }
+
+        return ResponseEntity.ok(dashboardService.getCityDashboard(id, start, end));
     }
 
     /**
@@ -101,36 +174,67 @@ public class CityController {
     @PutMapping("/{id}")
     public ResponseEntity<CityDto> updateCity(
             @PathVariable Long id, @RequestBody CityDto cityDetails) {
-        City city =
+        City updatedCity =
                 cityService
-                        .getCityById(id)
+                        .updateCity(id, cityDetails)
                         .orElseThrow(() -> new ResourceNotFoundException("City not found with id: " + id));
-        city.setName(cityDetails.getName());
-        city.setCountry(cityDetails.getCountry());
-
-        City updatedCity = cityService.saveCity(city);
         return ResponseEntity.ok(updatedCity.dto());
     }
 
     /**
      * Delete an city API.
      *
-     * @param id ID of the city to be deleted
-     * @return No content
+     * @param id    ID of the city to be deleted
+     * @param async Whether to delete the city in the background
+     * @return No content, or the started deletion job when deleting in the background
      */
-    @Operation(summary = "Delete an city", description = "Delete an city record by ID")
+    @Operation(
+            summary = "Delete an city",
+            description = "Delete an city record by ID along with all of its records, optionally in the background")
     @ApiResponses(
             value = {
+                    @ApiResponse(responseCode = "202", description = "City deletion started"),
                     @ApiResponse(responseCode = "204", description = "City deleted"),
-                    @ApiResponse(responseCode = "404", description = "City not found")
+                    @ApiResponse(responseCode = "404", description = "City not found"),
+                    @ApiResponse(responseCode = "503", description = "Too many city deletions in progress")
             })
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteCity(@PathVariable Long id) {
+    public ResponseEntity<CityDeletionJobDto> deleteCity(
+            @PathVariable Long id,
+            @RequestParam(value = "async", defaultValue = "false")
+            @Parameter(description = "Delete the city in the background and report the progress of the deletion") boolean async) {
         cityService
                 .getCityById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("City not found with id: " + id));
 
+        if (async) {
+            CityDeletionJobDto job = cityService.startCityDeletion(id);
+            return ResponseEntity.accepted().location(URI.create("/api/city/deletions/" + job.getId())).body(job);
+        }
         cityService.deleteCity(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Get the progress of a city deletion API.
+     *
+     * @param jobId ID of the deletion job
+     * @return The deletion job with the number of records deleted so far
+     */
+    @Operation(
+            summary = "Get city deletion progress",
+            description = "Retrieve the status and the number of records deleted so far of a background city deletion")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Deletion job found"),
+                    @ApiResponse(responseCode = "404", description = "Deletion job not found")
+            })
+    @GetMapping("/deletions/{jobId}")
+    public ResponseEntity<CityDeletionJobDto> getCityDeletion(@PathVariable String jobId) {
+        CityDeletionJobDto job =
+                cityService
+                        .getCityDeletion(jobId)
+                        .orElseThrow(() -> new ResourceNotFoundException("City deletion not found with id: " + jobId));
+        return ResponseEntity.ok(job);
+    }
 }
@@ -1,22 +1,40 @@
 package com.project.citymanagement.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.citymanagement.aspect.Bulkhead;
 import com.project.citymanagement.entity.Electricity;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.filter.RequestCost;
+import com.project.citymanagement.model.bulk.BulkCreateResultDto;
+import com.project.citymanagement.model.bulk.BulkDeleteResultDto;
 import com.project.citymanagement.model.electricity.ElectricityDataRequest;
 import com.project.citymanagement.model.electricity.ElectricityDto;
+import com.project.citymanagement.model.electricity.ElectricityPatchRequest;
 import com.project.citymanagement.service.ElectricityService;
+import com.project.citymanagement.util.EntityTags;
+import com.project.citymanagement.util.JsonArrayReader;
+import com.project.citymanagement.util.NdjsonReader;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +46,7 @@ import java.util.Map;
 @RequestMapping("/api/electricity")
 @CrossOrigin(origins = "http://localhost:3000")
 @Tag(name = "Electricity record APIs", description = "API Operations related to managing electricity records")
+@Bulkhead(Bulkhead.CRUD)
 public class ElectricityController {
 
     /**
@@ -36,12 +55,25 @@ public class ElectricityController {
     @Autowired
     private ElectricityService electricityService;
 
+    /**
+     * The object mapper binding the items of bulk requests.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Largest number of records accepted by one bulk request.
+     */
+    @Value("${bulk.max-items:5000}")
+    private int maxBatchItems;
+
     /**
      * Get all electricity records API.
      *
      * @return List of all electricity records
      */
     @Operation(summary = "Get all electricity records", description = "Retrieve a list of all electricity records")
+    @RequestCost(RequestCost.EXPENSIVE)
     @GetMapping
     public ResponseEntity<List<ElectricityDto>> getAllElectricityRecords() {
         List<ElectricityDto> electricityDtoList = ElectricityService.recordsToDto(electricityService.getAllElectricityRecords());
@@ -54,6 +86,7 @@ public class ElectricityController {
      * @return List of all electricity records
      */
     @Operation(summary = "Get all electricity records", description = "Retrieve a list of all electricity records")
+    @RequestCost(RequestCost.EXPENSIVE)
     @GetMapping("/city/{cityId}")
     public ResponseEntity<List<ElectricityDto>> getAllElectricityRecordsForCity(@Parameter(description = "ID of the city record to be retrieved") @PathVariable Long cityId) {
         List<ElectricityDto> electricityDtoList = ElectricityService.recordsToDto(electricityService.getAllElectricityDataForCity(cityId));
@@ -78,6 +111,7 @@ public class ElectricityController {
                     @ApiResponse(responseCode = "400", description = "Invalid date range provided"),
             }
     )
+    @RequestCost(RequestCost.EXPENSIVE)
     @GetMapping("/city/{cityId}/period")
     public ResponseEntity<List<ElectricityDto>> getElectricityDataForPeriod(
             @PathVariable Long cityId,
@@ -94,10 +128,49 @@ public class ElectricityController {
         }
 
         // Fetch data from the service
-        List<ElectricityDto> electricityDtoList = ElectricityService.recordsToDto(electricityService.getElectricityDataForPeriod(cityId, start, end));
+        List<ElectricityDto> electricityDtoList = electricityService.getElectricityDataForPeriod(cityId, start, end);
         return ResponseEntity.ok(electricityDtoList);
     }
 
+    /**
+     * Stream electricity records for a city within a specific date range API. Records are written
+     * one by one in ID order as NDJSON or server-sent events, as fast as the client reads them.
+     *
+     * @param cityId    ID of the city
+     * @param startDate Start date (inclusive)
+     * @param endDate   End date (inclusive)
+     * @return Stream of electricity records for the specified period
+     */
+    @Operation(
+            summary = "Stream electricity data for a specific period",
+            description = "Stream electricity data for a city within a specified date range as NDJSON or server-sent events"
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Electricity data streamed successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range provided"),
+            }
+    )
+    @RequestCost(RequestCost.EXPENSIVE)
+    @GetMapping(value = "/city/{cityId}/period/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<ElectricityDto> streamElectricityDataForPeriod(
+            @PathVariable Long cityId,
+            @RequestParam("startDate") @Parameter(description = "Start date in yyyy-MM-dd format") String startDate,
+            @RequestParam("endDate") @Parameter(description = "End date in yyyy-MM-dd format") String endDate) {
+
+        // Parse dates
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+
+        // Validate date range
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before or equal to end date.");
+        }
+
+        return electricityService.streamElectricityDataForPeriod(cityId, start, end);
+    }
+
     /**
      * Get electricity record by ID API.
      *
@@ -120,7 +193,7 @@ public class ElectricityController {
                         .getElectricityById(id)
                         .orElseThrow(
                                 () -> new ResourceNotFoundException("Electricity record not found with id: " + id));
-        return ResponseEntity.ok(electricity.dto());
+        return ResponseEntity.ok().headers(EntityTags.headers(electricity.getVersion())).body(electricity.dto());
     }
 
     /**
@@ -130,18 +203,77 @@ public class ElectricityController {
      * @return Created electricity record object
      */
     @Operation(summary = "Create a new electricity record", description = "Create a new electricity record record")
-    @ApiResponse(responseCode = "201", description = "Electricity record created successfully")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Electricity record created successfully"),
+                    @ApiResponse(responseCode = "202", description = "Electricity record buffered, written within the flush interval"),
+                    @ApiResponse(responseCode = "503", description = "Too many readings waiting to be written")
+            })
     @PostMapping
     public ResponseEntity<ElectricityDto> createElectricityRecord(@Valid @RequestBody ElectricityDataRequest request) {
         Electricity electricity = electricityService.saveElectricityData(request);
+        if (electricity.getId() == null) {
+            return ResponseEntity.accepted().body(electricity.dto());
+        }
         return ResponseEntity.ok(electricity.dto());
     }
 
+    /**
+     * Create many electricity records API.
+     *
+     * @param request Request whose body holds a JSON array of electricity records
+     * @return Status of every record, in request order
+     * @throws IOException If the body cannot be read
+     */
+    @Operation(summary = "Create many electricity records", description = "Create up to bulk.max-items electricity records in one transaction")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Valid records created, invalid ones reported per item"),
+                    @ApiResponse(responseCode = "400", description = "Body is not a JSON array of records"),
+                    @ApiResponse(responseCode = "413", description = "Too many records in one request")
+            })
+    @Bulkhead(Bulkhead.IMPORT)
+    @RequestCost(RequestCost.EXPENSIVE)
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkCreateResultDto> createElectricityRecords(HttpServletRequest request) throws IOException {
+        List<ElectricityDataRequest> requests;
+        try {
+            requests = JsonArrayReader.readAll(objectMapper, request.getInputStream(), ElectricityDataRequest.class, maxBatchItems);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("Invalid JSON array: " + e.getOriginalMessage(), e,
+                    new ServletServerHttpRequest(request));
+        }
+        return ResponseEntity.ok(electricityService.saveElectricityDataBatch(requests));
+    }
+
+    /**
+     * Create many electricity records from newline-delimited JSON API.
+     *
+     * @param request Request whose body holds one electricity record per line
+     * @return Status of every record, in request order
+     * @throws IOException If the body cannot be read
+     */
+    @Operation(summary = "Create many electricity records from NDJSON", description = "Create up to bulk.max-items electricity records, one JSON object per line, in one transaction")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Valid records created, invalid ones reported per item"),
+                    @ApiResponse(responseCode = "413", description = "Too many records in one request")
+            })
+    @Bulkhead(Bulkhead.IMPORT)
+    @RequestCost(RequestCost.EXPENSIVE)
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkCreateResultDto> createElectricityRecordsFromNdjson(HttpServletRequest request) throws IOException {
+        List<ElectricityDataRequest> requests =
+                NdjsonReader.readAll(objectMapper, request.getInputStream(), ElectricityDataRequest.class, maxBatchItems);
+        return ResponseEntity.ok(electricityService.saveElectricityDataBatch(requests));
+    }
+
     /**
      * Update an existing electricity record API.
      *
      * @param id      ID of the electricity record to be updated
      * @param request Updated electricity record object
+     * @param ifMatch Entity tag of the version the client read, if any
      * @return Updated electricity record object
      */
     @Operation(
@@ -150,14 +282,90 @@ public class ElectricityController {
     @ApiResponses(
             value = {
                     @ApiResponse(responseCode = "200", description = "Electricity record updated"),
-                    @ApiResponse(responseCode = "404", description = "Electricity record not found")
+                    @ApiResponse(responseCode = "404", description = "Electricity record not found"),
+                    @ApiResponse(responseCode = "409", description = "Electricity record modified since it was read")
             })
     @PutMapping("/{id}")
     public ResponseEntity<ElectricityDto> updateElectricityRecord(
             @Parameter(description = "ID of the electricity record to be updated") @PathVariable Long id,
-            @Valid @RequestBody ElectricityDataRequest request) {
-        Electricity updatedElectricity = electricityService.updateElectricityData(id, request);
-        return ResponseEntity.ok(updatedElectricity.dto());
+            @Valid @RequestBody ElectricityDataRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Electricity updatedElectricity =
+                electricityService.updateElectricityData(id, request, EntityTags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().headers(EntityTags.headers(updatedElectricity.getVersion())).body(updatedElectricity.dto());
+    }
+
+    /**
+     * Partially update an existing electricity record API.
+     *
+     * @param id      ID of the electricity record to be updated
+     * @param request Fields to be updated, the others are left unchanged
+     * @param ifMatch Entity tag of the version the client read, if any
+     * @return No content
+     */
+    @Operation(
+            summary = "Partially update an existing electricity record",
+            description = "Update only the supplied fields of an existing electricity record")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "204", description = "Electricity record updated"),
+                    @ApiResponse(responseCode = "404", description = "Electricity record or city not found"),
+                    @ApiResponse(responseCode = "409", description = "Electricity record modified since it was read")
+            })
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchElectricityRecord(
+            @Parameter(description = "ID of the electricity record to be updated") @PathVariable Long id,
+            @RequestBody ElectricityPatchRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
+        if (!electricityService.patchElectricityData(id, request, expectedVersion)) {
+            throw new ResourceNotFoundException("Electricity record not found with id: " + id);
+        }
+        // The new version is only known when the update was conditional
+        return ResponseEntity.noContent()
+                .headers(EntityTags.headers(expectedVersion == null ? null : expectedVersion + 1))
+                .build();
+    }
+
+    /**
+     * Delete the electricity records of a city within a date range API.
+     *
+     * @param cityId    ID of the city
+     * @param startDate Start date (inclusive)
+     * @param endDate   End date (inclusive)
+     * @param area      Area of the records to delete, all areas when omitted
+     * @return Number of deleted records
+     */
+    @Operation(
+            summary = "Delete electricity data for a specific period",
+            description = "Delete the electricity records of a city within a date range, optionally limited to one area"
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Electricity records deleted"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range provided"),
+            }
+    )
+    @Bulkhead(Bulkhead.IMPORT)
+    @RequestCost(RequestCost.EXPENSIVE)
+    @DeleteMapping("/city/{cityId}/period")
+    public ResponseEntity<BulkDeleteResultDto> deleteElectricityDataForPeriod(
+            @PathVariable Long cityId,
+            @RequestParam("startDate") @Parameter(description = "Start date in yyyy-MM-dd format") String startDate,
+            @RequestParam("endDate") @Parameter(description = "End date in yyyy-MM-dd format") String endDate,
+            @RequestParam(value = "area", required = false) @Parameter(description = "Area of the records to delete") String area) {
+
+        // Parse dates
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+
+        // Validate date range
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before or equal to end date.");
+        }
+
+        long deleted = electricityService.deleteElectricityDataForPeriod(cityId, start, end, area);
+        return ResponseEntity.ok(new BulkDeleteResultDto(deleted));
     }
 
     /**
@@ -175,11 +383,6 @@ public class ElectricityController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteElectricityRecord(
             @Parameter(description = "ID of the electricity record to be deleted") @PathVariable Long id) {
-        electricityService
-                .getElectricityById(id)
-                .orElseThrow(
-                        () -> new ResourceNotFoundException("Electricity record not found with id: " + id));
-
         electricityService.deleteElectricityData(id);
         return ResponseEntity.noContent().build();
     }
@@ -203,6 +406,8 @@ public class ElectricityController {
                     @ApiResponse(responseCode = "500", description = "Internal server error during CSV processing")
             }
     )
+    @Bulkhead(Bulkhead.IMPORT)
+    @RequestCost(RequestCost.EXPENSIVE)
     @PostMapping("/city/{cityId}/import")
     public ResponseEntity<String> importElectricityDataForCity(
             @PathVariable Long cityId,
@@ -231,9 +436,11 @@ public class ElectricityController {
      * @return List of electricity records with outages
      */
     @Operation(summary = "Get all outage data", description = "Retrieve a list of electricity records with outages")
+    @Bulkhead(Bulkhead.ANALYTICS)
+    @RequestCost(RequestCost.EXPENSIVE)
     @GetMapping("/outages")
     public ResponseEntity<List<ElectricityDto>> getOutageData() {
-        List<ElectricityDto> electricityDtoList = ElectricityService.recordsToDto(electricityService.getOutageData());
+        List<ElectricityDto> electricityDtoList = electricityService.getOutageData();
         return ResponseEntity.ok(electricityDtoList);
     }
 
@@ -243,6 +450,8 @@ public class ElectricityController {
      * @return List of area trends with total consumption
      */
     @Operation(summary = "Analyze area trends", description = "Retrieve area-wise electricity consumption trends")
+    @Bulkhead(Bulkhead.ANALYTICS)
+    @RequestCost(RequestCost.EXPENSIVE)
     @GetMapping("/area-trends")
     public ResponseEntity<List<Map<String, Object>>> getAreaTrends() {
         return ResponseEntity.ok(electricityService.getAreaTrends());
@@ -1,17 +1,26 @@
 package com.project.citymanagement.controller;
 
+import com.project.citymanagement.aspect.Bulkhead;
 import com.project.citymanagement.entity.Waste;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.filter.RequestCost;
+import com.project.citymanagement.model.bulk.BulkDeleteResultDto;
+import com.project.citymanagement.model.waste.WasteDataRequest;
+import com.project.citymanagement.model.waste.WasteDto;
+import com.project.citymanagement.model.waste.WastePatchRequest;
 import com.project.citymanagement.service.WasteService;
+import com.project.citymanagement.util.EntityTags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -19,20 +28,23 @@ import java.util.List;
 @RequestMapping("/api/waste")
 @CrossOrigin(origins = "http://localhost:3000")
 @Tag(name = "Waste Management APIs", description = "API Operations related to managing waste records")
+@Bulkhead(Bulkhead.CRUD)
 public class WasteController {
 
   @Autowired
   private WasteService wasteService;
 
   @Operation(summary = "Get all waste records", description = "Retrieve a list of all waste records")
+  @RequestCost(RequestCost.EXPENSIVE)
   @GetMapping
-  public List<Waste> getAllWasteRecords() {
+  public List<WasteDto> getAllWasteRecords() {
     return wasteService.getAllWasteRecords();
   }
 
   @Operation(summary = "Get all waste records for a city", description = "Retrieve a list of all waste records for a specific city")
+  @RequestCost(RequestCost.EXPENSIVE)
   @GetMapping("/city/{cityId}")
-  public List<Waste> getAllWasteRecordsForCity(@PathVariable Long cityId) {
+  public List<WasteDto> getAllWasteRecordsForCity(@PathVariable Long cityId) {
     return wasteService.getAllWasteDataForCity(cityId);
   }
 
@@ -54,8 +66,9 @@ public class WasteController {
           @ApiResponse(responseCode = "400", description = "Invalid date range provided"),
       }
   )
+  @RequestCost(RequestCost.EXPENSIVE)
   @GetMapping("/city/{cityId}/period")
-  public List<Waste> getWasteDataForPeriod(
+  public List<WasteDto> getWasteDataForPeriod(
       @PathVariable Long cityId,
       @RequestParam("startDate") @Parameter(description = "Start date in yyyy-MM-dd format") String startDate,
       @RequestParam("endDate") @Parameter(description = "End date in yyyy-MM-dd format") String endDate) {
@@ -80,37 +93,96 @@ public class WasteController {
           @ApiResponse(responseCode = "404", description = "Waste record not found")
       })
   @GetMapping("/{id}")
-  public ResponseEntity<Waste> getWasteRecordById(@PathVariable Long id) {
+  public ResponseEntity<WasteDto> getWasteRecordById(@PathVariable Long id) {
     Waste waste = wasteService.getWasteRecordById(id)
         .orElseThrow(() -> new ResourceNotFoundException("Waste record not found with id: " + id));
-    return ResponseEntity.ok(waste);
+    return ResponseEntity.ok().headers(EntityTags.headers(waste.getVersion())).body(waste.dto());
   }
 
   @Operation(summary = "Create a new waste record", description = "Create a new waste record")
-  @ApiResponse(responseCode = "201", description = "Waste record created successfully")
+  @ApiResponses(
+      value = {
+          @ApiResponse(responseCode = "200", description = "Waste record created successfully"),
+          @ApiResponse(responseCode = "404", description = "City not found")
+      })
   @PostMapping
-  public Waste createWasteRecord(@RequestBody Waste waste) {
-    return wasteService.saveWasteData(waste);
+  public WasteDto createWasteRecord(@Valid @RequestBody WasteDataRequest request) {
+    return wasteService.saveWasteData(request).dto();
   }
 
   @Operation(summary = "Update an existing waste record", description = "Update an existing waste record's details")
   @ApiResponses(
       value = {
           @ApiResponse(responseCode = "200", description = "Waste record updated"),
-          @ApiResponse(responseCode = "404", description = "Waste record not found")
+          @ApiResponse(responseCode = "404", description = "Waste record or city not found"),
+          @ApiResponse(responseCode = "409", description = "Waste record modified since it was read")
       })
   @PutMapping("/{id}")
-  public ResponseEntity<Waste> updateWasteRecord(@PathVariable Long id, @RequestBody Waste wasteDetails) {
-    Waste waste = wasteService.getWasteRecordById(id)
-        .orElseThrow(() -> new ResourceNotFoundException("Waste record not found with id: " + id));
+  public ResponseEntity<WasteDto> updateWasteRecord(@PathVariable Long id, @Valid @RequestBody WasteDataRequest request,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    Waste updatedWaste = wasteService.updateWasteData(id, request, EntityTags.expectedVersion(ifMatch));
+    return ResponseEntity.ok().headers(EntityTags.headers(updatedWaste.getVersion())).body(updatedWaste.dto());
+  }
 
-    waste.setArea(wasteDetails.getArea());
-    waste.setWasteType(wasteDetails.getWasteType());
-    waste.setQuantityKg(wasteDetails.getQuantityKg());
-    waste.setCollectionSchedule(wasteDetails.getCollectionSchedule());
+  @Operation(summary = "Partially update an existing waste record", description = "Update only the supplied fields of an existing waste record")
+  @ApiResponses(
+      value = {
+          @ApiResponse(responseCode = "204", description = "Waste record updated"),
+          @ApiResponse(responseCode = "404", description = "Waste record or city not found"),
+          @ApiResponse(responseCode = "409", description = "Waste record modified since it was read")
+      })
+  @PatchMapping("/{id}")
+  public ResponseEntity<Void> patchWasteRecord(@PathVariable Long id, @RequestBody WastePatchRequest request,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    Long expectedVersion = EntityTags.expectedVersion(ifMatch);
+    if (!wasteService.patchWasteData(id, request, expectedVersion)) {
+      throw new ResourceNotFoundException("Waste record not found with id: " + id);
+    }
+    // The new version is only known when the update was conditional
+    return ResponseEntity.noContent()
+        .headers(EntityTags.headers(expectedVersion == null ? null : expectedVersion + 1))
+        .build();
+  }
 
-    Waste updatedWaste = wasteService.saveWasteData(waste);
-    return ResponseEntity.ok(updatedWaste);
+  /**
+   * Delete the waste records of a city within a date range API.
+   *
+   * @param cityId    ID of the city
+   * @param startDate Start date (inclusive)
+   * @param endDate   End date (inclusive)
+   * @param area      Area of the records to delete, all areas when omitted
+   * @return Number of deleted records
+   */
+  @Operation(
+      summary = "Delete waste data for a specific period",
+      description = "Delete the waste records of a city within a date range, optionally limited to one area"
+  )
+  @ApiResponses(
+      value = {
+          @ApiResponse(responseCode = "200", description = "Waste records deleted"),
+          @ApiResponse(responseCode = "400", description = "Invalid date range provided"),
+      }
+  )
+  @Bulkhead(Bulkhead.IMPORT)
+  @RequestCost(RequestCost.EXPENSIVE)
+  @DeleteMapping("/city/{cityId}/period")
+  public ResponseEntity<BulkDeleteResultDto> deleteWasteDataForPeriod(
+      @PathVariable Long cityId,
+      @RequestParam("startDate") @Parameter(description = "Start date in yyyy-MM-dd format") String startDate,
+      @RequestParam("endDate") @Parameter(description = "End date in yyyy-MM-dd format") String endDate,
+      @RequestParam(value = "area", required = false) @Parameter(description = "Area of the records to delete") String area) {
+
+    // Parse dates
+    LocalDate start = LocalDate.parse(startDate);
+    LocalDate end = LocalDate.parse(endDate);
+
+    // Validate date range
+    if (start.isAfter(end)) {
+      throw new IllegalArgumentException("Start date must be before or equal to end date.");
+    }
+
+    long deleted = wasteService.deleteWasteDataForPeriod(cityId, start, end, area);
+    return ResponseEntity.ok(new BulkDeleteResultDto(deleted));
   }
 
   @Operation(summary = "Delete a waste record", description = "Delete a waste record by ID")
@@ -121,9 +193,6 @@ public class WasteController {
       })
   @DeleteMapping("/{id}")
   public ResponseEntity<Void> deleteWasteRecord(@PathVariable Long id) {
-    wasteService.getWasteRecordById(id)
-        .orElseThrow(() -> new ResourceNotFoundException("Waste record not found with id: " + id));
-
     wasteService.deleteWasteData(id);
     return ResponseEntity.noContent().build();
   }
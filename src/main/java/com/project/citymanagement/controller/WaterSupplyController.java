@@ -1,22 +1,40 @@
 package com.project.citymanagement.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.citymanagement.aspect.Bulkhead;
 import com.project.citymanagement.entity.WaterSupply;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.filter.RequestCost;
+import com.project.citymanagement.model.bulk.BulkCreateResultDto;
+import com.project.citymanagement.model.bulk.BulkDeleteResultDto;
 import com.project.citymanagement.model.watersupply.WaterSupplyDataRequest;
 import com.project.citymanagement.model.watersupply.WaterSupplyDto;
+import com.project.citymanagement.model.watersupply.WaterSupplyPatchRequest;
 import com.project.citymanagement.service.WaterSupplyService;
+import com.project.citymanagement.util.EntityTags;
+import com.project.citymanagement.util.JsonArrayReader;
+import com.project.citymanagement.util.NdjsonReader;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -24,12 +42,20 @@ import java.util.List;
 @RequestMapping("/api/water-supply")
 @CrossOrigin(origins = "http://localhost:3000")
 @Tag(name = "Water Supply APIs", description = "API Operations related to managing water supply records")
+@Bulkhead(Bulkhead.CRUD)
 public class WaterSupplyController {
 
     @Autowired
     private WaterSupplyService waterSupplyService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${bulk.max-items:5000}")
+    private int maxBatchItems;
+
     @Operation(summary = "Get all water supply records", description = "Retrieve a list of all water supply records")
+    @RequestCost(RequestCost.EXPENSIVE)
     @GetMapping
     public ResponseEntity<List<WaterSupplyDto>> getAllWaterSupplyRecords() {
         List<WaterSupplyDto> waterSupplyDtoList = WaterSupplyService.recordsToDto(waterSupplyService.getAllWaterSupplyRecords());
@@ -37,6 +63,7 @@ public class WaterSupplyController {
     }
 
     @Operation(summary = "Get all water supply records for a city", description = "Retrieve a list of all water supply records for a specific city")
+    @RequestCost(RequestCost.EXPENSIVE)
     @GetMapping("/city/{cityId}")
     public ResponseEntity<List<WaterSupplyDto>> getAllWaterSupplyRecordsForCity(@PathVariable Long cityId) {
         List<WaterSupplyDto> waterSupplyDtoList = WaterSupplyService.recordsToDto(waterSupplyService.getAllWaterSupplyDataForCity(cityId));
@@ -61,6 +88,7 @@ public class WaterSupplyController {
                     @ApiResponse(responseCode = "400", description = "Invalid date range provided"),
             }
     )
+    @RequestCost(RequestCost.EXPENSIVE)
     @GetMapping("/city/{cityId}/period")
     public ResponseEntity<List<WaterSupplyDto>> getWaterSupplyDataForPeriod(
             @PathVariable Long cityId,
@@ -77,10 +105,49 @@ public class WaterSupplyController {
         }
 
         // Fetch data from the service
-        List<WaterSupplyDto> waterSupplyDtoList = WaterSupplyService.recordsToDto(waterSupplyService.getWaterSupplyDataForPeriod(cityId, start, end));
+        List<WaterSupplyDto> waterSupplyDtoList = waterSupplyService.getWaterSupplyDataForPeriod(cityId, start, end);
         return ResponseEntity.ok(waterSupplyDtoList);
     }
 
+    /**
+     * Stream water supply records for a city within a specific date range API. Records are written
+     * one by one in ID order as NDJSON or server-sent events, as fast as the client reads them.
+     *
+     * @param cityId    ID of the city
+     * @param startDate Start date (inclusive)
+     * @param endDate   End date (inclusive)
+     * @return Stream of water supply records for the specified period
+     */
+    @Operation(
+            summary = "Stream water supply data for a specific period",
+            description = "Stream water supply data for a city within a specified date range as NDJSON or server-sent events"
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Water supply data streamed successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range provided"),
+            }
+    )
+    @RequestCost(RequestCost.EXPENSIVE)
+    @GetMapping(value = "/city/{cityId}/period/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<WaterSupplyDto> streamWaterSupplyDataForPeriod(
+            @PathVariable Long cityId,
+            @RequestParam("startDate") @Parameter(description = "Start date in yyyy-MM-dd format") String startDate,
+            @RequestParam("endDate") @Parameter(description = "End date in yyyy-MM-dd format") String endDate) {
+
+        // Parse dates
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+
+        // Validate date range
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before or equal to end date.");
+        }
+
+        return waterSupplyService.streamWaterSupplyDataForPeriod(cityId, start, end);
+    }
+
     @Operation(summary = "Get water supply record by ID", description = "Retrieve a specific water supply record by its ID")
     @ApiResponses(
             value = {
@@ -91,27 +158,163 @@ public class WaterSupplyController {
     public ResponseEntity<WaterSupplyDto> getWaterSupplyRecordById(@PathVariable Long id) {
         WaterSupply waterSupply = waterSupplyService.getWaterSupplyRecordById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Water supply record not found with id: " + id));
-        return ResponseEntity.ok(waterSupply.dto());
+        return ResponseEntity.ok().headers(EntityTags.headers(waterSupply.getVersion())).body(waterSupply.dto());
     }
 
     @Operation(summary = "Create a new water supply record", description = "Create a new water supply record")
-    @ApiResponse(responseCode = "201", description = "Water Supply record created successfully")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Water Supply record created successfully"),
+                    @ApiResponse(responseCode = "202", description = "Water Supply record buffered, written within the flush interval"),
+                    @ApiResponse(responseCode = "503", description = "Too many readings waiting to be written")
+            })
     @PostMapping
     public ResponseEntity<WaterSupplyDto> createWaterSupplyRecord(@Valid @RequestBody WaterSupplyDataRequest request) {
         WaterSupply waterSupply = waterSupplyService.saveWaterSupplyData(request);
+        if (waterSupply.getId() == null) {
+            return ResponseEntity.accepted().body(waterSupply.dto());
+        }
         return ResponseEntity.ok(waterSupply.dto());
     }
 
+    /**
+     * Create many water supply records API.
+     *
+     * @param request Request whose body holds a JSON array of water supply records
+     * @return Status of every record, in request order
+     * @throws IOException If the body cannot be read
+     */
+    @Operation(summary = "Create many water supply records", description = "Create up to bulk.max-items water supply records in one transaction")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Valid records created, invalid ones reported per item"),
+                    @ApiResponse(responseCode = "400", description = "Body is not a JSON array of records"),
+                    @ApiResponse(responseCode = "413", description = "Too many records in one request")
+            })
+    @Bulkhead(Bulkhead.IMPORT)
+    @RequestCost(RequestCost.EXPENSIVE)
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkCreateResultDto> createWaterSupplyRecords(HttpServletRequest request) throws IOException {
+        List<WaterSupplyDataRequest> requests;
+        try {
+            requests = JsonArrayReader.readAll(objectMapper, request.getInputStream(), WaterSupplyDataRequest.class, maxBatchItems);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("Invalid JSON array: " + e.getOriginalMessage(), e,
+                    new ServletServerHttpRequest(request));
+        }
+        return ResponseEntity.ok(waterSupplyService.saveWaterSupplyDataBatch(requests));
+    }
+
+    /**
+     * Create many water supply records from newline-delimited JSON API.
+     *
+     * @param request Request whose body holds one water supply record per line
+     * @return Status of every record, in request order
+     * @throws IOException If the body cannot be read
+     */
+    @Operation(summary = "Create many water supply records from NDJSON", description = "Create up to bulk.max-items water supply records, one JSON object per line, in one transaction")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Valid records created, invalid ones reported per item"),
+                    @ApiResponse(responseCode = "413", description = "Too many records in one request")
+            })
+    @Bulkhead(Bulkhead.IMPORT)
+    @RequestCost(RequestCost.EXPENSIVE)
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkCreateResultDto> createWaterSupplyRecordsFromNdjson(HttpServletRequest request) throws IOException {
+        List<WaterSupplyDataRequest> requests =
+                NdjsonReader.readAll(objectMapper, request.getInputStream(), WaterSupplyDataRequest.class, maxBatchItems);
+        return ResponseEntity.ok(waterSupplyService.saveWaterSupplyDataBatch(requests));
+    }
+
     @Operation(summary = "Update an existing water supply record", description = "Update an existing water supply record's details")
     @ApiResponses(
             value = {
                     @ApiResponse(responseCode = "200", description = "Water Supply record updated"),
-                    @ApiResponse(responseCode = "404", description = "Water Supply record not found")
+                    @ApiResponse(responseCode = "404", description = "Water Supply record not found"),
+                    @ApiResponse(responseCode = "409", description = "Water Supply record modified since it was read")
             })
     @PutMapping("/{id}")
-    public ResponseEntity<WaterSupplyDto> updateWaterSupplyRecord(@PathVariable Long id, @Valid @RequestBody WaterSupplyDataRequest request) {
-        WaterSupply updatedWaterSupply = waterSupplyService.updateWaterSupplyData(id, request);
-        return ResponseEntity.ok(updatedWaterSupply.dto());
+    public ResponseEntity<WaterSupplyDto> updateWaterSupplyRecord(
+            @PathVariable Long id,
+            @Valid @RequestBody WaterSupplyDataRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        WaterSupply updatedWaterSupply =
+                waterSupplyService.updateWaterSupplyData(id, request, EntityTags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().headers(EntityTags.headers(updatedWaterSupply.getVersion())).body(updatedWaterSupply.dto());
+    }
+
+    /**
+     * Partially update an existing Water Supply record API.
+     *
+     * @param id      ID of the Water Supply record to be updated
+     * @param request Fields to be updated, the others are left unchanged
+     * @param ifMatch Entity tag of the version the client read, if any
+     * @return No content
+     */
+    @Operation(
+            summary = "Partially update an existing Water Supply record",
+            description = "Update only the supplied fields of an existing Water Supply record")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "204", description = "Water Supply record updated"),
+                    @ApiResponse(responseCode = "404", description = "Water Supply record or city not found"),
+                    @ApiResponse(responseCode = "409", description = "Water Supply record modified since it was read")
+            })
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchWaterSupplyRecord(
+            @PathVariable Long id,
+            @RequestBody WaterSupplyPatchRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
+        if (!waterSupplyService.patchWaterSupplyData(id, request, expectedVersion)) {
+            throw new ResourceNotFoundException("Water Supply record not found with id: " + id);
+        }
+        // The new version is only known when the update was conditional
+        return ResponseEntity.noContent()
+                .headers(EntityTags.headers(expectedVersion == null ? null : expectedVersion + 1))
+                .build();
+    }
+
+    /**
+     * Delete the water supply records of a city within a date range API.
+     *
+     * @param cityId    ID of the city
+     * @param startDate Start date (inclusive)
+     * @param endDate   End date (inclusive)
+     * @param area      Area of the records to delete, all areas when omitted
+     * @return Number of deleted records
+     */
+    @Operation(
+            summary = "Delete water supply data for a specific period",
+            description = "Delete the water supply records of a city within a date range, optionally limited to one area"
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Water supply records deleted"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range provided"),
+            }
+    )
+    @Bulkhead(Bulkhead.IMPORT)
+    @RequestCost(RequestCost.EXPENSIVE)
+    @DeleteMapping("/city/{cityId}/period")
+    public ResponseEntity<BulkDeleteResultDto> deleteWaterSupplyDataForPeriod(
+            @PathVariable Long cityId,
+            @RequestParam("startDate") @Parameter(description = "Start date in yyyy-MM-dd format") String startDate,
+            @RequestParam("endDate") @Parameter(description = "End date in yyyy-MM-dd format") String endDate,
+            @RequestParam(value = "area", required = false) @Parameter(description = "Area of the records to delete") String area) {
+
+        // Parse dates
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+
+        // Validate date range
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before or equal to end date.");
+        }
+
+        long deleted = waterSupplyService.deleteWaterSupplyDataForPeriod(cityId, start, end, area);
+        return ResponseEntity.ok(new BulkDeleteResultDto(deleted));
     }
 
     @Operation(summary = "Delete a water supply record", description = "Delete a water supply record by ID")
@@ -122,9 +325,6 @@ public class WaterSupplyController {
             })
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteWaterSupplyRecord(@PathVariable Long id) {
-        waterSupplyService.getWaterSupplyRecordById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Water supply record not found with id: " + id));
-
         waterSupplyService.deleteWaterSupplyData(id);
         return ResponseEntity.noContent().build();
     }
@@ -148,6 +348,8 @@ public class WaterSupplyController {
                     @ApiResponse(responseCode = "500", description = "Internal server error during CSV processing")
             }
     )
+    @Bulkhead(Bulkhead.IMPORT)
+    @RequestCost(RequestCost.EXPENSIVE)
     @PostMapping("/city/{cityId}/import")
     public ResponseEntity<String> importWaterSupplyDataForCity(
             @PathVariable Long cityId,
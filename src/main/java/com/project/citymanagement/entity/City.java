@@ -4,7 +4,11 @@ import com.project.citymanagement.model.city.CityDto;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.List;
@@ -15,6 +19,8 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "city")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "city")
 public class City {
 
   @Id
@@ -25,13 +31,21 @@ public class City {
 
   private String country;
 
-  @OneToMany(mappedBy = "city", cascade = CascadeType.ALL)
+  // Removal is not cascaded: it would load every record of the city, see CityService#deleteCity.
+  // Left out of toString, equals and hashCode, which would otherwise load them.
+  @OneToMany(mappedBy = "city", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
   private List<WaterSupply> waterSupplyData;
 
-  @OneToMany(mappedBy = "city", cascade = CascadeType.ALL)
+  @OneToMany(mappedBy = "city", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
   private List<Electricity> electricityData;
 
-  @OneToMany(mappedBy = "city", cascade = CascadeType.ALL)
+  @OneToMany(mappedBy = "city", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
   private List<Waste> wasteData;
 
   /**
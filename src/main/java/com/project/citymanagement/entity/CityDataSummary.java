@@ -0,0 +1,44 @@
+package com.project.citymanagement.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * The number of records of one type a city has and the dates they cover, maintained by
+ * {@code CityDataSummaryService} as records are written.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(CityDataSummary.Key.class)
+@Table(name = "city_data_summary")
+public class CityDataSummary {
+  @Id
+  private Long cityId;
+
+  @Id
+  @Column(length = 32)
+  private String recordType; // Table of the records, e.g. "electricity"
+
+  private long recordCount;
+
+  private LocalDate firstDate;
+
+  private LocalDate lastDate;
+
+  /** The identifier of a summary. */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+    private Long cityId;
+
+    private String recordType;
+  }
+}
@@ -0,0 +1,62 @@
+package com.project.citymanagement.entity;
+
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.analytics.ConsumptionAnomalyDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "consumption_anomaly", indexes = @Index(name = "idx_consumption_anomaly_city_date", columnList = "city_id, date"))
+public class ConsumptionAnomaly {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private UtilityType type;
+
+  @Column(name = "city_id", nullable = false)
+  private Long cityId;
+
+  private String area;
+
+  private LocalDate date;
+
+  private Double consumption;
+
+  private Double expectedConsumption; // Running mean of the area before the reading
+
+  private Double standardDeviation;
+
+  private Double standardScore; // Standard deviations between the reading and the running mean
+
+  private Instant detectedAt;
+
+  public ConsumptionAnomalyDto dto() {
+    return ConsumptionAnomalyDto
+            .builder()
+            .id(id)
+            .type(type)
+            .cityId(cityId)
+            .area(area)
+            .date(date)
+            .consumption(consumption)
+            .expectedConsumption(expectedConsumption)
+            .standardDeviation(standardDeviation)
+            .standardScore(standardScore)
+            .detectedAt(detectedAt)
+            .build();
+  }
+}
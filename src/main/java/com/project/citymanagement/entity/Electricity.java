@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -14,13 +15,18 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "electricity")
+@DynamicUpdate
+@Table(name = "electricity", indexes = @Index(name = "idx_electricity_city_date", columnList = "city_id, date"))
 public class Electricity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version; // Incremented by every update, compared by conditional updates
+
     @ManyToOne
     @JoinColumn(name = "city_id", nullable = false)
     private City city;
@@ -39,6 +45,7 @@ public class Electricity {
         return ElectricityDto
                 .builder()
                 .id(id)
+                .version(version)
                 .area(area)
                 .consumptionKwh(consumptionKwh)
                 .outageDurationMinutes(outageDurationMinutes)
@@ -1,8 +1,11 @@
 package com.project.citymanagement.entity;
 
+import com.project.citymanagement.model.waste.WasteDto;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -10,13 +13,19 @@ import java.time.LocalDate;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Builder
 @Entity
-@Table(name = "waste")
+@DynamicUpdate
+@Table(name = "waste", indexes = @Index(name = "idx_waste_city_date", columnList = "city_id, date"))
 public class Waste {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
+  @Version
+  @Column(columnDefinition = "bigint default 0 not null")
+  private Long version; // Incremented by every update, compared by conditional updates
+
   @ManyToOne
   @JoinColumn(name = "city_id", nullable = false)
   private City city;
@@ -30,4 +39,21 @@ public class Waste {
   private Double quantityKg;
 
   private String collectionSchedule; // Optional: e.g., "Weekly", "Bi-weekly"
+
+  /**
+   * Create data transfer object.
+   * @return record dto
+   */
+  public WasteDto dto() {
+    return WasteDto.builder()
+            .id(id)
+            .version(version)
+            .date(date)
+            .area(area)
+            .wasteType(wasteType)
+            .quantityKg(quantityKg)
+            .collectionSchedule(collectionSchedule)
+            .city(city.dto())
+            .build();
+  }
 }
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -14,13 +15,18 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "water_supply")
+@DynamicUpdate
+@Table(name = "water_supply", indexes = @Index(name = "idx_water_supply_city_date", columnList = "city_id, date"))
 public class WaterSupply {
 
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
+  @Version
+  @Column(columnDefinition = "bigint default 0 not null")
+  private Long version; // Incremented by every update, compared by conditional updates
+
   @ManyToOne
   @JoinColumn(name = "city_id", nullable = false)
   private City city;
@@ -41,6 +47,7 @@ public class WaterSupply {
     return WaterSupplyDto
             .builder()
             .id(id)
+            .version(version)
             .area(area)
             .consumptionLiters(consumptionLiters)
             .productionLiters(productionLiters)
@@ -0,0 +1,30 @@
+package com.project.citymanagement.event;
+
+import com.project.citymanagement.model.UtilityType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+/** This class represents the event published for every consumption reading that is ingested. */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ConsumptionRecordedEvent {
+
+  /** The kind of utility the reading belongs to. */
+  private final UtilityType type;
+
+  /** The ID of the city of the reading. */
+  private final Long cityId;
+
+  /** The area of the reading. */
+  private final String area;
+
+  /** The date of the reading. */
+  private final LocalDate date;
+
+  /** The consumed amount, in kWh for electricity and in liters for water. */
+  private final Double consumption;
+}
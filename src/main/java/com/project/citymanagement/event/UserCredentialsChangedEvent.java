@@ -0,0 +1,15 @@
+package com.project.citymanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/** This class represents the event published after a user was registered or changed their password. */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserCredentialsChangedEvent {
+
+  /** The username of the user. */
+  private final String username;
+}
@@ -0,0 +1,110 @@
+package com.project.citymanagement.event;
+
+import com.project.citymanagement.model.UtilityType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * This class represents the event published after utility records were created, updated or removed.
+ * Besides the city it tells how many records a city gained or lost and the dates they span, so the
+ * per-city summaries can be adjusted without counting the records again.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UtilityDataChangedEvent {
+
+  /** The kind of utility whose records changed. */
+  private final UtilityType type;
+
+  /** The ID of the affected city, or null when it is unknown. */
+  private final Long cityId;
+
+  /** The number of records the city gained, negative if it lost records, 0 if only values changed. */
+  private final long addedRecords;
+
+  /** The earliest date of the added or removed records, or null when unknown. */
+  private final LocalDate firstDate;
+
+  /** The latest date of the added or removed records, or null when unknown. */
+  private final LocalDate lastDate;
+
+  /**
+   * Create the event for records whose values changed, with their number and dates left as they
+   * were.
+   *
+   * @param type The kind of utility
+   * @param cityId The ID of the city, or null when it is unknown
+   */
+  public UtilityDataChangedEvent(UtilityType type, Long cityId) {
+    this(type, cityId, 0, null, null);
+  }
+
+  /**
+   * Create the event for records added to a city.
+   *
+   * @param type The kind of utility
+   * @param cityId The ID of the city
+   * @param count The number of records
+   * @param firstDate The earliest date of the records
+   * @param lastDate The latest date of the records
+   * @return The event
+   */
+  public static UtilityDataChangedEvent added(UtilityType type, Long cityId, long count,
+                                              LocalDate firstDate, LocalDate lastDate) {
+    return new UtilityDataChangedEvent(type, cityId, count, firstDate, lastDate);
+  }
+
+  /**
+   * Create the event for records removed from a city.
+   *
+   * @param type The kind of utility
+   * @param cityId The ID of the city
+   * @param count The number of records
+   * @param firstDate The earliest date the records may have had, or null when unknown
+   * @param lastDate The latest date the records may have had, or null when unknown
+   * @return The event
+   */
+  public static UtilityDataChangedEvent removed(UtilityType type, Long cityId, long count,
+                                                LocalDate firstDate, LocalDate lastDate) {
+    return new UtilityDataChangedEvent(type, cityId, -count, firstDate, lastDate);
+  }
+
+  /**
+   * Create the events for records added together, one per city.
+   *
+   * @param type The kind of utility
+   * @param records The added records
+   * @param cityId The city of a record
+   * @param date The date of a record
+   * @return The events, in the order the cities first occur
+   */
+  public static <T> List<UtilityDataChangedEvent> added(UtilityType type, List<T> records,
+                                                        Function<T, Long> cityId, Function<T, LocalDate> date) {
+    Map<Long, LocalDate[]> dates = new LinkedHashMap<>();
+    Map<Long, Long> counts = new LinkedHashMap<>();
+    for (T record : records) {
+      Long id = cityId.apply(record);
+      LocalDate recordDate = date.apply(record);
+      LocalDate[] range = dates.computeIfAbsent(id, ignored -> new LocalDate[2]);
+      if (recordDate != null && (range[0] == null || recordDate.isBefore(range[0]))) {
+        range[0] = recordDate;
+      }
+      if (recordDate != null && (range[1] == null || recordDate.isAfter(range[1]))) {
+        range[1] = recordDate;
+      }
+      counts.merge(id, 1L, Long::sum);
+    }
+    List<UtilityDataChangedEvent> events = new ArrayList<>(dates.size());
+    dates.forEach((id, range) -> events.add(added(type, id, counts.get(id), range[0], range[1])));
+    return events;
+  }
+}
@@ -0,0 +1,18 @@
+package com.project.citymanagement.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** This class represents a custom exception for when a record was changed since the client read it. */
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+
+  /**
+   * Constructor for the exception.
+   *
+   * @param message The exception's message
+   */
+  public ConflictException(String message) {
+    super(message);
+  }
+}
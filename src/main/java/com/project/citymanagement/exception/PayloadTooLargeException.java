@@ -0,0 +1,18 @@
+package com.project.citymanagement.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** This class represents a custom exception for when a request carries more items than allowed. */
+@ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE)
+public class PayloadTooLargeException extends RuntimeException {
+
+  /**
+   * Constructor for the exception.
+   *
+   * @param message The exception's message
+   */
+  public PayloadTooLargeException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,18 @@
+package com.project.citymanagement.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** This class represents a custom exception for when a request is shed because the server is saturated. */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+
+  /**
+   * Constructor for the exception.
+   *
+   * @param message The exception's message
+   */
+  public ServiceUnavailableException(String message) {
+    super(message);
+  }
+}
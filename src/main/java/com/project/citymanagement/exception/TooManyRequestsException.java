@@ -0,0 +1,18 @@
+package com.project.citymanagement.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** This class represents a custom exception for when a client sends requests faster than its rate limit. */
+@ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyRequestsException extends RuntimeException {
+
+  /**
+   * Constructor for the exception.
+   *
+   * @param message The exception's message
+   */
+  public TooManyRequestsException(String message) {
+    super(message);
+  }
+}
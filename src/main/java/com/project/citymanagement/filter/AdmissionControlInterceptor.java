@@ -0,0 +1,286 @@
+package com.project.citymanagement.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.citymanagement.aspect.Bulkhead;
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import com.project.citymanagement.exception.TooManyRequestsException;
+import com.project.citymanagement.util.AimdLimiter;
+import com.project.citymanagement.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents the interceptor admitting requests to the API. Each client, identified by
+ * the subject of its token or else by its IP address, has a token bucket charged with the
+ * {@link RequestCost} of every request, so a client polling expensive endpoints is throttled with
+ * 429 long before it slows down the others. Admitted requests then pass the concurrency limit of
+ * their cost, which adapts to the latency of requests of that cost only, shedding load with 503
+ * when the backend slows down; slow expensive requests thus never shrink the limit of cheap ones.
+ * Requests in a bulkhead of heavy work, such as imports, already have their concurrency bounded
+ * and take as long as the work sent with them, so they hold a permit without feeding their latency
+ * to the limit. Streamed responses give their permit back once the handler returns, as the stream
+ * runs on its own executor for as long as the client reads. Both limits use compare-and-set
+ * counters only, so admitting a request never blocks.
+ */
+@Component
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+  /** Request attribute holding the time an admitted request started, until it is released. */
+  private static final String STARTED_AT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".startedAt";
+
+  /** Request attribute holding the admission of a request, until it is released. */
+  private static final String ADMISSION_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".admission";
+
+  /** The environment holding the token costs and the limits per cost. */
+  @Autowired
+  private Environment environment;
+
+  /** The registry the admission metrics are published to. */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** Whether clients are rate limited. */
+  @Value("${rate-limit.enabled:true}")
+  private boolean rateLimitEnabled;
+
+  /** Tokens a client gets back per second. */
+  @Value("${rate-limit.tokens-per-second:20}")
+  private double tokensPerSecond;
+
+  /** Most tokens a client may spend at once. */
+  @Value("${rate-limit.burst:40}")
+  private long burst;
+
+  /** Most clients tracked; the least recently seen are forgotten first. */
+  @Value("${rate-limit.max-clients:100000}")
+  private long maxClients;
+
+  /** Time after which an idle client is forgotten, with a full bucket on its return. */
+  @Value("${rate-limit.client-idle-seconds:600}")
+  private long clientIdleSeconds;
+
+  /** Whether the number of requests in flight is limited. */
+  @Value("${adaptive-concurrency.enabled:true}")
+  private boolean adaptiveConcurrencyEnabled;
+
+  /** Limit of requests in flight at startup, for costs without a limit of their own. */
+  @Value("${adaptive-concurrency.initial-limit:20}")
+  private int initialLimit;
+
+  /** Lowest limit of requests in flight, for costs without a limit of their own. */
+  @Value("${adaptive-concurrency.min-limit:4}")
+  private int minLimit;
+
+  /** Highest limit of requests in flight, for costs without a limit of their own. */
+  @Value("${adaptive-concurrency.max-limit:200}")
+  private int maxLimit;
+
+  /** Latency above which a request shrinks the limit, for costs without a threshold of their own. */
+  @Value("${adaptive-concurrency.latency-threshold-ms:500}")
+  private long latencyThresholdMs;
+
+  /** Factor applied to the limit by a slow request. */
+  @Value("${adaptive-concurrency.backoff-ratio:0.9}")
+  private double backoffRatio;
+
+  /** Token buckets by client. */
+  private Cache<String, TokenBucket> buckets;
+
+  /** Tokens and concurrency limit by handler method. */
+  private final Map<Method, Admission> admissions = new ConcurrentHashMap<>();
+
+  /** Limits of requests in flight by cost. */
+  private final Map<String, AimdLimiter> limiters = new ConcurrentHashMap<>();
+
+  private Counter admittedRequests;
+  private Counter throttledRequests;
+  private Counter shedRequests;
+
+  /** Create the client buckets and the concurrency limits, and register the admission metrics. */
+  @PostConstruct
+  public void init() {
+    buckets = Caffeine.newBuilder()
+        .maximumSize(maxClients)
+        .expireAfterAccess(Duration.ofSeconds(clientIdleSeconds))
+        .build();
+    limiters.computeIfAbsent(RequestCost.CHEAP, this::register);
+    limiters.computeIfAbsent(RequestCost.EXPENSIVE, this::register);
+    admittedRequests = meterRegistry.counter("admission.requests", "outcome", "admitted");
+    throttledRequests = meterRegistry.counter("admission.requests", "outcome", "throttled");
+    shedRequests = meterRegistry.counter("admission.requests", "outcome", "shed");
+    Gauge.builder("admission.rate-limit.clients", buckets, Cache::estimatedSize)
+        .description("Clients with a token bucket")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Admit a request, or reject it when its client is over its rate limit or too many requests are
+   * in flight.
+   *
+   * @param request The HTTP servlet request
+   * @param response The HTTP servlet response
+   * @param handler The handler of the request
+   * @return Always true; rejected requests throw instead
+   */
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    // The dispatch resuming a streamed response was admitted with the request itself
+    if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod)) {
+      return true;
+    }
+    long now = System.nanoTime();
+    Admission admission = admission((HandlerMethod) handler);
+    if (rateLimitEnabled) {
+      long waitNanos = buckets.get(client(request), key -> new TokenBucket(tokensPerSecond, burst, now))
+          .tryConsume(admission.tokens, now);
+      if (waitNanos > 0) {
+        throttledRequests.increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        throw new TooManyRequestsException("Rate limit exceeded, retry in " + retryAfterSeconds + " s");
+      }
+    }
+    if (adaptiveConcurrencyEnabled) {
+      if (!admission.limiter.tryAcquire()) {
+        shedRequests.increment();
+        throw new ServiceUnavailableException("Too many requests in flight, retry later");
+      }
+      request.setAttribute(STARTED_AT_ATTRIBUTE, now);
+      request.setAttribute(ADMISSION_ATTRIBUTE, admission);
+    }
+    admittedRequests.increment();
+    return true;
+  }
+
+  /**
+   * Release a request whose response is streamed once its handler returned. The stream lasts as
+   * long as the client reads, on the executor of streamed responses, which says nothing about the
+   * backend, so the limit is left as it is.
+   *
+   * @param request The HTTP servlet request
+   * @param response The HTTP servlet response
+   * @param handler The handler of the request
+   */
+  @Override
+  public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                             Object handler) {
+    Admission admission = (Admission) request.getAttribute(ADMISSION_ATTRIBUTE);
+    if (admission == null) {
+      return;
+    }
+    request.removeAttribute(STARTED_AT_ATTRIBUTE);
+    request.removeAttribute(ADMISSION_ATTRIBUTE);
+    admission.limiter.release();
+  }
+
+  /**
+   * Release an admitted request, feeding its latency to the concurrency limit of its cost.
+   *
+   * @param request The HTTP servlet request
+   * @param response The HTTP servlet response
+   * @param handler The handler of the request
+   * @param ex The exception thrown by the handler, if any
+   */
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    Admission admission = (Admission) request.getAttribute(ADMISSION_ATTRIBUTE);
+    if (admission == null) {
+      return;
+    }
+    long startedAt = (Long) request.getAttribute(STARTED_AT_ATTRIBUTE);
+    request.removeAttribute(STARTED_AT_ATTRIBUTE);
+    request.removeAttribute(ADMISSION_ATTRIBUTE);
+    if (admission.latencyFeedback) {
+      admission.limiter.release(System.nanoTime() - startedAt);
+    } else {
+      admission.limiter.release();
+    }
+  }
+
+  /** Identify the client by the subject of its token, or else by its IP address. */
+  private static String client(HttpServletRequest request) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null && authentication.isAuthenticated()
+        && !(authentication instanceof AnonymousAuthenticationToken)) {
+      return "user:" + authentication.getName();
+    }
+    return "ip:" + request.getRemoteAddr();
+  }
+
+  private Admission admission(HandlerMethod handler) {
+    return admissions.computeIfAbsent(handler.getMethod(), method -> {
+      RequestCost cost = handler.getMethodAnnotation(RequestCost.class);
+      if (cost == null) {
+        cost = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), RequestCost.class);
+      }
+      String name = cost == null ? RequestCost.CHEAP : cost.value();
+      // Only a bulkhead of its own sets a handler apart from the interactive calls of its class
+      Bulkhead bulkhead = handler.getMethodAnnotation(Bulkhead.class);
+      boolean latencyFeedback = bulkhead == null || Bulkhead.CRUD.equals(bulkhead.value());
+      return new Admission(environment.getProperty("rate-limit.cost." + name, Long.class, 1L),
+          limiters.computeIfAbsent(name, this::register), latencyFeedback);
+    });
+  }
+
+  /** Create the concurrency limit of a cost and register its metrics. */
+  private AimdLimiter register(String cost) {
+    String prefix = "adaptive-concurrency." + cost + ".";
+    long thresholdMs = environment.getProperty(prefix + "latency-threshold-ms", Long.class, latencyThresholdMs);
+    AimdLimiter limiter = new AimdLimiter(
+        environment.getProperty(prefix + "initial-limit", Integer.class, initialLimit),
+        environment.getProperty(prefix + "min-limit", Integer.class, minLimit),
+        environment.getProperty(prefix + "max-limit", Integer.class, maxLimit),
+        TimeUnit.MILLISECONDS.toNanos(thresholdMs), backoffRatio);
+    Gauge.builder("admission.concurrency.limit", limiter, AimdLimiter::getLimit)
+        .description("Requests admitted at once, adapted to their latency")
+        .tag("cost", cost)
+        .register(meterRegistry);
+    Gauge.builder("admission.concurrency.in-flight", limiter, AimdLimiter::getInFlight)
+        .description("Admitted requests in flight")
+        .tag("cost", cost)
+        .register(meterRegistry);
+    return limiter;
+  }
+
+  /** How a handler's requests are admitted. */
+  private static final class Admission {
+
+    /** Tokens a request costs. */
+    private final long tokens;
+
+    /** Limit of requests in flight the requests share with the others of their cost. */
+    private final AimdLimiter limiter;
+
+    /** Whether the latency of a request adapts the limit. */
+    private final boolean latencyFeedback;
+
+    private Admission(long tokens, AimdLimiter limiter, boolean latencyFeedback) {
+      this.tokens = tokens;
+      this.limiter = limiter;
+      this.latencyFeedback = latencyFeedback;
+    }
+  }
+}
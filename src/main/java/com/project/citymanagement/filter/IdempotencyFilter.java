@@ -0,0 +1,318 @@
+package com.project.citymanagement.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.Part;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class represents the filter making retried writes safe. The first successful response to a
+ * POST or PATCH carrying an Idempotency-Key header is stored, and a retry with the same key, method,
+ * path and caller gets the stored response back without the request being executed again. A retry
+ * arriving while the first request is still running is rejected with 409, and failed requests are
+ * not stored, so they can be retried. The SHA-256 of the request body is kept with the key, and a
+ * request reusing a key with a different body is rejected with 422 instead of being answered with
+ * the response to another request; to hash it, the body of a keyed request is read into memory
+ * before the request is executed. Responses are kept in memory, bounded by their total size and
+ * for a limited time, so keys are only honored by the instance that served the first request.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+  /** Header carrying the client-chosen key of a write. */
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+  /** Header marking a response as the stored response of an earlier request. */
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  /** Methods whose requests are deduplicated. */
+  private static final Set<String> METHODS = Set.of("POST", "PATCH");
+
+  /** Longest accepted key. */
+  private static final int MAX_KEY_LENGTH = 255;
+
+  /** Response headers stored along with the body. */
+  private static final List<String> STORED_HEADERS = List.of(HttpHeaders.LOCATION, HttpHeaders.ETAG);
+
+  /** The registry the request metrics are published to. */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** Whether keys are honored at all. */
+  @Value("${idempotency.enabled:true}")
+  private boolean enabled;
+
+  /** Time a response is kept for retries. */
+  @Value("${idempotency.ttl-seconds:86400}")
+  private long ttlSeconds;
+
+  /** Largest total size of the stored keys and response bodies. */
+  @Value("${idempotency.maximum-weight-bytes:67108864}")
+  private long maximumWeightBytes;
+
+  /** Stored responses, or in-progress markers, by scoped key. */
+  private Cache<String, StoredResponse> responses;
+
+  private Counter executedRequests;
+  private Counter replayedRequests;
+  private Counter conflictingRequests;
+  private Counter mismatchedRequests;
+
+  /** Create the response store and register the request metrics. */
+  @PostConstruct
+  public void init() {
+    responses = Caffeine.newBuilder()
+        .maximumWeight(maximumWeightBytes)
+        .weigher((String key, StoredResponse response) ->
+            key.length() + response.requestHash.length + response.body.length)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .build();
+    executedRequests = meterRegistry.counter("idempotency.requests", "outcome", "executed");
+    replayedRequests = meterRegistry.counter("idempotency.requests", "outcome", "replayed");
+    conflictingRequests = meterRegistry.counter("idempotency.requests", "outcome", "in-progress");
+    mismatchedRequests = meterRegistry.counter("idempotency.requests", "outcome", "mismatched");
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled || !METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+  }
+
+  /**
+   * Do filter internal.
+   *
+   * @param request The HTTP servlet request
+   * @param response The HTTP servlet response
+   * @param chain The filter chain
+   * @throws ServletException If an error occurs
+   * @throws IOException If an error occurs
+   */
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+
+    String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+    if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+      response.sendError(HttpStatus.BAD_REQUEST.value(),
+          IDEMPOTENCY_KEY_HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+      return;
+    }
+    String scopedKey = scope(request, key);
+    MessageDigest digest = sha256();
+    if (isMultipart(request)) {
+      // The container parses the parts once and hands the same ones to the controller
+      for (Part part : request.getParts()) {
+        digest.update((part.getName() + '\0' + part.getSubmittedFileName() + '\0').getBytes(StandardCharsets.UTF_8));
+        try (InputStream content = part.getInputStream()) {
+          digest.update(StreamUtils.copyToByteArray(content));
+        }
+      }
+    } else {
+      byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+      digest.update(body);
+      request = new BufferedBodyRequest(request, body);
+    }
+    byte[] requestHash = digest.digest();
+
+    StoredResponse stored = responses.asMap().putIfAbsent(scopedKey, StoredResponse.inProgress(requestHash));
+    if (stored != null && !MessageDigest.isEqual(stored.requestHash, requestHash)) {
+      mismatchedRequests.increment();
+      response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+          "This " + IDEMPOTENCY_KEY_HEADER + " was already used with a different request body");
+      return;
+    }
+    if (stored != null && stored.isInProgress()) {
+      conflictingRequests.increment();
+      response.sendError(HttpStatus.CONFLICT.value(),
+          "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still in progress");
+      return;
+    }
+    if (stored != null) {
+      replayedRequests.increment();
+      stored.writeTo(response);
+      return;
+    }
+
+    executedRequests.increment();
+    ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+    boolean completed = false;
+    try {
+      chain.doFilter(request, cachingResponse);
+      if (cachingResponse.getStatus() / 100 == 2) {
+        responses.put(scopedKey, StoredResponse.of(cachingResponse, requestHash));
+        completed = true;
+      }
+    } finally {
+      if (!completed) {
+        // Let a retry execute the request again
+        responses.invalidate(scopedKey);
+      }
+      cachingResponse.copyBodyToResponse();
+    }
+  }
+
+  /**
+   * Scope a key to the request it was sent with, so equal keys of different callers or endpoints
+   * do not collide.
+   */
+  private static String scope(HttpServletRequest request, String key) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    String caller = authentication == null || !authentication.isAuthenticated() ? "" : authentication.getName();
+    return request.getMethod() + ' ' + request.getRequestURI() + ' ' + caller + ' ' + key;
+  }
+
+  private static boolean isMultipart(HttpServletRequest request) {
+    String contentType = request.getContentType();
+    return contentType != null && contentType.toLowerCase().startsWith("multipart/");
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** A request whose body was read ahead and is served again from memory. */
+  private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    private BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+      super(request);
+      this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      ByteArrayInputStream content = new ByteArrayInputStream(body);
+      return new ServletInputStream() {
+        @Override
+        public int read() {
+          return content.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+          return content.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+          return content.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          throw new UnsupportedOperationException("The body was already read");
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      String encoding = getCharacterEncoding();
+      Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+      return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+  }
+
+  /** A stored response, or the marker of a request still being executed, with the hash of its body. */
+  private static final class StoredResponse {
+
+    private final byte[] requestHash;
+
+    private final int status;
+
+    private final String contentType;
+
+    private final Map<String, String> headers;
+
+    private final byte[] body;
+
+    private StoredResponse(byte[] requestHash, int status, String contentType, Map<String, String> headers,
+                           byte[] body) {
+      this.requestHash = requestHash;
+      this.status = status;
+      this.contentType = contentType;
+      this.headers = headers;
+      this.body = body;
+    }
+
+    private static StoredResponse inProgress(byte[] requestHash) {
+      return new StoredResponse(requestHash, 0, null, Map.of(), new byte[0]);
+    }
+
+    private static StoredResponse of(ContentCachingResponseWrapper response, byte[] requestHash) {
+      Map<String, String> headers = new LinkedHashMap<>();
+      for (String name : STORED_HEADERS) {
+        String value = response.getHeader(name);
+        if (value != null) {
+          headers.put(name, value);
+        }
+      }
+      return new StoredResponse(requestHash, response.getStatus(), response.getContentType(), headers,
+          response.getContentAsByteArray());
+    }
+
+    private boolean isInProgress() {
+      return status == 0;
+    }
+
+    private void writeTo(HttpServletResponse response) throws IOException {
+      response.setStatus(status);
+      if (contentType != null) {
+        response.setContentType(contentType);
+      }
+      headers.forEach(response::setHeader);
+      response.setHeader(REPLAYED_HEADER, "true");
+      response.setContentLength(body.length);
+      response.getOutputStream().write(body);
+    }
+  }
+}
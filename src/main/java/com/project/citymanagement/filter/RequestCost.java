@@ -0,0 +1,26 @@
+package com.project.citymanagement.filter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the number of rate limit tokens a request to an endpoint, or to every endpoint of a class,
+ * costs. The tokens of each cost are configured with {@code rate-limit.cost.<cost>}; endpoints
+ * without the annotation are {@link #CHEAP}. An annotation on a method takes precedence over the
+ * one on its class.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestCost {
+
+  /** Cost of requests reading or writing single records. */
+  String CHEAP = "cheap";
+
+  /** Cost of requests scanning many records, such as lists, aggregations and imports. */
+  String EXPENSIVE = "expensive";
+
+  /** @return Name of the cost */
+  String value();
+}
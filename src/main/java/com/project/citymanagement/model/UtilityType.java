@@ -0,0 +1,8 @@
+package com.project.citymanagement.model;
+
+/** The kinds of utility data recorded for a city. */
+public enum UtilityType {
+    ELECTRICITY,
+    WATER_SUPPLY,
+    WASTE
+}
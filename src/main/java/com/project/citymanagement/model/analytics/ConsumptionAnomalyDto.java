@@ -0,0 +1,40 @@
+package com.project.citymanagement.model.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.project.citymanagement.model.UtilityType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConsumptionAnomalyDto {
+    private Long id;
+
+    private UtilityType type;
+
+    private Long cityId;
+
+    private String area;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate date;
+
+    private Double consumption;
+
+    private Double expectedConsumption;
+
+    private Double standardDeviation;
+
+    private Double standardScore;
+
+    private Instant detectedAt;
+}
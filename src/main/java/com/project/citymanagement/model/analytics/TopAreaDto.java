@@ -0,0 +1,31 @@
+package com.project.citymanagement.model.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TopAreaDto {
+    /** City of the area, only set among the top areas of all cities. */
+    private Long cityId;
+
+    private String area;
+
+    /** Estimated consumption, never lower than the true consumption. */
+    private double estimatedConsumption;
+
+    /** Maximum overestimation of the consumption. */
+    private double maxError;
+
+    /** Consumption the area is guaranteed to have reached. */
+    private double guaranteedConsumption;
+
+    /** Whether the area is guaranteed to belong to the top K. */
+    private boolean guaranteedInTopK;
+}
@@ -0,0 +1,38 @@
+package com.project.citymanagement.model.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.project.citymanagement.model.UtilityType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TopAreasDto {
+    private UtilityType type;
+
+    /** City the ranking is for, or null for all cities. */
+    private Long cityId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate weekStart;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate weekEnd;
+
+    /** Total consumption ingested for the week. */
+    private double totalConsumption;
+
+    /** Upper bound of the consumption of any area missing from the list. */
+    private double unlistedAreaMaxConsumption;
+
+    private List<TopAreaDto> areas;
+}
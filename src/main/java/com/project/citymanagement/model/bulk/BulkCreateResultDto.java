@@ -0,0 +1,28 @@
+package com.project.citymanagement.model.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkCreateResultDto {
+    private int received;
+
+    private int created;
+
+    private int rejected;
+
+    /** Status of every item, in request order. */
+    private List<BulkItemResultDto> items;
+
+    public static BulkCreateResultDto of(List<BulkItemResultDto> items) {
+        int created = (int) items.stream().filter(item -> item.getStatus() == BulkItemStatus.CREATED).count();
+        return new BulkCreateResultDto(items.size(), created, items.size() - created, items);
+    }
+}
@@ -0,0 +1,14 @@
+package com.project.citymanagement.model.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkDeleteResultDto {
+    private long deleted;
+}
@@ -0,0 +1,33 @@
+package com.project.citymanagement.model.bulk;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResultDto {
+    /** Position of the item in the request, starting at 0. */
+    private int index;
+
+    private BulkItemStatus status;
+
+    /** ID of the created record. */
+    private Long id;
+
+    /** Why the item was rejected. */
+    private String error;
+
+    public static BulkItemResultDto created(int index, Long id) {
+        return new BulkItemResultDto(index, BulkItemStatus.CREATED, id, null);
+    }
+
+    public static BulkItemResultDto rejected(int index, String error) {
+        return new BulkItemResultDto(index, BulkItemStatus.REJECTED, null, error);
+    }
+}
@@ -0,0 +1,7 @@
+package com.project.citymanagement.model.bulk;
+
+/** Outcome of one item of a bulk request. */
+public enum BulkItemStatus {
+    CREATED,
+    REJECTED
+}
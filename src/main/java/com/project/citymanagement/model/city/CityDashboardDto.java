@@ -0,0 +1,34 @@
+package com.project.citymanagement.model.city;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.project.citymanagement.model.electricity.ElectricitySummaryDto;
+import com.project.citymanagement.model.waste.WasteSummaryDto;
+import com.project.citymanagement.model.watersupply.WaterSupplySummaryDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CityDashboardDto {
+    private CityDto city;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate endDate;
+
+    private DashboardSection<ElectricitySummaryDto> electricity;
+
+    private DashboardSection<WaterSupplySummaryDto> waterSupply;
+
+    private DashboardSection<WasteSummaryDto> waste;
+}
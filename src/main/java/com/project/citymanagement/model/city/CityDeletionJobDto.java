@@ -0,0 +1,31 @@
+package com.project.citymanagement.model.city;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CityDeletionJobDto {
+    private String id;
+
+    private Long cityId;
+
+    private CityDeletionStatus status;
+
+    private Map<String, Long> deletedRecords; // Records deleted so far, per table
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private String error;
+}
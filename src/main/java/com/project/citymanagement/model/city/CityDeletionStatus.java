@@ -0,0 +1,8 @@
+package com.project.citymanagement.model.city;
+
+/** State of an asynchronous city deletion. */
+public enum CityDeletionStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,25 @@
+package com.project.citymanagement.model.city;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A city with the number of records it has per type and the dates they cover. */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CityOverviewDto {
+    private Long id;
+
+    private String name;
+
+    private String country;
+
+    private RecordCoverageDto electricity;
+
+    private RecordCoverageDto waterSupply;
+
+    private RecordCoverageDto waste;
+}
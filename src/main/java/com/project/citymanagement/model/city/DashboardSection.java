@@ -0,0 +1,36 @@
+package com.project.citymanagement.model.city;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One independently computed part of a city dashboard. A section that misses its time budget or
+ * fails is reported with its status instead of failing the whole dashboard.
+ *
+ * @param <T> type of the section payload
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DashboardSection<T> {
+
+    public enum Status {
+        OK,
+        TIMEOUT,
+        REJECTED,
+        FAILED
+    }
+
+    private Status status;
+
+    private T data;
+
+    private long elapsedMillis;
+
+    private String error;
+}
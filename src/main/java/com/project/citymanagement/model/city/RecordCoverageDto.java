@@ -0,0 +1,23 @@
+package com.project.citymanagement.model.city;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/** The number of records of one type a city has and the dates they cover. */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RecordCoverageDto {
+    private long recordCount;
+
+    private LocalDate firstDate;
+
+    private LocalDate lastDate;
+}
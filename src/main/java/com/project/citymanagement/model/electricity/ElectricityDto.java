@@ -18,6 +18,8 @@ import java.time.LocalDate;
 public class ElectricityDto {
     private Long id;
 
+    private Long version;
+
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     private LocalDate date;
 
@@ -30,4 +32,12 @@ public class ElectricityDto {
     private String outageReason;
 
     private CityDto city;
+
+    /** Projection constructor, selected by the queries of {@code ElectricityRepository}. */
+    public ElectricityDto(Long id, Long version, LocalDate date, String area, Double consumptionKwh,
+                          Integer outageDurationMinutes, String outageReason, Long cityId, String cityName,
+                          String cityCountry) {
+        this(id, version, date, area, consumptionKwh, outageDurationMinutes, outageReason,
+                new CityDto(cityId, cityName, cityCountry));
+    }
 }
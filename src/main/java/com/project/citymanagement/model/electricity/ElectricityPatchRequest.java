@@ -0,0 +1,29 @@
+package com.project.citymanagement.model.electricity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/** Partial update of an electricity record; fields left out, or null, are unchanged. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ElectricityPatchRequest {
+    private Long cityId;
+
+    private Double consumptionKwh;
+
+    private String area;
+
+    private Integer outageDurationMinutes;
+
+    private String outageReason;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate date;
+}
@@ -0,0 +1,26 @@
+package com.project.citymanagement.model.electricity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ElectricitySummaryDto {
+    private long recordCount;
+
+    private double totalConsumptionKwh;
+
+    private long outageCount;
+
+    private long totalOutageMinutes;
+
+    private Map<String, Double> consumptionKwhByArea;
+}
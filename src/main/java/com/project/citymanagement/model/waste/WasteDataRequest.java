@@ -0,0 +1,33 @@
+package com.project.citymanagement.model.waste;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WasteDataRequest {
+    @NotNull
+    private Long cityId;
+
+    @NotNull
+    private Double quantityKg;
+
+    @NotNull
+    private String area;
+
+    private String wasteType;
+
+    private String collectionSchedule;
+
+    @NotNull
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate date;
+}
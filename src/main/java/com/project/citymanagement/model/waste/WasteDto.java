@@ -0,0 +1,41 @@
+package com.project.citymanagement.model.waste;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.project.citymanagement.model.city.CityDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WasteDto {
+    private Long id;
+
+    private Long version;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate date;
+
+    private String area;
+
+    private String wasteType;
+
+    private Double quantityKg;
+
+    private String collectionSchedule;
+
+    private CityDto city;
+
+    /** Projection constructor, selected by the queries of {@code WasteRepository}. */
+    public WasteDto(Long id, Long version, LocalDate date, String area, String wasteType, Double quantityKg,
+                    String collectionSchedule, Long cityId, String cityName, String cityCountry) {
+        this(id, version, date, area, wasteType, quantityKg, collectionSchedule, new CityDto(cityId, cityName, cityCountry));
+    }
+}
@@ -0,0 +1,29 @@
+package com.project.citymanagement.model.waste;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/** Partial update of a waste record; fields left out, or null, are unchanged. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WastePatchRequest {
+    private Long cityId;
+
+    private String area;
+
+    private String wasteType;
+
+    private Double quantityKg;
+
+    private String collectionSchedule;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate date;
+}
@@ -0,0 +1,22 @@
+package com.project.citymanagement.model.waste;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WasteSummaryDto {
+    private long recordCount;
+
+    private double totalQuantityKg;
+
+    private Map<String, Double> quantityKgByWasteType;
+}
@@ -18,6 +18,8 @@ import java.time.LocalDate;
 public class WaterSupplyDto {
     private Long id;
 
+    private Long version;
+
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     private LocalDate date;
 
@@ -32,4 +34,12 @@ public class WaterSupplyDto {
     private Double rainfallMm;
 
     private CityDto city;
+
+    /** Projection constructor, selected by the queries of {@code WaterSupplyRepository}. */
+    public WaterSupplyDto(Long id, Long version, LocalDate date, String area, Double consumptionLiters,
+                          Double productionLiters, Double reservoirLevelPercentage, Double rainfallMm, Long cityId,
+                          String cityName, String cityCountry) {
+        this(id, version, date, area, consumptionLiters, productionLiters, reservoirLevelPercentage, rainfallMm,
+                new CityDto(cityId, cityName, cityCountry));
+    }
 }
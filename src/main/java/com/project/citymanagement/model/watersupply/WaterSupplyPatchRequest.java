@@ -0,0 +1,31 @@
+package com.project.citymanagement.model.watersupply;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/** Partial update of a water supply record; fields left out, or null, are unchanged. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaterSupplyPatchRequest {
+    private Long cityId;
+
+    private Double consumptionLiters;
+
+    private String area;
+
+    private Double productionLiters;
+
+    private Double reservoirLevelPercentage;
+
+    private Double rainfallMm;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDate date;
+}
@@ -0,0 +1,24 @@
+package com.project.citymanagement.model.watersupply;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WaterSupplySummaryDto {
+    private long recordCount;
+
+    private double totalConsumptionLiters;
+
+    private double totalProductionLiters;
+
+    private Double averageReservoirLevelPercentage;
+
+    private double totalRainfallMm;
+}
@@ -0,0 +1,98 @@
+package com.project.citymanagement.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * This class represents the repository deleting the records of a city, or of a city in a period,
+ * without loading them. Rows are deleted with set-based statements of a bounded number of rows, each committed on
+ * its own, so no statement holds its row locks for long however many rows match.
+ */
+@Repository
+public class ChunkedDeleteRepository {
+
+  /** Tables holding per-city, dated records. */
+  private static final Set<String> TABLES = Set.of("electricity", "water_supply", "waste");
+
+  /** Tables holding per-city records, removed along with their city. */
+  private static final Set<String> CITY_TABLES =
+      Set.of("electricity", "water_supply", "waste", "consumption_anomaly", "city_data_summary");
+
+  /** The JDBC template. */
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /** Largest number of rows deleted per statement. */
+  @Value("${bulk.delete-chunk-size:1000}")
+  private int chunkSize;
+
+  /**
+   * Delete the records of a city within a period.
+   *
+   * @param table Table of the records
+   * @param cityId ID of the city
+   * @param startDate start date (inclusive)
+   * @param endDate end date (inclusive)
+   * @param area Area of the records, or null for all areas
+   * @return Number of deleted records
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public long deleteByCityIdAndDateBetween(String table, Long cityId, LocalDate startDate, LocalDate endDate,
+      String area) {
+    if (!TABLES.contains(table)) {
+      throw new IllegalArgumentException("Unsupported table: " + table);
+    }
+    StringBuilder sql = new StringBuilder("delete from ").append(table)
+        .append(" where city_id = ? and date between ? and ?");
+    List<Object> arguments = new ArrayList<>(List.of(cityId, Date.valueOf(startDate), Date.valueOf(endDate)));
+    if (area != null) {
+      sql.append(" and area = ?");
+      arguments.add(area);
+    }
+    return deleteInChunks(sql, arguments, deleted -> {});
+  }
+
+  /**
+   * Delete all records of a city.
+   *
+   * @param table Table of the records
+   * @param cityId ID of the city
+   * @param progress Notified with the number of records deleted by each chunk
+   * @return Number of deleted records
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public long deleteByCityId(String table, Long cityId, LongConsumer progress) {
+    if (!CITY_TABLES.contains(table)) {
+      throw new IllegalArgumentException("Unsupported table: " + table);
+    }
+    StringBuilder sql = new StringBuilder("delete from ").append(table).append(" where city_id = ?");
+    return deleteInChunks(sql, new ArrayList<>(List.of(cityId)), progress);
+  }
+
+  private long deleteInChunks(StringBuilder sql, List<Object> arguments, LongConsumer progress) {
+    sql.append(" limit ?");
+    arguments.add(chunkSize);
+
+    long total = 0;
+    int deleted;
+    do {
+      deleted = jdbcTemplate.update(sql.toString(), arguments.toArray());
+      total += deleted;
+      if (deleted > 0) {
+        progress.accept(deleted);
+      }
+    } while (deleted >= chunkSize);
+    return total;
+  }
+}
@@ -0,0 +1,153 @@
+package com.project.citymanagement.repository;
+
+import com.project.citymanagement.model.city.CityOverviewDto;
+import com.project.citymanagement.model.city.RecordCoverageDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class represents the repository of the per-city record summaries. A summary is adjusted by
+ * the records a write adds or removes, or recomputed from the (city_id, date) index of its records
+ * table, and all summaries are read along with their cities in a single query.
+ */
+@Repository
+public class CityDataSummaryRepository {
+
+  /** Tables holding per-city, dated records. */
+  private static final Set<String> TABLES = Set.of("electricity", "water_supply", "waste");
+
+  /** The JDBC template. */
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /**
+   * Count records added to a city, widening the dates its summary covers to theirs.
+   *
+   * @param table Table of the records
+   * @param cityId ID of the city
+   * @param count Number of added records
+   * @param firstDate Earliest date of the records, or null if none has a date
+   * @param lastDate Latest date of the records, or null if none has a date
+   */
+  public void add(String table, long cityId, long count, LocalDate firstDate, LocalDate lastDate) {
+    checkTable(table);
+    Date first = firstDate == null ? null : Date.valueOf(firstDate);
+    Date last = lastDate == null ? null : Date.valueOf(lastDate);
+    if (widen(table, cityId, count, first, last) > 0) {
+      return;
+    }
+    try {
+      jdbcTemplate.update("insert into city_data_summary (city_id, record_type, record_count, first_date, last_date) "
+          + "values (?, ?, ?, ?, ?)", cityId, table, count, first, last);
+    } catch (DuplicateKeyException ex) {
+      // Inserted by a concurrent write to the city
+      widen(table, cityId, count, first, last);
+    }
+  }
+
+  /**
+   * Uncount records removed from a city, if they all lie strictly between the first and the last
+   * date its summary covers. Records at either date may have been the last ones there, so their
+   * removal leaves the summary as it is.
+   *
+   * @param table Table of the records
+   * @param cityId ID of the city
+   * @param count Number of removed records
+   * @param firstDate Earliest date the records may have had
+   * @param lastDate Latest date the records may have had
+   * @return Whether the summary was adjusted; if not it has to be recomputed
+   */
+  public boolean remove(String table, long cityId, long count, LocalDate firstDate, LocalDate lastDate) {
+    checkTable(table);
+    return jdbcTemplate.update("update city_data_summary set record_count = record_count - ? "
+            + "where city_id = ? and record_type = ? and record_count > ? and first_date < ? and last_date > ?",
+        count, cityId, table, count, Date.valueOf(firstDate), Date.valueOf(lastDate)) > 0;
+  }
+
+  /**
+   * Recompute the summary of the records of a city.
+   *
+   * @param table Table of the records
+   * @param cityId ID of the city, or null for all cities
+   */
+  @Transactional
+  public void refresh(String table, Long cityId) {
+    checkTable(table);
+    String insert = "insert into city_data_summary (city_id, record_type, record_count, first_date, last_date) "
+        + "select city_id, ?, count(*), min(date), max(date) from " + table;
+    if (cityId == null) {
+      jdbcTemplate.update("delete from city_data_summary where record_type = ?", table);
+      jdbcTemplate.update(insert + " group by city_id", table);
+    } else {
+      // A city left without records loses its summary
+      jdbcTemplate.update("delete from city_data_summary where record_type = ? and city_id = ?", table, cityId);
+      jdbcTemplate.update(insert + " where city_id = ? group by city_id", table, cityId);
+    }
+  }
+
+  /**
+   * Find all cities with the summaries of their records.
+   *
+   * @return List of all cities, by ID
+   */
+  public List<CityOverviewDto> findCityOverviews() {
+    Map<Long, CityOverviewDto> cities = new LinkedHashMap<>();
+    jdbcTemplate.query(
+        "select c.id, c.name, c.country, s.record_type, s.record_count, s.first_date, s.last_date "
+            + "from city c left join city_data_summary s on s.city_id = c.id order by c.id",
+        rs -> {
+          CityOverviewDto city = cities.computeIfAbsent(rs.getLong(1), id -> CityOverviewDto.builder()
+              .id(id)
+              .electricity(new RecordCoverageDto())
+              .waterSupply(new RecordCoverageDto())
+              .waste(new RecordCoverageDto())
+              .build());
+          city.setName(rs.getString(2));
+          city.setCountry(rs.getString(3));
+          String recordType = rs.getString(4);
+          if (recordType == null) {
+            return;
+          }
+          Date firstDate = rs.getDate(6);
+          Date lastDate = rs.getDate(7);
+          RecordCoverageDto coverage = RecordCoverageDto.builder()
+              .recordCount(rs.getLong(5))
+              .firstDate(firstDate == null ? null : firstDate.toLocalDate())
+              .lastDate(lastDate == null ? null : lastDate.toLocalDate())
+              .build();
+          switch (recordType) {
+            case "electricity" -> city.setElectricity(coverage);
+            case "water_supply" -> city.setWaterSupply(coverage);
+            case "waste" -> city.setWaste(coverage);
+            default -> { }
+          }
+        });
+    return new ArrayList<>(cities.values());
+  }
+
+  private int widen(String table, long cityId, long count, Date firstDate, Date lastDate) {
+    // Compared with coalesce, as least and greatest of a null date are null on MySQL
+    return jdbcTemplate.update("update city_data_summary set record_count = record_count + ?, "
+            + "first_date = least(coalesce(first_date, ?), coalesce(?, first_date)), "
+            + "last_date = greatest(coalesce(last_date, ?), coalesce(?, last_date)) "
+            + "where city_id = ? and record_type = ?",
+        count, firstDate, firstDate, lastDate, lastDate, cityId, table);
+  }
+
+  private static void checkTable(String table) {
+    if (!TABLES.contains(table)) {
+      throw new IllegalArgumentException("Unsupported table: " + table);
+    }
+  }
+}
@@ -1,9 +1,58 @@
 package com.project.citymanagement.repository;
 
 import com.project.citymanagement.entity.City;
+import com.project.citymanagement.model.city.CityDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CityRepository extends JpaRepository<City, Long> {
+
+  /**
+   * Find all cities, served from the query cache until a city is written.
+   *
+   * @return List of all cities
+   */
+  @Override
+  @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+  List<City> findAll();
+
+  /**
+   * Find all cities, selecting only their own columns.
+   *
+   * @return List of all cities, by ID
+   */
+  @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+  @Query("select new com.project.citymanagement.model.city.CityDto(c.id, c.name, c.country) from City c order by c.id")
+  List<CityDto> findAllDtos();
+
+  /**
+   * Find a city by ID, selecting only its own columns.
+   *
+   * @param id ID of the city
+   * @return The city, empty if it does not exist
+   */
+  @Query("select new com.project.citymanagement.model.city.CityDto(c.id, c.name, c.country) from City c where c.id = :id")
+  Optional<CityDto> findDtoById(@Param("id") Long id);
+
+  /**
+   * Delete a city with a single statement. Unlike {@link #deleteById(Object)} it neither loads the
+   * city nor cascades to its records, which must have been removed beforehand.
+   *
+   * @param id ID of the city
+   * @return Number of deleted cities
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from City c where c.id = :id")
+  int deleteCityById(@Param("id") Long id);
 }
@@ -0,0 +1,17 @@
+package com.project.citymanagement.repository;
+
+import com.project.citymanagement.entity.ConsumptionAnomaly;
+import com.project.citymanagement.model.UtilityType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ConsumptionAnomalyRepository extends JpaRepository<ConsumptionAnomaly, Long> {
+  List<ConsumptionAnomaly> findByCityIdAndDateBetweenOrderByDateAsc(Long cityId, LocalDate startDate, LocalDate endDate);
+
+  List<ConsumptionAnomaly> findByCityIdAndTypeAndDateBetweenOrderByDateAsc(Long cityId, UtilityType type,
+                                                                           LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,35 @@
+package com.project.citymanagement.repository;
+
+import com.project.citymanagement.entity.Electricity;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/** This class represents the repository batching inserts of electricity records. */
+@Repository
+public class ElectricityJdbcRepository extends JdbcBatchInsertRepository<Electricity> {
+
+  @Override
+  protected String insertSql() {
+    return "insert into electricity (city_id, date, area, consumption_kwh, outage_duration_minutes, outage_reason,"
+        + " version) values (?, ?, ?, ?, ?, ?, 0)";
+  }
+
+  @Override
+  protected void bind(PreparedStatement statement, Electricity record) throws SQLException {
+    statement.setLong(1, record.getCity().getId());
+    statement.setDate(2, Date.valueOf(record.getDate()));
+    statement.setString(3, record.getArea());
+    statement.setObject(4, record.getConsumptionKwh(), Types.DOUBLE);
+    statement.setObject(5, record.getOutageDurationMinutes(), Types.INTEGER);
+    statement.setString(6, record.getOutageReason());
+  }
+
+  @Override
+  protected void setId(Electricity record, Long id) {
+    record.setId(id);
+  }
+}
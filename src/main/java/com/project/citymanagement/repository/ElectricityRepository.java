@@ -1,24 +1,70 @@
 package com.project.citymanagement.repository;
 
 import com.project.citymanagement.entity.Electricity;
+import com.project.citymanagement.model.electricity.ElectricityDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ElectricityRepository extends JpaRepository<Electricity, Long> {
+  String SELECT_DTO = "SELECT new com.project.citymanagement.model.electricity.ElectricityDto(" +
+      "e.id, e.version, e.date, e.area, e.consumptionKwh, e.outageDurationMinutes, e.outageReason, c.id, c.name, c.country) " +
+      "FROM Electricity e JOIN e.city c ";
+
+  // Reads the foreign key and date by primary key, for the summary of the city
+  @Query("SELECT e.city.id AS cityId, e.date AS date FROM Electricity e WHERE e.id = :id")
+  Optional<RecordPlacement> findPlacementById(@Param("id") Long id);
+
+  // Deletes by primary key, without loading the record first as deleteById does
+  @Modifying
+  @Query("DELETE FROM Electricity e WHERE e.id = :id")
+  int deleteRecordById(@Param("id") Long id);
+
   List<Electricity> findByCityId(Long cityId);
 
-  List<Electricity> findByCityIdAndDateBetween(Long cityId, LocalDate startDate, LocalDate endDate);
+  @Query(SELECT_DTO + "WHERE c.id = :cityId AND e.date BETWEEN :startDate AND :endDate")
+  List<ElectricityDto> findDtosByCityIdAndDateBetween(@Param("cityId") Long cityId,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
 
-  @Query("SELECT e FROM Electricity e WHERE e.outageDurationMinutes > 0")
-  List<Electricity> findOutageData();
+  // Streamed reads select one page of DTOs after the last ID sent, so no page depends on an offset
+  @Query(SELECT_DTO + "WHERE c.id = :cityId AND e.date BETWEEN :startDate AND :endDate AND e.id > :afterId " +
+      "ORDER BY e.id")
+  List<ElectricityDto> findDtosByCityIdAndDateBetweenAfterId(@Param("cityId") Long cityId,
+                                                             @Param("startDate") LocalDate startDate,
+                                                             @Param("endDate") LocalDate endDate,
+                                                             @Param("afterId") Long afterId,
+                                                             Pageable page);
+
+  @Query(SELECT_DTO + "WHERE e.outageDurationMinutes > 0")
+  List<ElectricityDto> findOutageDtos();
 
   @Query("SELECT e.area AS area, SUM(e.consumptionKwh) AS totalConsumption " +
       "FROM Electricity e " +
       "GROUP BY e.area")
   List<Object[]> findAreaTrends();
+
+  @Query("SELECT COUNT(e), SUM(e.consumptionKwh), " +
+      "SUM(CASE WHEN e.outageDurationMinutes > 0 THEN 1 ELSE 0 END), SUM(e.outageDurationMinutes) " +
+      "FROM Electricity e " +
+      "WHERE e.city.id = :cityId AND e.date BETWEEN :startDate AND :endDate")
+  List<Object[]> summarizeByCityIdAndDateBetween(@Param("cityId") Long cityId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
+
+  @Query("SELECT e.area AS area, SUM(e.consumptionKwh) AS totalConsumption " +
+      "FROM Electricity e " +
+      "WHERE e.city.id = :cityId AND e.date BETWEEN :startDate AND :endDate " +
+      "GROUP BY e.area")
+  List<Object[]> findAreaTrendsByCityIdAndDateBetween(@Param("cityId") Long cityId,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
 }
@@ -0,0 +1,84 @@
+package com.project.citymanagement.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * This class represents the base of repositories inserting many records with JDBC batches. Records
+ * with identity keys are inserted one statement at a time by JPA, so bulk writes bypass it and
+ * send one batch per chunk of records, reading back the generated keys.
+ *
+ * @param <T> Type of the records
+ */
+public abstract class JdbcBatchInsertRepository<T> {
+
+  /** The JDBC template. */
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /** Number of records sent per batch. */
+  @Value("${bulk.jdbc-batch-size:500}")
+  private int batchSize;
+
+  /**
+   * Insert records in one transaction, setting their generated IDs.
+   *
+   * @param records The records
+   */
+  @Transactional
+  public void insertAll(List<T> records) {
+    if (records.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      try (PreparedStatement statement = connection.prepareStatement(insertSql(), Statement.RETURN_GENERATED_KEYS)) {
+        for (int start = 0; start < records.size(); start += batchSize) {
+          List<T> chunk = records.subList(start, Math.min(start + batchSize, records.size()));
+          for (T record : chunk) {
+            bind(statement, record);
+            statement.addBatch();
+          }
+          statement.executeBatch();
+          try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (T record : chunk) {
+              if (!keys.next()) {
+                break;
+              }
+              setId(record, keys.getLong(1));
+            }
+          }
+        }
+      }
+      return null;
+    });
+  }
+
+  /** @return Insert statement with one parameter per bound column */
+  protected abstract String insertSql();
+
+  /**
+   * Bind the columns of a record to the insert statement.
+   *
+   * @param statement The insert statement
+   * @param record The record
+   * @throws SQLException If a parameter cannot be set
+   */
+  protected abstract void bind(PreparedStatement statement, T record) throws SQLException;
+
+  /**
+   * Set the generated ID of an inserted record.
+   *
+   * @param record The record
+   * @param id The generated ID
+   */
+  protected abstract void setId(T record, Long id);
+}
@@ -0,0 +1,77 @@
+package com.project.citymanagement.repository;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class represents the repository applying partial updates. Only the supplied attributes are
+ * written, by a single UPDATE statement that neither reads the record beforehand nor touches its
+ * other columns. The statement increments the version of the record and, when given the version
+ * the client read, only applies if the record is still at that version.
+ */
+@Repository
+public class PartialUpdateRepository {
+
+  /** The entity manager. */
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  /**
+   * Update some attributes of a record.
+   *
+   * @param type Entity type of the record, with a version attribute
+   * @param id ID of the record
+   * @param version Expected version of the record, or null to update whatever its version
+   * @param attributes New values by attribute name, at least one
+   * @return Number of updated records, 0 if the record does not exist or is at another version
+   */
+  @Transactional
+  public <T> int updateById(Class<T> type, Long id, Long version, Map<String, Object> attributes) {
+    if (attributes.isEmpty()) {
+      throw new IllegalArgumentException("No attributes to update");
+    }
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaUpdate<T> update = builder.createCriteriaUpdate(type);
+    Root<T> root = update.from(type);
+
+    // Bind every value, so each combination of attributes maps to a single reusable statement
+    Map<ParameterExpression<Object>, Object> values = new LinkedHashMap<>();
+    attributes.forEach((attribute, value) -> {
+      Path<Object> path = root.get(attribute);
+      ParameterExpression<Object> parameter = builder.parameter(objectClass(path.getJavaType()));
+      update.<Object>set(path, parameter);
+      values.put(parameter, value);
+    });
+    Path<Long> versionPath = root.get("version");
+    update.set(versionPath, builder.sum(versionPath, 1L));
+
+    ParameterExpression<Long> idParameter = builder.parameter(Long.class);
+    ParameterExpression<Long> versionParameter = builder.parameter(Long.class);
+    update.where(version == null
+        ? builder.equal(root.get("id"), idParameter)
+        : builder.and(builder.equal(root.get("id"), idParameter), builder.equal(versionPath, versionParameter)));
+
+    Query query = entityManager.createQuery(update).setParameter(idParameter, id);
+    if (version != null) {
+      query.setParameter(versionParameter, version);
+    }
+    values.forEach(query::setParameter);
+    return query.executeUpdate();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Class<Object> objectClass(Class<?> type) {
+    return (Class<Object>) type;
+  }
+}
@@ -0,0 +1,13 @@
+package com.project.citymanagement.repository;
+
+import java.time.LocalDate;
+
+/** The city and date of a utility record, which place it in the summary of its city. */
+public interface RecordPlacement {
+
+  /** @return ID of the city of the record */
+  Long getCityId();
+
+  /** @return Date of the record */
+  LocalDate getDate();
+}
@@ -2,10 +2,20 @@ package com.project.citymanagement.repository;
 
 import com.project.citymanagement.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 /** This interface represents the repository for users. */
 public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByUsername(String username);
+
+  /**
+   * Find the usernames of all users, without loading the users themselves.
+   *
+   * @return All usernames
+   */
+  @Query("select u.username from User u")
+  List<String> findAllUsernames();
 }
@@ -1,15 +1,49 @@
 package com.project.citymanagement.repository;
 
 import com.project.citymanagement.entity.Waste;
+import com.project.citymanagement.model.waste.WasteDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface WasteRepository extends JpaRepository<Waste, Long> {
-  List<Waste> findByCityId(Long cityId);
+  // Lists select only the columns of the DTO, so their cost does not depend on the other data of a city
+  String SELECT_DTO = "SELECT new com.project.citymanagement.model.waste.WasteDto(" +
+      "w.id, w.version, w.date, w.area, w.wasteType, w.quantityKg, w.collectionSchedule, c.id, c.name, c.country) " +
+      "FROM Waste w JOIN w.city c ";
 
-  List<Waste> findByCityIdAndDateBetween(Long cityId, LocalDate startDate, LocalDate endDate);
+  // Reads the foreign key and date by primary key, for the summary of the city
+  @Query("SELECT w.city.id AS cityId, w.date AS date FROM Waste w WHERE w.id = :id")
+  Optional<RecordPlacement> findPlacementById(@Param("id") Long id);
+
+  // Deletes by primary key, without loading the record first as deleteById does
+  @Modifying
+  @Query("DELETE FROM Waste w WHERE w.id = :id")
+  int deleteRecordById(@Param("id") Long id);
+
+  @Query(SELECT_DTO)
+  List<WasteDto> findAllDtos();
+
+  @Query(SELECT_DTO + "WHERE c.id = :cityId")
+  List<WasteDto> findDtosByCityId(@Param("cityId") Long cityId);
+
+  @Query(SELECT_DTO + "WHERE c.id = :cityId AND w.date BETWEEN :startDate AND :endDate")
+  List<WasteDto> findDtosByCityIdAndDateBetween(@Param("cityId") Long cityId,
+                                                @Param("startDate") LocalDate startDate,
+                                                @Param("endDate") LocalDate endDate);
+
+  @Query("SELECT w.wasteType AS wasteType, COUNT(w) AS recordCount, SUM(w.quantityKg) AS totalQuantity " +
+      "FROM Waste w " +
+      "WHERE w.city.id = :cityId AND w.date BETWEEN :startDate AND :endDate " +
+      "GROUP BY w.wasteType")
+  List<Object[]> summarizeByWasteTypeForCityIdAndDateBetween(@Param("cityId") Long cityId,
+                                                             @Param("startDate") LocalDate startDate,
+                                                             @Param("endDate") LocalDate endDate);
 }
@@ -0,0 +1,36 @@
+package com.project.citymanagement.repository;
+
+import com.project.citymanagement.entity.WaterSupply;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/** This class represents the repository batching inserts of water supply records. */
+@Repository
+public class WaterSupplyJdbcRepository extends JdbcBatchInsertRepository<WaterSupply> {
+
+  @Override
+  protected String insertSql() {
+    return "insert into water_supply (city_id, date, area, consumption_liters, production_liters,"
+        + " reservoir_level_percentage, rainfall_mm, version) values (?, ?, ?, ?, ?, ?, ?, 0)";
+  }
+
+  @Override
+  protected void bind(PreparedStatement statement, WaterSupply record) throws SQLException {
+    statement.setLong(1, record.getCity().getId());
+    statement.setDate(2, Date.valueOf(record.getDate()));
+    statement.setString(3, record.getArea());
+    statement.setObject(4, record.getConsumptionLiters(), Types.DOUBLE);
+    statement.setObject(5, record.getProductionLiters(), Types.DOUBLE);
+    statement.setObject(6, record.getReservoirLevelPercentage(), Types.DOUBLE);
+    statement.setObject(7, record.getRainfallMm(), Types.DOUBLE);
+  }
+
+  @Override
+  protected void setId(WaterSupply record, Long id) {
+    record.setId(id);
+  }
+}
@@ -1,15 +1,55 @@
 package com.project.citymanagement.repository;
 
 import com.project.citymanagement.entity.WaterSupply;
+import com.project.citymanagement.model.watersupply.WaterSupplyDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface WaterSupplyRepository extends JpaRepository<WaterSupply, Long> {
+  String SELECT_DTO = "SELECT new com.project.citymanagement.model.watersupply.WaterSupplyDto(" +
+      "w.id, w.version, w.date, w.area, w.consumptionLiters, w.productionLiters, w.reservoirLevelPercentage, " +
+      "w.rainfallMm, c.id, c.name, c.country) " +
+      "FROM WaterSupply w JOIN w.city c ";
+
+  // Reads the foreign key and date by primary key, for the summary of the city
+  @Query("SELECT w.city.id AS cityId, w.date AS date FROM WaterSupply w WHERE w.id = :id")
+  Optional<RecordPlacement> findPlacementById(@Param("id") Long id);
+
+  // Deletes by primary key, without loading the record first as deleteById does
+  @Modifying
+  @Query("DELETE FROM WaterSupply w WHERE w.id = :id")
+  int deleteRecordById(@Param("id") Long id);
+
   List<WaterSupply> findByCityId(Long cityId);
 
-  List<WaterSupply> findByCityIdAndDateBetween(Long cityId, LocalDate startDate, LocalDate endDate);
+  @Query(SELECT_DTO + "WHERE c.id = :cityId AND w.date BETWEEN :startDate AND :endDate")
+  List<WaterSupplyDto> findDtosByCityIdAndDateBetween(@Param("cityId") Long cityId,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+
+  // Streamed reads select one page of DTOs after the last ID sent, so no page depends on an offset
+  @Query(SELECT_DTO + "WHERE c.id = :cityId AND w.date BETWEEN :startDate AND :endDate AND w.id > :afterId " +
+      "ORDER BY w.id")
+  List<WaterSupplyDto> findDtosByCityIdAndDateBetweenAfterId(@Param("cityId") Long cityId,
+                                                             @Param("startDate") LocalDate startDate,
+                                                             @Param("endDate") LocalDate endDate,
+                                                             @Param("afterId") Long afterId,
+                                                             Pageable page);
+
+  @Query("SELECT COUNT(w), SUM(w.consumptionLiters), SUM(w.productionLiters), " +
+      "AVG(w.reservoirLevelPercentage), SUM(w.rainfallMm) " +
+      "FROM WaterSupply w " +
+      "WHERE w.city.id = :cityId AND w.date BETWEEN :startDate AND :endDate")
+  List<Object[]> summarizeByCityIdAndDateBetween(@Param("cityId") Long cityId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
 }
@@ -0,0 +1,113 @@
+package com.project.citymanagement.security;
+
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class represents a password encoder running the hashing of its delegate on a dedicated
+ * bounded executor. Request threads only wait for the result, so a burst of logins cannot take
+ * more CPU than the executor has threads. Work that cannot be queued, or does not complete in
+ * time, fails fast with a {@link ServiceUnavailableException}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+  /** The encoder doing the hashing. */
+  private final PasswordEncoder delegate;
+
+  /** The executor the hashing runs on. */
+  private final ThreadPoolTaskExecutor executor;
+
+  /** Maximum time a caller waits for its hash, including queueing, in milliseconds. */
+  private final long timeoutMillis;
+
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+  private final Counter rejected;
+
+  /**
+   * Constructor for the encoder.
+   *
+   * @param delegate The encoder doing the hashing
+   * @param executor The executor the hashing runs on
+   * @param timeoutMillis Maximum time a caller waits for its hash, in milliseconds
+   * @param meterRegistry The registry the hashing metrics are published to
+   */
+  public BoundedPasswordEncoder(PasswordEncoder delegate, ThreadPoolTaskExecutor executor, long timeoutMillis,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.executor = executor;
+    this.timeoutMillis = timeoutMillis;
+    this.encodeTimer = hashTimer(meterRegistry, "encode");
+    this.matchesTimer = hashTimer(meterRegistry, "matches");
+    this.rejected = Counter.builder("password.hashing.rejected")
+        .description("Password hashes shed because the executor was saturated or too slow")
+        .register(meterRegistry);
+    Gauge.builder("password.hashing.queue.size", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+        .description("Password hashes waiting for a worker")
+        .register(meterRegistry);
+    Gauge.builder("password.hashing.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+        .description("Password hashes being computed")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(encodeTimer, () -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private <T> T run(Timer timer, Callable<T> hashing) {
+    Future<T> result;
+    try {
+      result = executor.submit(() -> timer.recordCallable(hashing));
+    } catch (TaskRejectedException e) {
+      rejected.increment();
+      throw new ServiceUnavailableException("Too many authentication requests, try again later");
+    }
+
+    try {
+      return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      result.cancel(true);
+      rejected.increment();
+      throw new ServiceUnavailableException("Too many authentication requests, try again later");
+    } catch (InterruptedException e) {
+      result.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("Interrupted while waiting for password hashing");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Password hashing failed", e.getCause());
+    }
+  }
+
+  private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+    return Timer.builder("password.hashing")
+        .description("Time spent hashing passwords, excluding queueing")
+        .tag("operation", operation)
+        .register(meterRegistry);
+  }
+}
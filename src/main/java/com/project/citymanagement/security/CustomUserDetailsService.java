@@ -1,16 +1,28 @@
 package com.project.citymanagement.security;
 
-import com.project.citymanagement.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.citymanagement.event.UserCredentialsChangedEvent;
 import com.project.citymanagement.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.ArrayList;
 
-/** This class represents the custom user details service. */
+/**
+ * This class represents the custom user details service. Loaded principals are kept in a bounded
+ * cache for a short time, so authenticated requests do not query the user table. Entries are
+ * evicted as soon as the credentials of their user change.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
@@ -18,6 +30,32 @@ public class CustomUserDetailsService implements UserDetailsService {
   @Autowired
   private UserRepository userRepository;
 
+  /** The registry the cache metrics are published to. */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** Maximum number of cached principals. */
+  @Value("${security.principal-cache.maximum-size:10000}")
+  private long maximumSize;
+
+  /** Time a principal is cached for, in seconds. */
+  @Value("${security.principal-cache.ttl-seconds:300}")
+  private long ttlSeconds;
+
+  /** The cached principals by username. */
+  private Cache<String, UserDetails> principals;
+
+  /** Create the principal cache. */
+  @PostConstruct
+  public void init() {
+    principals = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+  }
+
   /**
    * Load user by username.
    *
@@ -27,9 +65,28 @@ public class CustomUserDetailsService implements UserDetailsService {
    */
   @Override
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    User user = userRepository.findByUsername(username)
-        .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+    UserDetails principal = principals.get(username, this::loadFromRepository);
+    if (principal == null) {
+      throw new UsernameNotFoundException("User not found with username: " + username);
+    }
+    // Authentication erases the credentials of the principal it is given, so never hand out the cached one
+    return org.springframework.security.core.userdetails.User.withUserDetails(principal).build();
+  }
+
+  /**
+   * Drop the cached principal of a user whose credentials changed.
+   *
+   * @param event The change
+   */
+  @EventListener
+  public void onUserCredentialsChanged(UserCredentialsChangedEvent event) {
+    principals.invalidate(event.getUsername());
+  }
 
-    return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), new ArrayList<>());
+  private UserDetails loadFromRepository(String username) {
+    return userRepository.findByUsername(username)
+        .map(user -> new org.springframework.security.core.userdetails.User(
+            user.getUsername(), user.getPassword(), new ArrayList<>()))
+        .orElse(null);
   }
 }
@@ -1,6 +1,9 @@
 package com.project.citymanagement.security;
 
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,8 +17,10 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
 
-/** This class represents the JWT request filter. */
+/** This class represents the JWT request filter. It runs before the other application filters, so they see the caller. */
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
@@ -41,19 +46,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     final String authorizationHeader = request.getHeader("Authorization");
 
-    String username = null;
-    String jwt = null;
+    if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+        && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-    if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-      jwt = authorizationHeader.substring(7);
-      username = jwtTokenUtil.extractUsername(jwt);
-    }
-
-    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+      // Verify the token once; an invalid or expired token simply leaves the request unauthenticated
+      Optional<Claims> claims = jwtTokenUtil.getValidClaims(authorizationHeader.substring(7));
 
-      UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+      if (claims.isPresent() && claims.get().getSubject() != null) {
 
-      if (jwtTokenUtil.validateToken(jwt, userDetails.getUsername())) {
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(claims.get().getSubject());
 
         UsernamePasswordAuthenticationToken authenticationToken =
             new UsernamePasswordAuthenticationToken(
@@ -1,20 +1,76 @@
 package com.project.citymanagement.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
 import java.util.function.Function;
 
-/** This class represents the JWT token utility. */
+/**
+ * This class represents the JWT token utility. The signing key and the parser are built once, and
+ * verified claims are kept for a short time keyed by the SHA-256 hash of their token, so a token is
+ * HMAC-verified at most once per request and usually once per cache period.
+ */
 @Component
 public class JwtTokenUtil {
 
   /** The secret key. */
   private String secret = "secretKey";
 
+  /** The registry the cache metrics are published to. */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** Maximum number of cached verified claims, 0 disables the cache. */
+  @Value("${security.jwt.claims-cache.maximum-size:10000}")
+  private long claimsCacheMaximumSize;
+
+  /** Time verified claims are cached for, in seconds. */
+  @Value("${security.jwt.claims-cache.ttl-seconds:60}")
+  private long claimsCacheTtlSeconds;
+
+  /** The signing key, decoded from the secret the same way jjwt decodes string keys. */
+  private Key signingKey;
+
+  /** The parser verifying tokens with the signing key. */
+  private JwtParser parser;
+
+  /** The verified claims by token hash. */
+  private Cache<String, Claims> verifiedClaims;
+
+  /** Build the signing key, the parser and the claims cache. */
+  @PostConstruct
+  public void init() {
+    signingKey = new SecretKeySpec(TextCodec.BASE64.decode(secret), SignatureAlgorithm.HS256.getJcaName());
+    parser = Jwts.parser().setSigningKey(signingKey);
+    verifiedClaims = Caffeine.newBuilder()
+        .maximumSize(claimsCacheMaximumSize)
+        .expireAfterWrite(Duration.ofSeconds(claimsCacheTtlSeconds))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwt-claims");
+  }
+
   /**
    * Extract username.
    *
@@ -49,23 +105,38 @@ public class JwtTokenUtil {
   }
 
   /**
-   * Extract all claims.
+   * Get the claims of a token if it is correctly signed and not expired, verifying it only when
+   * its claims are not cached yet.
    *
    * @param token The token
-   * @return The claims
+   * @return The verified claims, or empty if the token is invalid or expired
    */
-  private Claims extractAllClaims(String token) {
-    return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+  public Optional<Claims> getValidClaims(String token) {
+    String key = hash(token);
+    Claims claims = verifiedClaims.getIfPresent(key);
+    if (claims == null) {
+      try {
+        claims = extractAllClaims(token);
+      } catch (JwtException | IllegalArgumentException e) {
+        return Optional.empty();
+      }
+      verifiedClaims.put(key, claims);
+    }
+    if (claims.getExpiration() != null && claims.getExpiration().before(new Date())) {
+      verifiedClaims.invalidate(key);
+      return Optional.empty();
+    }
+    return Optional.of(claims);
   }
 
   /**
-   * Determine if the token is expired.
+   * Extract all claims.
    *
    * @param token The token
-   * @return True if the token is expired, false otherwise
+   * @return The claims
    */
-  private Boolean isTokenExpired(String token) {
-    return extractExpiration(token).before(new Date());
+  private Claims extractAllClaims(String token) {
+    return parser.parseClaimsJws(token).getBody();
   }
 
   /**
@@ -79,7 +150,7 @@ public class JwtTokenUtil {
         .setSubject(username)
         .setIssuedAt(new Date())
         .setExpiration(new Date(System.currentTimeMillis() + 1000L * 60 * 60 * 24 * 7)) // 1 week validity
-        .signWith(SignatureAlgorithm.HS256, secret)
+        .signWith(SignatureAlgorithm.HS256, signingKey)
         .compact();
   }
 
@@ -91,7 +162,17 @@ public class JwtTokenUtil {
    * @return True if the token is valid, false otherwise
    */
   public Boolean validateToken(String token, String username) {
-    final String extractedUsername = extractUsername(token);
-    return (extractedUsername.equals(username) && !isTokenExpired(token));
+    return getValidClaims(token)
+        .map(claims -> claims.getSubject() != null && claims.getSubject().equals(username))
+        .orElse(false);
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
   }
 }
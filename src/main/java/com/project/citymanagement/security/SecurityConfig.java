@@ -1,7 +1,11 @@
 package com.project.citymanagement.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -18,6 +22,18 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
   /** The user details service. */
   @Autowired private UserDetailsService userDetailsService;
 
+  /** The executor password hashing runs on. */
+  @Autowired
+  @Qualifier("passwordHashingExecutor")
+  private ThreadPoolTaskExecutor passwordHashingExecutor;
+
+  /** The registry the password hashing metrics are published to. */
+  @Autowired private MeterRegistry meterRegistry;
+
+  /** Maximum time a request waits for its password hash, in milliseconds. */
+  @Value("${security.password-hashing.timeout-ms:2000}")
+  private long passwordHashingTimeoutMillis;
+
   /**
    * Configure authentication.
    *
@@ -30,13 +46,14 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
   }
 
   /**
-   * Password encoder.
+   * Password encoder, running BCrypt on the bounded password hashing executor.
    *
    * @return The password encoder
    */
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    return new BoundedPasswordEncoder(
+        new BCryptPasswordEncoder(), passwordHashingExecutor, passwordHashingTimeoutMillis, meterRegistry);
   }
 
   /**
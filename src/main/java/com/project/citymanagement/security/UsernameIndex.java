@@ -0,0 +1,136 @@
+package com.project.citymanagement.security;
+
+import com.project.citymanagement.repository.UserRepository;
+import com.project.citymanagement.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class represents the in-memory index of registered usernames, used to answer username
+ * existence checks without a query when the answer is no. It is a Bloom filter, so it may answer
+ * maybe for a username that does not exist, but never no for one that does. Until it is built every
+ * answer is maybe. It is rebuilt periodically to pick up users registered by other instances.
+ */
+@Slf4j
+@Component
+public class UsernameIndex {
+
+  /** The user repository. */
+  @Autowired
+  private UserRepository userRepository;
+
+  /** The registry the lookup metrics are published to. */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** Whether the index is used at all. */
+  @Value("${username-index.enabled:true}")
+  private boolean enabled;
+
+  /** Least number of usernames the filter is sized for. */
+  @Value("${username-index.expected-insertions:100000}")
+  private long expectedInsertions;
+
+  /** Wanted probability of answering maybe for an unknown username. */
+  @Value("${username-index.false-positive-rate:0.01}")
+  private double falsePositiveRate;
+
+  /** The filter lookups are answered from, null until built. */
+  private volatile BloomFilter filter;
+
+  /** The filter being rebuilt, which also receives usernames added during the rebuild. */
+  private volatile BloomFilter pending;
+
+  private Counter absentLookups;
+  private Counter maybeLookups;
+
+  /** Register the lookup metrics. */
+  @PostConstruct
+  public void init() {
+    absentLookups = meterRegistry.counter("username-index.lookups", "result", "absent");
+    maybeLookups = meterRegistry.counter("username-index.lookups", "result", "maybe");
+  }
+
+  /** Build the index once the application, including its data initialization, is ready. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    rebuild();
+  }
+
+  /**
+   * Rebuild the index from the user table, sized for twice the current number of users so
+   * registrations until the next rebuild keep the false positive rate near the configured one.
+   */
+  @Scheduled(
+      initialDelayString = "${username-index.rebuild-interval-ms:600000}",
+      fixedDelayString = "${username-index.rebuild-interval-ms:600000}")
+  public synchronized void rebuild() {
+    if (!enabled) {
+      return;
+    }
+    long size = Math.max(expectedInsertions, 2 * userRepository.count());
+    BloomFilter rebuilt = new BloomFilter(size, falsePositiveRate);
+    // Published before reading the table, so a user saved after the read is still added to it
+    pending = rebuilt;
+    try {
+      List<String> usernames = userRepository.findAllUsernames();
+      usernames.forEach(username -> rebuilt.add(key(username)));
+      filter = rebuilt;
+      log.debug("Username index built with {} usernames in {} bits", usernames.size(), rebuilt.getBitCount());
+    } finally {
+      pending = null;
+    }
+  }
+
+  /**
+   * Check whether a username may be registered.
+   *
+   * @param username The username
+   * @return False if the username is definitely not registered
+   */
+  public boolean mightExist(String username) {
+    BloomFilter current = filter;
+    if (current == null || username == null || current.mightContain(key(username))) {
+      maybeLookups.increment();
+      return true;
+    }
+    absentLookups.increment();
+    return false;
+  }
+
+  /**
+   * Add a newly registered username.
+   *
+   * @param username The username
+   */
+  public void add(String username) {
+    if (username == null) {
+      return;
+    }
+    String key = key(username);
+    BloomFilter current = filter;
+    if (current != null) {
+      current.add(key);
+    }
+    BloomFilter rebuilding = pending;
+    if (rebuilding != null) {
+      rebuilding.add(key);
+    }
+  }
+
+  /** Usernames are compared case insensitively by the database collation. */
+  private static String key(String username) {
+    return username.toLowerCase(Locale.ROOT);
+  }
+}
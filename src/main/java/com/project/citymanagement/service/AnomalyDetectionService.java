@@ -0,0 +1,148 @@
+package com.project.citymanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.citymanagement.entity.ConsumptionAnomaly;
+import com.project.citymanagement.event.ConsumptionRecordedEvent;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.analytics.ConsumptionAnomalyDto;
+import com.project.citymanagement.repository.ConsumptionAnomalyRepository;
+import com.project.citymanagement.util.RunningStats;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class represents the service flagging anomalous consumption readings as they are ingested.
+ * Each reading is scored against the running mean and standard deviation of its area before being
+ * folded into them. The per-area state is swapped with compare-and-set, so parallel imports never
+ * wait on each other. Only the most recently active areas keep their state; an evicted area starts
+ * over and is not scored until it has enough readings again.
+ */
+@Slf4j
+@Service
+public class AnomalyDetectionService {
+
+  /** Key of the running statistics of one area. */
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  private static final class AreaKey {
+    private final UtilityType type;
+    private final Long cityId;
+    private final String area;
+  }
+
+  /** The anomaly repository. */
+  @Autowired
+  private ConsumptionAnomalyRepository consumptionAnomalyRepository;
+
+  /** Number of standard deviations from the mean at which a reading is flagged. */
+  @Value("${anomaly-detection.threshold:3.0}")
+  private double threshold;
+
+  /** Number of readings an area needs before its readings are scored. */
+  @Value("${anomaly-detection.min-samples:10}")
+  private long minSamples;
+
+  /** Maximum number of areas whose running statistics are kept. */
+  @Value("${anomaly-detection.max-areas:100000}")
+  private long maxAreas;
+
+  /** Time after which the statistics of an area without readings are dropped, in hours. */
+  @Value("${anomaly-detection.idle-area-ttl-hours:168}")
+  private long idleAreaTtlHours;
+
+  /** The running statistics per area. */
+  private Cache<AreaKey, AtomicReference<RunningStats>> statistics;
+
+  /** Create the statistics cache. */
+  @PostConstruct
+  public void init() {
+    statistics = Caffeine.newBuilder()
+        .maximumSize(maxAreas)
+        .expireAfterAccess(Duration.ofHours(idleAreaTtlHours))
+        // Evicted by the recording thread, not by a task that may wait on the shared common pool
+        .executor(Runnable::run)
+        .build();
+  }
+
+  /**
+   * Score an ingested reading and flag it when it deviates too much from its area. The reading is
+   * already stored, so failing to store the anomaly is logged rather than failing the ingest.
+   *
+   * @param event The ingested reading
+   */
+  @EventListener
+  public void onConsumptionRecorded(ConsumptionRecordedEvent event) {
+    if (event.getCityId() == null || event.getConsumption() == null) {
+      return;
+    }
+
+    double consumption = event.getConsumption();
+    RunningStats previous = statistics
+        .get(new AreaKey(event.getType(), event.getCityId(), event.getArea()),
+            key -> new AtomicReference<>(RunningStats.EMPTY))
+        .getAndUpdate(stats -> stats.add(consumption));
+
+    if (previous.getCount() < minSamples) {
+      return;
+    }
+    double standardScore = previous.zScore(consumption);
+    if (Math.abs(standardScore) < threshold) {
+      return;
+    }
+
+    try {
+      consumptionAnomalyRepository.save(ConsumptionAnomaly.builder()
+          .type(event.getType())
+          .cityId(event.getCityId())
+          .area(event.getArea())
+          .date(event.getDate())
+          .consumption(consumption)
+          .expectedConsumption(previous.getMean())
+          .standardDeviation(previous.getStandardDeviation())
+          .standardScore(standardScore)
+          .detectedAt(Instant.now())
+          .build());
+    } catch (RuntimeException ex) {
+      log.warn("Storing the {} anomaly of city {} area {} on {} failed",
+          event.getType(), event.getCityId(), event.getArea(), event.getDate(), ex);
+    }
+  }
+
+  /**
+   * Get the anomalies flagged for a city within a period.
+   *
+   * @param cityId ID of the city
+   * @param type Utility type, or null for all types
+   * @param startDate start date (inclusive)
+   * @param endDate end date (inclusive)
+   * @return List of anomalies ordered by date
+   */
+  public List<ConsumptionAnomaly> getAnomaliesForPeriod(Long cityId, UtilityType type, LocalDate startDate, LocalDate endDate) {
+    if (type == null) {
+      return consumptionAnomalyRepository.findByCityIdAndDateBetweenOrderByDateAsc(cityId, startDate, endDate);
+    }
+    return consumptionAnomalyRepository.findByCityIdAndTypeAndDateBetweenOrderByDateAsc(cityId, type, startDate, endDate);
+  }
+
+  /**
+   * Map list of records to list of data transfer objects
+   * @param records list of records
+   * @return list of record dtos
+   */
+  public static List<ConsumptionAnomalyDto> recordsToDto(List<ConsumptionAnomaly> records) {
+    return records.stream().map(ConsumptionAnomaly::dto).toList();
+  }
+}
@@ -0,0 +1,175 @@
+package com.project.citymanagement.service;
+
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.city.CityOverviewDto;
+import com.project.citymanagement.repository.CityDataSummaryRepository;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class represents the service maintaining the per-city record summaries behind the city
+ * overview. A write adjusts the summary of its city by the records it added or removed, in its own
+ * transaction: the count moves by their number and the covered dates widen to theirs. Only removing
+ * records at the first or last date a summary covers recomputes it, as the records left decide its
+ * new dates. Summaries a write could not adjust are recomputed in the background.
+ */
+@Slf4j
+@Service
+public class CityDataSummaryService {
+
+  /** Tables of the records of each utility type. */
+  private static final Map<UtilityType, String> TABLES = Map.of(
+      UtilityType.ELECTRICITY, "electricity", UtilityType.WATER_SUPPLY, "water_supply", UtilityType.WASTE, "waste");
+
+  /** Key of the changed records of one table and city (null for all cities). */
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  private static final class ChangedRecords {
+    private final String table;
+    private final Long cityId;
+  }
+
+  /** The repository of the summaries. */
+  @Autowired
+  private CityDataSummaryRepository cityDataSummaryRepository;
+
+  /** Whether the summaries are maintained. */
+  @Value("${city-summary.enabled:true}")
+  private boolean enabled;
+
+  /** Records whose summary could not be adjusted since the last refresh. */
+  private final Set<ChangedRecords> changed = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Rebuild all summaries once the application, including its data initialization, is ready, as
+   * records may have been written while it was down.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!enabled) {
+      return;
+    }
+    TABLES.values().forEach(table -> recordsChanged(table, null));
+    refresh();
+  }
+
+  /**
+   * Adjust the summary of a city to the records a write added or removed. Within a transaction it
+   * is adjusted as the transaction commits, so it commits or rolls back along with the records;
+   * otherwise the records are already written, and a summary that cannot be adjusted is recomputed
+   * with the next refresh.
+   *
+   * @param event The change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onUtilityDataChanged(UtilityDataChangedEvent event) {
+    if (!enabled || event.getAddedRecords() == 0) {
+      return;
+    }
+    String table = TABLES.get(event.getType());
+    Long cityId = event.getCityId();
+    if (cityId == null) {
+      recordsChanged(table, null);
+      return;
+    }
+    try {
+      if (event.getAddedRecords() > 0) {
+        cityDataSummaryRepository.add(
+            table, cityId, event.getAddedRecords(), event.getFirstDate(), event.getLastDate());
+      } else if (event.getFirstDate() == null || event.getLastDate() == null
+          || !cityDataSummaryRepository.remove(
+              table, cityId, -event.getAddedRecords(), event.getFirstDate(), event.getLastDate())) {
+        cityDataSummaryRepository.refresh(table, cityId);
+      }
+    } catch (RuntimeException ex) {
+      if (TransactionSynchronizationManager.isActualTransactionActive()) {
+        throw ex;
+      }
+      log.warn("Adjusting the {} summary of city {} failed, recomputing it with the next refresh", table, cityId, ex);
+      recordsChanged(table, cityId);
+    }
+  }
+
+  /**
+   * Mark the summary of the records of a city as stale. Within a transaction the mark is set once
+   * it commits, so a refresh in between cannot read the records before the change and clear it.
+   *
+   * @param table Table of the records
+   * @param cityId ID of the city, or null when it is unknown
+   */
+  private void recordsChanged(String table, Long cityId) {
+    if (!enabled) {
+      return;
+    }
+    ChangedRecords records = new ChangedRecords(table, cityId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          changed.add(records);
+        }
+      });
+    } else {
+      changed.add(records);
+    }
+  }
+
+  /** Recompute the stale summaries. */
+  @Scheduled(
+      initialDelayString = "${city-summary.refresh-interval-ms:1000}",
+      fixedDelayString = "${city-summary.refresh-interval-ms:1000}")
+  public synchronized void refresh() {
+    List<ChangedRecords> pending = new ArrayList<>();
+    // Removed before the refresh, so records changed meanwhile are marked again
+    for (Iterator<ChangedRecords> it = changed.iterator(); it.hasNext(); ) {
+      pending.add(it.next());
+      it.remove();
+    }
+
+    Set<String> allCities = new HashSet<>();
+    pending.stream().filter(records -> records.cityId == null).forEach(records -> allCities.add(records.table));
+    for (int i = 0; i < pending.size(); i++) {
+      ChangedRecords records = pending.get(i);
+      if (records.cityId != null && allCities.contains(records.table)) {
+        continue;
+      }
+      try {
+        cityDataSummaryRepository.refresh(records.table, records.cityId);
+      } catch (RuntimeException ex) {
+        log.warn("Refreshing the {} summary of city {} failed, retrying with the next refresh",
+            records.table, records.cityId, ex);
+        changed.addAll(pending.subList(i, pending.size()));
+        return;
+      }
+    }
+  }
+
+  /**
+   * Get all cities with the number of records they have per type and the dates they cover.
+   *
+   * @return List of all cities, by ID
+   */
+  public List<CityOverviewDto> getCityOverviews() {
+    return cityDataSummaryRepository.findCityOverviews();
+  }
+}
@@ -0,0 +1,91 @@
+package com.project.citymanagement.service;
+
+import com.project.citymanagement.entity.City;
+import com.project.citymanagement.repository.CityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class represents the in-memory registry of cities used by utility writes to resolve the
+ * city of a record without a database round trip. It is loaded once the application is ready and
+ * kept up to date by {@link CityService}. Cities missing from it, e.g. created by another instance,
+ * are looked up in the database and registered.
+ *
+ * <p>The cities handed out are detached copies, not references of a persistence context. They may
+ * be set as the city of a new record that is persisted, of a managed record, or of a partial
+ * update, where only their ID is written. Merging a record that holds one loads the city again, so
+ * callers must not merge them; their name and country are only there for the response.
+ */
+@Component
+public class CityRegistry {
+
+  /** The city repository. */
+  @Autowired
+  private CityRepository cityRepository;
+
+  /** Detached snapshots of the known cities, holding only their own columns. */
+  private final Map<Long, City> cities = new ConcurrentHashMap<>();
+
+  /** Load all cities once the application, including its data initialization, is ready. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    cities.clear();
+    cityRepository.findAll().forEach(this::register);
+  }
+
+  /**
+   * Find a city by ID.
+   *
+   * @param id ID of the city
+   * @return Detached copy of the city, to be set as the city of a persisted or managed record only
+   */
+  public Optional<City> findById(Long id) {
+    if (id == null) {
+      return Optional.empty();
+    }
+    City city = cities.get(id);
+    if (city == null) {
+      Optional<City> stored = cityRepository.findById(id);
+      stored.ifPresent(this::register);
+      city = cities.get(id);
+      if (city == null) {
+        return Optional.empty();
+      }
+    }
+    return Optional.of(copy(city));
+  }
+
+  /**
+   * Register a created or updated city.
+   *
+   * @param city The saved city
+   */
+  public void register(City city) {
+    if (city.getId() != null) {
+      cities.put(city.getId(), copy(city));
+    }
+  }
+
+  /**
+   * Forget a removed city.
+   *
+   * @param id ID of the removed city
+   */
+  public void remove(Long id) {
+    cities.remove(id);
+  }
+
+  private static City copy(City city) {
+    return City.builder()
+        .id(city.getId())
+        .name(city.getName())
+        .country(city.getCountry())
+        .build();
+  }
+}
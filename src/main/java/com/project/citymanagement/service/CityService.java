@@ -1,38 +1,100 @@
 package com.project.citymanagement.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.project.citymanagement.entity.City;
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.city.CityDeletionJobDto;
+import com.project.citymanagement.model.city.CityDeletionStatus;
 import com.project.citymanagement.model.city.CityDto;
+import com.project.citymanagement.repository.ChunkedDeleteRepository;
 import com.project.citymanagement.repository.CityRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjLongConsumer;
 
 /** This class represents the service for cities. */
+@Slf4j
 @Service
 public class CityService {
 
+  /** Tables holding the records of a city, emptied before the city itself is deleted. */
+  private static final List<String> CITY_TABLES =
+      List.of("consumption_anomaly", "electricity", "water_supply", "waste");
+
   /** The city repository. */
   @Autowired private CityRepository cityRepository;
 
+  /** The registry of cities used by utility writes. */
+  @Autowired private CityRegistry cityRegistry;
+
+  /** The repository deleting the records of a city in chunks. */
+  @Autowired private ChunkedDeleteRepository chunkedDeleteRepository;
+
+  /** The publisher of utility data changes, evicting cached aggregates of deleted cities. */
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
+  /** The executor running asynchronous city deletions. */
+  @Autowired
+  @Qualifier("cityDeletionExecutor")
+  private Executor cityDeletionExecutor;
+
+  /** Asynchronous city deletions by ID, kept for an hour so their outcome can be polled. */
+  private final Cache<String, CityDeletionJob> deletionJobs = Caffeine.newBuilder()
+      .maximumSize(1000)
+      .expireAfterWrite(Duration.ofHours(1))
+      .build();
+
   /**
-   * Get all cities.
+   * Get all cities, without touching their records.
    *
    * @return List of all cities
    */
-  public List<City> getAllCities() {
-    return cityRepository.findAll();
+  @Transactional(readOnly = true)
+  public List<CityDto> getAllCities() {
+    return cityRepository.findAllDtos();
   }
 
   /**
-   * Get city by ID.
+   * Get city by ID, without touching its records.
    *
    * @param id ID of the city to be retrieved
    * @return city with the specified ID
    */
-  public Optional<City> getCityById(Long id) {
-    return cityRepository.findById(id);
+  public Optional<CityDto> getCityById(Long id) {
+    return cityRepository.findDtoById(id);
+  }
+
+  /**
+   * Update the name and country of a city.
+   *
+   * @param id ID of the city to be updated
+   * @param cityDetails updated city details
+   * @return Updated city, empty if it does not exist
+   */
+  public Optional<City> updateCity(Long id, CityDto cityDetails) {
+    return cityRepository.findById(id).map(city -> {
+      city.setName(cityDetails.getName());
+      city.setCountry(cityDetails.getCountry());
+      return saveCity(city);
+    });
   }
 
   /**
@@ -42,16 +104,48 @@ public class CityService {
    * @return Saved city
    */
   public City saveCity(City city) {
-    return cityRepository.save(city);
+    City saved = cityRepository.save(city);
+    cityRegistry.register(saved);
+    return saved;
   }
 
   /**
-   * Update an city.
+   * Delete a city and all of its records. The records are removed table by table with chunked
+   * set-based deletes, each committed on its own, and the city row last. A deletion interrupted
+   * part way leaves the city in place, so it can simply be deleted again.
    *
-   * @param id ID of the city to be updated
+   * @param id ID of the city to be deleted
    */
   public void deleteCity(Long id) {
-    cityRepository.deleteById(id);
+    deleteCity(id, (table, deleted) -> {});
+  }
+
+  /**
+   * Start deleting a city and all of its records in the background.
+   *
+   * @param id ID of the city to be deleted
+   * @return The deletion job, whose progress is reported by {@link #getCityDeletion(String)}
+   */
+  public CityDeletionJobDto startCityDeletion(Long id) {
+    CityDeletionJob job = new CityDeletionJob(UUID.randomUUID().toString(), id);
+    deletionJobs.put(job.id, job);
+    try {
+      cityDeletionExecutor.execute(() -> runCityDeletion(job));
+    } catch (RejectedExecutionException ex) {
+      deletionJobs.invalidate(job.id);
+      throw new ServiceUnavailableException("Too many city deletions in progress, please retry later");
+    }
+    return job.dto();
+  }
+
+  /**
+   * Get the progress of an asynchronous city deletion.
+   *
+   * @param jobId ID of the deletion job
+   * @return The deletion job, empty if it is unknown or expired
+   */
+  public Optional<CityDeletionJobDto> getCityDeletion(String jobId) {
+    return Optional.ofNullable(deletionJobs.getIfPresent(jobId)).map(CityDeletionJob::dto);
   }
 
   /**
@@ -62,4 +156,75 @@ public class CityService {
   public static List<CityDto> recordsToDto(List<City> records) {
     return records.stream().map(City::dto).toList();
   }
+
+  private void deleteCity(Long id, ObjLongConsumer<String> progress) {
+    for (String table : CITY_TABLES) {
+      chunkedDeleteRepository.deleteByCityId(table, id, deleted -> progress.accept(table, deleted));
+    }
+    // Derived from the records, so not reported as deleted records
+    chunkedDeleteRepository.deleteByCityId("city_data_summary", id, deleted -> {});
+    cityRepository.deleteCityById(id);
+    cityRegistry.remove(id);
+    for (UtilityType type : UtilityType.values()) {
+      eventPublisher.publishEvent(new UtilityDataChangedEvent(type, id));
+    }
+  }
+
+  private void runCityDeletion(CityDeletionJob job) {
+    try {
+      deleteCity(job.cityId, job::record);
+      job.finish(CityDeletionStatus.COMPLETED, null);
+    } catch (RuntimeException ex) {
+      log.error("Deletion of city {} failed", job.cityId, ex);
+      job.finish(CityDeletionStatus.FAILED, ex.getMessage());
+    }
+  }
+
+  /** Progress of an asynchronous city deletion, updated by its worker and read by pollers. */
+  private static final class CityDeletionJob {
+
+    private final String id;
+
+    private final Long cityId;
+
+    private final Instant startedAt = Instant.now();
+
+    private final Map<String, AtomicLong> deletedRecords = new LinkedHashMap<>();
+
+    private volatile CityDeletionStatus status = CityDeletionStatus.RUNNING;
+
+    private volatile Instant finishedAt;
+
+    private volatile String error;
+
+    private CityDeletionJob(String id, Long cityId) {
+      this.id = id;
+      this.cityId = cityId;
+      CITY_TABLES.forEach(table -> deletedRecords.put(table, new AtomicLong()));
+    }
+
+    private void record(String table, long deleted) {
+      deletedRecords.get(table).addAndGet(deleted);
+    }
+
+    private void finish(CityDeletionStatus status, String error) {
+      this.error = error;
+      this.finishedAt = Instant.now();
+      this.status = status;
+    }
+
+    private CityDeletionJobDto dto() {
+      Map<String, Long> deleted = new LinkedHashMap<>();
+      deletedRecords.forEach((table, count) -> deleted.put(table, count.get()));
+      return CityDeletionJobDto.builder()
+          .id(id)
+          .cityId(cityId)
+          .status(status)
+          .deletedRecords(deleted)
+          .startedAt(startedAt)
+          .finishedAt(finishedAt)
+          .error(error)
+          .build();
+    }
+  }
 }
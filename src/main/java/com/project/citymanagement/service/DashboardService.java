@@ -0,0 +1,137 @@
+package com.project.citymanagement.service;
+
+import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.model.city.CityDashboardDto;
+import com.project.citymanagement.model.city.CityDto;
+import com.project.citymanagement.model.city.DashboardSection;
+import com.project.citymanagement.model.electricity.ElectricitySummaryDto;
+import com.project.citymanagement.model.waste.WasteSummaryDto;
+import com.project.citymanagement.model.watersupply.WaterSupplySummaryDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * This class represents the service composing a city dashboard. The electricity, water supply and
+ * waste sections are computed in parallel, so the dashboard takes as long as its slowest section
+ * instead of the sum of all of them.
+ */
+@Service
+public class DashboardService {
+
+  /** The city service. */
+  @Autowired
+  private CityService cityService;
+
+  /** The electricity service. */
+  @Autowired
+  private ElectricityService electricityService;
+
+  /** The water supply service. */
+  @Autowired
+  private WaterSupplyService waterSupplyService;
+
+  /** The waste service. */
+  @Autowired
+  private WasteService wasteService;
+
+  /** The bounded executor running the dashboard sections. */
+  @Autowired
+  @Qualifier("dashboardExecutor")
+  private Executor dashboardExecutor;
+
+  /** Time budget of each section, counted from the start of the request. */
+  @Value("${dashboard.section-timeout-ms:2000}")
+  private long sectionTimeoutMillis;
+
+  /**
+   * Get the dashboard of a city for a period.
+   *
+   * @param cityId ID of the city
+   * @param startDate start date (inclusive)
+   * @param endDate end date (inclusive)
+   * @return Dashboard with one section per utility
+   */
+  public CityDashboardDto getCityDashboard(Long cityId, LocalDate startDate, LocalDate endDate) {
+    long startedAt = System.nanoTime();
+
+    // Fan the sections out before resolving the city, so the lookup overlaps with them
+    CompletableFuture<DashboardSection<ElectricitySummaryDto>> electricity = submit(startedAt,
+        () -> electricityService.getElectricitySummaryForPeriod(cityId, startDate, endDate));
+    CompletableFuture<DashboardSection<WaterSupplySummaryDto>> waterSupply = submit(startedAt,
+        () -> waterSupplyService.getWaterSupplySummaryForPeriod(cityId, startDate, endDate));
+    CompletableFuture<DashboardSection<WasteSummaryDto>> waste = submit(startedAt,
+        () -> wasteService.getWasteSummaryForPeriod(cityId, startDate, endDate));
+
+    CityDto city;
+    try {
+      city = cityService.getCityById(cityId)
+          .orElseThrow(() -> new ResourceNotFoundException("City not found with id: " + cityId));
+    } catch (RuntimeException ex) {
+      electricity.cancel(true);
+      waterSupply.cancel(true);
+      waste.cancel(true);
+      throw ex;
+    }
+
+    long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMillis);
+    return CityDashboardDto.builder()
+        .city(city)
+        .startDate(startDate)
+        .endDate(endDate)
+        .electricity(await(electricity, startedAt, deadline))
+        .waterSupply(await(waterSupply, startedAt, deadline))
+        .waste(await(waste, startedAt, deadline))
+        .build();
+  }
+
+  private <T> CompletableFuture<DashboardSection<T>> submit(long startedAt, Supplier<T> section) {
+    Supplier<DashboardSection<T>> timedSection = () -> DashboardSection.<T>builder()
+        .status(DashboardSection.Status.OK)
+        .data(section.get())
+        .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt))
+        .build();
+    try {
+      return CompletableFuture.supplyAsync(timedSection, dashboardExecutor);
+    } catch (RejectedExecutionException ex) {
+      return CompletableFuture.failedFuture(ex);
+    }
+  }
+
+  private <T> DashboardSection<T> await(CompletableFuture<DashboardSection<T>> future, long startedAt, long deadline) {
+    DashboardSection.Status status;
+    String error;
+    try {
+      return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException ex) {
+      future.cancel(true);
+      status = DashboardSection.Status.TIMEOUT;
+      error = "Section exceeded its time budget of " + sectionTimeoutMillis + " ms";
+    } catch (ExecutionException ex) {
+      status = ex.getCause() instanceof RejectedExecutionException
+          ? DashboardSection.Status.REJECTED
+          : DashboardSection.Status.FAILED;
+      error = ex.getCause().getMessage();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      status = DashboardSection.Status.FAILED;
+      error = "Interrupted while waiting for the section";
+    }
+    return DashboardSection.<T>builder()
+        .status(status)
+        .error(error)
+        .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt))
+        .build();
+  }
+}
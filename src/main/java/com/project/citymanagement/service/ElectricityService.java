@@ -1,24 +1,54 @@
 package com.project.citymanagement.service;
 
+import com.project.citymanagement.aspect.CachedResult;
+import com.project.citymanagement.aspect.Coalesced;
 import com.project.citymanagement.entity.City;
 import com.project.citymanagement.entity.Electricity;
+import com.project.citymanagement.event.ConsumptionRecordedEvent;
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.exception.ConflictException;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.bulk.BulkCreateResultDto;
+import com.project.citymanagement.model.bulk.BulkItemResultDto;
 import com.project.citymanagement.model.electricity.ElectricityDataRequest;
 import com.project.citymanagement.model.electricity.ElectricityDto;
-import com.project.citymanagement.repository.CityRepository;
+import com.project.citymanagement.model.electricity.ElectricityPatchRequest;
+import com.project.citymanagement.model.electricity.ElectricitySummaryDto;
+import com.project.citymanagement.repository.ChunkedDeleteRepository;
+import com.project.citymanagement.repository.ElectricityJdbcRepository;
 import com.project.citymanagement.repository.ElectricityRepository;
+import com.project.citymanagement.repository.PartialUpdateRepository;
+import com.project.citymanagement.repository.RecordPlacement;
+import com.project.citymanagement.util.KeysetFlux;
+import com.project.citymanagement.util.WriteBehindBuffer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
 
+import javax.annotation.PostConstruct;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * This class represents the service for electricity records.
@@ -32,14 +62,57 @@ public class ElectricityService {
   @Autowired
   private ElectricityRepository electricityRepository;
 
+  /** The repository batching inserts of electricity records. */
   @Autowired
-  private CityRepository cityRepository;
+  private ElectricityJdbcRepository electricityJdbcRepository;
+
+  /** The repository deleting records of a city in chunks. */
+  @Autowired
+  private ChunkedDeleteRepository chunkedDeleteRepository;
+
+  /** The repository updating only the supplied attributes of a record. */
+  @Autowired
+  private PartialUpdateRepository partialUpdateRepository;
+
+  /** The registry resolving the city of a record without a database round trip. */
+  @Autowired
+  private CityRegistry cityRegistry;
+
+  /** The publisher of ingested consumption readings. */
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  /** The factory of write-behind buffers. */
+  @Autowired
+  private WriteBehindBuffers writeBehindBuffers;
+
+  /** The scheduler running the page queries of streamed reads. */
+  @Autowired
+  @Qualifier("recordStreamScheduler")
+  private Scheduler recordStreamScheduler;
+
+  /** Number of records queried per page of a streamed read. */
+  @Value("${record-stream.page-size:500}")
+  private int streamPageSize;
+
+  /** Buffer of created records written in the background, or null when they are written directly. */
+  private WriteBehindBuffer<Electricity> writeBehind;
+
+  /** Summary key used for records without an area. */
+  private static final String UNSPECIFIED_AREA = "Unspecified";
+
+  /** Start the write-behind buffer, if created records are written in the background. */
+  @PostConstruct
+  public void init() {
+    writeBehind = writeBehindBuffers.create("electricity", electricityJdbcRepository::insertAll, this::publishWritten);
+  }
 
   /**
    * Get all electricity records.
    *
    * @return List of all electricity records
    */
+  @Transactional(readOnly = true)
   public List<Electricity> getAllElectricityRecords() {
     return electricityRepository.findAll();
   }
@@ -58,6 +131,7 @@ public class ElectricityService {
    * @param cityId ID of the city to be retrieved
    * @return List of all electricity records for the specified city
    */
+  @Transactional(readOnly = true)
   public List<Electricity> getAllElectricityDataForCity(Long cityId) {
     return electricityRepository.findByCityId(cityId);
   }
@@ -66,20 +140,40 @@ public class ElectricityService {
    * @param cityId ID of the city to be retrieved
    * @param startDate start date
    * @param endDate end date
-   * @return List of all electricity records for the specified city and period
+   * @return List of all electricity records for the specified city and period, shared by coalesced calls
+   */
+  @Coalesced("electricity.period")
+  @Transactional(readOnly = true)
+  public List<ElectricityDto> getElectricityDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
+    return List.copyOf(electricityRepository.findDtosByCityIdAndDateBetween(cityId, startDate, endDate));
+  }
+
+  /**
+   * Stream the electricity records of a city and period in ID order. Pages of
+   * {@code record-stream.page-size} records are queried as the subscriber consumes them, so the
+   * result is never held in memory.
+   *
+   * @param cityId ID of the city
+   * @param startDate start date
+   * @param endDate end date
+   * @return Stream of the electricity records for the specified city and period
    */
-  public List<Electricity> getElectricityDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
-    return electricityRepository.findByCityIdAndDateBetween(cityId, startDate, endDate);
+  public Flux<ElectricityDto> streamElectricityDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
+    return KeysetFlux.of(
+        afterId -> electricityRepository.findDtosByCityIdAndDateBetweenAfterId(
+            cityId, startDate, endDate, afterId, PageRequest.of(0, streamPageSize)),
+        ElectricityDto::getId, streamPageSize, recordStreamScheduler);
   }
 
   /**
-   * Save an electricity record.
+   * Save an electricity record. With write-behind enabled the record is buffered and returned
+   * without an ID; it is written with the next batch.
    *
    * @param request electricity to be saved
    * @return Saved electricity record
    */
   public Electricity saveElectricityData(ElectricityDataRequest request) {
-    City city = cityRepository.findById(request.getCityId())
+    City city = cityRegistry.findById(request.getCityId())
             .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + request.getCityId()));
 
     Electricity newElectricity = Electricity
@@ -92,51 +186,210 @@ public class ElectricityService {
             .city(city)
             .build();
 
-    return electricityRepository.save(newElectricity);
+    if (writeBehind != null) {
+      WriteBehindBuffer.Offer offer = writeBehind.offer(newElectricity);
+      if (offer == WriteBehindBuffer.Offer.ACCEPTED) {
+        return newElectricity;
+      }
+      if (offer == WriteBehindBuffer.Offer.FULL) {
+        throw new ServiceUnavailableException("Too many readings waiting to be written, try again later");
+      }
+      // The buffer closed for shutdown, write the record directly
+    }
+
+    Electricity saved = electricityRepository.save(newElectricity);
+    publishWritten(List.of(newElectricity));
+    return saved;
   }
 
   /**
-   * Save an electricity record.
+   * Save many electricity records in one transaction. Invalid readings and readings of unknown
+   * cities are rejected individually; the others are inserted together.
+   *
+   * @param requests electricity records to be saved
+   * @return Status of every reading, in request order
+   */
+  public BulkCreateResultDto saveElectricityDataBatch(List<ElectricityDataRequest> requests) {
+    BulkItemResultDto[] results = new BulkItemResultDto[requests.size()];
+    Map<Long, Optional<City>> cities = new HashMap<>();
+    List<Electricity> records = new ArrayList<>();
+    List<Integer> indexes = new ArrayList<>();
+
+    for (int i = 0; i < requests.size(); i++) {
+      ElectricityDataRequest request = requests.get(i);
+      String error = validate(request);
+      Optional<City> city = Optional.empty();
+      if (error == null) {
+        city = cities.computeIfAbsent(request.getCityId(), cityRegistry::findById);
+        if (city.isEmpty()) {
+          error = "City not found with ID: " + request.getCityId();
+        }
+      }
+      if (error != null) {
+        results[i] = BulkItemResultDto.rejected(i, error);
+        continue;
+      }
+      records.add(Electricity
+              .builder()
+              .area(request.getArea())
+              .consumptionKwh(request.getConsumptionKwh())
+              .outageDurationMinutes(request.getOutageDurationMinutes())
+              .outageReason(request.getOutageReason())
+              .date(request.getDate())
+              .city(city.get())
+              .build());
+      indexes.add(i);
+    }
+
+    electricityJdbcRepository.insertAll(records);
+
+    for (int i = 0; i < records.size(); i++) {
+      results[indexes.get(i)] = BulkItemResultDto.created(indexes.get(i), records.get(i).getId());
+    }
+    publishWritten(records);
+    return BulkCreateResultDto.of(Arrays.asList(results));
+  }
+
+  /**
+   * Save an electricity record. The update only applies if the record is still at the version
+   * it was read at, and at the expected version if one is given.
    *
    * @param request electricity to be saved
+   * @param expectedVersion version the client read, or null to update whatever the version
    * @return Saved electricity record
    */
-  public Electricity updateElectricityData(Long id, ElectricityDataRequest request) {
+  @Transactional
+  public Electricity updateElectricityData(Long id, ElectricityDataRequest request, Long expectedVersion) {
     Electricity electricity =
             electricityRepository
                     .findById(id)
                     .orElseThrow(
                             () -> new ResourceNotFoundException("Electricity record not found with id: " + id));
+    if (expectedVersion != null && !expectedVersion.equals(electricity.getVersion())) {
+      throw new ConflictException("Electricity record " + id + " is at version " + electricity.getVersion()
+              + ", not " + expectedVersion);
+    }
 
-    City city = cityRepository.findById(request.getCityId())
+    City city = cityRegistry.findById(request.getCityId())
             .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + request.getCityId()));
 
     electricity.setArea(request.getArea());
     electricity.setConsumptionKwh(request.getConsumptionKwh());
     electricity.setOutageDurationMinutes(request.getOutageDurationMinutes());
     electricity.setOutageReason(request.getOutageReason());
+    LocalDate previousDate = electricity.getDate();
     electricity.setDate(request.getDate());
+    Long previousCityId = electricity.getCity() == null ? null : electricity.getCity().getId();
     electricity.setCity(city);
 
-    return electricityRepository.save(electricity);
+    Electricity saved;
+    try {
+      // Flushed here, so a concurrent update fails inside the try rather than on commit
+      saved = electricityRepository.saveAndFlush(electricity);
+    } catch (ObjectOptimisticLockingFailureException ex) {
+      throw new ConflictException("Electricity record " + id + " was modified concurrently");
+    }
+    publishMoved(previousCityId, previousDate, request.getCityId(), request.getDate());
+    return saved;
+  }
+
+  /**
+   * Update the supplied fields of an electricity record with a single UPDATE statement, without
+   * reading the record first. Only an update of its city or date looks up where the record was
+   * beforehand, so the change is published for the city and date it leaves and the ones it moves
+   * to; other updates are published for all cities.
+   *
+   * @param id ID of the electricity record to be updated
+   * @param request fields to be updated
+   * @param expectedVersion version the client read, or null to update whatever the version
+   * @return Whether the record exists
+   */
+  @Transactional
+  public boolean patchElectricityData(Long id, ElectricityPatchRequest request, Long expectedVersion) {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    if (request.getCityId() != null) {
+      attributes.put("city", cityRegistry.findById(request.getCityId())
+              .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + request.getCityId())));
+    }
+    if (request.getDate() != null) {
+      attributes.put("date", request.getDate());
+    }
+    if (request.getArea() != null) {
+      attributes.put("area", request.getArea());
+    }
+    if (request.getConsumptionKwh() != null) {
+      attributes.put("consumptionKwh", request.getConsumptionKwh());
+    }
+    if (request.getOutageDurationMinutes() != null) {
+      attributes.put("outageDurationMinutes", request.getOutageDurationMinutes());
+    }
+    if (request.getOutageReason() != null) {
+      attributes.put("outageReason", request.getOutageReason());
+    }
+    if (attributes.isEmpty()) {
+      return electricityRepository.existsById(id);
+    }
+
+    // Only a record that may move to another city or date is read first, for its summaries
+    boolean moves = request.getCityId() != null || request.getDate() != null;
+    Optional<RecordPlacement> previous = moves ? electricityRepository.findPlacementById(id) : Optional.empty();
+    if (partialUpdateRepository.updateById(Electricity.class, id, expectedVersion, attributes) == 0) {
+      if (expectedVersion != null && electricityRepository.existsById(id)) {
+        throw new ConflictException("Electricity record " + id + " is not at version " + expectedVersion);
+      }
+      return false;
+    }
+    previous.ifPresent(from -> publishMoved(from.getCityId(), from.getDate(),
+            request.getCityId() == null ? from.getCityId() : request.getCityId(),
+            request.getDate() == null ? from.getDate() : request.getDate()));
+    if (!moves) {
+      // The city is not known without reading the record, so results of all cities are dropped
+      publishChange(null);
+    }
+    return true;
   }
 
   /**
-   * Remove an electricity record.
+   * Remove an electricity record. Only its city and date are read first, for the summary of the city.
    *
    * @param id ID of the electricity record to be removed
+   * @throws ResourceNotFoundException if there is no such record
    */
+  @Transactional
   public void deleteElectricityData(Long id) {
-    electricityRepository.deleteById(id);
+    RecordPlacement removed = electricityRepository.findPlacementById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Electricity record not found with id: " + id));
+    electricityRepository.deleteRecordById(id);
+    publishRemoved(removed.getCityId(), 1, removed.getDate(), removed.getDate());
+  }
+
+  /**
+   * Remove the electricity records of a city within a period, without loading them.
+   *
+   * @param cityId ID of the city
+   * @param startDate start date (inclusive)
+   * @param endDate end date (inclusive)
+   * @param area area of the records to remove, or null for all areas
+   * @return Number of removed records
+   */
+  public long deleteElectricityDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate, String area) {
+    long deleted = chunkedDeleteRepository.deleteByCityIdAndDateBetween("electricity", cityId, startDate, endDate, area);
+    if (deleted > 0) {
+      publishRemoved(cityId, deleted, startDate, endDate);
+    }
+    return deleted;
   }
 
   /**
    * Fetch all power outage data.
    *
-   * @return List of electricity records with outages
+   * @return List of electricity records with outages, shared by cached and coalesced calls
    */
-  public List<Electricity> getOutageData() {
-    return electricityRepository.findOutageData();
+  @CachedResult(value = "electricity.outages", type = UtilityType.ELECTRICITY)
+  @Coalesced("electricity.outages")
+  @Transactional(readOnly = true)
+  public List<ElectricityDto> getOutageData() {
+    return List.copyOf(electricityRepository.findOutageDtos());
   }
 
   /**
@@ -144,28 +397,62 @@ public class ElectricityService {
    *
    * @return List of area trends with total consumption
    */
+  @CachedResult(value = "electricity.area-trends", type = UtilityType.ELECTRICITY)
+  @Coalesced("electricity.area-trends")
+  @Transactional(readOnly = true)
   public List<Map<String, Object>> getAreaTrends() {
     return electricityRepository.findAreaTrends().stream()
         .map(row -> Map.of(
             "area", row[0],
             "consumptionKwh", row[1]
         ))
-        .collect(Collectors.toList());
+        .toList();
+  }
+
+  /**
+   * Aggregate the electricity records of a city within a period in the database.
+   *
+   * @param cityId ID of the city
+   * @param startDate start date (inclusive)
+   * @param endDate end date (inclusive)
+   * @return Totals, outage figures and per-area consumption for the period
+   */
+  @CachedResult(value = "electricity.summary", type = UtilityType.ELECTRICITY, cityIdArgument = 0)
+  @Coalesced("electricity.summary")
+  @Transactional(readOnly = true)
+  public ElectricitySummaryDto getElectricitySummaryForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
+    Object[] totals = electricityRepository.summarizeByCityIdAndDateBetween(cityId, startDate, endDate).get(0);
+
+    Map<String, Double> consumptionByArea = new LinkedHashMap<>();
+    for (Object[] row : electricityRepository.findAreaTrendsByCityIdAndDateBetween(cityId, startDate, endDate)) {
+      consumptionByArea.merge(row[0] == null ? UNSPECIFIED_AREA : (String) row[0], toDouble(row[1]), Double::sum);
+    }
+
+    return ElectricitySummaryDto.builder()
+        .recordCount(toLong(totals[0]))
+        .totalConsumptionKwh(toDouble(totals[1]))
+        .outageCount(toLong(totals[2]))
+        .totalOutageMinutes(toLong(totals[3]))
+        .consumptionKwhByArea(Collections.unmodifiableMap(consumptionByArea))
+        .build();
   }
 
   /**
    * Import electricity data from a CSV file for a specific city.
    *
+   * All rows are read first and then inserted together in JDBC batches in one transaction, so a
+   * file with an invalid row imports nothing.
+   *
    * @param cityId ID of the city to import data for
    * @param file CSV file containing the data
    * @return Number of records imported
    */
   public int importDataFromCsvForCity(Long cityId, MultipartFile file) {
     // Check if the city exists
-    City city = cityRepository.findById(cityId)
+    City city = cityRegistry.findById(cityId)
         .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + cityId));
 
-    int recordsCount = 0;
+    List<Electricity> records = new ArrayList<>();
     try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
       String line;
       while ((line = reader.readLine()) != null) {
@@ -182,8 +469,7 @@ public class ElectricityService {
         electricity.setOutageReason(data[3].trim());
         electricity.setDate(LocalDate.parse(data[4].trim()));
 
-        electricityRepository.save(electricity);
-        recordsCount++;
+        records.add(electricity);
       }
     } catch (IOException ex) {
       throw new RuntimeException("Error reading CSV file: " + ex.getMessage());
@@ -191,7 +477,97 @@ public class ElectricityService {
       throw new IllegalArgumentException("Invalid data format in CSV: " + ex.getMessage());
     }
 
-    return recordsCount;
+    electricityJdbcRepository.insertAll(records);
+    publishWritten(records);
+    return records.size();
+  }
+
+  /**
+   * Publish records written together. The cities are reported changed even if a consumption
+   * listener fails, so their caches and summaries are updated.
+   *
+   * @param records the written records
+   */
+  private void publishWritten(List<Electricity> records) {
+    try {
+      records.forEach(this::publishConsumption);
+    } finally {
+      UtilityDataChangedEvent.added(UtilityType.ELECTRICITY, records, record -> record.getCity().getId(),
+              Electricity::getDate).forEach(eventPublisher::publishEvent);
+    }
+  }
+
+  /**
+   * Check the fields a reading requires.
+   *
+   * @param request the reading
+   * @return Why the reading is invalid, or null if it is valid
+   */
+  private static String validate(ElectricityDataRequest request) {
+    if (request == null) {
+      return "Reading is required";
+    }
+    if (request.getCityId() == null) {
+      return "cityId is required";
+    }
+    if (request.getConsumptionKwh() == null) {
+      return "consumptionKwh is required";
+    }
+    if (request.getArea() == null) {
+      return "area is required";
+    }
+    if (request.getDate() == null) {
+      return "date is required";
+    }
+    return null;
+  }
+
+  /**
+   * Publish that records of a city changed, so results computed from them are dropped.
+   *
+   * @param cityId ID of the city, or null when unknown
+   */
+  private void publishChange(Long cityId) {
+    eventPublisher.publishEvent(new UtilityDataChangedEvent(UtilityType.ELECTRICITY, cityId));
+  }
+
+  /**
+   * Publish that records of a city were removed.
+   *
+   * @param cityId ID of the city
+   * @param count number of removed records
+   * @param firstDate earliest date the records may have had
+   * @param lastDate latest date the records may have had
+   */
+  private void publishRemoved(Long cityId, long count, LocalDate firstDate, LocalDate lastDate) {
+    eventPublisher.publishEvent(UtilityDataChangedEvent.removed(UtilityType.ELECTRICITY, cityId, count, firstDate, lastDate));
+  }
+
+  /**
+   * Publish that a record changed, as a removal and an addition if it moved to another city or date.
+   *
+   * @param previousCityId ID of the city the record was in
+   * @param previousDate date the record had
+   * @param cityId ID of the city the record is in
+   * @param date date the record has
+   */
+  private void publishMoved(Long previousCityId, LocalDate previousDate, Long cityId, LocalDate date) {
+    if (cityId.equals(previousCityId) && Objects.equals(date, previousDate)) {
+      publishChange(cityId);
+      return;
+    }
+    publishRemoved(previousCityId, 1, previousDate, previousDate);
+    eventPublisher.publishEvent(UtilityDataChangedEvent.added(UtilityType.ELECTRICITY, cityId, 1, date, date));
+  }
+
+  /**
+   * Publish an ingested reading to the consumption analytics.
+   *
+   * @param record the ingested record
+   */
+  private void publishConsumption(Electricity record) {
+    eventPublisher.publishEvent(new ConsumptionRecordedEvent(
+        UtilityType.ELECTRICITY, record.getCity().getId(), record.getArea(), record.getDate(), record.getConsumptionKwh()));
   }
 
   /**
@@ -202,4 +578,12 @@ public class ElectricityService {
   public static List<ElectricityDto> recordsToDto(List<Electricity> records) {
     return records.stream().map(Electricity::dto).toList();
   }
+
+  private static long toLong(Object value) {
+    return value == null ? 0L : ((Number) value).longValue();
+  }
+
+  private static double toDouble(Object value) {
+    return value == null ? 0.0 : ((Number) value).doubleValue();
+  }
 }
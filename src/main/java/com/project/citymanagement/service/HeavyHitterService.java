@@ -0,0 +1,169 @@
+package com.project.citymanagement.service;
+
+import com.project.citymanagement.event.ConsumptionRecordedEvent;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.analytics.TopAreaDto;
+import com.project.citymanagement.model.analytics.TopAreasDto;
+import com.project.citymanagement.util.SpaceSavingSketch;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class represents the service tracking the top consuming areas per week. Every ingested
+ * reading is added to a Space-Saving sketch for its city and to one for all cities, so the top K
+ * areas can be answered from memory with known error bounds, whatever the number of areas. Areas
+ * are counted per city in the sketch for all cities, as areas of different cities share names.
+ */
+@Service
+public class HeavyHitterService {
+
+  /** Key of the sketch of one utility type, city (null for all cities) and week. */
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  private static final class WindowKey {
+    private final UtilityType type;
+    private final Long cityId;
+    private final LocalDate weekStart;
+  }
+
+  /** Number of counters per sketch. */
+  @Value("${heavy-hitters.capacity:256}")
+  private int capacity;
+
+  /** Number of most recent weeks kept in memory per utility type. */
+  @Value("${heavy-hitters.retained-weeks:8}")
+  private int retainedWeeks;
+
+  /** The sketches per window. */
+  private final Map<WindowKey, SpaceSavingSketch> sketches = new ConcurrentHashMap<>();
+
+  /** Separator of the city and the area in the keys of the sketches for all cities. */
+  private static final char CITY_AREA_SEPARATOR = '\t';
+
+  /** Clock telling the current week, after which readings are ignored. */
+  private Clock clock = Clock.systemDefaultZone();
+
+  /** The most recent week seen per utility type. */
+  private final Map<UtilityType, AtomicReference<LocalDate>> newestWeeks = new EnumMap<>(UtilityType.class);
+
+  /** Create the service. */
+  public HeavyHitterService() {
+    for (UtilityType type : UtilityType.values()) {
+      newestWeeks.put(type, new AtomicReference<>());
+    }
+  }
+
+  /**
+   * Add an ingested reading to the sketches of its week.
+   *
+   * @param event The ingested reading
+   */
+  @EventListener
+  public void onConsumptionRecorded(ConsumptionRecordedEvent event) {
+    if (event.getDate() == null || event.getArea() == null || event.getConsumption() == null) {
+      return;
+    }
+
+    LocalDate weekStart = weekStart(event.getDate());
+    // A future-dated reading must not move the window forward and evict the current weeks
+    if (weekStart.isAfter(weekStart(LocalDate.now(clock)))) {
+      return;
+    }
+    LocalDate newestWeek = newestWeeks.get(event.getType()).accumulateAndGet(
+        weekStart, (current, candidate) -> current == null || candidate.isAfter(current) ? candidate : current);
+    LocalDate oldestRetainedWeek = newestWeek.minusWeeks(retainedWeeks - 1L);
+    if (weekStart.isBefore(oldestRetainedWeek)) {
+      return;
+    }
+    if (weekStart.equals(newestWeek)) {
+      sketches.keySet().removeIf(key -> key.type == event.getType() && key.weekStart.isBefore(oldestRetainedWeek));
+    }
+
+    double consumption = event.getConsumption();
+    if (event.getCityId() != null) {
+      sketch(new WindowKey(event.getType(), event.getCityId(), weekStart)).offer(event.getArea(), consumption);
+    }
+    sketch(new WindowKey(event.getType(), null, weekStart)).offer(cityArea(event.getCityId(), event.getArea()), consumption);
+  }
+
+  /**
+   * Get the top consuming areas of a week.
+   *
+   * @param type The utility type
+   * @param cityId ID of the city, or null for all cities
+   * @param weekOf Any day of the week
+   * @param k Number of areas to return
+   * @return The top areas with their error bounds
+   */
+  public TopAreasDto getTopAreas(UtilityType type, Long cityId, LocalDate weekOf, int k) {
+    if (k < 1 || k > capacity) {
+      throw new IllegalArgumentException("k must be between 1 and " + capacity + ".");
+    }
+
+    LocalDate weekStart = weekStart(weekOf);
+    TopAreasDto.TopAreasDtoBuilder result = TopAreasDto.builder()
+        .type(type)
+        .cityId(cityId)
+        .weekStart(weekStart)
+        .weekEnd(weekStart.plusDays(6));
+
+    SpaceSavingSketch sketch = sketches.get(new WindowKey(type, cityId, weekStart));
+    if (sketch == null) {
+      return result.areas(List.of()).build();
+    }
+
+    // Fetch one extra estimate to tell whether the K-th area is certainly in the top K
+    List<SpaceSavingSketch.Estimate> estimates = sketch.top(k + 1);
+    double nextBest = estimates.size() > k ? estimates.get(k).getCount() : sketch.getMinCount();
+
+    List<TopAreaDto> areas = new ArrayList<>(k);
+    for (SpaceSavingSketch.Estimate estimate : estimates.subList(0, Math.min(k, estimates.size()))) {
+      TopAreaDto.TopAreaDtoBuilder area = TopAreaDto.builder();
+      if (cityId == null) {
+        int separator = estimate.getKey().indexOf(CITY_AREA_SEPARATOR);
+        area.cityId(separator > 0 ? Long.valueOf(estimate.getKey().substring(0, separator)) : null)
+            .area(estimate.getKey().substring(separator + 1));
+      } else {
+        area.area(estimate.getKey());
+      }
+      areas.add(area
+          .estimatedConsumption(estimate.getCount())
+          .maxError(estimate.getError())
+          .guaranteedConsumption(estimate.getLowerBound())
+          .guaranteedInTopK(estimate.getLowerBound() >= nextBest)
+          .build());
+    }
+
+    return result
+        .totalConsumption(sketch.getTotalWeight())
+        .unlistedAreaMaxConsumption(nextBest)
+        .areas(areas)
+        .build();
+  }
+
+  private static String cityArea(Long cityId, String area) {
+    return (cityId == null ? "" : cityId.toString()) + CITY_AREA_SEPARATOR + area;
+  }
+
+  private SpaceSavingSketch sketch(WindowKey key) {
+    return sketches.computeIfAbsent(key, ignored -> new SpaceSavingSketch(capacity));
+  }
+
+  private static LocalDate weekStart(LocalDate date) {
+    return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+  }
+}
@@ -1,12 +1,30 @@
 package com.project.citymanagement.service;
 
+import com.project.citymanagement.entity.City;
 import com.project.citymanagement.entity.Waste;
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.exception.ConflictException;
+import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.waste.WasteDataRequest;
+import com.project.citymanagement.model.waste.WasteDto;
+import com.project.citymanagement.model.waste.WastePatchRequest;
+import com.project.citymanagement.model.waste.WasteSummaryDto;
+import com.project.citymanagement.repository.ChunkedDeleteRepository;
+import com.project.citymanagement.repository.PartialUpdateRepository;
+import com.project.citymanagement.repository.RecordPlacement;
 import com.project.citymanagement.repository.WasteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -21,13 +39,33 @@ public class WasteService {
   @Autowired
   private WasteRepository wasteRepository;
 
+  /** The repository deleting records of a city in chunks. */
+  @Autowired
+  private ChunkedDeleteRepository chunkedDeleteRepository;
+
+  /** The repository updating only the supplied attributes of a record. */
+  @Autowired
+  private PartialUpdateRepository partialUpdateRepository;
+
+  /** The publisher of changes to the records. */
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  /** The registry resolving the city of a record without a database round trip. */
+  @Autowired
+  private CityRegistry cityRegistry;
+
+  /** Summary key used for records without a waste type. */
+  private static final String UNSPECIFIED = "Unspecified";
+
   /**
    * Get all waste records.
    *
    * @return List of all waste records
    */
-  public List<Waste> getAllWasteRecords() {
-    return wasteRepository.findAll();
+  @Transactional(readOnly = true)
+  public List<WasteDto> getAllWasteRecords() {
+    return wasteRepository.findAllDtos();
   }
 
   /**
@@ -44,8 +82,9 @@ public class WasteService {
    * @param cityId ID of the city to be retrieved
    * @return List of all waste records for the specified city
    */
-  public List<Waste> getAllWasteDataForCity(Long cityId) {
-    return wasteRepository.findByCityId(cityId);
+  @Transactional(readOnly = true)
+  public List<WasteDto> getAllWasteDataForCity(Long cityId) {
+    return wasteRepository.findDtosByCityId(cityId);
   }
 
   /**
@@ -54,26 +93,224 @@ public class WasteService {
    * @param endDate end date
    * @return List of all waste records for the specified city and period
    */
-  public List<Waste> getWasteDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
-    return wasteRepository.findByCityIdAndDateBetween(cityId, startDate, endDate);
+  @Transactional(readOnly = true)
+  public List<WasteDto> getWasteDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
+    return wasteRepository.findDtosByCityIdAndDateBetween(cityId, startDate, endDate);
+  }
+
+  /**
+   * Aggregate the waste records of a city within a period in the database.
+   *
+   * @param cityId ID of the city
+   * @param startDate start date (inclusive)
+   * @param endDate end date (inclusive)
+   * @return Collected quantities for the period, in total and per waste type
+   */
+  @Transactional(readOnly = true)
+  public WasteSummaryDto getWasteSummaryForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
+    long recordCount = 0;
+    double totalQuantityKg = 0;
+    Map<String, Double> quantityByWasteType = new LinkedHashMap<>();
+
+    for (Object[] row : wasteRepository.summarizeByWasteTypeForCityIdAndDateBetween(cityId, startDate, endDate)) {
+      double quantityKg = row[2] == null ? 0.0 : ((Number) row[2]).doubleValue();
+      recordCount += ((Number) row[1]).longValue();
+      totalQuantityKg += quantityKg;
+      quantityByWasteType.merge(row[0] == null ? UNSPECIFIED : (String) row[0], quantityKg, Double::sum);
+    }
+
+    return WasteSummaryDto.builder()
+        .recordCount(recordCount)
+        .totalQuantityKg(totalQuantityKg)
+        .quantityKgByWasteType(quantityByWasteType)
+        .build();
   }
 
   /**
    * Save a waste record.
    *
-   * @param electricity waste record to be saved
+   * @param request waste record to be saved
    * @return Saved waste record
    */
-  public Waste saveWasteData(Waste electricity) {
-    return wasteRepository.save(electricity);
+  public Waste saveWasteData(WasteDataRequest request) {
+    City city = cityRegistry.findById(request.getCityId())
+        .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + request.getCityId()));
+
+    Waste newWaste = Waste.builder()
+        .area(request.getArea())
+        .wasteType(request.getWasteType())
+        .quantityKg(request.getQuantityKg())
+        .collectionSchedule(request.getCollectionSchedule())
+        .date(request.getDate())
+        .city(city)
+        .build();
+    Waste saved = wasteRepository.save(newWaste);
+    eventPublisher.publishEvent(
+        UtilityDataChangedEvent.added(UtilityType.WASTE, city.getId(), 1, newWaste.getDate(), newWaste.getDate()));
+    return saved;
+  }
+
+  /**
+   * Update a waste record. The record is only updated if it is still at the version it was read at.
+   *
+   * @param id ID of the waste record to be updated
+   * @param request waste record to be saved
+   * @param expectedVersion version the client read, or null to update whatever the version
+   * @return Saved waste record
+   */
+  @Transactional
+  public Waste updateWasteData(Long id, WasteDataRequest request, Long expectedVersion) {
+    Waste waste = wasteRepository.findById(id)
+        .orElseThrow(() -> new ResourceNotFoundException("Waste record not found with id: " + id));
+    if (expectedVersion != null && !expectedVersion.equals(waste.getVersion())) {
+      throw new ConflictException("Waste record " + id + " is at version " + waste.getVersion() + ", not " + expectedVersion);
+    }
+
+    City city = cityRegistry.findById(request.getCityId())
+        .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + request.getCityId()));
+
+    waste.setArea(request.getArea());
+    waste.setWasteType(request.getWasteType());
+    waste.setQuantityKg(request.getQuantityKg());
+    waste.setCollectionSchedule(request.getCollectionSchedule());
+    LocalDate previousDate = waste.getDate();
+    waste.setDate(request.getDate());
+    Long previousCityId = waste.getCity() == null ? null : waste.getCity().getId();
+    waste.setCity(city);
+
+    Waste saved;
+    try {
+      // Flushed here, so a concurrent update fails inside the try rather than on commit
+      saved = wasteRepository.saveAndFlush(waste);
+    } catch (ObjectOptimisticLockingFailureException ex) {
+      throw new ConflictException("Waste record " + id + " was modified concurrently");
+    }
+    publishMoved(previousCityId, previousDate, city.getId(), request.getDate());
+    return saved;
   }
 
   /**
-   * Remove a waste record.
+   * Update the supplied fields of a waste record with a single UPDATE statement, without reading
+   * the record first. Only an update of its city or date looks up where the record was beforehand,
+   * so the change is published for the city and date it leaves and the ones it moves to; other
+   * updates are published for all cities.
+   *
+   * @param id ID of the waste record to be updated
+   * @param request fields to be updated
+   * @param expectedVersion version the client read, or null to update whatever the version
+   * @return Whether the record exists
+   */
+  @Transactional
+  public boolean patchWasteData(Long id, WastePatchRequest request, Long expectedVersion) {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    if (request.getCityId() != null) {
+      attributes.put("city", cityRegistry.findById(request.getCityId())
+          .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + request.getCityId())));
+    }
+    if (request.getDate() != null) {
+      attributes.put("date", request.getDate());
+    }
+    if (request.getArea() != null) {
+      attributes.put("area", request.getArea());
+    }
+    if (request.getWasteType() != null) {
+      attributes.put("wasteType", request.getWasteType());
+    }
+    if (request.getQuantityKg() != null) {
+      attributes.put("quantityKg", request.getQuantityKg());
+    }
+    if (request.getCollectionSchedule() != null) {
+      attributes.put("collectionSchedule", request.getCollectionSchedule());
+    }
+    if (attributes.isEmpty()) {
+      return wasteRepository.existsById(id);
+    }
+    // Only a record that may move to another city or date is read first, for its summaries
+    boolean moves = request.getCityId() != null || request.getDate() != null;
+    Optional<RecordPlacement> previous = moves ? wasteRepository.findPlacementById(id) : Optional.empty();
+    if (partialUpdateRepository.updateById(Waste.class, id, expectedVersion, attributes) == 0) {
+      if (expectedVersion != null && wasteRepository.existsById(id)) {
+        throw new ConflictException("Waste record " + id + " is not at version " + expectedVersion);
+      }
+      return false;
+    }
+    previous.ifPresent(from -> publishMoved(from.getCityId(), from.getDate(),
+        request.getCityId() == null ? from.getCityId() : request.getCityId(),
+        request.getDate() == null ? from.getDate() : request.getDate()));
+    if (!moves) {
+      // The city is not known without reading the record, so results of all cities are dropped
+      publishChange(null);
+    }
+    return true;
+  }
+
+  /**
+   * Remove a waste record. Only its city and date are read first, for the summary of the city.
    *
    * @param id ID of the waste record to be removed
+   * @throws ResourceNotFoundException if there is no such record
    */
+  @Transactional
   public void deleteWasteData(Long id) {
-    wasteRepository.deleteById(id);
+    RecordPlacement removed = wasteRepository.findPlacementById(id)
+        .orElseThrow(() -> new ResourceNotFoundException("Waste record not found with id: " + id));
+    wasteRepository.deleteRecordById(id);
+    publishRemoved(removed.getCityId(), 1, removed.getDate(), removed.getDate());
+  }
+
+  /**
+   * Remove the waste records of a city within a period, without loading them.
+   *
+   * @param cityId ID of the city
+   * @param startDate start date (inclusive)
+   * @param endDate end date (inclusive)
+   * @param area area of the records to remove, or null for all areas
+   * @return Number of removed records
+   */
+  public long deleteWasteDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate, String area) {
+    long deleted = chunkedDeleteRepository.deleteByCityIdAndDateBetween("waste", cityId, startDate, endDate, area);
+    if (deleted > 0) {
+      publishRemoved(cityId, deleted, startDate, endDate);
+    }
+    return deleted;
+  }
+
+  /**
+   * Publish that waste records of a city changed.
+   *
+   * @param cityId ID of the city, or null when unknown
+   */
+  private void publishChange(Long cityId) {
+    eventPublisher.publishEvent(new UtilityDataChangedEvent(UtilityType.WASTE, cityId));
+  }
+
+  /**
+   * Publish that waste records of a city were removed.
+   *
+   * @param cityId ID of the city
+   * @param count number of removed records
+   * @param firstDate earliest date the records may have had
+   * @param lastDate latest date the records may have had
+   */
+  private void publishRemoved(Long cityId, long count, LocalDate firstDate, LocalDate lastDate) {
+    eventPublisher.publishEvent(UtilityDataChangedEvent.removed(UtilityType.WASTE, cityId, count, firstDate, lastDate));
+  }
+
+  /**
+   * Publish that a waste record changed, as a removal and an addition if it moved to another city
+   * or date.
+   *
+   * @param previousCityId ID of the city the record was in
+   * @param previousDate date the record had
+   * @param cityId ID of the city the record is in
+   * @param date date the record has
+   */
+  private void publishMoved(Long previousCityId, LocalDate previousDate, Long cityId, LocalDate date) {
+    if (cityId.equals(previousCityId) && Objects.equals(date, previousDate)) {
+      publishChange(cityId);
+      return;
+    }
+    publishRemoved(previousCityId, 1, previousDate, previousDate);
+    eventPublisher.publishEvent(UtilityDataChangedEvent.added(UtilityType.WASTE, cityId, 1, date, date));
   }
 }
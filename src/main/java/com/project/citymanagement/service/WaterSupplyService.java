@@ -1,21 +1,52 @@
 package com.project.citymanagement.service;
 
+import com.project.citymanagement.aspect.CachedResult;
+import com.project.citymanagement.aspect.Coalesced;
 import com.project.citymanagement.entity.City;
 import com.project.citymanagement.entity.WaterSupply;
+import com.project.citymanagement.event.ConsumptionRecordedEvent;
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.exception.ConflictException;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.bulk.BulkCreateResultDto;
+import com.project.citymanagement.model.bulk.BulkItemResultDto;
 import com.project.citymanagement.model.watersupply.WaterSupplyDataRequest;
 import com.project.citymanagement.model.watersupply.WaterSupplyDto;
-import com.project.citymanagement.repository.CityRepository;
+import com.project.citymanagement.model.watersupply.WaterSupplyPatchRequest;
+import com.project.citymanagement.model.watersupply.WaterSupplySummaryDto;
+import com.project.citymanagement.repository.ChunkedDeleteRepository;
+import com.project.citymanagement.repository.PartialUpdateRepository;
+import com.project.citymanagement.repository.RecordPlacement;
+import com.project.citymanagement.repository.WaterSupplyJdbcRepository;
 import com.project.citymanagement.repository.WaterSupplyRepository;
+import com.project.citymanagement.util.KeysetFlux;
+import com.project.citymanagement.util.WriteBehindBuffer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
 
+import javax.annotation.PostConstruct;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -30,14 +61,54 @@ public class WaterSupplyService {
   @Autowired
   private WaterSupplyRepository waterSupplyRepository;
 
+  /** The repository batching inserts of water supply records. */
   @Autowired
-  private CityRepository cityRepository;
+  private WaterSupplyJdbcRepository waterSupplyJdbcRepository;
+
+  /** The repository deleting records of a city in chunks. */
+  @Autowired
+  private ChunkedDeleteRepository chunkedDeleteRepository;
+
+  /** The repository updating only the supplied attributes of a record. */
+  @Autowired
+  private PartialUpdateRepository partialUpdateRepository;
+
+  /** The registry resolving the city of a record without a database round trip. */
+  @Autowired
+  private CityRegistry cityRegistry;
+
+  /** The publisher of ingested consumption readings. */
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  /** The factory of write-behind buffers. */
+  @Autowired
+  private WriteBehindBuffers writeBehindBuffers;
+
+  /** The scheduler running the page queries of streamed reads. */
+  @Autowired
+  @Qualifier("recordStreamScheduler")
+  private Scheduler recordStreamScheduler;
+
+  /** Number of records queried per page of a streamed read. */
+  @Value("${record-stream.page-size:500}")
+  private int streamPageSize;
+
+  /** Buffer of created records written in the background, or null when they are written directly. */
+  private WriteBehindBuffer<WaterSupply> writeBehind;
+
+  /** Start the write-behind buffer, if created records are written in the background. */
+  @PostConstruct
+  public void init() {
+    writeBehind = writeBehindBuffers.create("water-supply", waterSupplyJdbcRepository::insertAll, this::publishWritten);
+  }
 
   /**
    * Get all water supply records.
    *
    * @return List of all water supply records
    */
+  @Transactional(readOnly = true)
   public List<WaterSupply> getAllWaterSupplyRecords() {
     return waterSupplyRepository.findAll();
   }
@@ -56,6 +127,7 @@ public class WaterSupplyService {
    * @param cityId ID of the city to be retrieved
    * @return List of all water supply records for the specified city
    */
+  @Transactional(readOnly = true)
   public List<WaterSupply> getAllWaterSupplyDataForCity(Long cityId) {
     return waterSupplyRepository.findByCityId(cityId);
   }
@@ -64,20 +136,40 @@ public class WaterSupplyService {
    * @param cityId ID of the city to be retrieved
    * @param startDate start date
    * @param endDate end date
-   * @return List of all water supply records for the specified city and period
+   * @return List of all water supply records for the specified city and period, shared by coalesced calls
+   */
+  @Coalesced("water-supply.period")
+  @Transactional(readOnly = true)
+  public List<WaterSupplyDto> getWaterSupplyDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
+    return List.copyOf(waterSupplyRepository.findDtosByCityIdAndDateBetween(cityId, startDate, endDate));
+  }
+
+  /**
+   * Stream the water supply records of a city and period in ID order. Pages of
+   * {@code record-stream.page-size} records are queried as the subscriber consumes them, so the
+   * result is never held in memory.
+   *
+   * @param cityId ID of the city
+   * @param startDate start date
+   * @param endDate end date
+   * @return Stream of the water supply records for the specified city and period
    */
-  public List<WaterSupply> getWaterSupplyDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
-    return waterSupplyRepository.findByCityIdAndDateBetween(cityId, startDate, endDate);
+  public Flux<WaterSupplyDto> streamWaterSupplyDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
+    return KeysetFlux.of(
+        afterId -> waterSupplyRepository.findDtosByCityIdAndDateBetweenAfterId(
+            cityId, startDate, endDate, afterId, PageRequest.of(0, streamPageSize)),
+        WaterSupplyDto::getId, streamPageSize, recordStreamScheduler);
   }
 
   /**
-   * Save a water supply record.
+   * Save a water supply record. With write-behind enabled the record is buffered and returned
+   * without an ID; it is written with the next batch.
    *
    * @param request water supply record to be saved
    * @return Saved water supply record
    */
   public WaterSupply saveWaterSupplyData(WaterSupplyDataRequest request) {
-    City city = cityRepository.findById(request.getCityId())
+    City city = cityRegistry.findById(request.getCityId())
             .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + request.getCityId()));
 
     WaterSupply newWaterSupply = WaterSupply
@@ -91,23 +183,92 @@ public class WaterSupplyService {
             .city(city)
             .build();
 
-    return waterSupplyRepository.save(newWaterSupply);
+    if (writeBehind != null) {
+      WriteBehindBuffer.Offer offer = writeBehind.offer(newWaterSupply);
+      if (offer == WriteBehindBuffer.Offer.ACCEPTED) {
+        return newWaterSupply;
+      }
+      if (offer == WriteBehindBuffer.Offer.FULL) {
+        throw new ServiceUnavailableException("Too many readings waiting to be written, try again later");
+      }
+      // The buffer closed for shutdown, write the record directly
+    }
+
+    WaterSupply saved = waterSupplyRepository.save(newWaterSupply);
+    publishWritten(List.of(newWaterSupply));
+    return saved;
   }
 
   /**
-   * Save an Water Supply record.
+   * Save many water supply records in one transaction. Invalid readings and readings of unknown
+   * cities are rejected individually; the others are inserted together.
+   *
+   * @param requests water supply records to be saved
+   * @return Status of every reading, in request order
+   */
+  public BulkCreateResultDto saveWaterSupplyDataBatch(List<WaterSupplyDataRequest> requests) {
+    BulkItemResultDto[] results = new BulkItemResultDto[requests.size()];
+    Map<Long, Optional<City>> cities = new HashMap<>();
+    List<WaterSupply> records = new ArrayList<>();
+    List<Integer> indexes = new ArrayList<>();
+
+    for (int i = 0; i < requests.size(); i++) {
+      WaterSupplyDataRequest request = requests.get(i);
+      String error = validate(request);
+      Optional<City> city = Optional.empty();
+      if (error == null) {
+        city = cities.computeIfAbsent(request.getCityId(), cityRegistry::findById);
+        if (city.isEmpty()) {
+          error = "City not found with ID: " + request.getCityId();
+        }
+      }
+      if (error != null) {
+        results[i] = BulkItemResultDto.rejected(i, error);
+        continue;
+      }
+      records.add(WaterSupply
+              .builder()
+              .area(request.getArea())
+              .consumptionLiters(request.getConsumptionLiters())
+              .productionLiters(request.getProductionLiters())
+              .reservoirLevelPercentage(request.getReservoirLevelPercentage())
+              .rainfallMm(request.getRainfallMm())
+              .date(request.getDate())
+              .city(city.get())
+              .build());
+      indexes.add(i);
+    }
+
+    waterSupplyJdbcRepository.insertAll(records);
+
+    for (int i = 0; i < records.size(); i++) {
+      results[indexes.get(i)] = BulkItemResultDto.created(indexes.get(i), records.get(i).getId());
+    }
+    publishWritten(records);
+    return BulkCreateResultDto.of(Arrays.asList(results));
+  }
+
+  /**
+   * Save an Water Supply record. The update only applies if the record is still at the version
+   * it was read at, and at the expected version if one is given.
    *
    * @param request Water Supply to be saved
+   * @param expectedVersion version the client read, or null to update whatever the version
    * @return Saved Water Supply record
    */
-  public WaterSupply updateWaterSupplyData(Long id, WaterSupplyDataRequest request) {
+  @Transactional
+  public WaterSupply updateWaterSupplyData(Long id, WaterSupplyDataRequest request, Long expectedVersion) {
     WaterSupply waterSupply =
             waterSupplyRepository
                     .findById(id)
                     .orElseThrow(
                             () -> new ResourceNotFoundException("Water Supply record not found with id: " + id));
+    if (expectedVersion != null && !expectedVersion.equals(waterSupply.getVersion())) {
+      throw new ConflictException("Water Supply record " + id + " is at version " + waterSupply.getVersion()
+              + ", not " + expectedVersion);
+    }
 
-    City city = cityRepository.findById(request.getCityId())
+    City city = cityRegistry.findById(request.getCityId())
             .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + request.getCityId()));
 
     waterSupply.setArea(request.getArea());
@@ -115,34 +276,151 @@ public class WaterSupplyService {
     waterSupply.setReservoirLevelPercentage(request.getReservoirLevelPercentage());
     waterSupply.setProductionLiters(request.getProductionLiters());
     waterSupply.setRainfallMm(request.getRainfallMm());
+    LocalDate previousDate = waterSupply.getDate();
     waterSupply.setDate(request.getDate());
+    Long previousCityId = waterSupply.getCity() == null ? null : waterSupply.getCity().getId();
     waterSupply.setCity(city);
 
-    return waterSupplyRepository.save(waterSupply);
+    WaterSupply saved;
+    try {
+      // Flushed here, so a concurrent update fails inside the try rather than on commit
+      saved = waterSupplyRepository.saveAndFlush(waterSupply);
+    } catch (ObjectOptimisticLockingFailureException ex) {
+      throw new ConflictException("Water Supply record " + id + " was modified concurrently");
+    }
+    publishMoved(previousCityId, previousDate, request.getCityId(), request.getDate());
+    return saved;
+  }
+
+  /**
+   * Update the supplied fields of a water supply record with a single UPDATE statement, without
+   * reading the record first. Only an update of its city or date looks up where the record was
+   * beforehand, so the change is published for the city and date it leaves and the ones it moves
+   * to; other updates are published for all cities.
+   *
+   * @param id ID of the water supply record to be updated
+   * @param request fields to be updated
+   * @param expectedVersion version the client read, or null to update whatever the version
+   * @return Whether the record exists
+   */
+  @Transactional
+  public boolean patchWaterSupplyData(Long id, WaterSupplyPatchRequest request, Long expectedVersion) {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    if (request.getCityId() != null) {
+      attributes.put("city", cityRegistry.findById(request.getCityId())
+              .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + request.getCityId())));
+    }
+    if (request.getDate() != null) {
+      attributes.put("date", request.getDate());
+    }
+    if (request.getArea() != null) {
+      attributes.put("area", request.getArea());
+    }
+    if (request.getConsumptionLiters() != null) {
+      attributes.put("consumptionLiters", request.getConsumptionLiters());
+    }
+    if (request.getProductionLiters() != null) {
+      attributes.put("productionLiters", request.getProductionLiters());
+    }
+    if (request.getReservoirLevelPercentage() != null) {
+      attributes.put("reservoirLevelPercentage", request.getReservoirLevelPercentage());
+    }
+    if (request.getRainfallMm() != null) {
+      attributes.put("rainfallMm", request.getRainfallMm());
+    }
+    if (attributes.isEmpty()) {
+      return waterSupplyRepository.existsById(id);
+    }
+
+    // Only a record that may move to another city or date is read first, for its summaries
+    boolean moves = request.getCityId() != null || request.getDate() != null;
+    Optional<RecordPlacement> previous = moves ? waterSupplyRepository.findPlacementById(id) : Optional.empty();
+    if (partialUpdateRepository.updateById(WaterSupply.class, id, expectedVersion, attributes) == 0) {
+      if (expectedVersion != null && waterSupplyRepository.existsById(id)) {
+        throw new ConflictException("Water Supply record " + id + " is not at version " + expectedVersion);
+      }
+      return false;
+    }
+    previous.ifPresent(from -> publishMoved(from.getCityId(), from.getDate(),
+            request.getCityId() == null ? from.getCityId() : request.getCityId(),
+            request.getDate() == null ? from.getDate() : request.getDate()));
+    if (!moves) {
+      // The city is not known without reading the record, so results of all cities are dropped
+      publishChange(null);
+    }
+    return true;
   }
 
   /**
-   * Remove a water supply record.
+   * Remove a water supply record. Only its city and date are read first, for the summary of the city.
    *
    * @param id ID of the water supply record to be removed
+   * @throws ResourceNotFoundException if there is no such record
    */
+  @Transactional
   public void deleteWaterSupplyData(Long id) {
-    waterSupplyRepository.deleteById(id);
+    RecordPlacement removed = waterSupplyRepository.findPlacementById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Water Supply record not found with id: " + id));
+    waterSupplyRepository.deleteRecordById(id);
+    publishRemoved(removed.getCityId(), 1, removed.getDate(), removed.getDate());
+  }
+
+  /**
+   * Remove the water supply records of a city within a period, without loading them.
+   *
+   * @param cityId ID of the city
+   * @param startDate start date (inclusive)
+   * @param endDate end date (inclusive)
+   * @param area area of the records to remove, or null for all areas
+   * @return Number of removed records
+   */
+  public long deleteWaterSupplyDataForPeriod(Long cityId, LocalDate startDate, LocalDate endDate, String area) {
+    long deleted = chunkedDeleteRepository.deleteByCityIdAndDateBetween("water_supply", cityId, startDate, endDate, area);
+    if (deleted > 0) {
+      publishRemoved(cityId, deleted, startDate, endDate);
+    }
+    return deleted;
+  }
+
+  /**
+   * Aggregate the water supply records of a city within a period in the database.
+   *
+   * @param cityId ID of the city
+   * @param startDate start date (inclusive)
+   * @param endDate end date (inclusive)
+   * @return Consumption, production, reservoir and rainfall figures for the period
+   */
+  @CachedResult(value = "water-supply.summary", type = UtilityType.WATER_SUPPLY, cityIdArgument = 0)
+  @Coalesced("water-supply.summary")
+  @Transactional(readOnly = true)
+  public WaterSupplySummaryDto getWaterSupplySummaryForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
+    Object[] totals = waterSupplyRepository.summarizeByCityIdAndDateBetween(cityId, startDate, endDate).get(0);
+
+    return WaterSupplySummaryDto.builder()
+        .recordCount(totals[0] == null ? 0L : ((Number) totals[0]).longValue())
+        .totalConsumptionLiters(toDouble(totals[1]))
+        .totalProductionLiters(toDouble(totals[2]))
+        .averageReservoirLevelPercentage(totals[3] == null ? null : ((Number) totals[3]).doubleValue())
+        .totalRainfallMm(toDouble(totals[4]))
+        .build();
   }
 
   /**
    * Import water supply data from a CSV file for a specific city.
    *
+   * All rows are read first and then inserted together in JDBC batches in one transaction, so a
+   * file with an invalid row imports nothing.
+   *
    * @param cityId ID of the city to import data for
    * @param file CSV file containing the data
    * @return Number of records imported
    */
   public int importDataFromCsvForCity(Long cityId, MultipartFile file) {
     // Check if the city exists
-    City city = cityRepository.findById(cityId)
+    City city = cityRegistry.findById(cityId)
             .orElseThrow(() -> new ResourceNotFoundException("City not found with ID: " + cityId));
 
-    int recordsCount = 0;
+    List<WaterSupply> records = new ArrayList<>();
     try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
       String line;
       while ((line = reader.readLine()) != null) {
@@ -160,8 +438,7 @@ public class WaterSupplyService {
         waterSupply.setRainfallMm(Double.parseDouble(data[4].trim()));
         waterSupply.setDate(LocalDate.parse(data[5].trim()));
 
-        waterSupplyRepository.save(waterSupply);
-        recordsCount++;
+        records.add(waterSupply);
       }
     } catch (IOException ex) {
       throw new RuntimeException("Error reading CSV file: " + ex.getMessage());
@@ -169,7 +446,97 @@ public class WaterSupplyService {
       throw new IllegalArgumentException("Invalid data format in CSV: " + ex.getMessage());
     }
 
-    return recordsCount;
+    waterSupplyJdbcRepository.insertAll(records);
+    publishWritten(records);
+    return records.size();
+  }
+
+  /**
+   * Publish records written together. The cities are reported changed even if a consumption
+   * listener fails, so their caches and summaries are updated.
+   *
+   * @param records the written records
+   */
+  private void publishWritten(List<WaterSupply> records) {
+    try {
+      records.forEach(this::publishConsumption);
+    } finally {
+      UtilityDataChangedEvent.added(UtilityType.WATER_SUPPLY, records, record -> record.getCity().getId(),
+              WaterSupply::getDate).forEach(eventPublisher::publishEvent);
+    }
+  }
+
+  /**
+   * Check the fields a reading requires.
+   *
+   * @param request the reading
+   * @return Why the reading is invalid, or null if it is valid
+   */
+  private static String validate(WaterSupplyDataRequest request) {
+    if (request == null) {
+      return "Reading is required";
+    }
+    if (request.getCityId() == null) {
+      return "cityId is required";
+    }
+    if (request.getConsumptionLiters() == null) {
+      return "consumptionLiters is required";
+    }
+    if (request.getArea() == null) {
+      return "area is required";
+    }
+    if (request.getDate() == null) {
+      return "date is required";
+    }
+    return null;
+  }
+
+  /**
+   * Publish that records of a city changed, so results computed from them are dropped.
+   *
+   * @param cityId ID of the city, or null when unknown
+   */
+  private void publishChange(Long cityId) {
+    eventPublisher.publishEvent(new UtilityDataChangedEvent(UtilityType.WATER_SUPPLY, cityId));
+  }
+
+  /**
+   * Publish that records of a city were removed.
+   *
+   * @param cityId ID of the city
+   * @param count number of removed records
+   * @param firstDate earliest date the records may have had
+   * @param lastDate latest date the records may have had
+   */
+  private void publishRemoved(Long cityId, long count, LocalDate firstDate, LocalDate lastDate) {
+    eventPublisher.publishEvent(UtilityDataChangedEvent.removed(UtilityType.WATER_SUPPLY, cityId, count, firstDate, lastDate));
+  }
+
+  /**
+   * Publish that a record changed, as a removal and an addition if it moved to another city or date.
+   *
+   * @param previousCityId ID of the city the record was in
+   * @param previousDate date the record had
+   * @param cityId ID of the city the record is in
+   * @param date date the record has
+   */
+  private void publishMoved(Long previousCityId, LocalDate previousDate, Long cityId, LocalDate date) {
+    if (cityId.equals(previousCityId) && Objects.equals(date, previousDate)) {
+      publishChange(cityId);
+      return;
+    }
+    publishRemoved(previousCityId, 1, previousDate, previousDate);
+    eventPublisher.publishEvent(UtilityDataChangedEvent.added(UtilityType.WATER_SUPPLY, cityId, 1, date, date));
+  }
+
+  /**
+   * Publish an ingested reading to the consumption analytics.
+   *
+   * @param record the ingested record
+   */
+  private void publishConsumption(WaterSupply record) {
+    eventPublisher.publishEvent(new ConsumptionRecordedEvent(
+        UtilityType.WATER_SUPPLY, record.getCity().getId(), record.getArea(), record.getDate(), record.getConsumptionLiters()));
   }
 
   /**
@@ -180,4 +547,8 @@ public class WaterSupplyService {
   public static List<WaterSupplyDto> recordsToDto(List<WaterSupply> records) {
     return records.stream().map(WaterSupply::dto).toList();
   }
+
+  private static double toDouble(Object value) {
+    return value == null ? 0.0 : ((Number) value).doubleValue();
+  }
 }
@@ -0,0 +1,99 @@
+package com.project.citymanagement.service;
+
+import com.project.citymanagement.util.WriteBehindBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * This class represents the factory of the write-behind buffers used by services that may trade a
+ * short durability lag for ingest throughput. Buffers are configured per name with
+ * write-behind.[name.]* properties, and are all flushed when the application context closes,
+ * before the beans their writers depend on are destroyed.
+ */
+@Component
+public class WriteBehindBuffers {
+
+  /** The environment holding the per-name settings. */
+  @Autowired
+  private Environment environment;
+
+  /** The registry the buffer metrics are published to. */
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** The started buffers by name. */
+  private final Map<String, WriteBehindBuffer<?>> buffers = new ConcurrentHashMap<>();
+
+  /**
+   * Create and start the buffer of a name, if write-behind is enabled for it.
+   *
+   * @param name Name of the buffer
+   * @param writer Writes a batch of buffered records
+   * @param afterWrite Called once with every written batch, failures are logged and not retried
+   * @param <T> Type of the records
+   * @return The started buffer, or null if records of this name are written directly
+   */
+  public <T> WriteBehindBuffer<T> create(String name, Consumer<List<T>> writer, Consumer<List<T>> afterWrite) {
+    if (!property(name, "enabled", Boolean.class, false)) {
+      return null;
+    }
+    WriteBehindBuffer<T> buffer = new WriteBehindBuffer<>(
+        name,
+        property(name, "capacity", Integer.class, 8192),
+        property(name, "batch-size", Integer.class, 500),
+        property(name, "flush-interval-ms", Long.class, 1000L),
+        property(name, "max-attempts", Integer.class, 3),
+        property(name, "offer-timeout-ms", Long.class, 100L),
+        writer,
+        afterWrite);
+    register(name, buffer);
+    buffers.put(name, buffer);
+    buffer.start();
+    return buffer;
+  }
+
+  /** Write every buffered record once the application starts shutting down. */
+  @EventListener(ContextClosedEvent.class)
+  public void flushAll() {
+    long timeoutMillis = environment.getProperty("write-behind.shutdown-timeout-ms", Long.class, 10000L);
+    buffers.values().forEach(buffer -> buffer.close(timeoutMillis));
+  }
+
+  private <V> V property(String name, String key, Class<V> type, V defaultValue) {
+    V byDefault = environment.getProperty("write-behind." + key, type, defaultValue);
+    return environment.getProperty("write-behind." + name + "." + key, type, byDefault);
+  }
+
+  private void register(String name, WriteBehindBuffer<?> buffer) {
+    Gauge.builder("write-behind.buffer.size", buffer, WriteBehindBuffer::size)
+        .description("Records waiting to be written")
+        .tag("name", name)
+        .register(meterRegistry);
+    FunctionCounter.builder("write-behind.records", buffer, WriteBehindBuffer::getWrittenCount)
+        .description("Buffered records written")
+        .tag("name", name)
+        .tag("outcome", "written")
+        .register(meterRegistry);
+    FunctionCounter.builder("write-behind.records", buffer, WriteBehindBuffer::getRejectedCount)
+        .description("Records refused because the buffer was full")
+        .tag("name", name)
+        .tag("outcome", "rejected")
+        .register(meterRegistry);
+    FunctionCounter.builder("write-behind.records", buffer, WriteBehindBuffer::getFailedCount)
+        .description("Buffered records dropped after their writes failed")
+        .tag("name", name)
+        .tag("outcome", "failed")
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,81 @@
+package com.project.citymanagement.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free concurrency limit adapting to latency by additive increase, multiplicative decrease.
+ * A call slower than the latency threshold shrinks the limit by the backoff ratio, while fast
+ * calls grow it by one as long as the limit is actually used, so it settles near the concurrency
+ * the backend serves without queueing.
+ */
+public final class AimdLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+  private final AtomicInteger limit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  /**
+   * Constructor for the limiter.
+   *
+   * @param initialLimit Limit to start with
+   * @param minLimit Lowest limit
+   * @param maxLimit Highest limit
+   * @param latencyThresholdNanos Latency above which a call shrinks the limit
+   * @param backoffRatio Factor applied to the limit by a slow call, between 0 and 1
+   */
+  public AimdLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos, double backoffRatio) {
+    if (minLimit < 1 || minLimit > maxLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max and the backoff ratio must be in (0, 1)");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyThresholdNanos = latencyThresholdNanos;
+    this.backoffRatio = backoffRatio;
+    this.limit = new AtomicInteger(Math.max(minLimit, Math.min(maxLimit, initialLimit)));
+  }
+
+  /**
+   * Start a call if fewer calls than the limit are in flight.
+   *
+   * @return True if the call may start and must be released, false if it is rejected
+   */
+  public boolean tryAcquire() {
+    if (inFlight.incrementAndGet() > limit.get()) {
+      inFlight.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * End a call and adapt the limit to its latency.
+   *
+   * @param latencyNanos Duration of the call
+   */
+  public void release(long latencyNanos) {
+    int inFlightBefore = inFlight.getAndDecrement();
+    if (latencyNanos > latencyThresholdNanos) {
+      limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+    } else if (inFlightBefore * 2 >= limit.get()) {
+      limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+    }
+  }
+
+  /** End a call whose latency says nothing about the backend, leaving the limit as it is. */
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  /** @return Calls currently in flight */
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  /** @return Current limit */
+  public int getLimit() {
+    return limit.get();
+  }
+}
@@ -0,0 +1,107 @@
+package com.project.citymanagement.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter of strings. It never reports an added value as absent, and reports a value
+ * never added as present with about the configured false positive probability. Bits are only ever
+ * set, with compare-and-set, so concurrent adds and lookups need no lock.
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * Constructor for the filter.
+   *
+   * @param expectedInsertions Number of values the filter is sized for
+   * @param falsePositiveProbability Wanted false positive probability at that size
+   */
+  public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+    if (expectedInsertions < 1) {
+      throw new IllegalArgumentException("Expected insertions must be positive");
+    }
+    if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+      throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+    }
+    long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+    int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+    this.words = new AtomicLongArray(wordCount);
+    this.bitCount = wordCount * 64L;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+  }
+
+  /**
+   * Add a value.
+   *
+   * @param value The value
+   */
+  public void add(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = words.get(word);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!words.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /**
+   * Check whether a value may have been added.
+   *
+   * @param value The value
+   * @return False if the value was definitely never added
+   */
+  public boolean mightContain(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** @return The number of bits of the filter */
+  public long getBitCount() {
+    return bitCount;
+  }
+
+  /** @return The number of bits set per value */
+  public int getHashCount() {
+    return hashCount;
+  }
+
+  private long index(int combinedHash) {
+    return (combinedHash & Integer.MAX_VALUE) % bitCount;
+  }
+
+  /** 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer. */
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb93fe53ef881L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
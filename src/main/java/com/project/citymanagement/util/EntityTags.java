@@ -0,0 +1,53 @@
+package com.project.citymanagement.util;
+
+import com.project.citymanagement.exception.ConflictException;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * This class represents the mapping between record versions and entity tags. The entity tag of a
+ * record is its version, so an If-Match header names the version the client last read.
+ */
+public final class EntityTags {
+
+  private EntityTags() {
+  }
+
+  /**
+   * Get the version expected by an If-Match header.
+   *
+   * @param ifMatch If-Match header, may be null
+   * @return Expected version, or null when any version matches
+   * @throws ConflictException if the header names no version, so it cannot match any record
+   */
+  public static Long expectedVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    String tag = ifMatch.trim();
+    if (tag.startsWith("W/")) {
+      tag = tag.substring(2);
+    }
+    if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+      tag = tag.substring(1, tag.length() - 1);
+    }
+    try {
+      return Long.valueOf(tag);
+    } catch (NumberFormatException ex) {
+      throw new ConflictException("Entity tag " + ifMatch + " does not match the current version");
+    }
+  }
+
+  /**
+   * Get the headers carrying the entity tag of a record version.
+   *
+   * @param version Version of the record, may be null
+   * @return Headers with the ETag of the version, empty if the version is unknown
+   */
+  public static HttpHeaders headers(Long version) {
+    HttpHeaders headers = new HttpHeaders();
+    if (version != null) {
+      headers.setETag("\"" + version + "\"");
+    }
+    return headers;
+  }
+}
@@ -0,0 +1,59 @@
+package com.project.citymanagement.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.project.citymanagement.exception.PayloadTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a JSON array one element at a time, so a body with more elements than accepted is rejected
+ * once the limit is passed rather than after all of it has been bound.
+ */
+public final class JsonArrayReader {
+
+  private JsonArrayReader() {
+  }
+
+  /**
+   * Read all elements of an array.
+   *
+   * @param objectMapper Mapper binding each element
+   * @param input The stream holding the array
+   * @param type Type of the elements
+   * @param maxItems Largest number of elements accepted
+   * @param <T> Type of the elements
+   * @return The elements, in array order
+   * @throws IOException If the stream cannot be read or does not hold a single JSON array
+   * @throws PayloadTooLargeException If the array holds more than the accepted number of elements
+   */
+  public static <T> List<T> readAll(ObjectMapper objectMapper, InputStream input, Class<T> type, int maxItems)
+      throws IOException {
+    ObjectReader reader = objectMapper.readerFor(type);
+    List<T> values = new ArrayList<>();
+    try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw JsonMappingException.from(parser, "Expected a JSON array");
+      }
+      for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+        if (token == null) {
+          throw JsonMappingException.from(parser, "Unexpected end of the JSON array");
+        }
+        if (values.size() == maxItems) {
+          throw new PayloadTooLargeException("At most " + maxItems + " items are accepted per request");
+        }
+        values.add(reader.readValue(parser));
+      }
+      if (parser.nextToken() != null) {
+        throw JsonMappingException.from(parser, "Unexpected content after the JSON array");
+      }
+    }
+    return values;
+  }
+}
@@ -0,0 +1,45 @@
+package com.project.citymanagement.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Streams query results page by page, each page selecting the records after the key of the last
+ * record of the previous page. The next page is only queried once the subscriber has started on
+ * the current one, so a slow subscriber holds at most two pages and no connection while it reads.
+ */
+public final class KeysetFlux {
+
+  private KeysetFlux() {
+  }
+
+  /**
+   * Create the stream of records. The page query must order the records by their key and return
+   * at most {@code pageSize} records with a key greater than the given one.
+   *
+   * @param pageAfter Query of the page after a key, 0 for the first page
+   * @param keyOf Key of a record
+   * @param pageSize Number of records per page
+   * @param scheduler Scheduler running the (blocking) page queries
+   * @param <T> Type of the records
+   * @return Records in key order
+   */
+  public static <T> Flux<T> of(LongFunction<List<T>> pageAfter, ToLongFunction<T> keyOf, int pageSize,
+                               Scheduler scheduler) {
+    return page(pageAfter, 0L, scheduler)
+        .expand(records -> records.size() < pageSize
+            ? Mono.empty()
+            : page(pageAfter, keyOf.applyAsLong(records.get(records.size() - 1)), scheduler))
+        .concatMapIterable(Function.identity(), 1);
+  }
+
+  private static <T> Mono<List<T>> page(LongFunction<List<T>> pageAfter, long afterKey, Scheduler scheduler) {
+    return Mono.fromCallable(() -> pageAfter.apply(afterKey)).subscribeOn(scheduler);
+  }
+}
@@ -0,0 +1,43 @@
+package com.project.citymanagement.util;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.citymanagement.exception.PayloadTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Reads newline-delimited JSON, one value per line, without buffering the whole body first. */
+public final class NdjsonReader {
+
+  private NdjsonReader() {
+  }
+
+  /**
+   * Read all values of a stream.
+   *
+   * @param objectMapper Mapper binding each line
+   * @param input The stream
+   * @param type Type of the values
+   * @param maxItems Largest number of values accepted
+   * @param <T> Type of the values
+   * @return The values, in stream order
+   * @throws IOException If the stream cannot be read or a line is not valid JSON
+   * @throws PayloadTooLargeException If the stream holds more than the accepted number of values
+   */
+  public static <T> List<T> readAll(ObjectMapper objectMapper, InputStream input, Class<T> type, int maxItems)
+      throws IOException {
+    List<T> values = new ArrayList<>();
+    try (MappingIterator<T> iterator = objectMapper.readerFor(type).readValues(input)) {
+      while (iterator.hasNextValue()) {
+        if (values.size() == maxItems) {
+          throw new PayloadTooLargeException("At most " + maxItems + " items are accepted per request");
+        }
+        values.add(iterator.nextValue());
+      }
+    }
+    return values;
+  }
+}
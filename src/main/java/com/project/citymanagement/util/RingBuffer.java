@@ -0,0 +1,122 @@
+package com.project.citymanagement.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and consumers, backed by a ring of slots. Each slot
+ * carries a sequence number telling whether it is free for the producer of a given position or
+ * filled for the consumer of it, so producers and consumers only contend on their own cursor.
+ *
+ * @param <T> Type of the elements
+ */
+public final class RingBuffer<T> {
+
+  private final AtomicReferenceArray<T> slots;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * Constructor for the buffer.
+   *
+   * @param capacity Least number of elements the buffer holds, rounded up to a power of two of at least 2
+   */
+  public RingBuffer(int capacity) {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+    }
+    // A single slot cannot tell a filled slot from one free for the next lap
+    int size = Math.max(2, Integer.highestOneBit(capacity));
+    if (size < capacity) {
+      size <<= 1;
+    }
+    this.slots = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+    this.mask = size - 1;
+  }
+
+  /**
+   * Add an element unless the buffer is full.
+   *
+   * @param element The element
+   * @return False if the buffer is full
+   */
+  public boolean offer(T element) {
+    if (element == null) {
+      throw new NullPointerException("Element must not be null");
+    }
+    while (true) {
+      long position = tail.get();
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          slots.set(index, element);
+          sequences.set(index, position + 1);
+          return true;
+        }
+      } else if (difference < 0) {
+        return false;
+      }
+      // Another producer took the position, retry with the next one
+    }
+  }
+
+  /**
+   * Remove the oldest element.
+   *
+   * @return The element, or null if the buffer is empty
+   */
+  public T poll() {
+    while (true) {
+      long position = head.get();
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          T element = slots.get(index);
+          slots.set(index, null);
+          sequences.set(index, position + mask + 1);
+          return element;
+        }
+      } else if (difference < 0) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Move up to a number of the oldest elements to a list.
+   *
+   * @param target The list the elements are added to
+   * @param maxElements Largest number of elements moved
+   * @return Number of elements moved
+   */
+  public int drainTo(List<? super T> target, int maxElements) {
+    int drained = 0;
+    T element;
+    while (drained < maxElements && (element = poll()) != null) {
+      target.add(element);
+      drained++;
+    }
+    return drained;
+  }
+
+  /** @return Number of elements in the buffer, exact only while no element is being added or removed */
+  public int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, capacity()));
+  }
+
+  /** @return Number of elements the buffer holds */
+  public int capacity() {
+    return mask + 1;
+  }
+}
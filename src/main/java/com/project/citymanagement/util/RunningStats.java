@@ -0,0 +1,61 @@
+package com.project.citymanagement.util;
+
+/**
+ * Immutable running mean and variance of a stream, updated with Welford's algorithm. Being
+ * immutable, a state can be swapped atomically with compare-and-set, so concurrent writers never
+ * block each other.
+ */
+public final class RunningStats {
+
+  /** The state before any value was added. */
+  public static final RunningStats EMPTY = new RunningStats(0, 0.0, 0.0);
+
+  private final long count;
+  private final double mean;
+  private final double sumOfSquaredDeviations;
+
+  private RunningStats(long count, double mean, double sumOfSquaredDeviations) {
+    this.count = count;
+    this.mean = mean;
+    this.sumOfSquaredDeviations = sumOfSquaredDeviations;
+  }
+
+  /**
+   * Create the state including one more value.
+   *
+   * @param value The value
+   * @return The new state
+   */
+  public RunningStats add(double value) {
+    long newCount = count + 1;
+    double delta = value - mean;
+    double newMean = mean + delta / newCount;
+    return new RunningStats(newCount, newMean, sumOfSquaredDeviations + delta * (value - newMean));
+  }
+
+  /**
+   * Get the number of standard deviations between a value and the mean.
+   *
+   * @param value The value
+   * @return The z-score, or 0 while the deviation is undefined or zero
+   */
+  public double zScore(double value) {
+    double standardDeviation = getStandardDeviation();
+    return standardDeviation > 0 ? (value - mean) / standardDeviation : 0.0;
+  }
+
+  /** @return The number of values added */
+  public long getCount() {
+    return count;
+  }
+
+  /** @return The mean of the values added */
+  public double getMean() {
+    return mean;
+  }
+
+  /** @return The sample standard deviation of the values added */
+  public double getStandardDeviation() {
+    return count > 1 ? Math.sqrt(sumOfSquaredDeviations / (count - 1)) : 0.0;
+  }
+}
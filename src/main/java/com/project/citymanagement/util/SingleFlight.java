@@ -0,0 +1,107 @@
+package com.project.citymanagement.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses concurrent calls for the same key into one execution. The first caller runs the work
+ * while callers arriving before it finishes wait for and share its result, or its exception. Once
+ * the work completes the key is released, so results are never reused by later calls. Waiting
+ * callers give up after the follower timeout, so a stuck execution cannot hold them forever.
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the results
+ */
+public final class SingleFlight<K, V> {
+
+  /** Work that may throw any exception. */
+  @FunctionalInterface
+  public interface Call<V> {
+    V call() throws Throwable;
+  }
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+
+  /** Longest time a caller waits for the execution in flight, in nanoseconds. */
+  private final long followerTimeoutNanos;
+
+  /** Create a single flight whose waiting callers wait as long as the execution takes. */
+  public SingleFlight() {
+    this(null);
+  }
+
+  /**
+   * Create a single flight.
+   *
+   * @param followerTimeout Longest time a caller waits for the execution in flight, or null for no limit
+   */
+  public SingleFlight(Duration followerTimeout) {
+    this.followerTimeoutNanos = followerTimeout == null ? Long.MAX_VALUE : followerTimeout.toNanos();
+  }
+
+  /**
+   * Run the work for a key, or wait for the execution already in flight for it.
+   *
+   * @param key The key identifying identical calls
+   * @param work The work to run
+   * @return The result of the work
+   * @throws TimeoutException If the execution in flight did not finish within the follower timeout
+   * @throws Throwable The exception thrown by the work
+   */
+  public V execute(K key, Call<V> work) throws Throwable {
+    CompletableFuture<V> own = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+    if (existing != null) {
+      coalesced.increment();
+      try {
+        return existing.get(followerTimeoutNanos, TimeUnit.NANOSECONDS);
+      } catch (ExecutionException e) {
+        throw e.getCause();
+      } catch (TimeoutException e) {
+        timedOut.increment();
+        throw e;
+      }
+    }
+
+    executions.increment();
+    try {
+      V result = work.call();
+      own.complete(result);
+      return result;
+    } catch (Throwable t) {
+      own.completeExceptionally(t);
+      throw t;
+    } finally {
+      inFlight.remove(key, own);
+    }
+  }
+
+  /** @return The number of calls that ran the work */
+  public long getExecutionCount() {
+    return executions.sum();
+  }
+
+  /** @return The number of calls that shared the result of another call */
+  public long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  /** @return The number of waiting calls that gave up after the follower timeout */
+  public long getTimedOutCount() {
+    return timedOut.sum();
+  }
+
+  /** @return The number of keys currently in flight */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+}
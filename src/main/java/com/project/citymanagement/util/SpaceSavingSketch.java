@@ -0,0 +1,191 @@
+package com.project.citymanagement.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted Space-Saving sketch tracking the heaviest keys of a stream in a fixed number of
+ * counters.
+ *
+ * <p>Monitored keys are kept in an indexed min-heap ordered by count. A key that is not monitored
+ * replaces the key with the smallest count and inherits that count as its error, so every estimate
+ * overestimates the true total by at most its error, and any key that is not monitored has a true
+ * total of at most {@link #getMinCount()}, which itself never exceeds
+ * {@code totalWeight / capacity}. Memory therefore depends on the capacity only, not on the number
+ * of distinct keys. All methods are thread-safe.
+ */
+public class SpaceSavingSketch {
+
+  /** A monitored key. */
+  private static final class Counter {
+    private String key;
+    private double count;
+    private double error;
+    private int heapIndex;
+  }
+
+  /** An estimate reported by the sketch. */
+  public static final class Estimate {
+    private final String key;
+    private final double count;
+    private final double error;
+
+    private Estimate(String key, double count, double error) {
+      this.key = key;
+      this.count = count;
+      this.error = error;
+    }
+
+    /** @return The monitored key */
+    public String getKey() {
+      return key;
+    }
+
+    /** @return The estimated total, never lower than the true total */
+    public double getCount() {
+      return count;
+    }
+
+    /** @return The maximum overestimation of the total */
+    public double getError() {
+      return error;
+    }
+
+    /** @return The guaranteed lower bound of the true total */
+    public double getLowerBound() {
+      return count - error;
+    }
+  }
+
+  private final int capacity;
+  private final Map<String, Counter> counters;
+  private final Counter[] heap;
+  private int size;
+  private double totalWeight;
+
+  /**
+   * Create a sketch.
+   *
+   * @param capacity Number of counters, i.e. the maximum number of monitored keys
+   */
+  public SpaceSavingSketch(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive.");
+    }
+    this.capacity = capacity;
+    this.counters = new HashMap<>(capacity * 2);
+    this.heap = new Counter[capacity];
+  }
+
+  /**
+   * Add a weight to a key.
+   *
+   * @param key The key
+   * @param weight The weight, ignored unless positive
+   */
+  public synchronized void offer(String key, double weight) {
+    if (!(weight > 0)) {
+      return;
+    }
+    totalWeight += weight;
+
+    Counter counter = counters.get(key);
+    if (counter != null) {
+      counter.count += weight;
+      siftDown(counter.heapIndex);
+    } else if (size < capacity) {
+      counter = new Counter();
+      counter.key = key;
+      counter.count = weight;
+      counters.put(key, counter);
+      heap[size] = counter;
+      siftUp(size++);
+    } else {
+      // Evict the smallest counter; the newcomer inherits its count as error
+      counter = heap[0];
+      counters.remove(counter.key);
+      counter.key = key;
+      counter.error = counter.count;
+      counter.count += weight;
+      counters.put(key, counter);
+      siftDown(0);
+    }
+  }
+
+  /**
+   * Get the heaviest keys.
+   *
+   * @param k Maximum number of keys to return
+   * @return Estimates ordered by descending count
+   */
+  public synchronized List<Estimate> top(int k) {
+    Counter[] sorted = Arrays.copyOf(heap, size);
+    Arrays.sort(sorted, Comparator.comparingDouble((Counter c) -> c.count).reversed());
+
+    List<Estimate> estimates = new ArrayList<>(Math.min(k, size));
+    for (int i = 0; i < sorted.length && i < k; i++) {
+      estimates.add(new Estimate(sorted[i].key, sorted[i].count, sorted[i].error));
+    }
+    return estimates;
+  }
+
+  /**
+   * Get the smallest monitored count. Once all counters are in use, this is the upper bound of the
+   * true total of any key that is not monitored.
+   *
+   * @return The smallest count, or 0 while counters are still free
+   */
+  public synchronized double getMinCount() {
+    return size < capacity ? 0 : heap[0].count;
+  }
+
+  /** @return The sum of all weights offered to the sketch */
+  public synchronized double getTotalWeight() {
+    return totalWeight;
+  }
+
+  /** @return The number of counters */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private void siftUp(int index) {
+    Counter counter = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (heap[parent].count <= counter.count) {
+        break;
+      }
+      place(heap[parent], index);
+      index = parent;
+    }
+    place(counter, index);
+  }
+
+  private void siftDown(int index) {
+    Counter counter = heap[index];
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      int right = child + 1;
+      if (right < size && heap[right].count < heap[child].count) {
+        child = right;
+      }
+      if (counter.count <= heap[child].count) {
+        break;
+      }
+      place(heap[child], index);
+      index = child;
+    }
+    place(counter, index);
+  }
+
+  private void place(Counter counter, int index) {
+    heap[index] = counter;
+    counter.heapIndex = index;
+  }
+}
@@ -0,0 +1,58 @@
+package com.project.citymanagement.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as the generic cell rate algorithm: instead of a token count it
+ * stores the time at which the bucket will be full again, and taking tokens moves that time
+ * forward. A single compare-and-set per call keeps concurrent callers from blocking each other.
+ */
+public final class TokenBucket {
+
+  /** Time one token takes to refill. */
+  private final long nanosPerToken;
+
+  /** Time the bucket takes to refill from empty, i.e. how far ahead the full time may be. */
+  private final long capacityNanos;
+
+  /** Time at which the bucket is full again; earlier times mean it is full now. */
+  private final AtomicLong fullAt;
+
+  /**
+   * Constructor for the bucket, which starts full.
+   *
+   * @param tokensPerSecond Rate at which tokens refill
+   * @param capacity Most tokens the bucket holds, i.e. the largest burst
+   * @param nowNanos Current {@link System#nanoTime()}
+   */
+  public TokenBucket(double tokensPerSecond, long capacity, long nowNanos) {
+    if (tokensPerSecond <= 0 || capacity < 1) {
+      throw new IllegalArgumentException("The rate and the capacity must be positive");
+    }
+    this.nanosPerToken = Math.max(1L, (long) (1_000_000_000L / tokensPerSecond));
+    this.capacityNanos = nanosPerToken * capacity;
+    this.fullAt = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Take tokens if the bucket holds enough of them.
+   *
+   * @param tokens Number of tokens to take
+   * @param nowNanos Current {@link System#nanoTime()}
+   * @return 0 when the tokens were taken, otherwise the time in nanoseconds until they are available
+   */
+  public long tryConsume(long tokens, long nowNanos) {
+    long cost = tokens * nanosPerToken;
+    while (true) {
+      long current = fullAt.get();
+      long next = Math.max(current, nowNanos) + cost;
+      long debt = next - nowNanos;
+      if (debt > capacityNanos) {
+        return debt - capacityNanos;
+      }
+      if (fullAt.compareAndSet(current, next)) {
+        return 0;
+      }
+    }
+  }
+}
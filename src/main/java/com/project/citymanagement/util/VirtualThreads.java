@@ -0,0 +1,94 @@
+package com.project.citymanagement.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when the application runs on Java 21 or later. The API is reached by
+ * reflection, so the application still compiles and runs, on platform threads, on Java 17.
+ */
+public final class VirtualThreads {
+
+  /** {@code Thread.ofVirtual()}, null before Java 21. */
+  private static final Method OF_VIRTUAL;
+
+  /** {@code Thread.Builder.name(String, long)}. */
+  private static final Method NAME;
+
+  /** {@code Thread.Builder.factory()}. */
+  private static final Method FACTORY;
+
+  /** {@code Executors.newThreadPerTaskExecutor(ThreadFactory)}. */
+  private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method factory = null;
+    Method newThreadPerTaskExecutor = null;
+    try {
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      name = builder.getMethod("name", String.class, long.class);
+      factory = builder.getMethod("factory");
+      newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+    } catch (ReflectiveOperationException ex) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    FACTORY = factory;
+    NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+  }
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Check whether the running Java version has virtual threads.
+   *
+   * @return True on Java 21 or later
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Create a factory of virtual threads.
+   *
+   * @param namePrefix Prefix of the thread names, followed by a counter
+   * @return The thread factory
+   * @throws IllegalStateException If the running Java version has no virtual threads
+   */
+  public static ThreadFactory threadFactory(String namePrefix) {
+    if (!isSupported()) {
+      throw new IllegalStateException("Virtual threads require Java 21 or later, running on " + Runtime.version());
+    }
+    try {
+      Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+      return (ThreadFactory) FACTORY.invoke(builder);
+    } catch (IllegalAccessException | InvocationTargetException ex) {
+      throw new IllegalStateException("Virtual threads are not available", ex);
+    }
+  }
+
+  /**
+   * Create an executor starting a new virtual thread for every task. It has no queue and no limit;
+   * the resources the tasks wait for, such as the JDBC connection pool, bound how many make progress.
+   *
+   * @param namePrefix Prefix of the thread names, followed by a counter
+   * @return The executor
+   * @throws IllegalStateException If the running Java version has no virtual threads
+   */
+  public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+    ThreadFactory factory = threadFactory(namePrefix);
+    try {
+      return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+    } catch (IllegalAccessException | InvocationTargetException ex) {
+      throw new IllegalStateException("Virtual threads are not available", ex);
+    }
+  }
+}
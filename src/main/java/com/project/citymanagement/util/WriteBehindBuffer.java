@@ -0,0 +1,274 @@
+package com.project.citymanagement.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Buffers records in a {@link RingBuffer} and writes them in batches from a background thread. A
+ * batch is written once the buffer holds a full batch or the flush interval elapsed since the last
+ * write, whichever comes first. The writer has to write a batch atomically. A batch failing for a
+ * transient reason, such as an unavailable database, is retried before it is dropped. A batch
+ * failing for any other reason, such as a record breaking a constraint, is split in halves that are
+ * written on their own, so only the records that fail by themselves are dropped. Once records are
+ * written they are handed to the after-write callback exactly once; a failing callback is logged
+ * and never causes them to be written again. Closing the buffer writes every record accepted
+ * before, and later offers are refused so callers write directly.
+ *
+ * @param <T> Type of the records
+ */
+@Slf4j
+public final class WriteBehindBuffer<T> {
+
+  /** Outcome of offering a record. */
+  public enum Offer {
+    /** The record will be written by the background thread. */
+    ACCEPTED,
+    /** The buffer stayed full for the whole wait. */
+    FULL,
+    /** The buffer is closed, the caller has to write the record itself. */
+    CLOSED
+  }
+
+  private static final long FULL_BUFFER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final String name;
+  private final RingBuffer<T> buffer;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final int maxAttempts;
+  private final long offerTimeoutNanos;
+  private final Consumer<List<T>> writer;
+  private final Consumer<List<T>> afterWrite;
+  private final Thread thread;
+
+  private volatile boolean running;
+  /** Producers between checking that the buffer runs and adding their record. */
+  private final AtomicInteger offering = new AtomicInteger();
+
+  private final LongAdder written = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+
+  /**
+   * Constructor for the buffer.
+   *
+   * @param name Name of the buffer, used for its thread
+   * @param capacity Number of records the buffer holds
+   * @param batchSize Largest number of records written at once
+   * @param flushIntervalMillis Longest time a record waits for a write, in milliseconds
+   * @param maxAttempts Number of times a batch failing for a transient reason is written before it is dropped
+   * @param offerTimeoutMillis Longest time an offer waits for room in a full buffer, in milliseconds
+   * @param writer Writes a batch of records
+   */
+  public WriteBehindBuffer(String name, int capacity, int batchSize, long flushIntervalMillis, int maxAttempts,
+      long offerTimeoutMillis, Consumer<List<T>> writer) {
+    this(name, capacity, batchSize, flushIntervalMillis, maxAttempts, offerTimeoutMillis, writer, batch -> { });
+  }
+
+  /**
+   * Constructor for the buffer.
+   *
+   * @param name Name of the buffer, used for its thread
+   * @param capacity Number of records the buffer holds
+   * @param batchSize Largest number of records written at once
+   * @param flushIntervalMillis Longest time a record waits for a write, in milliseconds
+   * @param maxAttempts Number of times a batch failing for a transient reason is written before it is dropped
+   * @param offerTimeoutMillis Longest time an offer waits for room in a full buffer, in milliseconds
+   * @param writer Writes a batch of records
+   * @param afterWrite Called once with every batch the writer wrote, for instance to publish it
+   */
+  public WriteBehindBuffer(String name, int capacity, int batchSize, long flushIntervalMillis, int maxAttempts,
+      long offerTimeoutMillis, Consumer<List<T>> writer, Consumer<List<T>> afterWrite) {
+    if (batchSize < 1 || flushIntervalMillis < 1 || maxAttempts < 1) {
+      throw new IllegalArgumentException("Batch size, flush interval and attempts must be positive");
+    }
+    this.name = name;
+    this.buffer = new RingBuffer<>(capacity);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    this.maxAttempts = maxAttempts;
+    this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+    this.writer = writer;
+    this.afterWrite = afterWrite;
+    this.thread = new Thread(this::run, "write-behind-" + name);
+    this.thread.setDaemon(true);
+  }
+
+  /** Start the background thread. */
+  public void start() {
+    running = true;
+    thread.start();
+  }
+
+  /**
+   * Offer a record, waiting for room while the buffer is full.
+   *
+   * @param record The record
+   * @return Whether the record was accepted
+   */
+  public Offer offer(T record) {
+    offering.incrementAndGet();
+    try {
+      if (!running) {
+        return Offer.CLOSED;
+      }
+      long deadline = System.nanoTime() + offerTimeoutNanos;
+      while (!buffer.offer(record)) {
+        LockSupport.unpark(thread);
+        if (!running) {
+          return Offer.CLOSED;
+        }
+        if (System.nanoTime() - deadline >= 0) {
+          rejected.increment();
+          return Offer.FULL;
+        }
+        LockSupport.parkNanos(FULL_BUFFER_PARK_NANOS);
+      }
+    } finally {
+      offering.decrementAndGet();
+    }
+    if (buffer.size() >= batchSize) {
+      LockSupport.unpark(thread);
+    }
+    return Offer.ACCEPTED;
+  }
+
+  /**
+   * Stop accepting records and write every record accepted so far.
+   *
+   * @param timeoutMillis Longest time to wait for the background thread, in milliseconds
+   */
+  public void close(long timeoutMillis) {
+    if (!running) {
+      return;
+    }
+    running = false;
+    LockSupport.unpark(thread);
+    try {
+      thread.join(timeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // Producers that saw the buffer running may still be adding their record
+    while (offering.get() > 0) {
+      Thread.onSpinWait();
+    }
+    while (flushBatch() > 0) {
+      // Write what the background thread left
+    }
+  }
+
+  private void run() {
+    long lastFlush = System.nanoTime();
+    while (running) {
+      long sinceFlush = System.nanoTime() - lastFlush;
+      if (buffer.size() < batchSize && sinceFlush < flushIntervalNanos) {
+        LockSupport.parkNanos(this, flushIntervalNanos - sinceFlush);
+        continue;
+      }
+      while (flushBatch() == batchSize) {
+        // Keep writing full batches until the buffer runs low
+      }
+      lastFlush = System.nanoTime();
+    }
+  }
+
+  /** @return Number of records taken from the buffer */
+  private synchronized int flushBatch() {
+    List<T> batch = new ArrayList<>(Math.min(batchSize, buffer.capacity()));
+    int count = buffer.drainTo(batch, batchSize);
+    if (count > 0) {
+      write(batch);
+    }
+    return count;
+  }
+
+  /**
+   * Write records, retrying transient failures and splitting the records on any other failure.
+   *
+   * @param records The records
+   */
+  private void write(List<T> records) {
+    int count = records.size();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        writer.accept(records);
+        written.add(count);
+        break;
+      } catch (RuntimeException e) {
+        if (!isTransient(e)) {
+          if (count == 1) {
+            failed.increment();
+            log.error("Dropping a buffered {} record the database rejected", name, e);
+            return;
+          }
+          // Nothing of the batch is stored, write the halves so only the failing records are dropped
+          log.warn("Writing {} buffered {} records failed, writing them in halves", count, name, e);
+          write(records.subList(0, count / 2));
+          write(records.subList(count / 2, count));
+          return;
+        }
+        if (attempt >= maxAttempts) {
+          failed.add(count);
+          log.error("Dropping {} buffered {} records after {} failed writes", count, name, attempt, e);
+          return;
+        }
+        log.warn("Writing {} buffered {} records failed, retrying", count, name, e);
+        LockSupport.parkNanos(flushIntervalNanos);
+      }
+    }
+    // Outside the retries: the records are stored, writing them again would duplicate them
+    try {
+      afterWrite.accept(records);
+    } catch (RuntimeException e) {
+      log.error("Handling {} written {} records failed", count, name, e);
+    }
+  }
+
+  /** @return Whether writing the same records again may succeed */
+  private static boolean isTransient(RuntimeException e) {
+    return e instanceof TransientDataAccessException
+        || e instanceof RecoverableDataAccessException
+        || e instanceof DataAccessResourceFailureException;
+  }
+
+  /** @return Number of records waiting to be written */
+  public int size() {
+    return buffer.size();
+  }
+
+  /** @return Number of records the buffer holds */
+  public int capacity() {
+    return buffer.capacity();
+  }
+
+  /** @return Whether records are accepted */
+  public boolean isRunning() {
+    return running;
+  }
+
+  /** @return Number of records written */
+  public long getWrittenCount() {
+    return written.sum();
+  }
+
+  /** @return Number of records refused because the buffer was full */
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /** @return Number of records dropped after their writes failed */
+  public long getFailedCount() {
+    return failed.sum();
+  }
+}
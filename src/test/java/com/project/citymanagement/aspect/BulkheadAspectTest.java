@@ -0,0 +1,110 @@
+package com.project.citymanagement.aspect;
+
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadAspectTest {
+
+    @Bulkhead(Bulkhead.CRUD)
+    static class Records {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Bulkhead(Bulkhead.IMPORT)
+        public int importRecords() throws InterruptedException {
+            started.countDown();
+            release.await();
+            return 3;
+        }
+
+        public String getRecord(long id) {
+            return "record " + id;
+        }
+
+        public String getMissingRecord() {
+            throw new IllegalStateException("Record not found");
+        }
+    }
+
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("bulkhead.import.max-concurrent-calls", "1");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private Records target;
+    private Records records;
+
+    @BeforeEach
+    void setUp() {
+        BulkheadAspect aspect = new BulkheadAspect();
+        ReflectionTestUtils.setField(aspect, "environment", environment);
+        ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+        target = new Records();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        records = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        target.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testFullBulkheadRejectsWithoutAffectingOtherBulkheads() throws Exception {
+        Future<Integer> running = executor.submit(records::importRecords);
+        assertTrue(target.started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceUnavailableException.class, records::importRecords);
+        assertEquals("record 1", records.getRecord(1));
+        assertEquals(1.0, meterRegistry.get("bulkhead.active-calls").tag("name", "import").gauge().value());
+
+        target.release.countDown();
+        assertEquals(3, running.get(5, TimeUnit.SECONDS));
+        assertEquals(3, records.importRecords());
+
+        assertEquals(2.0, meterRegistry.get("bulkhead.calls")
+                .tags("name", "import", "outcome", "permitted").counter().count());
+        assertEquals(1.0, meterRegistry.get("bulkhead.calls")
+                .tags("name", "import", "outcome", "rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("bulkhead.calls")
+                .tags("name", "crud", "outcome", "permitted").counter().count());
+        assertEquals(2, meterRegistry.get("bulkhead.call.duration").tag("name", "import").timer().count());
+        assertEquals(0.0, meterRegistry.get("bulkhead.active-calls").tag("name", "import").gauge().value());
+    }
+
+    @Test
+    void testFailedCallReleasesItsPermit() {
+        environment.setProperty("bulkhead.crud.max-concurrent-calls", "1");
+
+        assertThrows(IllegalStateException.class, records::getMissingRecord);
+        assertEquals("record 2", records.getRecord(2));
+        assertEquals(0.0, meterRegistry.get("bulkhead.active-calls").tag("name", "crud").gauge().value());
+    }
+
+    @Test
+    void testDisabledBulkheadsLetEveryCallThrough() throws Exception {
+        environment.setProperty("bulkhead.enabled", "false");
+        executor.submit(records::importRecords);
+        assertTrue(target.started.await(5, TimeUnit.SECONDS));
+
+        target.release.countDown();
+        assertEquals(3, records.importRecords());
+        assertTrue(meterRegistry.find("bulkhead.calls").counters().isEmpty());
+    }
+}
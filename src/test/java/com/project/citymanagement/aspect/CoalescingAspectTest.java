@@ -0,0 +1,119 @@
+package com.project.citymanagement.aspect;
+
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingAspectTest {
+
+    static class Reports {
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Coalesced("reports.total")
+        public int total(long cityId) throws InterruptedException {
+            executions.incrementAndGet();
+            release.await();
+            return (int) cityId * 10;
+        }
+    }
+
+    private final MockEnvironment environment = new MockEnvironment();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Reports target;
+    private Reports reports;
+
+    @BeforeEach
+    void setUp() {
+        CoalescingAspect aspect = new CoalescingAspect();
+        ReflectionTestUtils.setField(aspect, "environment", environment);
+        ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+        target = new Reports();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        reports = factory.getProxy();
+    }
+
+    private List<Integer> callConcurrently(long... cityIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(cityIds.length);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (long cityId : cityIds) {
+                futures.add(executor.submit(() -> reports.total(cityId)));
+            }
+            Thread.sleep(200);
+            target.release.countDown();
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testIdenticalCallsAreCoalesced() throws Exception {
+        assertEquals(List.of(10, 10, 10, 20), callConcurrently(1, 1, 1, 2));
+
+        assertEquals(2, target.executions.get());
+        assertEquals(2.0, meterRegistry.get("coalescing.calls")
+                .tags("name", "reports.total", "outcome", "executed").functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("coalescing.calls")
+                .tags("name", "reports.total", "outcome", "coalesced").functionCounter().count());
+    }
+
+    @Test
+    void testCoalescingCanBeDisabledPerName() throws Exception {
+        environment.setProperty("coalescing.reports.total.enabled", "false");
+
+        assertEquals(List.of(10, 10, 10), callConcurrently(1, 1, 1));
+        assertEquals(3, target.executions.get());
+    }
+
+    @Test
+    void testCoalescingCanBeDisabledGlobally() throws Exception {
+        environment.setProperty("coalescing.enabled", "false");
+
+        assertEquals(List.of(10, 10), callConcurrently(1, 1));
+        assertEquals(2, target.executions.get());
+    }
+
+    @Test
+    void testWaitingCallTimesOutWithServiceUnavailable() throws Exception {
+        environment.setProperty("coalescing.reports.total.follower-timeout-ms", "50");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> leader = executor.submit(() -> reports.total(1));
+            while (target.executions.get() == 0) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(ServiceUnavailableException.class, () -> reports.total(1));
+            assertEquals(1.0, meterRegistry.get("coalescing.calls")
+                    .tags("name", "reports.total", "outcome", "timed-out").functionCounter().count());
+
+            target.release.countDown();
+            assertEquals(10, leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.project.citymanagement.aspect;
+
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.model.UtilityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheAspectTest {
+
+    static class Reports {
+        final AtomicInteger executions = new AtomicInteger();
+        final List<String> threads = new ArrayList<>();
+        Runnable whileComputing = () -> { };
+
+        @CachedResult(value = "reports.total", type = UtilityType.ELECTRICITY, cityIdArgument = 0)
+        @Coalesced("reports.total")
+        public String total(Long cityId) {
+            synchronized (threads) {
+                threads.add(Thread.currentThread().getName());
+            }
+            whileComputing.run();
+            return cityId + ":" + executions.incrementAndGet();
+        }
+    }
+
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("result-cache.fresh-ms", "1000")
+            .withProperty("result-cache.max-stale-ms", "5000");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+    private ResultCacheAspect cacheAspect;
+    private Reports target;
+    private Reports reports;
+
+    @BeforeEach
+    void setUp() {
+        build(new SyncTaskExecutor());
+    }
+
+    private void build(TaskExecutor refreshExecutor) {
+        cacheAspect = new ResultCacheAspect();
+        ReflectionTestUtils.setField(cacheAspect, "environment", environment);
+        ReflectionTestUtils.setField(cacheAspect, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cacheAspect, "refreshExecutor", refreshExecutor);
+        ReflectionTestUtils.setField(cacheAspect, "clock", (LongSupplier) now::get);
+        CoalescingAspect coalescingAspect = new CoalescingAspect();
+        ReflectionTestUtils.setField(coalescingAspect, "environment", environment);
+        ReflectionTestUtils.setField(coalescingAspect, "meterRegistry", meterRegistry);
+
+        target = new Reports();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(cacheAspect);
+        factory.addAspect(coalescingAspect);
+        reports = factory.getProxy();
+    }
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("result-cache.requests").tags("name", "reports.total", "result", result).counter().count();
+    }
+
+    @Test
+    void testFreshResultIsServedFromCache() {
+        assertEquals("1:1", reports.total(1L));
+        advanceMillis(500);
+        assertEquals("1:1", reports.total(1L));
+        assertEquals("2:2", reports.total(2L));
+
+        assertEquals(2, target.executions.get());
+        assertEquals(1.0, requests("hit"));
+        assertEquals(2.0, requests("miss"));
+    }
+
+    @Test
+    void testStaleResultIsServedWhileRefreshing() {
+        assertEquals("1:1", reports.total(1L));
+        advanceMillis(2_000);
+
+        assertEquals("1:1", reports.total(1L));
+        assertEquals(2, target.executions.get());
+        assertEquals("1:2", reports.total(1L));
+        assertEquals(1.0, requests("stale"));
+    }
+
+    @Test
+    void testExpiredResultIsRecomputed() {
+        assertEquals("1:1", reports.total(1L));
+        advanceMillis(7_000);
+
+        assertEquals("1:2", reports.total(1L));
+        assertEquals(2.0, requests("miss"));
+    }
+
+    @Test
+    void testChangeInvalidatesResultsOfCity() {
+        reports.total(1L);
+        reports.total(2L);
+
+        cacheAspect.onUtilityDataChanged(new UtilityDataChangedEvent(UtilityType.WATER_SUPPLY, 1L));
+        assertEquals("1:1", reports.total(1L));
+
+        cacheAspect.onUtilityDataChanged(new UtilityDataChangedEvent(UtilityType.ELECTRICITY, 1L));
+        assertEquals("1:3", reports.total(1L));
+        assertEquals("2:2", reports.total(2L));
+
+        cacheAspect.onUtilityDataChanged(new UtilityDataChangedEvent(UtilityType.ELECTRICITY, null));
+        assertEquals("2:4", reports.total(2L));
+    }
+
+    @Test
+    void testResultComputedBeforeChangeIsNotCached() {
+        target.whileComputing = () ->
+                cacheAspect.onUtilityDataChanged(new UtilityDataChangedEvent(UtilityType.ELECTRICITY, 1L));
+        assertEquals("1:1", reports.total(1L));
+
+        target.whileComputing = () -> { };
+        assertEquals("1:2", reports.total(1L));
+        assertEquals("1:2", reports.total(1L));
+    }
+
+    @Test
+    void testCacheCanBeDisabledPerName() {
+        environment.setProperty("result-cache.reports.total.enabled", "false");
+
+        reports.total(1L);
+        reports.total(1L);
+        assertEquals(2, target.executions.get());
+    }
+
+    @Test
+    void testBackgroundRefreshRunsOnRefreshExecutor() throws InterruptedException {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("refresh-");
+        executor.initialize();
+        try {
+            build(executor);
+            reports.total(1L);
+            advanceMillis(2_000);
+
+            assertEquals("1:1", reports.total(1L));
+            executor.getThreadPoolExecutor().shutdown();
+            assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(2, target.executions.get());
+            assertTrue(target.threads.get(1).startsWith("refresh-"));
+            assertEquals("1:2", reports.total(1L));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
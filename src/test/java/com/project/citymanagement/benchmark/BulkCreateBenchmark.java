@@ -0,0 +1,239 @@
+package com.project.citymanagement.benchmark;
+
+import com.project.citymanagement.entity.City;
+import com.project.citymanagement.model.electricity.ElectricityDataRequest;
+import com.project.citymanagement.repository.ChunkedDeleteRepository;
+import com.project.citymanagement.repository.CityRepository;
+import com.project.citymanagement.repository.ElectricityJdbcRepository;
+import com.project.citymanagement.repository.PartialUpdateRepository;
+import com.project.citymanagement.service.CityRegistry;
+import com.project.citymanagement.service.ElectricityService;
+import com.project.citymanagement.service.WriteBehindBuffers;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time to store {@value #READINGS} electricity readings through {@link ElectricityService}, one
+ * reading per call as {@code POST /api/electricity} stores them, and in one call as
+ * {@code POST /api/electricity/batch} stores them. The readings go through Hibernate and the JDBC
+ * batch repository into an in-memory database behind a connection pool. Every statement, batch and
+ * commit waits {@code roundTripMicros} longer, as it would for a database across the network; at 0
+ * only the work in this process is measured. HTTP handling is left out, so the gain of an endpoint
+ * is larger than the gain measured here.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath com.project.citymanagement.benchmark.BulkCreateBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkCreateBenchmark {
+
+    private static final int READINGS = 1000;
+
+    /** Added time of every statement, batch and commit, in microseconds. */
+    @Param({"0", "200"})
+    public long roundTripMicros;
+
+    private AnnotationConfigApplicationContext context;
+    private ElectricityService electricityService;
+    private JdbcTemplate jdbcTemplate;
+    private final List<ElectricityDataRequest> requests = new ArrayList<>(READINGS);
+
+    @Setup
+    public void setUp() {
+        // Outside Spring Boot nothing configures logging, and debug output would be measured too
+        LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("roundTripMicros", Long.class, () -> roundTripMicros);
+        context.register(Config.class);
+        context.refresh();
+        electricityService = context.getBean(ElectricityService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        City city = context.getBean(CityRepository.class).save(City.builder().name("Oslo").country("Norway").build());
+        for (int i = 0; i < READINGS; i++) {
+            requests.add(ElectricityDataRequest.builder()
+                    .cityId(city.getId())
+                    .area("Area " + i % 10)
+                    .consumptionKwh(100.0 + i)
+                    .outageDurationMinutes(0)
+                    .date(LocalDate.of(2024, 1, 1).plusDays(i % 365))
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteReadings() {
+        jdbcTemplate.update("delete from electricity");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int oneReadingPerCall() {
+        int saved = 0;
+        for (ElectricityDataRequest request : requests) {
+            electricityService.saveElectricityData(request);
+            saved++;
+        }
+        return saved;
+    }
+
+    @Benchmark
+    public Object allReadingsInOneCall() {
+        return electricityService.saveElectricityDataBatch(requests);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BulkCreateBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = CityRepository.class)
+    @Import({ElectricityService.class, ElectricityJdbcRepository.class, ChunkedDeleteRepository.class,
+            PartialUpdateRepository.class, CityRegistry.class, WriteBehindBuffers.class})
+    static class Config {
+
+        @Bean(destroyMethod = "close")
+        HikariDataSource dataSource(Long roundTripMicros) {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL("jdbc:h2:mem:bulk-create;MODE=MySQL;DB_CLOSE_DELAY=-1");
+            h2.setUser("sa");
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setDataSource(withRoundTrips(h2, TimeUnit.MICROSECONDS.toNanos(roundTripMicros)));
+            dataSource.setMaximumPoolSize(4);
+            return dataSource;
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setPackagesToScan(City.class.getPackageName());
+            // The column names Spring Boot's naming strategies give the entities
+            factory.setJpaPropertyMap(Map.of(
+                    "hibernate.hbm2ddl.auto", "create-drop",
+                    "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                    "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        Scheduler recordStreamScheduler() {
+            return Schedulers.immediate();
+        }
+    }
+
+    /** Wrap the data source so every statement, batch and commit waits for the round trip. */
+    private static DataSource withRoundTrips(DataSource target, long roundTripNanos) {
+        if (roundTripNanos == 0) {
+            return target;
+        }
+        return proxy(DataSource.class, target, (source, method, args) -> {
+            Object result = method.invoke(source, args);
+            if (!(result instanceof Connection)) {
+                return result;
+            }
+            return proxy(Connection.class, (Connection) result, (connection, connectionMethod, connectionArgs) -> {
+                if (connectionMethod.getName().equals("commit")) {
+                    LockSupport.parkNanos(roundTripNanos);
+                }
+                Object statement = connectionMethod.invoke(connection, connectionArgs);
+                if (!(statement instanceof PreparedStatement)) {
+                    return statement;
+                }
+                return proxy(PreparedStatement.class, (PreparedStatement) statement, (ps, psMethod, psArgs) -> {
+                    if (psMethod.getName().startsWith("execute")) {
+                        LockSupport.parkNanos(roundTripNanos);
+                    }
+                    return psMethod.invoke(ps, psArgs);
+                });
+            });
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            try {
+                return handler.invoke(target, method, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }));
+    }
+
+    @FunctionalInterface
+    private interface Handler<T> {
+        Object invoke(T target, Method method, Object[] args) throws Throwable;
+    }
+}
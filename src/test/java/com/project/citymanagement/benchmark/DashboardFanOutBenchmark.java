@@ -0,0 +1,247 @@
+package com.project.citymanagement.benchmark;
+
+import com.project.citymanagement.config.ExecutorConfig;
+import com.project.citymanagement.model.city.CityDashboardDto;
+import com.project.citymanagement.model.city.CityDto;
+import com.project.citymanagement.model.city.DashboardSection;
+import com.project.citymanagement.model.electricity.ElectricitySummaryDto;
+import com.project.citymanagement.model.waste.WasteSummaryDto;
+import com.project.citymanagement.model.watersupply.WaterSupplySummaryDto;
+import com.project.citymanagement.service.CityService;
+import com.project.citymanagement.service.DashboardService;
+import com.project.citymanagement.service.ElectricityService;
+import com.project.citymanagement.service.WasteService;
+import com.project.citymanagement.service.WaterSupplyService;
+import com.project.citymanagement.util.VirtualThreads;
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Dashboards per second composed by {@link DashboardService} for {@value #CLIENTS} concurrent
+ * clients, with the sections on the bounded dashboard executor and, with
+ * {@code virtual-threads.enabled}, on a virtual thread each. Every section runs one statement that
+ * takes {@value #DB_LATENCY_MS} ms longer, as a query across the network would, through a pool of
+ * {@value #POOL_SIZE} connections. On the {@value #EXECUTOR_THREADS} executor threads at most that
+ * many statements run at once; on virtual threads the connection pool is the limit.
+ *
+ * <p>The run fails if a section does not complete, if more statements run at once than the pool
+ * has connections, if on virtual threads the pool is never used in full, or if virtual threads
+ * compose fewer dashboards per second than the executor. Virtual threads need Java 21 or later;
+ * on Java 17 only the executor is measured.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath com.project.citymanagement.benchmark.DashboardFanOutBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(DashboardFanOutBenchmark.CLIENTS)
+@Fork(1)
+public class DashboardFanOutBenchmark {
+
+    static final int CLIENTS = 16;
+    private static final int EXECUTOR_THREADS = 8;
+    private static final int POOL_SIZE = 10;
+    private static final long DB_LATENCY_MS = 20;
+
+    /** Whether the sections run on virtual threads, as with {@code virtual-threads.enabled=true}. */
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private final AtomicInteger runningStatements = new AtomicInteger();
+    private final AtomicInteger mostRunningStatements = new AtomicInteger();
+    private final AtomicInteger incompleteSections = new AtomicInteger();
+    private HikariDataSource dataSource;
+    private Executor dashboardExecutor;
+    private DashboardService dashboardService;
+
+    @Setup
+    public void setUp() {
+        // Outside Spring Boot nothing configures logging, and debug output would be measured too
+        LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:dashboard-fan-out;DB_CLOSE_DELAY=-1");
+        dataSource = new HikariDataSource();
+        dataSource.setDataSource(withLatency(h2));
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+        dataSource.setMinimumIdle(POOL_SIZE);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // The executor the application configures, with its default queue
+        dashboardExecutor = new ExecutorConfig().dashboardExecutor(EXECUTOR_THREADS, 64, virtualThreads);
+        if (dashboardExecutor instanceof ThreadPoolTaskExecutor) {
+            ((ThreadPoolTaskExecutor) dashboardExecutor).initialize();
+        }
+        dashboardService = new DashboardService();
+        ReflectionTestUtils.setField(dashboardService, "dashboardExecutor", dashboardExecutor);
+        ReflectionTestUtils.setField(dashboardService, "sectionTimeoutMillis", 2000L);
+        ReflectionTestUtils.setField(dashboardService, "cityService", new CityService() {
+            @Override
+            public Optional<CityDto> getCityById(Long id) {
+                return Optional.of(CityDto.builder().id(id).name("Oslo").country("Norway").build());
+            }
+        });
+        ReflectionTestUtils.setField(dashboardService, "electricityService", new ElectricityService() {
+            @Override
+            public ElectricitySummaryDto getElectricitySummaryForPeriod(Long cityId, LocalDate startDate,
+                                                                        LocalDate endDate) {
+                jdbcTemplate.queryForObject("select ?", Integer.class, 1);
+                return null;
+            }
+        });
+        ReflectionTestUtils.setField(dashboardService, "waterSupplyService", new WaterSupplyService() {
+            @Override
+            public WaterSupplySummaryDto getWaterSupplySummaryForPeriod(Long cityId, LocalDate startDate,
+                                                                        LocalDate endDate) {
+                jdbcTemplate.queryForObject("select ?", Integer.class, 1);
+                return null;
+            }
+        });
+        ReflectionTestUtils.setField(dashboardService, "wasteService", new WasteService() {
+            @Override
+            public WasteSummaryDto getWasteSummaryForPeriod(Long cityId, LocalDate startDate, LocalDate endDate) {
+                jdbcTemplate.queryForObject("select ?", Integer.class, 1);
+                return null;
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (dashboardExecutor instanceof ThreadPoolTaskExecutor) {
+            ((ThreadPoolTaskExecutor) dashboardExecutor).shutdown();
+        } else {
+            ((ExecutorService) dashboardExecutor).shutdown();
+        }
+        dataSource.close();
+
+        if (incompleteSections.get() > 0) {
+            throw new IllegalStateException(incompleteSections + " sections were rejected, failed or timed out");
+        }
+        if (mostRunningStatements.get() > POOL_SIZE) {
+            throw new IllegalStateException(mostRunningStatements + " statements ran at once on "
+                    + POOL_SIZE + " connections");
+        }
+        if (virtualThreads && mostRunningStatements.get() < POOL_SIZE) {
+            throw new IllegalStateException("At most " + mostRunningStatements + " statements ran at once, "
+                    + "the pool of " + POOL_SIZE + " connections was not the limit");
+        }
+    }
+
+    @Benchmark
+    public CityDashboardDto dashboard() {
+        CityDashboardDto dashboard = dashboardService.getCityDashboard(1L, LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 1, 31));
+        Stream.of(dashboard.getElectricity(), dashboard.getWaterSupply(), dashboard.getWaste())
+                .filter(section -> section.getStatus() != DashboardSection.Status.OK)
+                .forEach(section -> incompleteSections.incrementAndGet());
+        return dashboard;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String[] modes = VirtualThreads.isSupported() ? new String[]{"false", "true"} : new String[]{"false"};
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(DashboardFanOutBenchmark.class.getSimpleName())
+                .param("virtualThreads", modes)
+                .shouldFailOnError(true)
+                .build()).run();
+
+        Map<String, Double> dashboardsPerSecond = new HashMap<>();
+        for (RunResult result : results) {
+            dashboardsPerSecond.put(result.getParams().getParam("virtualThreads"),
+                    result.getPrimaryResult().getScore());
+        }
+        if (dashboardsPerSecond.size() == 2 && dashboardsPerSecond.get("true") <= dashboardsPerSecond.get("false")) {
+            throw new IllegalStateException("Virtual threads composed " + dashboardsPerSecond.get("true")
+                    + " dashboards/s, the executor " + dashboardsPerSecond.get("false"));
+        }
+    }
+
+    /**
+     * Wrap the data source so every statement waits before it runs, counting the statements
+     * running at once. The wait happens outside the driver, where a virtual thread can unmount
+     * from its carrier.
+     */
+    private DataSource withLatency(DataSource target) {
+        return proxy(DataSource.class, target, (source, method, args) -> {
+            Object result = method.invoke(source, args);
+            if (!(result instanceof Connection)) {
+                return result;
+            }
+            return proxy(Connection.class, (Connection) result, (connection, connectionMethod, connectionArgs) -> {
+                Object statement = connectionMethod.invoke(connection, connectionArgs);
+                if (!(statement instanceof PreparedStatement)) {
+                    return statement;
+                }
+                return proxy(PreparedStatement.class, (PreparedStatement) statement, (ps, psMethod, psArgs) -> {
+                    if (!psMethod.getName().startsWith("execute")) {
+                        return psMethod.invoke(ps, psArgs);
+                    }
+                    mostRunningStatements.accumulateAndGet(runningStatements.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(DB_LATENCY_MS);
+                        return psMethod.invoke(ps, psArgs);
+                    } finally {
+                        runningStatements.decrementAndGet();
+                    }
+                });
+            });
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            try {
+                return handler.invoke(target, method, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }));
+    }
+
+    @FunctionalInterface
+    private interface Handler<T> {
+        Object invoke(T target, Method method, Object[] args) throws Throwable;
+    }
+}
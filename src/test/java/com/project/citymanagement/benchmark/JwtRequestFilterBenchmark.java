@@ -0,0 +1,87 @@
+package com.project.citymanagement.benchmark;
+
+import com.project.citymanagement.security.JwtRequestFilter;
+import com.project.citymanagement.security.JwtTokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link JwtRequestFilter} for a request carrying a valid bearer token, with
+ * and without the verified claims cache. The user lookup is an in-memory stub, so only token
+ * handling is measured.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath com.project.citymanagement.benchmark.JwtRequestFilterBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtRequestFilterBenchmark {
+
+    /** Maximum size of the claims cache, 0 verifies the token on every request. */
+    @Param({"0", "10000"})
+    public long claimsCacheMaximumSize;
+
+    private final UserDetails principal = new User("janedoe", "hash", List.of());
+    private final FilterChain chain = (request, response) -> { };
+    private JwtRequestFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtTokenUtil, "claimsCacheMaximumSize", claimsCacheMaximumSize);
+        ReflectionTestUtils.setField(jwtTokenUtil, "claimsCacheTtlSeconds", 60L);
+        jwtTokenUtil.init();
+
+        filter = new JwtRequestFilter();
+        ReflectionTestUtils.setField(filter, "jwtTokenUtil", jwtTokenUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", (UserDetailsService) username -> principal);
+
+        request = new MockHttpServletRequest("GET", "/api/city");
+        request.addHeader("Authorization", "Bearer " + jwtTokenUtil.generateToken("janedoe"));
+    }
+
+    @Benchmark
+    public Object authenticatedRequest() throws ServletException, IOException {
+        request.removeAttribute(JwtRequestFilter.class.getName() + ".FILTERED");
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtRequestFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
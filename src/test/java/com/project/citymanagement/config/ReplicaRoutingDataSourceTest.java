@@ -0,0 +1,134 @@
+package com.project.citymanagement.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two in-memory databases stand in for the primary and the replica; each names itself in a
+ * one-row table, and replication of the heartbeat is done by hand.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaLagMonitor monitor;
+    private JdbcTemplate routed;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(h2("primary"));
+        replica = new JdbcTemplate(h2("replica"));
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.execute("create table server (name varchar(16))");
+        }
+        primary.update("insert into server values ('primary')");
+        replica.update("insert into server values ('replica')");
+        replica.execute(ReplicaLagMonitor.CREATE_TABLE);
+
+        monitor = new ReplicaLagMonitor(primary.getDataSource(), replica.getDataSource(), 5000);
+        monitor.bindTo(meterRegistry);
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+                primary.getDataSource(), replica.getDataSource(), monitor::isReplicaUsable);
+        routingDataSource.bindTo(meterRegistry);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        routed = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.execute("drop all objects");
+        replica.execute("drop all objects");
+    }
+
+    @Test
+    void testReadOnlyTransactionsGoToCaughtUpReplica() {
+        monitor.check();
+        replicate();
+        monitor.check();
+
+        assertTrue(monitor.isReplicaUsable());
+        assertEquals(0, monitor.getLagMs());
+        assertEquals("replica", readOnly.execute(status -> server()));
+        double primaryConnections = connections("primary");
+        assertEquals("primary", readWrite.execute(status -> server()));
+        assertEquals("primary", server());
+        assertEquals(1, connections("replica"));
+        assertEquals(primaryConnections + 2, connections("primary"));
+        assertEquals(1, meterRegistry.get("datasource.replica.usable").gauge().value());
+    }
+
+    @Test
+    void testReadsStayOnPrimaryBeforeFirstHeartbeatIsReplicated() {
+        monitor.check();
+        monitor.check();
+
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals(-1, monitor.getLagMs());
+        assertEquals("primary", readOnly.execute(status -> server()));
+    }
+
+    @Test
+    void testReadsFallBackToPrimaryWhenReplicaLagsBehind() {
+        monitor.check();
+        replicate();
+        monitor.check();
+        replica.update("update replication_heartbeat set beat_at = ? where id = 1", System.currentTimeMillis() - 60_000);
+        monitor.check();
+
+        assertFalse(monitor.isReplicaUsable());
+        assertTrue(monitor.getLagMs() >= 60_000);
+        assertEquals("primary", readOnly.execute(status -> server()));
+        assertEquals(0, meterRegistry.get("datasource.replica.usable").gauge().value());
+    }
+
+    @Test
+    void testReadsFallBackToPrimaryWhenReplicaCannotBeRead() {
+        monitor.check();
+        replicate();
+        monitor.check();
+        replica.execute("drop table replication_heartbeat");
+        monitor.check();
+
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals(-1, monitor.getLagMs());
+        assertEquals("primary", readOnly.execute(status -> server()));
+    }
+
+    private String server() {
+        return routed.queryForObject("select name from server", String.class);
+    }
+
+    /** Apply the heartbeat of the primary to the replica, as replication would. */
+    private void replicate() {
+        Long beat = primary.queryForObject("select beat_at from replication_heartbeat where id = 1", Long.class);
+        replica.update("merge into replication_heartbeat (id, beat_at) key (id) values (1, ?)", beat);
+    }
+
+    private double connections(String target) {
+        return meterRegistry.get("datasource.routing.connections").tag("target", target).functionCounter().count();
+    }
+
+    private static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
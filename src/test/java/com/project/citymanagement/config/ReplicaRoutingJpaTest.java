@@ -0,0 +1,229 @@
+package com.project.citymanagement.config;
+
+import com.project.citymanagement.entity.City;
+import com.project.citymanagement.exception.ConflictException;
+import com.project.citymanagement.model.waste.WasteDataRequest;
+import com.project.citymanagement.model.waste.WasteDto;
+import com.project.citymanagement.model.waste.WastePatchRequest;
+import com.project.citymanagement.repository.ChunkedDeleteRepository;
+import com.project.citymanagement.repository.PartialUpdateRepository;
+import com.project.citymanagement.repository.WasteRepository;
+import com.project.citymanagement.service.CityRegistry;
+import com.project.citymanagement.service.WasteService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the waste service on the routing data source as the application configures it, behind
+ * Hibernate's transaction manager, which takes its connection as the transaction begins. Two
+ * in-memory databases stand in for the primary and the replica; the replica holds the waste record
+ * at its version before the last update, and replication of the heartbeat is done by hand.
+ */
+@SpringJUnitConfig(ReplicaRoutingJpaTest.Config.class)
+class ReplicaRoutingJpaTest {
+
+    @Autowired
+    private WasteService wasteService;
+
+    @Autowired
+    private ReplicaLagMonitor monitor;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @MockBean
+    private ChunkedDeleteRepository chunkedDeleteRepository;
+
+    @MockBean
+    private CityRegistry cityRegistry;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        if (replica.queryForObject("select count(*) from information_schema.tables where table_name = 'WASTE'",
+                Integer.class) == 0) {
+            // The schema created on the primary, as replication would have copied it
+            for (Map<String, Object> statement : primary.queryForList("script nodata")) {
+                replica.execute((String) statement.get("SCRIPT"));
+            }
+        }
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("insert into city (id, name, country) values (1, 'Oslo', 'Norway')");
+        }
+        primary.update("insert into waste (id, version, city_id, area) values (1, 1, 1, 'updated on primary')");
+        replica.update("insert into waste (id, version, city_id, area) values (1, 0, 1, 'stale on replica')");
+        // Not replicated yet
+        primary.update("insert into waste (id, version, city_id, area) values (2, 0, 1, 'new on primary')");
+
+        monitor.check();
+        replicate();
+        monitor.check();
+        assertTrue(monitor.isReplicaUsable());
+
+        City oslo = new City();
+        oslo.setId(1L);
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(oslo));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("delete from waste");
+            database.update("delete from city");
+        }
+    }
+
+    @Test
+    void testReadOnlyServiceMethodReadsReplica() {
+        double replicaConnections = connections("replica");
+
+        List<WasteDto> records = wasteService.getAllWasteRecords();
+
+        assertEquals(List.of("stale on replica"), records.stream().map(WasteDto::getArea).toList());
+        assertEquals(replicaConnections + 1, connections("replica"));
+    }
+
+    @Test
+    void testUpdateReadsRecordFromPrimary() {
+        double replicaConnections = connections("replica");
+        WasteDataRequest request = WasteDataRequest.builder()
+                .cityId(1L).area("Urban").wasteType("Organic").quantityKg(5.0).date(LocalDate.now()).build();
+
+        // The replica's copy is at version 0, so reading it there would reject the update
+        assertEquals(2L, wasteService.updateWasteData(1L, request, 1L).getVersion());
+
+        assertEquals("Urban", primary.queryForObject("select area from waste where id = 1", String.class));
+        assertEquals(replicaConnections, connections("replica"));
+    }
+
+    @Test
+    void testPatchConflictIsFoundOnPrimary() {
+        double replicaConnections = connections("replica");
+        WastePatchRequest request = WastePatchRequest.builder().area("Urban").build();
+
+        // The record is not on the replica yet, so checking there would report it missing
+        assertThrows(ConflictException.class, () -> wasteService.patchWasteData(2L, request, 5L));
+        assertTrue(wasteService.patchWasteData(2L, request, 0L));
+
+        assertEquals("Urban", primary.queryForObject("select area from waste where id = 2", String.class));
+        assertEquals(replicaConnections, connections("replica"));
+    }
+
+    /** Apply the heartbeat of the primary to the replica, as replication would. */
+    private void replicate() {
+        Long beat = primary.queryForObject("select beat_at from replication_heartbeat where id = 1", Long.class);
+        replica.update("merge into replication_heartbeat (id, beat_at) key (id) values (1, ?)", beat);
+    }
+
+    private double connections(String target) {
+        return meterRegistry.get("datasource.routing.connections").tag("target", target).functionCounter().count();
+    }
+
+    // Not a @Configuration, so the application's component scan does not pick it up
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = WasteRepository.class)
+    static class Config {
+
+        @Bean
+        DataSource primaryDataSource() {
+            return h2("jpa-primary");
+        }
+
+        @Bean
+        DataSource replicaDataSource() {
+            return h2("jpa-replica");
+        }
+
+        @Bean
+        SimpleMeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                            @Qualifier("replicaDataSource") DataSource replica) {
+            return new ReplicaLagMonitor(primary, replica, 5000);
+        }
+
+        @Bean
+        @Primary
+        DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                              @Qualifier("replicaDataSource") DataSource replica,
+                              ReplicaLagMonitor monitor, SimpleMeterRegistry meterRegistry) {
+            ReplicaRoutingDataSource routingDataSource =
+                    new ReplicaRoutingDataSource(primary, replica, monitor::isReplicaUsable);
+            routingDataSource.afterPropertiesSet();
+            routingDataSource.bindTo(meterRegistry);
+            return new LazyConnectionDataSourceProxy(routingDataSource);
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setPackagesToScan(City.class.getPackageName());
+            factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        PartialUpdateRepository partialUpdateRepository() {
+            return new PartialUpdateRepository();
+        }
+
+        @Bean
+        WasteService wasteService() {
+            return new WasteService();
+        }
+
+        private static DataSource h2(String name) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+            return dataSource;
+        }
+    }
+}
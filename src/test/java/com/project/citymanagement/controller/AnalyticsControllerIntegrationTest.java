@@ -0,0 +1,115 @@
+package com.project.citymanagement.controller;
+
+import com.project.citymanagement.entity.ConsumptionAnomaly;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.analytics.TopAreaDto;
+import com.project.citymanagement.model.analytics.TopAreasDto;
+import com.project.citymanagement.service.AnomalyDetectionService;
+import com.project.citymanagement.service.HeavyHitterService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ContextConfiguration(classes = {AnalyticsController.class})
+@ExtendWith(SpringExtension.class)
+class AnalyticsControllerIntegrationTest {
+    @Autowired
+    private AnalyticsController analyticsController;
+
+    @MockBean
+    private HeavyHitterService heavyHitterService;
+
+    @MockBean
+    private AnomalyDetectionService anomalyDetectionService;
+
+    /**
+     * Method under test: {@link AnalyticsController#getTopAreas(UtilityType, Long, String, int)}
+     */
+    @Test
+    void testGetTopAreas() throws Exception {
+        TopAreasDto topAreas = TopAreasDto.builder()
+                .type(UtilityType.ELECTRICITY)
+                .cityId(1L)
+                .totalConsumption(150.0)
+                .unlistedAreaMaxConsumption(50.0)
+                .areas(List.of(TopAreaDto.builder()
+                        .area("Urban")
+                        .estimatedConsumption(100.0)
+                        .guaranteedConsumption(100.0)
+                        .guaranteedInTopK(true)
+                        .build()))
+                .build();
+        when(this.heavyHitterService.getTopAreas(UtilityType.ELECTRICITY, 1L, LocalDate.of(2025, 1, 8), 1))
+                .thenReturn(topAreas);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/analytics/top-areas")
+                .param("type", "ELECTRICITY")
+                .param("cityId", "1")
+                .param("weekOf", "2025-01-08")
+                .param("k", "1");
+        MockMvcBuilders.standaloneSetup(this.analyticsController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/json"))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "{\"type\":\"ELECTRICITY\",\"cityId\":1,\"totalConsumption\":150.0,\"unlistedAreaMaxConsumption\":50.0,"
+                                + "\"areas\":[{\"area\":\"Urban\",\"estimatedConsumption\":100.0,\"maxError\":0.0,"
+                                + "\"guaranteedConsumption\":100.0,\"guaranteedInTopK\":true}]}"));
+    }
+
+    /**
+     * Method under test: {@link AnalyticsController#getTopAreas(UtilityType, Long, String, int)}
+     */
+    @Test
+    void testGetTopAreas_InvalidType() throws Exception {
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/analytics/top-areas")
+                .param("type", "GAS");
+        MockMvcBuilders.standaloneSetup(this.analyticsController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    /**
+     * Method under test: {@link AnalyticsController#getAnomaliesForPeriod(Long, String, String, UtilityType)}
+     */
+    @Test
+    void testGetAnomaliesForPeriod() throws Exception {
+        ConsumptionAnomaly anomaly = ConsumptionAnomaly.builder()
+                .id(1L)
+                .type(UtilityType.ELECTRICITY)
+                .cityId(1L)
+                .area("Urban")
+                .date(LocalDate.of(2025, 1, 8))
+                .consumption(500.0)
+                .expectedConsumption(100.0)
+                .standardDeviation(10.0)
+                .standardScore(40.0)
+                .build();
+        when(this.anomalyDetectionService.getAnomaliesForPeriod(1L, UtilityType.ELECTRICITY,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31))).thenReturn(List.of(anomaly));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/analytics/anomalies/city/{cityId}", 1L)
+                .param("startDate", "2025-01-01")
+                .param("endDate", "2025-01-31")
+                .param("type", "ELECTRICITY");
+        MockMvcBuilders.standaloneSetup(this.analyticsController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/json"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].area").value("Urban"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].standardScore").value(40.0));
+    }
+}
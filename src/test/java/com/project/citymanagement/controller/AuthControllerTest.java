@@ -1,12 +1,16 @@
 package com.project.citymanagement.controller;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.citymanagement.entity.User;
+import com.project.citymanagement.exception.ServiceUnavailableException;
 import com.project.citymanagement.repository.UserRepository;
 import com.project.citymanagement.security.JwtTokenUtil;
+import com.project.citymanagement.security.UsernameIndex;
 
 import java.util.ArrayList;
 import java.util.Optional;
@@ -19,6 +23,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -51,6 +56,9 @@ class AuthControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private UsernameIndex usernameIndex;
+
     /**
      * Method under test: {@link AuthController#createAuthenticationToken(com.project.citymanagement.entity.User)}
      */
@@ -242,6 +250,52 @@ class AuthControllerTest {
                 .andExpect(MockMvcResultMatchers.content().string("Error: Unable to register user"));
     }
 
+    /**
+     * Method under test: {@link AuthController#registerUser(User)}
+     */
+    @Test
+    void testRegisterUser_HashingSaturated() throws Exception {
+        when(this.passwordEncoder.encode((CharSequence) any()))
+                .thenThrow(new ServiceUnavailableException("Too many authentication requests, try again later"));
+
+        User user = new User();
+        user.setPassword("iloveyou");
+        user.setUsername("janedoe");
+        String content = (new ObjectMapper()).writeValueAsString(user);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content);
+        MockMvcBuilders.standaloneSetup(this.authController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().is(503))
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"))
+                .andExpect(MockMvcResultMatchers.content().string("Error: Too many authentication requests, try again later"));
+    }
+
+    /**
+     * Method under test: {@link AuthController#createAuthenticationToken(com.project.citymanagement.entity.User)}
+     */
+    @Test
+    void testCreateAuthenticationToken_HashingSaturated() throws Exception {
+        when(this.authenticationManager.authenticate((org.springframework.security.core.Authentication) any()))
+                .thenThrow(new InternalAuthenticationServiceException("?",
+                        new ServiceUnavailableException("Too many authentication requests, try again later")));
+
+        User user = new User();
+        user.setPassword("iloveyou");
+        user.setUsername("janedoe");
+        String content = (new ObjectMapper()).writeValueAsString(user);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content);
+        MockMvcBuilders.standaloneSetup(this.authController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().is(503))
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"));
+    }
+
     /**
      * Method under test: {@link AuthController#resetPassword(java.util.Map)}
      */
@@ -254,6 +308,29 @@ class AuthControllerTest {
         actualPerformResult.andExpect(MockMvcResultMatchers.status().is(400));
     }
 
+    /**
+     * Method under test: {@link AuthController#resetPassword(java.util.Map)}
+     */
+    @Test
+    void testResetPassword_HashingSaturated() throws Exception {
+        User user = new User();
+        user.setUsername("janedoe");
+        when(this.userRepository.findByUsername("janedoe")).thenReturn(Optional.of(user));
+        when(this.passwordEncoder.encode((CharSequence) any()))
+                .thenThrow(new ServiceUnavailableException("Too many authentication requests, try again later"));
+
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/reset-password")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"janedoe\",\"newPassword\":\"secret\"}");
+        MockMvcBuilders.standaloneSetup(this.authController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().is(503))
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"))
+                .andExpect(MockMvcResultMatchers.content().string("Error: Too many authentication requests, try again later"));
+        verify(this.userRepository, never()).save(any());
+    }
+
     /**
      * Method under test: {@link AuthController#verifyUsername(String)}
      */
@@ -264,6 +341,7 @@ class AuthControllerTest {
         user.setPassword("iloveyou");
         user.setUsername("janedoe");
         Optional<User> ofResult = Optional.of(user);
+        when(this.usernameIndex.mightExist("janedoe")).thenReturn(true);
         when(this.userRepository.findByUsername((String) any())).thenReturn(ofResult);
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/verify-username/{username}", "janedoe");
         MockMvcBuilders.standaloneSetup(this.authController)
@@ -279,6 +357,7 @@ class AuthControllerTest {
      */
     @Test
     void testVerifyUsername2() throws Exception {
+        when(this.usernameIndex.mightExist("janedoe")).thenReturn(true);
         when(this.userRepository.findByUsername((String) any())).thenReturn(Optional.empty());
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/verify-username/{username}", "janedoe");
         ResultActions actualPerformResult = MockMvcBuilders.standaloneSetup(this.authController)
@@ -299,6 +378,7 @@ class AuthControllerTest {
         user.setPassword("iloveyou");
         user.setUsername("janedoe");
         Optional<User> ofResult = Optional.of(user);
+        when(this.usernameIndex.mightExist("janedoe")).thenReturn(true);
         when(this.userRepository.findByUsername((String) any())).thenReturn(ofResult);
         MockHttpServletRequestBuilder getResult = MockMvcRequestBuilders.get("/verify-username/{username}", "janedoe");
         getResult.contentType("https://example.org/example");
@@ -309,5 +389,70 @@ class AuthControllerTest {
                 .andExpect(MockMvcResultMatchers.content().contentType("text/plain;charset=ISO-8859-1"))
                 .andExpect(MockMvcResultMatchers.content().string("Username exists"));
     }
-}
 
+    /**
+     * Method under test: {@link AuthController#verifyUsername(String)}
+     */
+    @Test
+    void testVerifyUsername_DefinitelyAbsent() throws Exception {
+        when(this.usernameIndex.mightExist("ghost")).thenReturn(false);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/verify-username/{username}", "ghost");
+        MockMvcBuilders.standaloneSetup(this.authController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andExpect(MockMvcResultMatchers.content().string("Error: Username not found"));
+        verify(this.userRepository, never()).findByUsername((String) any());
+    }
+
+    /**
+     * Method under test: {@link AuthController#registerUser(User)}
+     */
+    @Test
+    void testRegisterUser_UsernameTaken() throws Exception {
+        User existing = new User();
+        existing.setId(123L);
+        existing.setPassword("secret");
+        existing.setUsername("janedoe");
+        when(this.usernameIndex.mightExist("janedoe")).thenReturn(true);
+        when(this.userRepository.findByUsername("janedoe")).thenReturn(Optional.of(existing));
+
+        User user = new User();
+        user.setPassword("iloveyou");
+        user.setUsername("janedoe");
+        String content = (new ObjectMapper()).writeValueAsString(user);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content);
+        MockMvcBuilders.standaloneSetup(this.authController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().is(409))
+                .andExpect(MockMvcResultMatchers.content().string("Error: Username already exists"));
+        verify(this.passwordEncoder, never()).encode((CharSequence) any());
+        verify(this.userRepository, never()).save((User) any());
+    }
+
+    /**
+     * Method under test: {@link AuthController#registerUser(User)}
+     */
+    @Test
+    void testRegisterUser_AddsToUsernameIndex() throws Exception {
+        when(this.usernameIndex.mightExist("janedoe")).thenReturn(false);
+        when(this.passwordEncoder.encode((CharSequence) any())).thenReturn("secret");
+
+        User user = new User();
+        user.setPassword("iloveyou");
+        user.setUsername("janedoe");
+        String content = (new ObjectMapper()).writeValueAsString(user);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content);
+        MockMvcBuilders.standaloneSetup(this.authController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        verify(this.userRepository, never()).findByUsername((String) any());
+        verify(this.usernameIndex).add("janedoe");
+    }
+}
@@ -4,7 +4,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.citymanagement.entity.City;
 import com.project.citymanagement.exception.ResourceNotFoundException;
 import com.project.citymanagement.model.city.CityDto;
+import com.project.citymanagement.model.city.CityOverviewDto;
+import com.project.citymanagement.model.city.RecordCoverageDto;
+import com.project.citymanagement.model.city.CityDashboardDto;
+import com.project.citymanagement.model.city.CityDeletionJobDto;
+import com.project.citymanagement.model.city.CityDeletionStatus;
+import com.project.citymanagement.model.city.DashboardSection;
+import com.project.citymanagement.model.electricity.ElectricitySummaryDto;
+import com.project.citymanagement.service.CityDataSummaryService;
 import com.project.citymanagement.service.CityService;
+import com.project.citymanagement.service.DashboardService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,7 +30,10 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.result.StatusResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
@@ -35,6 +47,12 @@ class CityControllerIntegrationTest {
     @MockBean
     private CityService cityService;
 
+    @MockBean
+    private DashboardService dashboardService;
+
+    @MockBean
+    private CityDataSummaryService cityDataSummaryService;
+
     /**
      * Test {@link CityController#getAllCities()}.
      * <ul>
@@ -58,7 +76,7 @@ class CityControllerIntegrationTest {
 
         ArrayList<City> cityList = new ArrayList<>();
         cityList.add(city);
-        when(cityService.getAllCities()).thenReturn(cityList);
+        when(cityService.getAllCities()).thenReturn(CityService.recordsToDto(cityList));
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/city");
 
         // Act and Assert
@@ -102,7 +120,7 @@ class CityControllerIntegrationTest {
         ArrayList<City> cityList = new ArrayList<>();
         cityList.add(city2);
         cityList.add(city);
-        when(cityService.getAllCities()).thenReturn(cityList);
+        when(cityService.getAllCities()).thenReturn(CityService.recordsToDto(cityList));
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/city");
 
         // Act and Assert
@@ -202,12 +220,12 @@ class CityControllerIntegrationTest {
     }
 
     /**
-     * Test {@link CityController#deleteCity(Long)}.
+     * Test {@link CityController#deleteCity(Long, boolean)}.
      * <p>
-     * Method under test: {@link CityController#deleteCity(Long)}
+     * Method under test: {@link CityController#deleteCity(Long, boolean)}
      */
     @Test
-    @DisplayName("Test deleteCity(Long)")
+    @DisplayName("Test deleteCity(Long, boolean)")
     void testDeleteCity() throws Exception {
         // Arrange
         City city = new City();
@@ -217,7 +235,7 @@ class CityControllerIntegrationTest {
         city.setName("Name");
         city.setWasteData(new ArrayList<>());
         city.setWaterSupplyData(new ArrayList<>());
-        Optional<City> ofResult = Optional.of(city);
+        Optional<CityDto> ofResult = Optional.of(city.dto());
         doThrow(new ResourceNotFoundException("An error occurred")).when(cityService).deleteCity(Mockito.<Long>any());
         when(cityService.getCityById(Mockito.<Long>any())).thenReturn(ofResult);
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/city/{id}", 1L);
@@ -230,16 +248,16 @@ class CityControllerIntegrationTest {
     }
 
     /**
-     * Test {@link CityController#deleteCity(Long)}.
+     * Test {@link CityController#deleteCity(Long, boolean)}.
      * <ul>
      *   <li>Given {@link City#City()} Country is {@code GB}.</li>
      *   <li>Then status {@link StatusResultMatchers#isNoContent()}.</li>
      * </ul>
      * <p>
-     * Method under test: {@link CityController#deleteCity(Long)}
+     * Method under test: {@link CityController#deleteCity(Long, boolean)}
      */
     @Test
-    @DisplayName("Test deleteCity(Long); given City() Country is 'GB'; then status isNoContent()")
+    @DisplayName("Test deleteCity(Long, boolean); given City() Country is 'GB'; then status isNoContent()")
     void testDeleteCity_givenCityCountryIsGb_thenStatusIsNoContent() throws Exception {
         // Arrange
         City city = new City();
@@ -249,7 +267,7 @@ class CityControllerIntegrationTest {
         city.setName("Name");
         city.setWasteData(new ArrayList<>());
         city.setWaterSupplyData(new ArrayList<>());
-        Optional<City> ofResult = Optional.of(city);
+        Optional<CityDto> ofResult = Optional.of(city.dto());
         doNothing().when(cityService).deleteCity(Mockito.<Long>any());
         when(cityService.getCityById(Mockito.<Long>any())).thenReturn(ofResult);
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/city/{id}", 1L);
@@ -262,21 +280,21 @@ class CityControllerIntegrationTest {
     }
 
     /**
-     * Test {@link CityController#deleteCity(Long)}.
+     * Test {@link CityController#deleteCity(Long, boolean)}.
      * <ul>
      *   <li>Given {@link CityService} {@link CityService#getCityById(Long)} return
      * empty.</li>
      *   <li>Then status {@link StatusResultMatchers#isNotFound()}.</li>
      * </ul>
      * <p>
-     * Method under test: {@link CityController#deleteCity(Long)}
+     * Method under test: {@link CityController#deleteCity(Long, boolean)}
      */
     @Test
-    @DisplayName("Test deleteCity(Long); given CityService getCityById(Long) return empty; then status isNotFound()")
+    @DisplayName("Test deleteCity(Long, boolean); given CityService getCityById(Long) return empty; then status isNotFound()")
     void testDeleteCity_givenCityServiceGetCityByIdReturnEmpty_thenStatusIsNotFound() throws Exception {
         // Arrange
         doNothing().when(cityService).deleteCity(Mockito.<Long>any());
-        Optional<City> emptyResult = Optional.empty();
+        Optional<CityDto> emptyResult = Optional.empty();
         when(cityService.getCityById(Mockito.<Long>any())).thenReturn(emptyResult);
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/city/{id}", 1L);
 
@@ -326,7 +344,7 @@ class CityControllerIntegrationTest {
         city.setName("Name");
         city.setWasteData(new ArrayList<>());
         city.setWaterSupplyData(new ArrayList<>());
-        Optional<City> ofResult = Optional.of(city);
+        Optional<CityDto> ofResult = Optional.of(city.dto());
         when(cityService.getCityById(Mockito.<Long>any())).thenReturn(ofResult);
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/city/{id}", 1L);
 
@@ -353,7 +371,7 @@ class CityControllerIntegrationTest {
     @DisplayName("Test getCityById(Long); given CityService getCityById(Long) return empty; then status isNotFound()")
     void testGetCityById_givenCityServiceGetCityByIdReturnEmpty_thenStatusIsNotFound() throws Exception {
         // Arrange
-        Optional<City> emptyResult = Optional.empty();
+        Optional<CityDto> emptyResult = Optional.empty();
         when(cityService.getCityById(Mockito.<Long>any())).thenReturn(emptyResult);
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/city/{id}", 1L);
 
@@ -367,7 +385,7 @@ class CityControllerIntegrationTest {
     /**
      * Test {@link CityController#updateCity(Long, CityDto)}.
      * <ul>
-     *   <li>Given {@link CityService} {@link CityService#getCityById(Long)} return
+     *   <li>Given {@link CityService} {@link CityService#updateCity(Long, CityDto)} return
      * empty.</li>
      *   <li>Then status {@link StatusResultMatchers#isNotFound()}.</li>
      * </ul>
@@ -375,19 +393,11 @@ class CityControllerIntegrationTest {
      * Method under test: {@link CityController#updateCity(Long, CityDto)}
      */
     @Test
-    @DisplayName("Test updateCity(Long, CityDto); given CityService getCityById(Long) return empty; then status isNotFound()")
-    void testUpdateCity_givenCityServiceGetCityByIdReturnEmpty_thenStatusIsNotFound() throws Exception {
+    @DisplayName("Test updateCity(Long, CityDto); given CityService updateCity(Long, CityDto) return empty; then status isNotFound()")
+    void testUpdateCity_givenCityServiceUpdateCityReturnEmpty_thenStatusIsNotFound() throws Exception {
         // Arrange
-        City city = new City();
-        city.setCountry("GB");
-        city.setElectricityData(new ArrayList<>());
-        city.setId(1L);
-        city.setName("Name");
-        city.setWasteData(new ArrayList<>());
-        city.setWaterSupplyData(new ArrayList<>());
-        when(cityService.saveCity(Mockito.<City>any())).thenReturn(city);
         Optional<City> emptyResult = Optional.empty();
-        when(cityService.getCityById(Mockito.<Long>any())).thenReturn(emptyResult);
+        when(cityService.updateCity(Mockito.<Long>any(), Mockito.<CityDto>any())).thenReturn(emptyResult);
 
         CityDto cityDto = new CityDto();
         cityDto.setCountry("GB");
@@ -414,16 +424,8 @@ class CityControllerIntegrationTest {
     @DisplayName("Test updateCity(Long, CityDto)")
     void testUpdateCity() throws Exception {
         // Arrange
-        City city = new City();
-        city.setCountry("GB");
-        city.setElectricityData(new ArrayList<>());
-        city.setId(1L);
-        city.setName("Name");
-        city.setWasteData(new ArrayList<>());
-        city.setWaterSupplyData(new ArrayList<>());
-        Optional<City> ofResult = Optional.of(city);
-        when(cityService.saveCity(Mockito.<City>any())).thenThrow(new ResourceNotFoundException("An error occurred"));
-        when(cityService.getCityById(Mockito.<Long>any())).thenReturn(ofResult);
+        when(cityService.updateCity(Mockito.<Long>any(), Mockito.<CityDto>any()))
+                .thenThrow(new ResourceNotFoundException("An error occurred"));
 
         CityDto cityDto = new CityDto();
         cityDto.setCountry("GB");
@@ -444,7 +446,7 @@ class CityControllerIntegrationTest {
     /**
      * Test {@link CityController#updateCity(Long, CityDto)}.
      * <ul>
-     *   <li>Given {@link CityService} {@link CityService#saveCity(City)} return
+     *   <li>Given {@link CityService} {@link CityService#updateCity(Long, CityDto)} return
      * {@link City#City()}.</li>
      *   <li>Then status {@link StatusResultMatchers#isOk()}.</li>
      * </ul>
@@ -452,18 +454,9 @@ class CityControllerIntegrationTest {
      * Method under test: {@link CityController#updateCity(Long, CityDto)}
      */
     @Test
-    @DisplayName("Test updateCity(Long, CityDto); given CityService saveCity(City) return City(); then status isOk()")
-    void testUpdateCity_givenCityServiceSaveCityReturnCity_thenStatusIsOk() throws Exception {
+    @DisplayName("Test updateCity(Long, CityDto); given CityService updateCity(Long, CityDto) return City(); then status isOk()")
+    void testUpdateCity_givenCityServiceUpdateCityReturnCity_thenStatusIsOk() throws Exception {
         // Arrange
-        City city = new City();
-        city.setCountry("GB");
-        city.setElectricityData(new ArrayList<>());
-        city.setId(1L);
-        city.setName("Name");
-        city.setWasteData(new ArrayList<>());
-        city.setWaterSupplyData(new ArrayList<>());
-        Optional<City> ofResult = Optional.of(city);
-
         City city2 = new City();
         city2.setCountry("GB");
         city2.setElectricityData(new ArrayList<>());
@@ -471,8 +464,7 @@ class CityControllerIntegrationTest {
         city2.setName("Name");
         city2.setWasteData(new ArrayList<>());
         city2.setWaterSupplyData(new ArrayList<>());
-        when(cityService.saveCity(Mockito.<City>any())).thenReturn(city2);
-        when(cityService.getCityById(Mockito.<Long>any())).thenReturn(ofResult);
+        when(cityService.updateCity(Mockito.<Long>any(), Mockito.<CityDto>any())).thenReturn(Optional.of(city2));
 
         CityDto cityDto = new CityDto();
         cityDto.setCountry("GB");
@@ -521,4 +513,166 @@ class CityControllerIntegrationTest {
         // Assert
         actualPerformResult.andExpect(MockMvcResultMatchers.status().isNotFound());
     }
-}
\ No newline at end of file
+
+    /**
+     * Test {@link CityController#getCityDashboard(Long, String, String)}.
+     * <p>
+     * Method under test: {@link CityController#getCityDashboard(Long, String, String)}
+     */
+    @Test
+    @DisplayName("Test getCityDashboard(Long, String, String); then status isOk()")
+    void testGetCityDashboard_thenStatusIsOk() throws Exception {
+        // Arrange
+        CityDashboardDto dashboard = CityDashboardDto.builder()
+                .city(CityDto.builder().id(1L).name("Name").country("GB").build())
+                .electricity(DashboardSection.<ElectricitySummaryDto>builder()
+                        .status(DashboardSection.Status.TIMEOUT)
+                        .elapsedMillis(2000L)
+                        .build())
+                .build();
+        when(dashboardService.getCityDashboard(1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)))
+                .thenReturn(dashboard);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/city/{id}/dashboard", 1L)
+                .param("startDate", "2025-01-01")
+                .param("endDate", "2025-01-31");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(cityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/json"))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "{\"city\":{\"id\":1,\"name\":\"Name\",\"country\":\"GB\"},"
+                                + "\"electricity\":{\"status\":\"TIMEOUT\",\"elapsedMillis\":2000}}"));
+    }
+
+    /**
+     * Test {@link CityController#getCityDashboard(Long, String, String)}.
+     * <p>
+     * Method under test: {@link CityController#getCityDashboard(Long, String, String)}
+     */
+    @Test
+    @DisplayName("Test getCityDashboard(Long, String, String); given DashboardService throws; then status isNotFound()")
+    void testGetCityDashboard_givenDashboardServiceThrows_thenStatusIsNotFound() throws Exception {
+        // Arrange
+        when(dashboardService.getCityDashboard(Mockito.<Long>any(), Mockito.any(), Mockito.any()))
+                .thenThrow(new ResourceNotFoundException("City not found with id: 1"));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/city/{id}/dashboard", 1L)
+                .param("startDate", "2025-01-01")
+                .param("endDate", "2025-01-31");
+
+        // Act
+        ResultActions actualPerformResult = MockMvcBuilders.standaloneSetup(cityController).build().perform(requestBuilder);
+
+        // Assert
+        actualPerformResult.andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    /**
+     * Test {@link CityController#deleteCity(Long, boolean)}.
+     * <p>
+     * Method under test: {@link CityController#deleteCity(Long, boolean)}
+     */
+    @Test
+    @DisplayName("Test deleteCity(Long, boolean); given async; then status isAccepted()")
+    void testDeleteCity_givenAsync_thenStatusIsAccepted() throws Exception {
+        // Arrange
+        when(cityService.getCityById(1L)).thenReturn(Optional.of(new CityDto()));
+        when(cityService.startCityDeletion(1L)).thenReturn(CityDeletionJobDto.builder()
+                .id("job-1")
+                .cityId(1L)
+                .status(CityDeletionStatus.RUNNING)
+                .build());
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/city/{id}", 1L)
+                .param("async", "true");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(cityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.header().string("Location", "/api/city/deletions/job-1"))
+                .andExpect(MockMvcResultMatchers.content().string("{\"id\":\"job-1\",\"cityId\":1,\"status\":\"RUNNING\"}"));
+        verify(cityService, never()).deleteCity(Mockito.<Long>any());
+    }
+
+    /**
+     * Test {@link CityController#getCityDeletion(String)}.
+     * <p>
+     * Method under test: {@link CityController#getCityDeletion(String)}
+     */
+    @Test
+    @DisplayName("Test getCityDeletion(String); then progress is returned")
+    void testGetCityDeletion_thenProgressIsReturned() throws Exception {
+        // Arrange
+        when(cityService.getCityDeletion("job-1")).thenReturn(Optional.of(CityDeletionJobDto.builder()
+                .id("job-1")
+                .cityId(1L)
+                .status(CityDeletionStatus.RUNNING)
+                .deletedRecords(Map.of("electricity", 3000L))
+                .build()));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/city/deletions/{jobId}", "job-1");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(cityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "{\"id\":\"job-1\",\"cityId\":1,\"status\":\"RUNNING\",\"deletedRecords\":{\"electricity\":3000}}"));
+    }
+
+    /**
+     * Test {@link CityController#getCityDeletion(String)}.
+     * <p>
+     * Method under test: {@link CityController#getCityDeletion(String)}
+     */
+    @Test
+    @DisplayName("Test getCityDeletion(String); given unknown job; then status isNotFound()")
+    void testGetCityDeletion_givenUnknownJob_thenStatusIsNotFound() throws Exception {
+        // Arrange
+        when(cityService.getCityDeletion("job-1")).thenReturn(Optional.empty());
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/city/deletions/{jobId}", "job-1");
+
+        // Act
+        ResultActions actualPerformResult = MockMvcBuilders.standaloneSetup(cityController).build().perform(requestBuilder);
+
+        // Assert
+        actualPerformResult.andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    /**
+     * Test {@link CityController#getCityOverviews()}.
+     * <p>
+     * Method under test: {@link CityController#getCityOverviews()}
+     */
+    @Test
+    @DisplayName("Test getCityOverviews(); then content string with the record coverage of each city")
+    void testGetCityOverviews() throws Exception {
+        // Arrange
+        when(cityDataSummaryService.getCityOverviews()).thenReturn(List.of(CityOverviewDto.builder()
+                .id(1L)
+                .name("Name")
+                .country("GB")
+                .electricity(RecordCoverageDto.builder()
+                        .recordCount(2)
+                        .firstDate(LocalDate.of(2025, 1, 1))
+                        .lastDate(LocalDate.of(2025, 1, 31))
+                        .build())
+                .waterSupply(new RecordCoverageDto())
+                .waste(new RecordCoverageDto())
+                .build()));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/city/overview");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(cityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].country").value("GB"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].electricity.recordCount").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].waste.recordCount").value(0));
+        verify(cityService, never()).getCityById(Mockito.<Long>any());
+    }
+}
@@ -3,32 +3,46 @@ package com.project.citymanagement.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.citymanagement.entity.City;
 import com.project.citymanagement.entity.Electricity;
+import com.project.citymanagement.exception.ConflictException;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.model.bulk.BulkCreateResultDto;
+import com.project.citymanagement.model.bulk.BulkItemResultDto;
 import com.project.citymanagement.model.electricity.ElectricityDataRequest;
+import com.project.citymanagement.model.electricity.ElectricityDto;
+import com.project.citymanagement.model.electricity.ElectricityPatchRequest;
 import com.project.citymanagement.service.ElectricityService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.result.StatusResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
-@ContextConfiguration(classes = {ElectricityController.class})
+@ContextConfiguration(classes = {ElectricityController.class, JacksonAutoConfiguration.class})
 @ExtendWith(SpringExtension.class)
 class ElectricityControllerIntegrationTest {
     @Autowired
@@ -419,19 +433,18 @@ class ElectricityControllerIntegrationTest {
      * Test {@link ElectricityController#deleteElectricityRecord(Long)}.
      * <ul>
      *   <li>Given {@link ElectricityService}
-     * {@link ElectricityService#getElectricityById(Long)} return empty.</li>
+     * {@link ElectricityService#deleteElectricityData(Long)} finds no record.</li>
      * </ul>
      * <p>
      * Method under test:
      * {@link ElectricityController#deleteElectricityRecord(Long)}
      */
     @Test
-    @DisplayName("Test deleteElectricityRecord(Long); given ElectricityService getElectricityById(Long) return empty")
-    void testDeleteElectricityRecord_givenElectricityServiceGetElectricityByIdReturnEmpty() throws Exception {
+    @DisplayName("Test deleteElectricityRecord(Long); given ElectricityService deleteElectricityData(Long) finds no record")
+    void testDeleteElectricityRecord_givenElectricityServiceDeleteElectricityDataFindsNoRecord() throws Exception {
         // Arrange
-        doNothing().when(electricityService).deleteElectricityData(Mockito.<Long>any());
-        Optional<Electricity> emptyResult = Optional.empty();
-        when(electricityService.getElectricityById(Mockito.<Long>any())).thenReturn(emptyResult);
+        doThrow(new ResourceNotFoundException("Electricity record not found with id: 1")).when(electricityService)
+                .deleteElectricityData(Mockito.<Long>any());
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/electricity/{id}", 1L);
 
         // Act
@@ -441,6 +454,7 @@ class ElectricityControllerIntegrationTest {
 
         // Assert
         actualPerformResult.andExpect(MockMvcResultMatchers.status().isNotFound());
+        verify(electricityService, never()).getElectricityById(Mockito.<Long>any());
     }
 
     /**
@@ -565,4 +579,298 @@ class ElectricityControllerIntegrationTest {
         // Assert
         actualPerformResult.andExpect(MockMvcResultMatchers.status().isNotFound());
     }
+
+    /**
+     * Method under test: {@link ElectricityController#createElectricityRecords(javax.servlet.http.HttpServletRequest)}
+     */
+    @Test
+    @DisplayName("Test createElectricityRecords(HttpServletRequest); then per-item status is returned")
+    void testCreateElectricityRecords_thenPerItemStatus() throws Exception {
+        // Arrange
+        when(electricityService.saveElectricityDataBatch(Mockito.<List<ElectricityDataRequest>>any()))
+                .thenReturn(BulkCreateResultDto.of(List.of(
+                        BulkItemResultDto.created(0, 1L),
+                        BulkItemResultDto.rejected(1, "area is required"))));
+        String content = "[{\"cityId\":1,\"consumptionKwh\":10.0,\"area\":\"Area\",\"date\":\"2025-01-06\"},"
+                + "{\"cityId\":1,\"consumptionKwh\":10.0,\"date\":\"2025-01-06\"}]";
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/api/electricity/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content);
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(electricityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content()
+                        .string("{\"received\":2,\"created\":1,\"rejected\":1,\"items\":[{\"index\":0,\"status\":\"CREATED\",\"id\":1},"
+                                + "{\"index\":1,\"status\":\"REJECTED\",\"error\":\"area is required\"}]}"));
+        ArgumentCaptor<List<ElectricityDataRequest>> requests = ArgumentCaptor.forClass(List.class);
+        verify(electricityService).saveElectricityDataBatch(requests.capture());
+        assertEquals(LocalDate.of(2025, 1, 6), requests.getValue().get(0).getDate());
+        assertNull(requests.getValue().get(1).getArea());
+    }
+
+    /**
+     * Method under test: {@link ElectricityController#createElectricityRecords(javax.servlet.http.HttpServletRequest)}
+     */
+    @Test
+    @DisplayName("Test createElectricityRecords(HttpServletRequest); given too many items; then status 413")
+    void testCreateElectricityRecords_givenTooManyItems_thenStatusIsPayloadTooLarge() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(electricityController, "maxBatchItems", 1);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/api/electricity/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"cityId\":1},{\"cityId\":2}]");
+
+        // Act and Assert
+        try {
+            MockMvcBuilders.standaloneSetup(electricityController)
+                    .build()
+                    .perform(requestBuilder)
+                    .andExpect(MockMvcResultMatchers.status().isPayloadTooLarge());
+        } finally {
+            ReflectionTestUtils.setField(electricityController, "maxBatchItems", 5000);
+        }
+        verify(electricityService, never()).saveElectricityDataBatch(any());
+    }
+
+    /**
+     * Method under test: {@link ElectricityController#createElectricityRecords(javax.servlet.http.HttpServletRequest)}
+     */
+    @Test
+    @DisplayName("Test createElectricityRecords(HttpServletRequest); given a body that is not an array; then status 400")
+    void testCreateElectricityRecords_givenNotAnArray_thenStatusIsBadRequest() throws Exception {
+        // Arrange
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/api/electricity/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cityId\":1}");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(electricityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        verify(electricityService, never()).saveElectricityDataBatch(any());
+    }
+
+    /**
+     * Method under test: {@link ElectricityController#createElectricityRecordsFromNdjson(javax.servlet.http.HttpServletRequest)}
+     */
+    @Test
+    @DisplayName("Test createElectricityRecordsFromNdjson(HttpServletRequest); then every line is a record")
+    void testCreateElectricityRecordsFromNdjson_thenEveryLineIsARecord() throws Exception {
+        // Arrange
+        when(electricityService.saveElectricityDataBatch(Mockito.<List<ElectricityDataRequest>>any()))
+                .thenReturn(BulkCreateResultDto.of(List.of(BulkItemResultDto.created(0, 1L), BulkItemResultDto.created(1, 2L))));
+        String content = "{\"cityId\":1,\"consumptionKwh\":10.0,\"area\":\"Area\",\"date\":\"2025-01-06\"}\n"
+                + "{\"cityId\":2,\"consumptionKwh\":5.0,\"area\":\"Rural\",\"date\":\"2025-01-07\"}\n";
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/api/electricity/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(content);
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(electricityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.created").value(2));
+        ArgumentCaptor<List<ElectricityDataRequest>> requests = ArgumentCaptor.forClass(List.class);
+        verify(electricityService).saveElectricityDataBatch(requests.capture());
+        assertEquals(2, requests.getValue().size());
+        assertEquals(2L, requests.getValue().get(1).getCityId());
+        assertEquals(LocalDate.of(2025, 1, 7), requests.getValue().get(1).getDate());
+    }
+
+    /**
+     * Method under test: {@link ElectricityController#createElectricityRecordsFromNdjson(javax.servlet.http.HttpServletRequest)}
+     */
+    @Test
+    @DisplayName("Test createElectricityRecordsFromNdjson(HttpServletRequest); given too many lines; then status 413")
+    void testCreateElectricityRecordsFromNdjson_givenTooManyLines_thenStatusIsPayloadTooLarge() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(electricityController, "maxBatchItems", 1);
+        String content = "{\"cityId\":1}\n{\"cityId\":2}\n";
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/api/electricity/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(content);
+
+        // Act and Assert
+        try {
+            MockMvcBuilders.standaloneSetup(electricityController)
+                    .build()
+                    .perform(requestBuilder)
+                    .andExpect(MockMvcResultMatchers.status().isPayloadTooLarge());
+        } finally {
+            ReflectionTestUtils.setField(electricityController, "maxBatchItems", 5000);
+        }
+        verify(electricityService, never()).saveElectricityDataBatch(any());
+    }
+
+    /**
+     * Method under test: {@link ElectricityController#createElectricityRecord(ElectricityDataRequest)}
+     */
+    @Test
+    @DisplayName("Test createElectricityRecord(ElectricityDataRequest); given record buffered; then status isAccepted()")
+    void testCreateElectricityRecord_givenRecordBuffered_thenStatusIsAccepted() throws Exception {
+        // Arrange
+        City city = new City();
+        city.setCountry("GB");
+        city.setId(1L);
+        city.setName("Name");
+        Electricity electricity = Electricity.builder()
+                .area("Area")
+                .city(city)
+                .consumptionKwh(10.0d)
+                .build();
+        when(electricityService.saveElectricityData(Mockito.<ElectricityDataRequest>any())).thenReturn(electricity);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/api/electricity")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cityId\":1,\"consumptionKwh\":10.0,\"area\":\"Area\"}");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(electricityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.content()
+                        .string("{\"area\":\"Area\",\"consumptionKwh\":10.0,\"city\":{\"id\":1,\"name\":\"Name\",\"country\":\"GB\"}}"));
+    }
+
+    /**
+     * Method under test:
+     * {@link ElectricityController#deleteElectricityDataForPeriod(Long, String, String, String)}
+     */
+    @Test
+    @DisplayName("Test deleteElectricityDataForPeriod(Long, String, String, String); then deleted count is returned")
+    void testDeleteElectricityDataForPeriod_thenDeletedCountIsReturned() throws Exception {
+        // Arrange
+        when(electricityService.deleteElectricityDataForPeriod(1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), "Urban"))
+                .thenReturn(1500L);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/electricity/city/{cityId}/period", 1L)
+                .param("startDate", "2025-01-01")
+                .param("endDate", "2025-01-31")
+                .param("area", "Urban");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(electricityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("{\"deleted\":1500}"));
+    }
+
+    /**
+     * Method under test:
+     * {@link ElectricityController#patchElectricityRecord(Long, ElectricityPatchRequest, String)}
+     */
+    @Test
+    @DisplayName("Test patchElectricityRecord(Long, ElectricityPatchRequest, String); then status isNoContent()")
+    void testPatchElectricityRecord_thenStatusIsNoContent() throws Exception {
+        // Arrange
+        when(electricityService.patchElectricityData(1L, ElectricityPatchRequest.builder().outageReason("Storm").build(), null))
+                .thenReturn(true);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.patch("/api/electricity/{id}", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"outageReason\":\"Storm\"}");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(electricityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isNoContent());
+    }
+
+    /**
+     * Method under test:
+     * {@link ElectricityController#patchElectricityRecord(Long, ElectricityPatchRequest, String)}
+     */
+    @Test
+    @DisplayName("Test patchElectricityRecord(Long, ElectricityPatchRequest, String); given unknown record; then status isNotFound()")
+    void testPatchElectricityRecord_givenUnknownRecord_thenStatusIsNotFound() throws Exception {
+        // Arrange
+        when(electricityService.patchElectricityData(Mockito.<Long>any(), Mockito.any(), Mockito.any())).thenReturn(false);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.patch("/api/electricity/{id}", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"consumptionKwh\":5.0}");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(electricityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    /**
+     * Method under test:
+     * {@link ElectricityController#patchElectricityRecord(Long, ElectricityPatchRequest, String)}
+     */
+    @Test
+    @DisplayName("Test patchElectricityRecord(Long, ElectricityPatchRequest, String); given If-Match; then next ETag is returned")
+    void testPatchElectricityRecord_givenIfMatch_thenNextETagIsReturned() throws Exception {
+        // Arrange
+        when(electricityService.patchElectricityData(1L, ElectricityPatchRequest.builder().outageReason("Storm").build(), 3L))
+                .thenReturn(true);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.patch("/api/electricity/{id}", 1L)
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"outageReason\":\"Storm\"}");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(electricityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isNoContent())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"4\""));
+    }
+
+    /**
+     * Method under test:
+     * {@link ElectricityController#patchElectricityRecord(Long, ElectricityPatchRequest, String)}
+     */
+    @Test
+    @DisplayName("Test patchElectricityRecord(Long, ElectricityPatchRequest, String); given stale If-Match; then status isConflict()")
+    void testPatchElectricityRecord_givenStaleIfMatch_thenStatusIsConflict() throws Exception {
+        // Arrange
+        when(electricityService.patchElectricityData(Mockito.<Long>any(), Mockito.any(), Mockito.eq(2L)))
+                .thenThrow(new ConflictException("Electricity record 1 is not at version 2"));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.patch("/api/electricity/{id}", 1L)
+                .header("If-Match", "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"consumptionKwh\":5.0}");
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(electricityController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    /**
+     * Method under test:
+     * {@link ElectricityController#streamElectricityDataForPeriod(Long, String, String)}
+     */
+    @Test
+    @DisplayName("Test streamElectricityDataForPeriod(Long, String, String); then records are written as NDJSON")
+    void testStreamElectricityDataForPeriod_thenRecordsAreWrittenAsNdjson() throws Exception {
+        // Arrange
+        when(electricityService.streamElectricityDataForPeriod(1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)))
+                .thenReturn(Flux.just(ElectricityDto.builder().id(1L).build(), ElectricityDto.builder().id(2L).build()));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/electricity/city/{cityId}/period/stream", 1L)
+                .param("startDate", "2025-01-01")
+                .param("endDate", "2025-01-31")
+                .accept(MediaType.APPLICATION_NDJSON);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(electricityController).build();
+
+        // Act
+        MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
 }
@@ -4,28 +4,37 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.citymanagement.entity.City;
 import com.project.citymanagement.entity.WaterSupply;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.model.bulk.BulkCreateResultDto;
+import com.project.citymanagement.model.bulk.BulkItemResultDto;
 import com.project.citymanagement.model.watersupply.WaterSupplyDataRequest;
+import com.project.citymanagement.model.watersupply.WaterSupplyDto;
 import com.project.citymanagement.service.WaterSupplyService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
 
-@ContextConfiguration(classes = {WaterSupplyController.class})
+@ContextConfiguration(classes = {WaterSupplyController.class, JacksonAutoConfiguration.class})
 @ExtendWith(SpringExtension.class)
 class WaterSupplyControllerIntegrationTest {
     @Autowired
@@ -241,7 +250,6 @@ class WaterSupplyControllerIntegrationTest {
         waterSupply.setReservoirLevelPercentage(10.0d);
         Optional<WaterSupply> ofResult = Optional.of(waterSupply);
         doNothing().when(this.waterSupplyService).deleteWaterSupplyData(any());
-        when(this.waterSupplyService.getWaterSupplyRecordById(any())).thenReturn(ofResult);
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/water-supply/{id}", 123L);
         ResultActions actualPerformResult = MockMvcBuilders.standaloneSetup(this.waterSupplyController)
                 .build()
@@ -274,7 +282,6 @@ class WaterSupplyControllerIntegrationTest {
         Optional<WaterSupply> ofResult = Optional.of(waterSupply);
         doThrow(new ResourceNotFoundException("An error occurred")).when(this.waterSupplyService)
                 .deleteWaterSupplyData(any());
-        when(this.waterSupplyService.getWaterSupplyRecordById(any())).thenReturn(ofResult);
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/water-supply/{id}", 123L);
         ResultActions actualPerformResult = MockMvcBuilders.standaloneSetup(this.waterSupplyController)
                 .build()
@@ -288,12 +295,13 @@ class WaterSupplyControllerIntegrationTest {
     @Test
     void testDeleteWaterSupplyRecord3() throws Exception {
         doNothing().when(this.waterSupplyService).deleteWaterSupplyData(any());
-        when(this.waterSupplyService.getWaterSupplyRecordById(any())).thenReturn(Optional.empty());
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/water-supply/{id}", 123L);
         ResultActions actualPerformResult = MockMvcBuilders.standaloneSetup(this.waterSupplyController)
                 .build()
                 .perform(requestBuilder);
-        actualPerformResult.andExpect(MockMvcResultMatchers.status().isNotFound());
+        actualPerformResult.andExpect(MockMvcResultMatchers.status().isNoContent());
+        // The service finds out whether the record exists, the controller does not read it first
+        verify(this.waterSupplyService, never()).getWaterSupplyRecordById(any());
     }
 
     /**
@@ -409,7 +417,7 @@ class WaterSupplyControllerIntegrationTest {
     }
 
     /**
-     * Method under test: {@link WaterSupplyController#updateWaterSupplyRecord(Long, WaterSupplyDataRequest)}
+     * Method under test: {@link WaterSupplyController#updateWaterSupplyRecord(Long, WaterSupplyDataRequest, String)}
      */
     @Test
     void testUpdateWaterSupplyRecord() throws Exception {
@@ -430,7 +438,7 @@ class WaterSupplyControllerIntegrationTest {
         waterSupply.setProductionLiters(10.0d);
         waterSupply.setRainfallMm(10.0d);
         waterSupply.setReservoirLevelPercentage(10.0d);
-        when(this.waterSupplyService.updateWaterSupplyData(any(), any()))
+        when(this.waterSupplyService.updateWaterSupplyData(any(), any(), any()))
                 .thenReturn(waterSupply);
 
         WaterSupplyDataRequest waterSupplyDataRequest = new WaterSupplyDataRequest();
@@ -457,11 +465,11 @@ class WaterSupplyControllerIntegrationTest {
     }
 
     /**
-     * Method under test: {@link WaterSupplyController#updateWaterSupplyRecord(Long, WaterSupplyDataRequest)}
+     * Method under test: {@link WaterSupplyController#updateWaterSupplyRecord(Long, WaterSupplyDataRequest, String)}
      */
     @Test
     void testUpdateWaterSupplyRecord2() throws Exception {
-        when(this.waterSupplyService.updateWaterSupplyData(any(), any()))
+        when(this.waterSupplyService.updateWaterSupplyData(any(), any(), any()))
                 .thenThrow(new ResourceNotFoundException("An error occurred"));
 
         WaterSupplyDataRequest waterSupplyDataRequest = new WaterSupplyDataRequest();
@@ -481,5 +489,63 @@ class WaterSupplyControllerIntegrationTest {
                 .perform(requestBuilder);
         actualPerformResult.andExpect(MockMvcResultMatchers.status().isNotFound());
     }
-}
 
+    /**
+     * Method under test: {@link WaterSupplyController#createWaterSupplyRecordsFromNdjson(javax.servlet.http.HttpServletRequest)}
+     */
+    @Test
+    void testCreateWaterSupplyRecordsFromNdjson() throws Exception {
+        when(this.waterSupplyService.saveWaterSupplyDataBatch(any()))
+                .thenReturn(BulkCreateResultDto.of(List.of(BulkItemResultDto.created(0, 1L))));
+
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/api/water-supply/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"cityId\":1,\"consumptionLiters\":10.0,\"area\":\"Area\",\"date\":\"2025-01-06\"}\n");
+        MockMvcBuilders.standaloneSetup(this.waterSupplyController)
+                .build()
+                .perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content()
+                        .string("{\"received\":1,\"created\":1,\"rejected\":0,\"items\":[{\"index\":0,\"status\":\"CREATED\",\"id\":1}]}"));
+    }
+
+    /**
+     * Method under test: {@link WaterSupplyController#createWaterSupplyRecords(javax.servlet.http.HttpServletRequest)}
+     */
+    @Test
+    void testCreateWaterSupplyRecords_TooManyItems() throws Exception {
+        ReflectionTestUtils.setField(this.waterSupplyController, "maxBatchItems", 1);
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.post("/api/water-supply/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"cityId\":1},{\"cityId\":2}]");
+        try {
+            MockMvcBuilders.standaloneSetup(this.waterSupplyController)
+                    .build()
+                    .perform(requestBuilder)
+                    .andExpect(MockMvcResultMatchers.status().isPayloadTooLarge());
+        } finally {
+            ReflectionTestUtils.setField(this.waterSupplyController, "maxBatchItems", 5000);
+        }
+    }
+
+    /**
+     * Method under test: {@link WaterSupplyController#streamWaterSupplyDataForPeriod(Long, String, String)}
+     */
+    @Test
+    void testStreamWaterSupplyDataForPeriod() throws Exception {
+        when(waterSupplyService.streamWaterSupplyDataForPeriod(1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)))
+                .thenReturn(Flux.just(WaterSupplyDto.builder().id(1L).build(), WaterSupplyDto.builder().id(2L).build()));
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
+                .get("/api/water-supply/city/{cityId}/period/stream", 1L)
+                .param("startDate", "2025-01-01")
+                .param("endDate", "2025-01-31")
+                .accept(MediaType.TEXT_EVENT_STREAM);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(this.waterSupplyController).build();
+        MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("data:{\"id\":1}\n\ndata:{\"id\":2}\n\n"));
+    }
+}
@@ -0,0 +1,188 @@
+package com.project.citymanagement.filter;
+
+import com.project.citymanagement.aspect.Bulkhead;
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import com.project.citymanagement.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.DispatcherType;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlInterceptorTest {
+
+    static class Records {
+        public String getRecord() {
+            return "record";
+        }
+
+        @RequestCost(RequestCost.EXPENSIVE)
+        public List<String> getAllRecords() {
+            return List.of();
+        }
+
+        @RequestCost(RequestCost.EXPENSIVE)
+        @Bulkhead(Bulkhead.IMPORT)
+        public int importRecords() {
+            return 0;
+        }
+    }
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AdmissionControlInterceptor interceptor;
+
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("rate-limit.cost.cheap", "1")
+            .withProperty("rate-limit.cost.expensive", "10")
+            // Every expensive request is slow
+            .withProperty("adaptive-concurrency.expensive.latency-threshold-ms", "-1");
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new AdmissionControlInterceptor();
+        ReflectionTestUtils.setField(interceptor, "environment", environment);
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(interceptor, "rateLimitEnabled", true);
+        // Practically no refill during a test
+        ReflectionTestUtils.setField(interceptor, "tokensPerSecond", 0.001);
+        ReflectionTestUtils.setField(interceptor, "burst", 20L);
+        ReflectionTestUtils.setField(interceptor, "maxClients", 1000L);
+        ReflectionTestUtils.setField(interceptor, "clientIdleSeconds", 60L);
+        ReflectionTestUtils.setField(interceptor, "adaptiveConcurrencyEnabled", true);
+        ReflectionTestUtils.setField(interceptor, "initialLimit", 2);
+        ReflectionTestUtils.setField(interceptor, "minLimit", 1);
+        ReflectionTestUtils.setField(interceptor, "maxLimit", 10);
+        ReflectionTestUtils.setField(interceptor, "latencyThresholdMs", 60_000L);
+        ReflectionTestUtils.setField(interceptor, "backoffRatio", 0.5);
+        interceptor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(new Records(), method);
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/electricity");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    /** Run a request through the interceptor, completing it unless it was rejected. */
+    private void perform(MockHttpServletRequest request, HandlerMethod handler) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, null);
+    }
+
+    private double gauge(String name, String cost) {
+        return meterRegistry.get(name).tag("cost", cost).gauge().value();
+    }
+
+    @Test
+    void testExpensiveRequestsExhaustTheClientBudgetFirst() throws Exception {
+        perform(request("10.0.0.1"), handler("getAllRecords"));
+        perform(request("10.0.0.1"), handler("getAllRecords"));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("10.0.0.1"), response, handler("getRecord")));
+        assertNotNull(response.getHeader("Retry-After"));
+
+        // Another client keeps its own budget
+        perform(request("10.0.0.2"), handler("getAllRecords"));
+        assertEquals(1.0, meterRegistry.counter("admission.requests", "outcome", "throttled").count());
+        assertEquals(3.0, meterRegistry.counter("admission.requests", "outcome", "admitted").count());
+    }
+
+    @Test
+    void testAuthenticatedClientsAreLimitedBySubject() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("janedoe", null, List.of()));
+        perform(request("10.0.0.1"), handler("getAllRecords"));
+        perform(request("10.0.0.2"), handler("getAllRecords"));
+
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("10.0.0.3"), new MockHttpServletResponse(), handler("getRecord")));
+    }
+
+    @Test
+    void testRequestsOverTheConcurrencyLimitAreShed() throws Exception {
+        MockHttpServletRequest first = request("10.0.0.1");
+        MockHttpServletRequest second = request("10.0.0.2");
+        interceptor.preHandle(first, new MockHttpServletResponse(), handler("getRecord"));
+        interceptor.preHandle(second, new MockHttpServletResponse(), handler("getRecord"));
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> interceptor.preHandle(request("10.0.0.3"), new MockHttpServletResponse(), handler("getRecord")));
+        assertEquals(2.0, gauge("admission.concurrency.in-flight", "cheap"));
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), handler("getRecord"), null);
+        perform(request("10.0.0.3"), handler("getRecord"));
+        assertEquals(1.0, meterRegistry.counter("admission.requests", "outcome", "shed").count());
+    }
+
+    @Test
+    void testSlowExpensiveRequestsLeaveTheCheapLimit() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "rateLimitEnabled", false);
+        for (int i = 0; i < 3; i++) {
+            perform(request("10.0.0.1"), handler("getAllRecords"));
+        }
+
+        assertEquals(1.0, gauge("admission.concurrency.limit", "expensive"));
+        assertEquals(2.0, gauge("admission.concurrency.limit", "cheap"));
+        // The cheap requests still get both of their permits
+        MockHttpServletRequest first = request("10.0.0.1");
+        interceptor.preHandle(first, new MockHttpServletResponse(), handler("getRecord"));
+        perform(request("10.0.0.2"), handler("getRecord"));
+        assertEquals(0.0, meterRegistry.counter("admission.requests", "outcome", "shed").count());
+    }
+
+    @Test
+    void testBulkheadedRequestsLeaveTheLimit() throws Exception {
+        MockHttpServletRequest first = request("10.0.0.1");
+        interceptor.preHandle(first, new MockHttpServletResponse(), handler("importRecords"));
+        perform(request("10.0.0.2"), handler("importRecords"));
+
+        // Holding permits of their cost while running, without their duration adapting the limit
+        assertEquals(1.0, gauge("admission.concurrency.in-flight", "expensive"));
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), handler("importRecords"), null);
+        assertEquals(0.0, gauge("admission.concurrency.in-flight", "expensive"));
+        assertEquals(2.0, gauge("admission.concurrency.limit", "expensive"));
+    }
+
+    @Test
+    void testStreamedRequestIsReleasedWhenItsHandlerReturns() throws Exception {
+        MockHttpServletRequest request = request("10.0.0.1");
+        interceptor.preHandle(request, new MockHttpServletResponse(), handler("getAllRecords"));
+        assertEquals(1.0, gauge("admission.concurrency.in-flight", "expensive"));
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), handler("getAllRecords"));
+
+        // The client is still reading, but the permit is free again
+        assertEquals(0.0, gauge("admission.concurrency.in-flight", "expensive"));
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, new MockHttpServletResponse(), handler("getAllRecords"));
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), handler("getAllRecords"), null);
+
+        assertEquals(0.0, gauge("admission.concurrency.in-flight", "expensive"));
+        assertEquals(2.0, gauge("admission.concurrency.limit", "expensive"));
+        assertEquals(1.0, meterRegistry.counter("admission.requests", "outcome", "admitted").count());
+    }
+}
@@ -0,0 +1,218 @@
+package com.project.citymanagement.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockPart;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IdempotencyFilter filter;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private int status = 201;
+
+    private final List<String> executedBodies = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new IdempotencyFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(filter, "maximumWeightBytes", 1024L * 1024);
+        filter.init();
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String key) throws Exception {
+        return perform(method, uri, key, "{\"cityId\":1}");
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String key, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return perform(request, key);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, String key) throws Exception {
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException, ServletException {
+                int execution = executions.incrementAndGet();
+                if (req.getContentType().startsWith("multipart/")) {
+                    executedBodies.add(new String(req.getPart("file").getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+                } else {
+                    executedBodies.add(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+                }
+                res.setStatus(status);
+                res.setContentType("application/json");
+                res.setHeader("Location", "/api/electricity/" + execution);
+                res.getWriter().write("{\"id\":" + execution + "}");
+            }
+        }));
+        return response;
+    }
+
+    private static MockHttpServletRequest upload(String csv) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/electricity/import/1");
+        request.setContentType("multipart/form-data; boundary=part");
+        request.addPart(new MockPart("file", "readings.csv", csv.getBytes(StandardCharsets.UTF_8)));
+        return request;
+    }
+
+    @Test
+    void testRetryIsReplayed() throws Exception {
+        MockHttpServletResponse first = perform("POST", "/api/electricity", "key-1");
+        MockHttpServletResponse retry = perform("POST", "/api/electricity", "key-1");
+
+        assertEquals(1, executions.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("/api/electricity/1", retry.getHeader("Location"));
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(1.0, meterRegistry.counter("idempotency.requests", "outcome", "replayed").count());
+    }
+
+    @Test
+    void testExecutedRequestReadsBody() throws Exception {
+        perform("POST", "/api/electricity", "key-1", "{\"cityId\":2}");
+
+        assertEquals(List.of("{\"cityId\":2}"), executedBodies);
+    }
+
+    @Test
+    void testRetryWithDifferentBodyIsRejected() throws Exception {
+        perform("POST", "/api/electricity", "key-1", "{\"cityId\":1}");
+        MockHttpServletResponse retry = perform("POST", "/api/electricity", "key-1", "{\"cityId\":2}");
+
+        assertEquals(422, retry.getStatus());
+        assertEquals(1, executions.get());
+        assertEquals(1.0, meterRegistry.counter("idempotency.requests", "outcome", "mismatched").count());
+        // The stored response still answers retries of the original request
+        assertEquals(201, perform("POST", "/api/electricity", "key-1", "{\"cityId\":1}").getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testMultipartRetryIsComparedByParts() throws Exception {
+        MockHttpServletResponse first = perform(upload("date,value\n2025-01-01,1\n"), "key-1");
+        MockHttpServletResponse retry = perform(upload("date,value\n2025-01-01,1\n"), "key-1");
+        MockHttpServletResponse changed = perform(upload("date,value\n2025-01-01,2\n"), "key-1");
+
+        assertEquals(201, first.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(422, changed.getStatus());
+        assertEquals(List.of("date,value\n2025-01-01,1\n"), executedBodies);
+    }
+
+    @Test
+    void testKeysAreScopedToEndpoint() throws Exception {
+        perform("POST", "/api/electricity", "key-1");
+        perform("POST", "/api/water-supply", "key-1");
+        perform("POST", "/api/electricity", "key-2");
+
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void testRequestsWithoutKeyAreNotDeduplicated() throws Exception {
+        perform("POST", "/api/electricity", null);
+        perform("POST", "/api/electricity", null);
+        perform("PUT", "/api/electricity/1", "key-1");
+        perform("PUT", "/api/electricity/1", "key-1");
+
+        assertEquals(4, executions.get());
+    }
+
+    @Test
+    void testFailedRequestIsExecutedAgain() throws Exception {
+        status = 503;
+        perform("POST", "/api/electricity", "key-1");
+        status = 201;
+        MockHttpServletResponse retry = perform("POST", "/api/electricity", "key-1");
+
+        assertEquals(2, executions.get());
+        assertEquals("{\"id\":2}", retry.getContentAsString());
+    }
+
+    @Test
+    void testInvalidKeyIsRejected() throws Exception {
+        assertEquals(400, perform("POST", "/api/electricity", " ").getStatus());
+        assertEquals(400, perform("POST", "/api/electricity", "k".repeat(256)).getStatus());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void testRetryWhileInProgressIsRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/electricity");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        request.setContent("{\"cityId\":1}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse[] retry = new MockHttpServletResponse[1];
+
+        filter.doFilter(request, first, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                try {
+                    retry[0] = perform("POST", "/api/electricity", "key-1");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                res.setStatus(201);
+            }
+        }));
+
+        assertEquals(409, retry[0].getStatus());
+        assertEquals(0, executions.get());
+        assertEquals(201, first.getStatus());
+    }
+
+    @Test
+    void testRetryWithDifferentBodyWhileInProgressIsRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/electricity");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        request.setContent("{\"cityId\":2}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse[] retry = new MockHttpServletResponse[1];
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                try {
+                    retry[0] = perform("POST", "/api/electricity", "key-1", "{\"cityId\":1}");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                res.setStatus(201);
+            }
+        }));
+
+        assertEquals(422, retry[0].getStatus());
+        assertEquals(0, executions.get());
+    }
+}
@@ -0,0 +1,83 @@
+package com.project.citymanagement.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkedDeleteRepositoryTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 1, 31);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ChunkedDeleteRepository chunkedDeleteRepository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(chunkedDeleteRepository, "chunkSize", 100);
+    }
+
+    @Test
+    void testDeletesChunksUntilOneIsShort() {
+        when(jdbcTemplate.update(
+                "delete from electricity where city_id = ? and date between ? and ? limit ?",
+                1L, Date.valueOf(START), Date.valueOf(END), 100)).thenReturn(100, 100, 7);
+
+        long deleted = chunkedDeleteRepository.deleteByCityIdAndDateBetween("electricity", 1L, START, END, null);
+
+        assertEquals(207, deleted);
+        verify(jdbcTemplate, times(3)).update(
+                "delete from electricity where city_id = ? and date between ? and ? limit ?",
+                1L, Date.valueOf(START), Date.valueOf(END), 100);
+    }
+
+    @Test
+    void testRestrictsToArea() {
+        when(jdbcTemplate.update(
+                "delete from waste where city_id = ? and date between ? and ? and area = ? limit ?",
+                1L, Date.valueOf(START), Date.valueOf(END), "Urban", 100)).thenReturn(0);
+
+        long deleted = chunkedDeleteRepository.deleteByCityIdAndDateBetween("waste", 1L, START, END, "Urban");
+
+        assertEquals(0, deleted);
+        verify(jdbcTemplate).update(
+                "delete from waste where city_id = ? and date between ? and ? and area = ? limit ?",
+                1L, Date.valueOf(START), Date.valueOf(END), "Urban", 100);
+    }
+
+    @Test
+    void testRejectsUnknownTable() {
+        assertThrows(IllegalArgumentException.class,
+                () -> chunkedDeleteRepository.deleteByCityIdAndDateBetween("users", 1L, START, END, null));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testDeletesAllRecordsOfCityReportingEachChunk() {
+        when(jdbcTemplate.update("delete from consumption_anomaly where city_id = ? limit ?", 1L, 100))
+                .thenReturn(100, 40);
+        List<Long> chunks = new ArrayList<>();
+
+        long deleted = chunkedDeleteRepository.deleteByCityId("consumption_anomaly", 1L, chunks::add);
+
+        assertEquals(140, deleted);
+        assertEquals(List.of(100L, 40L), chunks);
+    }
+}
@@ -0,0 +1,106 @@
+package com.project.citymanagement.repository;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs the summary statements on an in-memory database in MySQL mode. */
+class CityDataSummaryRepositoryTest {
+
+    private static final LocalDate JANUARY_10 = LocalDate.of(2025, 1, 10);
+    private static final LocalDate JANUARY_20 = LocalDate.of(2025, 1, 20);
+
+    private JdbcTemplate jdbcTemplate;
+    private CityDataSummaryRepository cityDataSummaryRepository;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:city-data-summary;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table city_data_summary (city_id bigint not null, record_type varchar(32) not null, "
+                + "record_count bigint not null, first_date date, last_date date, primary key (city_id, record_type))");
+        jdbcTemplate.execute("create table waste (id bigint auto_increment primary key, city_id bigint, date date)");
+        cityDataSummaryRepository = new CityDataSummaryRepository();
+        ReflectionTestUtils.setField(cityDataSummaryRepository, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table city_data_summary");
+        jdbcTemplate.execute("drop table waste");
+    }
+
+    @Test
+    void testAddCreatesSummaryAndWidensIt() {
+        cityDataSummaryRepository.add("waste", 1L, 2, JANUARY_10, JANUARY_20);
+        cityDataSummaryRepository.add("waste", 1L, 1, JANUARY_10.minusDays(1), JANUARY_10.minusDays(1));
+        cityDataSummaryRepository.add("waste", 1L, 1, JANUARY_20.plusDays(1), JANUARY_20.plusDays(1));
+
+        assertEquals(List.of(4L, JANUARY_10.minusDays(1), JANUARY_20.plusDays(1)), summary(1L));
+    }
+
+    @Test
+    void testAddOfUndatedRecordsKeepsDates() {
+        cityDataSummaryRepository.add("waste", 1L, 1, null, null);
+        assertEquals(Arrays.asList(1L, null, null), summary(1L));
+
+        cityDataSummaryRepository.add("waste", 1L, 1, JANUARY_10, JANUARY_10);
+        cityDataSummaryRepository.add("waste", 1L, 1, null, null);
+
+        assertEquals(List.of(3L, JANUARY_10, JANUARY_10), summary(1L));
+    }
+
+    @Test
+    void testRemoveBetweenCoveredDatesUncountsRecords() {
+        cityDataSummaryRepository.add("waste", 1L, 5, JANUARY_10, JANUARY_20);
+
+        assertTrue(cityDataSummaryRepository.remove("waste", 1L, 2, JANUARY_10.plusDays(1), JANUARY_20.minusDays(1)));
+
+        assertEquals(List.of(3L, JANUARY_10, JANUARY_20), summary(1L));
+    }
+
+    @Test
+    void testRemoveAtCoveredDateLeavesSummary() {
+        cityDataSummaryRepository.add("waste", 1L, 5, JANUARY_10, JANUARY_20);
+
+        assertFalse(cityDataSummaryRepository.remove("waste", 1L, 1, JANUARY_10, JANUARY_10));
+        assertFalse(cityDataSummaryRepository.remove("waste", 1L, 1, JANUARY_20, JANUARY_20));
+        assertFalse(cityDataSummaryRepository.remove("waste", 1L, 5, JANUARY_10.plusDays(1), JANUARY_10.plusDays(1)));
+        assertFalse(cityDataSummaryRepository.remove("waste", 2L, 1, JANUARY_10.plusDays(1), JANUARY_10.plusDays(1)));
+
+        assertEquals(List.of(5L, JANUARY_10, JANUARY_20), summary(1L));
+    }
+
+    @Test
+    void testRefreshRecomputesFromRecords() {
+        cityDataSummaryRepository.add("waste", 1L, 5, JANUARY_10, JANUARY_20);
+        jdbcTemplate.update("insert into waste (city_id, date) values (1, ?), (1, ?)", JANUARY_10.plusDays(2), JANUARY_20);
+
+        cityDataSummaryRepository.refresh("waste", 1L);
+
+        assertEquals(List.of(2L, JANUARY_10.plusDays(2), JANUARY_20), summary(1L));
+    }
+
+    @Test
+    void testUnsupportedTable() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cityDataSummaryRepository.add("city", 1L, 1, JANUARY_10, JANUARY_10));
+    }
+
+    private List<Object> summary(long cityId) {
+        return jdbcTemplate.queryForObject(
+                "select record_count, first_date, last_date from city_data_summary where city_id = ? and record_type = 'waste'",
+                (rs, row) -> Arrays.asList(rs.getLong(1), rs.getObject(2, LocalDate.class), rs.getObject(3, LocalDate.class)),
+                cityId);
+    }
+}
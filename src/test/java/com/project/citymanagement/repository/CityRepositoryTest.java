@@ -0,0 +1,111 @@
+package com.project.citymanagement.repository;
+
+import com.project.citymanagement.entity.City;
+import com.project.citymanagement.model.city.CityDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction, so every repository call commits and goes through the
+ * second-level and query caches as it would in the application.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CityRepositoryTest {
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private City oslo;
+    private City bergen;
+
+    @BeforeEach
+    void setUp() {
+        oslo = cityRepository.save(City.builder().name("Oslo").country("Norway").build());
+        bergen = cityRepository.save(City.builder().name("Bergen").country("Norway").build());
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cityRepository.deleteAll();
+    }
+
+    @Test
+    void testFindAllIsServedFromQueryAndEntityCaches() {
+        assertEquals(2, cityRepository.findAll().size());
+        assertEquals(1, statistics.getQueryCacheMissCount());
+        assertEquals(1, statistics.getQueryCachePutCount());
+        assertEquals(2, cityRegion().getPutCount());
+
+        assertEquals(2, cityRepository.findAll().size());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(2, cityRegion().getHitCount());
+
+        assertEquals("Oslo", cityRepository.findById(oslo.getId()).orElseThrow().getName());
+        assertEquals(3, cityRegion().getHitCount());
+        assertEquals(0, cityRegion().getMissCount());
+    }
+
+    @Test
+    void testCreatedCityIsFoundAfterCachedFindAll() {
+        cityRepository.findAll();
+        cityRepository.findAllDtos();
+
+        City trondheim = cityRepository.save(City.builder().name("Trondheim").country("Norway").build());
+
+        assertEquals(3, cityRepository.findAll().size());
+        assertTrue(cityRepository.findAllDtos().stream().anyMatch(city -> city.getId().equals(trondheim.getId())));
+        assertEquals(0, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void testUpdatedCityIsFoundAfterCachedReads() {
+        cityRepository.findAll();
+        cityRepository.findById(oslo.getId());
+
+        oslo.setName("Christiania");
+        cityRepository.save(oslo);
+
+        assertEquals("Christiania", cityRepository.findById(oslo.getId()).orElseThrow().getName());
+        assertTrue(cityRepository.findAll().stream().anyMatch(city -> city.getName().equals("Christiania")));
+        assertTrue(cityRepository.findAllDtos().stream().map(CityDto::getName).anyMatch("Christiania"::equals));
+    }
+
+    @Test
+    void testDeletedCityIsGoneAfterCachedReads() {
+        cityRepository.findAll();
+        cityRepository.findAllDtos();
+        cityRepository.findById(bergen.getId());
+
+        assertEquals(1, cityRepository.deleteCityById(bergen.getId()));
+
+        assertTrue(cityRepository.findById(bergen.getId()).isEmpty());
+        List<City> cities = cityRepository.findAll();
+        assertEquals(List.of(oslo.getId()), cities.stream().map(City::getId).toList());
+        assertEquals(1, cityRepository.findAllDtos().size());
+    }
+
+    private CacheRegionStatistics cityRegion() {
+        return statistics.getDomainDataRegionStatistics("city");
+    }
+}
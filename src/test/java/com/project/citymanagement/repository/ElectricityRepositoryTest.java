@@ -0,0 +1,100 @@
+package com.project.citymanagement.repository;
+
+import com.project.citymanagement.entity.City;
+import com.project.citymanagement.entity.Electricity;
+import com.project.citymanagement.model.electricity.ElectricityDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ElectricityRepositoryTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 1, 31);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ElectricityRepository electricityRepository;
+
+    private City city;
+
+    @BeforeEach
+    void setUp() {
+        city = new City();
+        city.setName("Oslo");
+        city.setCountry("Norway");
+        entityManager.persist(city);
+        City otherCity = new City();
+        otherCity.setName("Bergen");
+        otherCity.setCountry("Norway");
+        entityManager.persist(otherCity);
+
+        persist(city, LocalDate.of(2025, 1, 5));
+        persist(otherCity, LocalDate.of(2025, 1, 6));
+        persist(city, LocalDate.of(2024, 12, 31));
+        persist(city, LocalDate.of(2025, 1, 7));
+        persist(city, LocalDate.of(2025, 1, 31)).setOutageDurationMinutes(45);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testKeysetPagesSelectTheRecordsOfTheCityAndPeriodInIdOrder() {
+        List<ElectricityDto> firstPage = electricityRepository.findDtosByCityIdAndDateBetweenAfterId(
+                city.getId(), START, END, 0L, PageRequest.of(0, 2));
+        List<ElectricityDto> secondPage = electricityRepository.findDtosByCityIdAndDateBetweenAfterId(
+                city.getId(), START, END, firstPage.get(1).getId(), PageRequest.of(0, 2));
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 5), LocalDate.of(2025, 1, 7)),
+                firstPage.stream().map(ElectricityDto::getDate).toList());
+        assertTrue(firstPage.get(0).getId() < firstPage.get(1).getId());
+        assertEquals(1, secondPage.size());
+        assertEquals(LocalDate.of(2025, 1, 31), secondPage.get(0).getDate());
+        assertEquals("Oslo", secondPage.get(0).getCity().getName());
+    }
+
+    @Test
+    void testPeriodAndOutageReadsSelectDtos() {
+        List<ElectricityDto> period = electricityRepository.findDtosByCityIdAndDateBetween(city.getId(), START, END);
+        List<ElectricityDto> outages = electricityRepository.findOutageDtos();
+
+        assertEquals(3, period.size());
+        assertTrue(period.stream().allMatch(record -> record.getCity().getId().equals(city.getId())));
+        assertEquals(1, outages.size());
+        assertEquals(45, outages.get(0).getOutageDurationMinutes());
+        assertEquals("Oslo", outages.get(0).getCity().getName());
+    }
+
+    @Test
+    void testRecordIsPlacedAndDeletedByIdWithoutLoadingIt() {
+        Long id = electricityRepository.findDtosByCityIdAndDateBetween(city.getId(), END, END).get(0).getId();
+
+        RecordPlacement placement = electricityRepository.findPlacementById(id).orElseThrow();
+        assertEquals(city.getId(), placement.getCityId());
+        assertEquals(END, placement.getDate());
+
+        assertEquals(1, electricityRepository.deleteRecordById(id));
+        assertEquals(0, electricityRepository.deleteRecordById(id));
+        assertTrue(electricityRepository.findPlacementById(id).isEmpty());
+    }
+
+    private Electricity persist(City recordCity, LocalDate date) {
+        Electricity electricity = new Electricity();
+        electricity.setCity(recordCity);
+        electricity.setDate(date);
+        electricity.setArea("Urban");
+        electricity.setConsumptionKwh(10.0);
+        return entityManager.persist(electricity);
+    }
+}
@@ -0,0 +1,90 @@
+package com.project.citymanagement.security;
+
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+
+    /** Encoder that reverses passwords, blocking on the latch for the password "slow". */
+    private final PasswordEncoder reversing = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if ("slow".contentEquals(rawPassword)) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new StringBuilder(rawPassword).reverse().toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    };
+
+    private BoundedPasswordEncoder encoder(int queueCapacity, long timeoutMillis) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return new BoundedPasswordEncoder(reversing, executor, timeoutMillis, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void testDelegatesOnExecutorAndRecordsLatency() {
+        BoundedPasswordEncoder encoder = encoder(4, 5_000);
+
+        assertEquals("terces", encoder.encode("secret"));
+        assertTrue(encoder.matches("secret", "terces"));
+        assertFalse(encoder.matches("secret", "secret"));
+
+        assertEquals(1, meterRegistry.get("password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hashing").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws InterruptedException {
+        BoundedPasswordEncoder encoder = encoder(0, 5_000);
+        Thread blocked = new Thread(() -> encoder.encode("slow"));
+        blocked.start();
+        while (executor.getActiveCount() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.encode("secret"));
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+
+        release.countDown();
+        blocked.join();
+    }
+
+    @Test
+    void testRejectsWhenHashingTakesTooLong() {
+        BoundedPasswordEncoder encoder = encoder(4, 50);
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.encode("slow"));
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+}
@@ -0,0 +1,86 @@
+package com.project.citymanagement.security;
+
+import com.project.citymanagement.entity.User;
+import com.project.citymanagement.event.UserCredentialsChangedEvent;
+import com.project.citymanagement.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CustomUserDetailsService customUserDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(customUserDetailsService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(customUserDetailsService, "maximumSize", 100L);
+        ReflectionTestUtils.setField(customUserDetailsService, "ttlSeconds", 60L);
+        customUserDetailsService.init();
+    }
+
+    private static User user(String password) {
+        User user = new User();
+        user.setUsername("janedoe");
+        user.setPassword(password);
+        return user;
+    }
+
+    @Test
+    void testLoadUserByUsernameIsCached() {
+        when(userRepository.findByUsername("janedoe")).thenReturn(Optional.of(user("hash")));
+
+        assertEquals("hash", customUserDetailsService.loadUserByUsername("janedoe").getPassword());
+        assertEquals("hash", customUserDetailsService.loadUserByUsername("janedoe").getPassword());
+        verify(userRepository, times(1)).findByUsername("janedoe");
+    }
+
+    @Test
+    void testErasingCredentialsDoesNotAffectCache() {
+        when(userRepository.findByUsername("janedoe")).thenReturn(Optional.of(user("hash")));
+
+        UserDetails principal = customUserDetailsService.loadUserByUsername("janedoe");
+        ((CredentialsContainer) principal).eraseCredentials();
+
+        assertNull(principal.getPassword());
+        assertEquals("hash", customUserDetailsService.loadUserByUsername("janedoe").getPassword());
+    }
+
+    @Test
+    void testCredentialsChangeEvictsPrincipal() {
+        when(userRepository.findByUsername("janedoe"))
+                .thenReturn(Optional.of(user("old")))
+                .thenReturn(Optional.of(user("new")));
+
+        assertEquals("old", customUserDetailsService.loadUserByUsername("janedoe").getPassword());
+        customUserDetailsService.onUserCredentialsChanged(new UserCredentialsChangedEvent("janedoe"));
+        assertEquals("new", customUserDetailsService.loadUserByUsername("janedoe").getPassword());
+    }
+
+    @Test
+    void testUnknownUserIsNotCached() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> customUserDetailsService.loadUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> customUserDetailsService.loadUserByUsername("ghost"));
+        verify(userRepository, times(2)).findByUsername("ghost");
+    }
+}
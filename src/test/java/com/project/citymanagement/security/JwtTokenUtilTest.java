@@ -0,0 +1,74 @@
+package com.project.citymanagement.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenUtilTest {
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtTokenUtil, "claimsCacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(jwtTokenUtil, "claimsCacheTtlSeconds", 60L);
+        jwtTokenUtil.init();
+    }
+
+    private long cachedClaims() {
+        return ((Cache<?, ?>) ReflectionTestUtils.getField(jwtTokenUtil, "verifiedClaims")).estimatedSize();
+    }
+
+    @Test
+    void testGeneratedTokenIsValid() {
+        String token = jwtTokenUtil.generateToken("janedoe");
+
+        assertTrue(jwtTokenUtil.validateToken(token, "janedoe"));
+        assertFalse(jwtTokenUtil.validateToken(token, "johndoe"));
+        assertEquals("janedoe", jwtTokenUtil.extractUsername(token));
+        assertEquals(1, cachedClaims());
+    }
+
+    @Test
+    void testTokensSignedWithStringSecretRemainValid() {
+        String token = Jwts.builder()
+                .setSubject("janedoe")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS256, "secretKey")
+                .compact();
+
+        assertEquals("janedoe", jwtTokenUtil.getValidClaims(token).get().getSubject());
+    }
+
+    @Test
+    void testTamperedTokenIsRejectedAndNotCached() {
+        String token = jwtTokenUtil.generateToken("janedoe");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(jwtTokenUtil.getValidClaims(tampered).isEmpty());
+        assertTrue(jwtTokenUtil.getValidClaims("not-a-token").isEmpty());
+        assertEquals(0, cachedClaims());
+    }
+
+    @Test
+    void testExpiredTokenIsRejected() {
+        String token = Jwts.builder()
+                .setSubject("janedoe")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(SignatureAlgorithm.HS256, "secretKey")
+                .compact();
+
+        assertTrue(jwtTokenUtil.getValidClaims(token).isEmpty());
+        assertFalse(jwtTokenUtil.validateToken(token, "janedoe"));
+    }
+}
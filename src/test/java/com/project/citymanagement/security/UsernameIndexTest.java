@@ -0,0 +1,95 @@
+package com.project.citymanagement.security;
+
+import com.project.citymanagement.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsernameIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UsernameIndex usernameIndex;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(usernameIndex, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(usernameIndex, "enabled", true);
+        ReflectionTestUtils.setField(usernameIndex, "expectedInsertions", 1000L);
+        ReflectionTestUtils.setField(usernameIndex, "falsePositiveRate", 0.001);
+        usernameIndex.init();
+    }
+
+    @Test
+    void testEverythingMightExistUntilBuilt() {
+        assertTrue(usernameIndex.mightExist("ghost"));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testRebuildLoadsUsernamesCaseInsensitively() {
+        when(userRepository.count()).thenReturn(2L);
+        when(userRepository.findAllUsernames()).thenReturn(List.of("janedoe", "JohnDoe"));
+
+        usernameIndex.rebuild();
+
+        assertTrue(usernameIndex.mightExist("janedoe"));
+        assertTrue(usernameIndex.mightExist("JANEDOE"));
+        assertTrue(usernameIndex.mightExist("johndoe"));
+        assertFalse(usernameIndex.mightExist("ghost"));
+        assertEquals(1.0, meterRegistry.get("username-index.lookups").tag("result", "absent").counter().count());
+        assertEquals(3.0, meterRegistry.get("username-index.lookups").tag("result", "maybe").counter().count());
+    }
+
+    @Test
+    void testAddedUsernameIsFound() {
+        when(userRepository.count()).thenReturn(0L);
+        when(userRepository.findAllUsernames()).thenReturn(List.of());
+        usernameIndex.rebuild();
+        assertFalse(usernameIndex.mightExist("janedoe"));
+
+        usernameIndex.add("janedoe");
+
+        assertTrue(usernameIndex.mightExist("janedoe"));
+    }
+
+    @Test
+    void testUsernameAddedDuringRebuildIsKept() {
+        when(userRepository.count()).thenReturn(0L);
+        // Registered after the table was read, while the new filter is still being filled
+        when(userRepository.findAllUsernames()).thenAnswer(invocation -> {
+            usernameIndex.add("janedoe");
+            return List.of();
+        });
+
+        usernameIndex.rebuild();
+
+        assertTrue(usernameIndex.mightExist("janedoe"));
+    }
+
+    @Test
+    void testDisabledIndexIsNeverBuilt() {
+        ReflectionTestUtils.setField(usernameIndex, "enabled", false);
+
+        usernameIndex.rebuild();
+
+        assertTrue(usernameIndex.mightExist("ghost"));
+        verifyNoInteractions(userRepository);
+    }
+}
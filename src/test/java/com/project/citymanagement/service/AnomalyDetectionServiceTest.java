@@ -0,0 +1,157 @@
+package com.project.citymanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.project.citymanagement.entity.ConsumptionAnomaly;
+import com.project.citymanagement.event.ConsumptionRecordedEvent;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.repository.ConsumptionAnomalyRepository;
+import com.project.citymanagement.util.RunningStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnomalyDetectionServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 6);
+
+    @Mock
+    private ConsumptionAnomalyRepository consumptionAnomalyRepository;
+
+    @InjectMocks
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(anomalyDetectionService, "threshold", 3.0);
+        ReflectionTestUtils.setField(anomalyDetectionService, "minSamples", 5L);
+        ReflectionTestUtils.setField(anomalyDetectionService, "maxAreas", 100L);
+        ReflectionTestUtils.setField(anomalyDetectionService, "idleAreaTtlHours", 1L);
+        anomalyDetectionService.init();
+    }
+
+    private void record(String area, double consumption) {
+        anomalyDetectionService.onConsumptionRecorded(
+                new ConsumptionRecordedEvent(UtilityType.ELECTRICITY, 1L, area, DATE, consumption));
+    }
+
+    @Test
+    void testFlagsReadingFarFromAreaMean() {
+        for (double value : new double[]{100, 102, 98, 101, 99}) {
+            record("Urban", value);
+        }
+        record("Urban", 500);
+
+        ArgumentCaptor<ConsumptionAnomaly> anomaly = ArgumentCaptor.forClass(ConsumptionAnomaly.class);
+        verify(consumptionAnomalyRepository).save(anomaly.capture());
+        assertEquals(UtilityType.ELECTRICITY, anomaly.getValue().getType());
+        assertEquals(1L, anomaly.getValue().getCityId());
+        assertEquals("Urban", anomaly.getValue().getArea());
+        assertEquals(DATE, anomaly.getValue().getDate());
+        assertEquals(500.0, anomaly.getValue().getConsumption());
+        assertEquals(100.0, anomaly.getValue().getExpectedConsumption(), 1e-9);
+        assertTrue(anomaly.getValue().getStandardScore() > 3.0);
+    }
+
+    @Test
+    void testDoesNotFlagNormalReadings() {
+        for (double value : new double[]{100, 102, 98, 101, 99, 103}) {
+            record("Urban", value);
+        }
+
+        verify(consumptionAnomalyRepository, never()).save(any());
+    }
+
+    @Test
+    void testDoesNotScoreBeforeMinSamples() {
+        record("Urban", 100);
+        record("Urban", 101);
+        record("Urban", 10_000);
+
+        verify(consumptionAnomalyRepository, never()).save(any());
+    }
+
+    @Test
+    void testAreasAreScoredIndependently() {
+        for (double value : new double[]{100, 102, 98, 101, 99}) {
+            record("Urban", value);
+            record("Industrial", value * 10);
+        }
+        record("Industrial", 1_000);
+
+        verify(consumptionAnomalyRepository, never()).save(any());
+    }
+
+    @Test
+    void testConcurrentReadingsAreAllCounted() throws InterruptedException {
+        ReflectionTestUtils.setField(anomalyDetectionService, "minSamples", Long.MAX_VALUE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8_000; i++) {
+            executor.execute(() -> record("Urban", 1.0));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Cache<?, AtomicReference<RunningStats>> statistics = statistics();
+        assertEquals(1, statistics.estimatedSize());
+        assertEquals(8_000, statistics.asMap().values().iterator().next().get().getCount());
+        verify(consumptionAnomalyRepository, never()).save(any());
+    }
+
+    @Test
+    void testFailingToStoreAnomalyDoesNotFailIngest() {
+        when(consumptionAnomalyRepository.save(any())).thenThrow(new DataAccessResourceFailureException("down"));
+        for (double value : new double[]{100, 102, 98, 101, 99}) {
+            record("Urban", value);
+        }
+
+        assertDoesNotThrow(() -> record("Urban", 500));
+        verify(consumptionAnomalyRepository).save(any());
+    }
+
+    @Test
+    void testStatisticsAreBoundedToMaxAreas() {
+        ReflectionTestUtils.setField(anomalyDetectionService, "maxAreas", 10L);
+        anomalyDetectionService.init();
+        for (int i = 0; i < 100; i++) {
+            record("Area " + i, 1.0);
+        }
+
+        Cache<?, AtomicReference<RunningStats>> statistics = statistics();
+        statistics.cleanUp();
+        assertTrue(statistics.estimatedSize() <= 10, "kept " + statistics.estimatedSize() + " areas");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<?, AtomicReference<RunningStats>> statistics() {
+        return (Cache<?, AtomicReference<RunningStats>>) ReflectionTestUtils.getField(anomalyDetectionService, "statistics");
+    }
+
+    @Test
+    void testGetAnomaliesForPeriod() {
+        List<ConsumptionAnomaly> anomalies = List.of(new ConsumptionAnomaly());
+        when(consumptionAnomalyRepository.findByCityIdAndDateBetweenOrderByDateAsc(1L, DATE, DATE)).thenReturn(anomalies);
+        when(consumptionAnomalyRepository.findByCityIdAndTypeAndDateBetweenOrderByDateAsc(1L, UtilityType.WATER_SUPPLY, DATE, DATE))
+                .thenReturn(List.of());
+
+        assertEquals(anomalies, anomalyDetectionService.getAnomaliesForPeriod(1L, null, DATE, DATE));
+        assertTrue(anomalyDetectionService.getAnomaliesForPeriod(1L, UtilityType.WATER_SUPPLY, DATE, DATE).isEmpty());
+    }
+}
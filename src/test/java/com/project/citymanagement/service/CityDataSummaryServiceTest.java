@@ -0,0 +1,180 @@
+package com.project.citymanagement.service;
+
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.repository.CityDataSummaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CityDataSummaryServiceTest {
+
+    private static final LocalDate JANUARY_1 = LocalDate.of(2025, 1, 1);
+    private static final LocalDate JANUARY_31 = LocalDate.of(2025, 1, 31);
+
+    @Mock
+    private CityDataSummaryRepository cityDataSummaryRepository;
+
+    @InjectMocks
+    private CityDataSummaryService cityDataSummaryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cityDataSummaryService, "enabled", true);
+    }
+
+    @Test
+    void testAddedRecordsAreCounted() {
+        cityDataSummaryService.onUtilityDataChanged(
+                UtilityDataChangedEvent.added(UtilityType.WASTE, 1L, 3, JANUARY_1, JANUARY_31));
+        cityDataSummaryService.refresh();
+
+        verify(cityDataSummaryRepository).add("waste", 1L, 3, JANUARY_1, JANUARY_31);
+        verifyNoMoreInteractions(cityDataSummaryRepository);
+    }
+
+    @Test
+    void testRemovalWithinCoveredDatesIsUncounted() {
+        when(cityDataSummaryRepository.remove("electricity", 1L, 2, JANUARY_1, JANUARY_31)).thenReturn(true);
+
+        cityDataSummaryService.onUtilityDataChanged(
+                UtilityDataChangedEvent.removed(UtilityType.ELECTRICITY, 1L, 2, JANUARY_1, JANUARY_31));
+
+        verify(cityDataSummaryRepository, never()).refresh(any(), any());
+    }
+
+    @Test
+    void testRemovalAtCoveredDateRecomputesCity() {
+        when(cityDataSummaryRepository.remove("water_supply", 2L, 1, JANUARY_1, JANUARY_1)).thenReturn(false);
+
+        cityDataSummaryService.onUtilityDataChanged(
+                UtilityDataChangedEvent.removed(UtilityType.WATER_SUPPLY, 2L, 1, JANUARY_1, JANUARY_1));
+
+        verify(cityDataSummaryRepository).refresh("water_supply", 2L);
+    }
+
+    @Test
+    void testRemovalOfUndatedRecordRecomputesCity() {
+        cityDataSummaryService.onUtilityDataChanged(
+                UtilityDataChangedEvent.removed(UtilityType.WASTE, 2L, 1, null, null));
+
+        verify(cityDataSummaryRepository).refresh("waste", 2L);
+        verifyNoMoreInteractions(cityDataSummaryRepository);
+    }
+
+    @Test
+    void testChangedValuesLeaveSummary() {
+        cityDataSummaryService.onUtilityDataChanged(new UtilityDataChangedEvent(UtilityType.ELECTRICITY, 1L));
+        cityDataSummaryService.onUtilityDataChanged(new UtilityDataChangedEvent(UtilityType.ELECTRICITY, null));
+        cityDataSummaryService.refresh();
+
+        verifyNoInteractions(cityDataSummaryRepository);
+    }
+
+    @Test
+    void testChangeOfUnknownCityRecomputesAllCities() {
+        cityDataSummaryService.onUtilityDataChanged(
+                UtilityDataChangedEvent.removed(UtilityType.ELECTRICITY, null, 1, JANUARY_1, JANUARY_1));
+        verifyNoInteractions(cityDataSummaryRepository);
+
+        cityDataSummaryService.refresh();
+
+        verify(cityDataSummaryRepository).refresh("electricity", null);
+        verifyNoMoreInteractions(cityDataSummaryRepository);
+    }
+
+    @Test
+    void testFailedAdjustmentIsRecomputedOnce() {
+        doThrow(new IllegalStateException("Connection refused"))
+                .when(cityDataSummaryRepository).add("waste", 1L, 1, JANUARY_1, JANUARY_1);
+
+        cityDataSummaryService.onUtilityDataChanged(
+                UtilityDataChangedEvent.added(UtilityType.WASTE, 1L, 1, JANUARY_1, JANUARY_1));
+        cityDataSummaryService.refresh();
+        cityDataSummaryService.refresh();
+
+        verify(cityDataSummaryRepository).refresh("waste", 1L);
+    }
+
+    @Test
+    void testFailedAdjustmentWithinTransactionFailsIt() {
+        doThrow(new IllegalStateException("Connection refused"))
+                .when(cityDataSummaryRepository).add("waste", 1L, 1, JANUARY_1, JANUARY_1);
+        UtilityDataChangedEvent event = UtilityDataChangedEvent.added(UtilityType.WASTE, 1L, 1, JANUARY_1, JANUARY_1);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            // Rolled back along with the records, so nothing is left to recompute
+            assertThrows(IllegalStateException.class, () -> cityDataSummaryService.onUtilityDataChanged(event));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        cityDataSummaryService.refresh();
+
+        verify(cityDataSummaryRepository, never()).refresh(any(), any());
+    }
+
+    @Test
+    void testFailedRefreshIsRetried() {
+        doThrow(new IllegalStateException("Connection refused")).doNothing()
+                .when(cityDataSummaryRepository).refresh("waste", null);
+        cityDataSummaryService.onUtilityDataChanged(
+                UtilityDataChangedEvent.removed(UtilityType.WASTE, null, 1, null, null));
+
+        cityDataSummaryService.refresh();
+        cityDataSummaryService.refresh();
+
+        verify(cityDataSummaryRepository, times(2)).refresh("waste", null);
+    }
+
+    @Test
+    void testChangeWithinTransactionIsMarkedOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cityDataSummaryService.onUtilityDataChanged(
+                    UtilityDataChangedEvent.removed(UtilityType.WASTE, null, 1, null, null));
+            cityDataSummaryService.refresh();
+            verifyNoInteractions(cityDataSummaryRepository);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        cityDataSummaryService.refresh();
+
+        verify(cityDataSummaryRepository).refresh("waste", null);
+    }
+
+    @Test
+    void testLoadRecomputesAllSummaries() {
+        cityDataSummaryService.load();
+
+        verify(cityDataSummaryRepository).refresh("electricity", null);
+        verify(cityDataSummaryRepository).refresh("water_supply", null);
+        verify(cityDataSummaryRepository).refresh("waste", null);
+        verifyNoMoreInteractions(cityDataSummaryRepository);
+    }
+
+    @Test
+    void testDisabled() {
+        ReflectionTestUtils.setField(cityDataSummaryService, "enabled", false);
+        cityDataSummaryService.onUtilityDataChanged(
+                UtilityDataChangedEvent.added(UtilityType.WASTE, 1L, 1, JANUARY_1, JANUARY_1));
+        cityDataSummaryService.load();
+        cityDataSummaryService.refresh();
+
+        verifyNoInteractions(cityDataSummaryRepository);
+    }
+}
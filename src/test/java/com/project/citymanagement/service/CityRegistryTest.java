@@ -0,0 +1,76 @@
+package com.project.citymanagement.service;
+
+import com.project.citymanagement.entity.City;
+import com.project.citymanagement.repository.CityRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CityRegistryTest {
+
+    @Mock
+    private CityRepository cityRepository;
+
+    @InjectMocks
+    private CityRegistry cityRegistry;
+
+    private static City city(Long id, String name) {
+        return City.builder().id(id).name(name).country("Country").electricityData(List.of()).build();
+    }
+
+    @Test
+    void testFindByIdServesLoadedCitiesWithoutQuery() {
+        when(cityRepository.findAll()).thenReturn(List.of(city(1L, "Hanoi"), city(2L, "Kathmandu")));
+        cityRegistry.load();
+
+        Optional<City> result = cityRegistry.findById(2L);
+
+        assertTrue(result.isPresent());
+        assertEquals("Kathmandu", result.get().getName());
+        assertNull(result.get().getElectricityData());
+        verify(cityRepository, never()).findById(any());
+    }
+
+    @Test
+    void testFindByIdReturnsCopies() {
+        cityRegistry.register(city(1L, "Hanoi"));
+
+        cityRegistry.findById(1L).get().setName("Changed");
+        assertEquals("Hanoi", cityRegistry.findById(1L).get().getName());
+    }
+
+    @Test
+    void testFindByIdFallsBackToRepositoryOnMiss() {
+        when(cityRepository.findById(3L)).thenReturn(Optional.of(city(3L, "Hue")));
+
+        assertEquals("Hue", cityRegistry.findById(3L).get().getName());
+        assertEquals("Hue", cityRegistry.findById(3L).get().getName());
+        verify(cityRepository, times(1)).findById(3L);
+    }
+
+    @Test
+    void testFindByIdUnknownCity() {
+        when(cityRepository.findById(4L)).thenReturn(Optional.empty());
+
+        assertTrue(cityRegistry.findById(4L).isEmpty());
+        assertTrue(cityRegistry.findById(null).isEmpty());
+    }
+
+    @Test
+    void testRemove() {
+        cityRegistry.register(city(1L, "Hanoi"));
+        cityRegistry.remove(1L);
+        when(cityRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertTrue(cityRegistry.findById(1L).isEmpty());
+    }
+}
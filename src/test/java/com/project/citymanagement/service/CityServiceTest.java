@@ -1,18 +1,36 @@
 package com.project.citymanagement.service;
 
 import com.project.citymanagement.entity.City;
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.city.CityDeletionJobDto;
+import com.project.citymanagement.model.city.CityDeletionStatus;
 import com.project.citymanagement.model.city.CityDto;
+import com.project.citymanagement.repository.ChunkedDeleteRepository;
 import com.project.citymanagement.repository.CityRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongConsumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,28 +38,57 @@ public class CityServiceTest {
     @Mock
     private CityRepository cityRepository;
 
+    @Mock
+    private CityRegistry cityRegistry;
+
+    @Mock
+    private ChunkedDeleteRepository chunkedDeleteRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CityService cityService;
 
+    private final List<Runnable> submittedTasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cityService, "cityDeletionExecutor", (Executor) submittedTasks::add);
+    }
+
     @Test
     void testGetAllCities() {
-        List<City> cityList = List.of(new City());
-        when(cityRepository.findAll()).thenReturn(cityList);
+        List<CityDto> cityList = List.of(new CityDto());
+        when(cityRepository.findAllDtos()).thenReturn(cityList);
 
-        List<City> result = cityService.getAllCities();
+        List<CityDto> result = cityService.getAllCities();
         assertEquals(cityList, result);
     }
 
     @Test
     void testGetCityById() {
-        City city = new City();
-        when(cityRepository.findById(1L)).thenReturn(Optional.of(city));
+        CityDto city = new CityDto();
+        when(cityRepository.findDtoById(1L)).thenReturn(Optional.of(city));
 
-        Optional<City> result = cityService.getCityById(1L);
+        Optional<CityDto> result = cityService.getCityById(1L);
         assertTrue(result.isPresent());
         assertEquals(city, result.get());
     }
 
+    @Test
+    void testUpdateCity() {
+        City city = City.builder().id(1L).name("Old").country("GB").build();
+        when(cityRepository.findById(1L)).thenReturn(Optional.of(city));
+        when(cityRepository.save(city)).thenReturn(city);
+
+        Optional<City> result = cityService.updateCity(1L, CityDto.builder().name("New").country("FR").build());
+        assertTrue(result.isPresent());
+        assertEquals("New", result.get().getName());
+        assertEquals("FR", result.get().getCountry());
+        verify(cityRegistry).register(city);
+    }
+
     @Test
     void testSaveCity() {
         City city = new City();
@@ -49,14 +96,77 @@ public class CityServiceTest {
 
         City result = cityService.saveCity(city);
         assertEquals(city, result);
+        verify(cityRegistry).register(city);
     }
 
     @Test
     void testDeleteCity() {
-        doNothing().when(cityRepository).deleteById(1L);
-
         cityService.deleteCity(1L);
-        verify(cityRepository, times(1)).deleteById(1L);
+
+        InOrder inOrder = inOrder(chunkedDeleteRepository, cityRepository);
+        inOrder.verify(chunkedDeleteRepository).deleteByCityId(eq("consumption_anomaly"), eq(1L), any());
+        inOrder.verify(chunkedDeleteRepository).deleteByCityId(eq("electricity"), eq(1L), any());
+        inOrder.verify(chunkedDeleteRepository).deleteByCityId(eq("water_supply"), eq(1L), any());
+        inOrder.verify(chunkedDeleteRepository).deleteByCityId(eq("waste"), eq(1L), any());
+        inOrder.verify(chunkedDeleteRepository).deleteByCityId(eq("city_data_summary"), eq(1L), any());
+        inOrder.verify(cityRepository).deleteCityById(1L);
+        verify(cityRepository, never()).deleteById(any());
+        verify(cityRegistry).remove(1L);
+        verify(eventPublisher, times(UtilityType.values().length)).publishEvent(any(UtilityDataChangedEvent.class));
+    }
+
+    @Test
+    void testStartCityDeletion_ReportsProgress() {
+        when(chunkedDeleteRepository.deleteByCityId(anyString(), eq(1L), any())).thenAnswer(invocation -> {
+            LongConsumer progress = invocation.getArgument(2);
+            progress.accept(1000);
+            progress.accept(5);
+            return 1005L;
+        });
+
+        CityDeletionJobDto started = cityService.startCityDeletion(1L);
+        assertEquals(CityDeletionStatus.RUNNING, started.getStatus());
+        assertEquals(0L, started.getDeletedRecords().get("electricity"));
+        verify(cityRepository, never()).deleteCityById(any());
+
+        submittedTasks.forEach(Runnable::run);
+
+        CityDeletionJobDto finished = cityService.getCityDeletion(started.getId()).orElseThrow();
+        assertEquals(CityDeletionStatus.COMPLETED, finished.getStatus());
+        assertEquals(Map.of("consumption_anomaly", 1005L, "electricity", 1005L, "water_supply", 1005L, "waste", 1005L),
+                finished.getDeletedRecords());
+        assertNotNull(finished.getFinishedAt());
+        verify(cityRepository).deleteCityById(1L);
+    }
+
+    @Test
+    void testStartCityDeletion_RecordsFailure() {
+        when(chunkedDeleteRepository.deleteByCityId(anyString(), eq(1L), any()))
+                .thenReturn(0L)
+                .thenThrow(new IllegalStateException("Lock wait timeout exceeded"));
+
+        CityDeletionJobDto started = cityService.startCityDeletion(1L);
+        submittedTasks.forEach(Runnable::run);
+
+        CityDeletionJobDto failed = cityService.getCityDeletion(started.getId()).orElseThrow();
+        assertEquals(CityDeletionStatus.FAILED, failed.getStatus());
+        assertEquals("Lock wait timeout exceeded", failed.getError());
+        verify(cityRepository, never()).deleteCityById(any());
+        verify(cityRegistry, never()).remove(any());
+    }
+
+    @Test
+    void testStartCityDeletion_ExecutorSaturated() {
+        ReflectionTestUtils.setField(cityService, "cityDeletionExecutor", (Executor) task -> {
+            throw new RejectedExecutionException();
+        });
+
+        assertThrows(ServiceUnavailableException.class, () -> cityService.startCityDeletion(1L));
+    }
+
+    @Test
+    void testGetCityDeletion_Unknown() {
+        assertTrue(cityService.getCityDeletion("unknown").isEmpty());
     }
 
     @Test
@@ -0,0 +1,141 @@
+package com.project.citymanagement.service;
+
+import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.model.city.CityDashboardDto;
+import com.project.citymanagement.model.city.CityDto;
+import com.project.citymanagement.model.city.DashboardSection;
+import com.project.citymanagement.model.electricity.ElectricitySummaryDto;
+import com.project.citymanagement.model.waste.WasteSummaryDto;
+import com.project.citymanagement.model.watersupply.WaterSupplySummaryDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 1, 31);
+
+    @Mock
+    private CityService cityService;
+
+    @Mock
+    private ElectricityService electricityService;
+
+    @Mock
+    private WaterSupplyService waterSupplyService;
+
+    @Mock
+    private WasteService wasteService;
+
+    @InjectMocks
+    private DashboardService dashboardService;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+        ReflectionTestUtils.setField(dashboardService, "dashboardExecutor", executor);
+        ReflectionTestUtils.setField(dashboardService, "sectionTimeoutMillis", 500L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testGetCityDashboard() {
+        CityDto city = CityDto.builder().id(1L).name("Name").country("GB").build();
+        ElectricitySummaryDto electricity = ElectricitySummaryDto.builder().recordCount(3).build();
+        WaterSupplySummaryDto waterSupply = WaterSupplySummaryDto.builder().recordCount(2).build();
+        WasteSummaryDto waste = WasteSummaryDto.builder().recordCount(1).build();
+        when(cityService.getCityById(1L)).thenReturn(Optional.of(city));
+        when(electricityService.getElectricitySummaryForPeriod(1L, START, END)).thenReturn(electricity);
+        when(waterSupplyService.getWaterSupplySummaryForPeriod(1L, START, END)).thenReturn(waterSupply);
+        when(wasteService.getWasteSummaryForPeriod(1L, START, END)).thenReturn(waste);
+
+        CityDashboardDto result = dashboardService.getCityDashboard(1L, START, END);
+
+        assertEquals(city, result.getCity());
+        assertEquals(DashboardSection.Status.OK, result.getElectricity().getStatus());
+        assertEquals(electricity, result.getElectricity().getData());
+        assertEquals(waterSupply, result.getWaterSupply().getData());
+        assertEquals(waste, result.getWaste().getData());
+    }
+
+    @Test
+    void testGetCityDashboard_SectionTimesOut() {
+        when(cityService.getCityById(1L)).thenReturn(Optional.of(CityDto.builder().id(1L).build()));
+        when(electricityService.getElectricitySummaryForPeriod(1L, START, END)).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return new ElectricitySummaryDto();
+        });
+        when(waterSupplyService.getWaterSupplySummaryForPeriod(1L, START, END)).thenReturn(new WaterSupplySummaryDto());
+        when(wasteService.getWasteSummaryForPeriod(1L, START, END)).thenReturn(new WasteSummaryDto());
+
+        long startedAt = System.currentTimeMillis();
+        CityDashboardDto result = dashboardService.getCityDashboard(1L, START, END);
+
+        assertTrue(System.currentTimeMillis() - startedAt < 5_000);
+        assertEquals(DashboardSection.Status.TIMEOUT, result.getElectricity().getStatus());
+        assertNull(result.getElectricity().getData());
+        assertEquals(DashboardSection.Status.OK, result.getWaterSupply().getStatus());
+        assertEquals(DashboardSection.Status.OK, result.getWaste().getStatus());
+    }
+
+    @Test
+    void testGetCityDashboard_SectionFails() {
+        when(cityService.getCityById(1L)).thenReturn(Optional.of(CityDto.builder().id(1L).build()));
+        when(electricityService.getElectricitySummaryForPeriod(1L, START, END)).thenReturn(new ElectricitySummaryDto());
+        when(waterSupplyService.getWaterSupplySummaryForPeriod(1L, START, END)).thenThrow(new IllegalStateException("Boom"));
+        when(wasteService.getWasteSummaryForPeriod(1L, START, END)).thenReturn(new WasteSummaryDto());
+
+        CityDashboardDto result = dashboardService.getCityDashboard(1L, START, END);
+
+        assertEquals(DashboardSection.Status.FAILED, result.getWaterSupply().getStatus());
+        assertEquals("Boom", result.getWaterSupply().getError());
+        assertEquals(DashboardSection.Status.OK, result.getElectricity().getStatus());
+    }
+
+    @Test
+    void testGetCityDashboard_ExecutorRejects() {
+        ReflectionTestUtils.setField(dashboardService, "dashboardExecutor",
+                (java.util.concurrent.Executor) command -> {
+                    throw new RejectedExecutionException("Queue full");
+                });
+        when(cityService.getCityById(1L)).thenReturn(Optional.of(CityDto.builder().id(1L).build()));
+
+        CityDashboardDto result = dashboardService.getCityDashboard(1L, START, END);
+
+        assertEquals(DashboardSection.Status.REJECTED, result.getElectricity().getStatus());
+        assertEquals(DashboardSection.Status.REJECTED, result.getWaterSupply().getStatus());
+        assertEquals(DashboardSection.Status.REJECTED, result.getWaste().getStatus());
+    }
+
+    @Test
+    void testGetCityDashboard_CityNotFound() {
+        when(cityService.getCityById(1L)).thenReturn(Optional.empty());
+        lenient().when(electricityService.getElectricitySummaryForPeriod(1L, START, END)).thenReturn(new ElectricitySummaryDto());
+        lenient().when(waterSupplyService.getWaterSupplySummaryForPeriod(1L, START, END)).thenReturn(new WaterSupplySummaryDto());
+        lenient().when(wasteService.getWasteSummaryForPeriod(1L, START, END)).thenReturn(new WasteSummaryDto());
+
+        assertThrows(ResourceNotFoundException.class, () -> dashboardService.getCityDashboard(1L, START, END));
+    }
+}
@@ -5,19 +5,44 @@ import static org.mockito.Mockito.*;
 
 import com.project.citymanagement.entity.City;
 import com.project.citymanagement.entity.Electricity;
+import com.project.citymanagement.event.ConsumptionRecordedEvent;
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.exception.ConflictException;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.exception.ServiceUnavailableException;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.bulk.BulkCreateResultDto;
+import com.project.citymanagement.model.bulk.BulkItemStatus;
 import com.project.citymanagement.model.electricity.ElectricityDataRequest;
-import com.project.citymanagement.repository.CityRepository;
+import com.project.citymanagement.model.electricity.ElectricityDto;
+import com.project.citymanagement.model.electricity.ElectricityPatchRequest;
+import com.project.citymanagement.model.electricity.ElectricitySummaryDto;
+import com.project.citymanagement.repository.ChunkedDeleteRepository;
+import com.project.citymanagement.repository.ElectricityJdbcRepository;
 import com.project.citymanagement.repository.ElectricityRepository;
+import com.project.citymanagement.repository.PartialUpdateRepository;
+import com.project.citymanagement.repository.RecordPlacement;
 import com.project.citymanagement.service.ElectricityService;
+import com.project.citymanagement.util.WriteBehindBuffer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,7 +52,19 @@ class ElectricityServiceTest {
     private ElectricityRepository electricityRepository;
 
     @Mock
-    private CityRepository cityRepository;
+    private ElectricityJdbcRepository electricityJdbcRepository;
+
+    @Mock
+    private ChunkedDeleteRepository chunkedDeleteRepository;
+
+    @Mock
+    private PartialUpdateRepository partialUpdateRepository;
+
+    @Mock
+    private CityRegistry cityRegistry;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private ElectricityService electricityService;
@@ -63,13 +100,41 @@ class ElectricityServiceTest {
 
     @Test
     void testGetElectricityDataForPeriod() {
-        List<Electricity> electricityList = List.of(new Electricity());
+        List<ElectricityDto> electricityList = new ArrayList<>(List.of(ElectricityDto.builder().id(1L).build()));
         LocalDate startDate = LocalDate.now().minusDays(1);
         LocalDate endDate = LocalDate.now();
-        when(electricityRepository.findByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(electricityList);
+        when(electricityRepository.findDtosByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(electricityList);
 
-        List<Electricity> result = electricityService.getElectricityDataForPeriod(1L, startDate, endDate);
+        List<ElectricityDto> result = electricityService.getElectricityDataForPeriod(1L, startDate, endDate);
         assertEquals(electricityList, result);
+        assertThrows(UnsupportedOperationException.class, () -> result.add(ElectricityDto.builder().build()));
+    }
+
+    @Test
+    void testGetOutageData() {
+        List<ElectricityDto> outages = List.of(ElectricityDto.builder().id(1L).outageDurationMinutes(30).build());
+        when(electricityRepository.findOutageDtos()).thenReturn(outages);
+
+        assertEquals(outages, electricityService.getOutageData());
+    }
+
+    @Test
+    void testStreamElectricityDataForPeriod() {
+        ReflectionTestUtils.setField(electricityService, "recordStreamScheduler", Schedulers.immediate());
+        ReflectionTestUtils.setField(electricityService, "streamPageSize", 2);
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+        LocalDate endDate = LocalDate.of(2024, 1, 31);
+        ElectricityDto first = ElectricityDto.builder().id(1L).build();
+        ElectricityDto second = ElectricityDto.builder().id(4L).build();
+        ElectricityDto third = ElectricityDto.builder().id(9L).build();
+        when(electricityRepository.findDtosByCityIdAndDateBetweenAfterId(1L, startDate, endDate, 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(first, second));
+        when(electricityRepository.findDtosByCityIdAndDateBetweenAfterId(1L, startDate, endDate, 4L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(third));
+
+        StepVerifier.create(electricityService.streamElectricityDataForPeriod(1L, startDate, endDate))
+                .expectNext(first, second, third)
+                .verifyComplete();
     }
 
     @Test
@@ -83,7 +148,7 @@ class ElectricityServiceTest {
         request.setOutageReason("Reason");
         request.setDate(LocalDate.now());
 
-        when(cityRepository.findById(1L)).thenReturn(Optional.of(city));
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
         Electricity electricity = new Electricity();
         when(electricityRepository.save(any(Electricity.class))).thenReturn(electricity);
 
@@ -104,19 +169,47 @@ class ElectricityServiceTest {
         request.setDate(LocalDate.now());
 
         when(electricityRepository.findById(1L)).thenReturn(Optional.of(electricity));
-        when(cityRepository.findById(1L)).thenReturn(Optional.of(city));
-        when(electricityRepository.save(any(Electricity.class))).thenReturn(electricity);
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        when(electricityRepository.saveAndFlush(any(Electricity.class))).thenReturn(electricity);
 
-        Electricity result = electricityService.updateElectricityData(1L, request);
+        Electricity result = electricityService.updateElectricityData(1L, request, null);
         assertEquals(electricity, result);
     }
 
+    @Test
+    void testUpdateElectricityData_VersionMismatch() {
+        Electricity electricity = new Electricity();
+        electricity.setVersion(4L);
+        ElectricityDataRequest request = ElectricityDataRequest.builder().cityId(1L).build();
+
+        when(electricityRepository.findById(1L)).thenReturn(Optional.of(electricity));
+
+        assertThrows(ConflictException.class, () -> electricityService.updateElectricityData(1L, request, 3L));
+        verify(electricityRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testUpdateElectricityData_ModifiedConcurrently() {
+        Electricity electricity = new Electricity();
+        electricity.setVersion(3L);
+        ElectricityDataRequest request = ElectricityDataRequest.builder().cityId(1L).build();
+
+        when(electricityRepository.findById(1L)).thenReturn(Optional.of(electricity));
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(new City()));
+        when(electricityRepository.saveAndFlush(electricity))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Electricity.class, 1L));
+
+        assertThrows(ConflictException.class, () -> electricityService.updateElectricityData(1L, request, 3L));
+        verifyNoInteractions(eventPublisher);
+    }
+
     @Test
     void testDeleteElectricityData() {
-        doNothing().when(electricityRepository).deleteById(1L);
+        when(electricityRepository.findPlacementById(1L)).thenReturn(Optional.of(placement(1L, LocalDate.now())));
 
         electricityService.deleteElectricityData(1L);
-        verify(electricityRepository, times(1)).deleteById(1L);
+        verify(electricityRepository, times(1)).deleteRecordById(1L);
+        verify(electricityRepository, never()).deleteById(any());
     }
 
     @Test
@@ -129,7 +222,7 @@ class ElectricityServiceTest {
         request.setOutageReason("Reason");
         request.setDate(LocalDate.now());
 
-        when(cityRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cityRegistry.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             electricityService.saveElectricityData(request);
@@ -149,7 +242,7 @@ class ElectricityServiceTest {
         when(electricityRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
-            electricityService.updateElectricityData(1L, request);
+            electricityService.updateElectricityData(1L, request, null);
         });
     }
 
@@ -165,19 +258,364 @@ class ElectricityServiceTest {
         request.setDate(LocalDate.now());
 
         when(electricityRepository.findById(1L)).thenReturn(Optional.of(electricity));
-        when(cityRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cityRegistry.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
-            electricityService.updateElectricityData(1L, request);
+            electricityService.updateElectricityData(1L, request, null);
         });
     }
 
+    @Test
+    void testPatchElectricityData_UpdatesOnlySuppliedFields() {
+        City city = new City();
+        city.setId(2L);
+        when(cityRegistry.findById(2L)).thenReturn(Optional.of(city));
+        LocalDate date = LocalDate.of(2025, 1, 15);
+        when(electricityRepository.findPlacementById(1L)).thenReturn(Optional.of(placement(1L, date)));
+        when(partialUpdateRepository.updateById(Electricity.class, 1L, null, Map.of("city", city, "outageReason", "Storm")))
+                .thenReturn(1);
+
+        ElectricityPatchRequest request = ElectricityPatchRequest.builder().cityId(2L).outageReason("Storm").build();
+        assertTrue(electricityService.patchElectricityData(1L, request, null));
+
+        // Only the city the record left and the one it moved to are reported changed
+        verify(electricityRepository, never()).findById(any());
+        ArgumentCaptor<UtilityDataChangedEvent> change = ArgumentCaptor.forClass(UtilityDataChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(change.capture());
+        assertEquals(List.of(1L, 2L), change.getAllValues().stream().map(UtilityDataChangedEvent::getCityId).toList());
+        assertEquals(List.of(-1L, 1L), change.getAllValues().stream().map(UtilityDataChangedEvent::getAddedRecords).toList());
+        assertEquals(date, change.getAllValues().get(1).getFirstDate());
+    }
+
+    @Test
+    void testPatchElectricityData_ValuesOnlyUpdatedWithoutRead() {
+        when(partialUpdateRepository.updateById(Electricity.class, 1L, null, Map.of("consumptionKwh", 5.0))).thenReturn(1);
+
+        assertTrue(electricityService.patchElectricityData(1L, ElectricityPatchRequest.builder().consumptionKwh(5.0).build(), null));
+
+        // The record keeps its city and date, so it is not read; the change is published for all cities
+        verify(electricityRepository, never()).findPlacementById(any());
+        ArgumentCaptor<UtilityDataChangedEvent> change = ArgumentCaptor.forClass(UtilityDataChangedEvent.class);
+        verify(eventPublisher).publishEvent(change.capture());
+        assertNull(change.getValue().getCityId());
+        assertEquals(0L, change.getValue().getAddedRecords());
+    }
+
+    @Test
+    void testPatchElectricityData_NotFound() {
+        when(partialUpdateRepository.updateById(Electricity.class, 1L, null, Map.of("consumptionKwh", 5.0))).thenReturn(0);
+
+        assertFalse(electricityService.patchElectricityData(1L, ElectricityPatchRequest.builder().consumptionKwh(5.0).build(), null));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testPatchElectricityData_VersionMismatch() {
+        when(partialUpdateRepository.updateById(Electricity.class, 1L, 3L, Map.of("consumptionKwh", 5.0))).thenReturn(0);
+        when(electricityRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ConflictException.class, () -> electricityService.patchElectricityData(
+                1L, ElectricityPatchRequest.builder().consumptionKwh(5.0).build(), 3L));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testPatchElectricityData_CityNotFound() {
+        when(cityRegistry.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> electricityService.patchElectricityData(1L, ElectricityPatchRequest.builder().cityId(2L).build(), null));
+        verifyNoInteractions(partialUpdateRepository);
+    }
+
+    @Test
+    void testPatchElectricityData_NothingSupplied() {
+        when(electricityRepository.existsById(1L)).thenReturn(true);
+
+        assertTrue(electricityService.patchElectricityData(1L, new ElectricityPatchRequest(), null));
+        verifyNoInteractions(partialUpdateRepository, eventPublisher);
+    }
+
     @Test
     void testDeleteElectricityData_NotFound() {
-        doThrow(new ResourceNotFoundException("Electricity record not found with id: 1")).when(electricityRepository).deleteById(1L);
+        when(electricityRepository.findPlacementById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             electricityService.deleteElectricityData(1L);
         });
+        verify(electricityRepository, never()).deleteRecordById(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testGetElectricitySummaryForPeriod() {
+        LocalDate startDate = LocalDate.now().minusDays(7);
+        LocalDate endDate = LocalDate.now();
+        List<Object[]> totals = List.<Object[]>of(new Object[]{3L, 300.0, 1L, 45L});
+        List<Object[]> areas = List.of(new Object[]{"Urban", 200.0}, new Object[]{"Rural", 100.0});
+        when(electricityRepository.summarizeByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(totals);
+        when(electricityRepository.findAreaTrendsByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(areas);
+
+        ElectricitySummaryDto result = electricityService.getElectricitySummaryForPeriod(1L, startDate, endDate);
+        assertEquals(3L, result.getRecordCount());
+        assertEquals(300.0, result.getTotalConsumptionKwh());
+        assertEquals(1L, result.getOutageCount());
+        assertEquals(45L, result.getTotalOutageMinutes());
+        assertEquals(Map.of("Urban", 200.0, "Rural", 100.0), result.getConsumptionKwhByArea());
+    }
+
+    @Test
+    void testGetElectricitySummaryForPeriod_NoRecords() {
+        LocalDate startDate = LocalDate.now().minusDays(7);
+        LocalDate endDate = LocalDate.now();
+        List<Object[]> totals = List.<Object[]>of(new Object[]{0L, null, null, null});
+        when(electricityRepository.summarizeByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(totals);
+        when(electricityRepository.findAreaTrendsByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(List.of());
+
+        ElectricitySummaryDto result = electricityService.getElectricitySummaryForPeriod(1L, startDate, endDate);
+        assertEquals(0L, result.getRecordCount());
+        assertEquals(0.0, result.getTotalConsumptionKwh());
+        assertTrue(result.getConsumptionKwhByArea().isEmpty());
+    }
+
+    @Test
+    void testSaveElectricityData_PublishesConsumption() {
+        City city = new City();
+        city.setId(1L);
+        ElectricityDataRequest request = new ElectricityDataRequest();
+        request.setCityId(1L);
+        request.setArea("Area");
+        request.setConsumptionKwh(100.0);
+        request.setOutageDurationMinutes(60);
+        request.setOutageReason("Reason");
+        request.setDate(LocalDate.of(2025, 1, 6));
+
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        when(electricityRepository.save(any(Electricity.class))).thenReturn(new Electricity());
+
+        electricityService.saveElectricityData(request);
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        ConsumptionRecordedEvent event = (ConsumptionRecordedEvent) events.getAllValues().get(0);
+        assertEquals(UtilityType.ELECTRICITY, event.getType());
+        assertEquals(1L, event.getCityId());
+        assertEquals("Area", event.getArea());
+        assertEquals(LocalDate.of(2025, 1, 6), event.getDate());
+        assertEquals(100.0, event.getConsumption());
+        UtilityDataChangedEvent change = (UtilityDataChangedEvent) events.getAllValues().get(1);
+        assertEquals(UtilityType.ELECTRICITY, change.getType());
+        assertEquals(1L, change.getCityId());
+    }
+
+    @Test
+    void testSaveElectricityDataBatch() {
+        City city = new City();
+        city.setId(1L);
+        ElectricityDataRequest valid = new ElectricityDataRequest(1L, 10.0, "Area", 0, "", LocalDate.of(2025, 1, 6));
+        ElectricityDataRequest missingArea = new ElectricityDataRequest(1L, 10.0, null, 0, "", LocalDate.of(2025, 1, 6));
+        ElectricityDataRequest unknownCity = new ElectricityDataRequest(2L, 10.0, "Area", 0, "", LocalDate.of(2025, 1, 6));
+        ElectricityDataRequest sameCity = new ElectricityDataRequest(1L, 20.0, "Area", 0, "", LocalDate.of(2025, 1, 7));
+
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        when(cityRegistry.findById(2L)).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            List<Electricity> records = invocation.getArgument(0);
+            for (int i = 0; i < records.size(); i++) {
+                records.get(i).setId(100L + i);
+            }
+            return null;
+        }).when(electricityJdbcRepository).insertAll(anyList());
+
+        BulkCreateResultDto result = electricityService.saveElectricityDataBatch(
+                java.util.Arrays.asList(valid, missingArea, unknownCity, null, sameCity));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(2, result.getCreated());
+        assertEquals(3, result.getRejected());
+        assertEquals(BulkItemStatus.CREATED, result.getItems().get(0).getStatus());
+        assertEquals(100L, result.getItems().get(0).getId());
+        assertEquals("area is required", result.getItems().get(1).getError());
+        assertEquals("City not found with ID: 2", result.getItems().get(2).getError());
+        assertEquals("Reading is required", result.getItems().get(3).getError());
+        assertEquals(4, result.getItems().get(4).getIndex());
+        assertEquals(101L, result.getItems().get(4).getId());
+
+        // One registry lookup per city, and one change event per city for the whole batch
+        verify(cityRegistry, times(1)).findById(1L);
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        assertEquals(2, events.getAllValues().stream().filter(ConsumptionRecordedEvent.class::isInstance).count());
+        UtilityDataChangedEvent change = (UtilityDataChangedEvent) events.getAllValues().get(2);
+        assertEquals(1L, change.getCityId());
+        assertEquals(2L, change.getAddedRecords());
+    }
+
+    @Test
+    void testSaveElectricityDataBatch_NothingValid() {
+        BulkCreateResultDto result = electricityService.saveElectricityDataBatch(
+                List.of(new ElectricityDataRequest()));
+
+        assertEquals(0, result.getCreated());
+        assertEquals("cityId is required", result.getItems().get(0).getError());
+        verify(electricityJdbcRepository).insertAll(List.of());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testSaveElectricityData_WriteBehind() {
+        City city = new City();
+        city.setId(1L);
+        ElectricityDataRequest request = new ElectricityDataRequest(1L, 10.0, "Area", 0, "", LocalDate.of(2025, 1, 6));
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        WriteBehindBuffer<Electricity> buffer = new WriteBehindBuffer<>("electricity", 16, 10, 60_000, 1, 0,
+                electricityJdbcRepository::insertAll,
+                records -> ReflectionTestUtils.invokeMethod(electricityService, "publishWritten", records));
+        ReflectionTestUtils.setField(electricityService, "writeBehind", buffer);
+        buffer.start();
+
+        Electricity buffered = electricityService.saveElectricityData(request);
+
+        assertNull(buffered.getId());
+        assertEquals(1, buffer.size());
+        verify(electricityRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+
+        buffer.close(1000);
+
+        verify(electricityJdbcRepository).insertAll(List.of(buffered));
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertInstanceOf(ConsumptionRecordedEvent.class, events.getAllValues().get(0));
+        assertEquals(1L, ((UtilityDataChangedEvent) events.getAllValues().get(1)).getCityId());
+    }
+
+    @Test
+    void testSaveElectricityData_WriteBehindListenerFails() {
+        City city = new City();
+        city.setId(1L);
+        ElectricityDataRequest request = new ElectricityDataRequest(1L, 10.0, "Area", 0, "", LocalDate.of(2025, 1, 6));
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        doThrow(new IllegalStateException("Listener failed"))
+                .when(eventPublisher).publishEvent(any(ConsumptionRecordedEvent.class));
+        WriteBehindBuffer<Electricity> buffer = new WriteBehindBuffer<>("electricity", 16, 10, 1, 3, 0,
+                electricityJdbcRepository::insertAll,
+                records -> ReflectionTestUtils.invokeMethod(electricityService, "publishWritten", records));
+        ReflectionTestUtils.setField(electricityService, "writeBehind", buffer);
+        buffer.start();
+
+        Electricity buffered = electricityService.saveElectricityData(request);
+        buffer.close(1000);
+
+        // Inserted once although the listener failed, and the city is still reported changed
+        verify(electricityJdbcRepository, times(1)).insertAll(List.of(buffered));
+        verify(eventPublisher).publishEvent(any(UtilityDataChangedEvent.class));
+        assertEquals(1, buffer.getWrittenCount());
+        assertEquals(0, buffer.getFailedCount());
+    }
+
+    @Test
+    void testSaveElectricityData_WriteBehindFull() {
+        City city = new City();
+        city.setId(1L);
+        ElectricityDataRequest request = new ElectricityDataRequest(1L, 10.0, "Area", 0, "", LocalDate.of(2025, 1, 6));
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        // Never started, so nothing drains the two slots
+        WriteBehindBuffer<Electricity> buffer = new WriteBehindBuffer<>("electricity", 2, 10, 60_000, 1, 0, records -> { });
+        ReflectionTestUtils.setField(buffer, "running", true);
+        ReflectionTestUtils.setField(electricityService, "writeBehind", buffer);
+
+        electricityService.saveElectricityData(request);
+        electricityService.saveElectricityData(request);
+
+        assertThrows(ServiceUnavailableException.class, () -> electricityService.saveElectricityData(request));
+        verify(electricityRepository, never()).save(any());
+    }
+
+    @Test
+    void testDeleteElectricityDataForPeriod_PublishesChange() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+        when(chunkedDeleteRepository.deleteByCityIdAndDateBetween("electricity", 1L, start, end, "Urban")).thenReturn(1500L);
+
+        assertEquals(1500L, electricityService.deleteElectricityDataForPeriod(1L, start, end, "Urban"));
+
+        ArgumentCaptor<UtilityDataChangedEvent> change = ArgumentCaptor.forClass(UtilityDataChangedEvent.class);
+        verify(eventPublisher).publishEvent(change.capture());
+        assertEquals(1L, change.getValue().getCityId());
+        assertEquals(-1500L, change.getValue().getAddedRecords());
+        assertEquals(start, change.getValue().getFirstDate());
+        assertEquals(end, change.getValue().getLastDate());
+    }
+
+    @Test
+    void testDeleteElectricityDataForPeriod_NothingDeleted() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+        when(chunkedDeleteRepository.deleteByCityIdAndDateBetween("electricity", 1L, start, end, null)).thenReturn(0L);
+
+        assertEquals(0L, electricityService.deleteElectricityDataForPeriod(1L, start, end, null));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testDeleteElectricityData_PublishesChange() {
+        LocalDate date = LocalDate.of(2025, 1, 15);
+        when(electricityRepository.findPlacementById(1L)).thenReturn(Optional.of(placement(3L, date)));
+
+        electricityService.deleteElectricityData(1L);
+
+        ArgumentCaptor<UtilityDataChangedEvent> change = ArgumentCaptor.forClass(UtilityDataChangedEvent.class);
+        verify(eventPublisher).publishEvent(change.capture());
+        assertEquals(UtilityType.ELECTRICITY, change.getValue().getType());
+        assertEquals(3L, change.getValue().getCityId());
+        assertEquals(-1L, change.getValue().getAddedRecords());
+        assertEquals(date, change.getValue().getFirstDate());
+    }
+
+    @Test
+    void testImportDataFromCsvForCity_InsertsRowsTogether() {
+        City city = new City();
+        city.setId(1L);
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        MockMultipartFile file = new MockMultipartFile("file", ("area,consumptionKwh,outageDurationMinutes,outageReason,date\n"
+                + "North,120.5,0,none,2024-01-01\n"
+                + "South,80.0,15,storm,2024-01-02\n").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, electricityService.importDataFromCsvForCity(1L, file));
+
+        ArgumentCaptor<List<Electricity>> records = ArgumentCaptor.forClass(List.class);
+        verify(electricityJdbcRepository).insertAll(records.capture());
+        assertEquals(List.of("North", "South"), records.getValue().stream().map(Electricity::getArea).toList());
+        verify(electricityRepository, never()).save(any());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        assertEquals(2, events.getAllValues().stream().filter(ConsumptionRecordedEvent.class::isInstance).count());
+        UtilityDataChangedEvent change = (UtilityDataChangedEvent) events.getAllValues().get(2);
+        assertEquals(1L, change.getCityId());
+    }
+
+    @Test
+    void testImportDataFromCsvForCity_InvalidRowImportsNothing() {
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(new City()));
+        MockMultipartFile file = new MockMultipartFile("file", ("North,120.5,0,none,2024-01-01\n"
+                + "South,lots,15,storm,2024-01-02\n").getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> electricityService.importDataFromCsvForCity(1L, file));
+        verifyNoInteractions(electricityJdbcRepository, eventPublisher);
+    }
+
+    private static RecordPlacement placement(Long cityId, LocalDate date) {
+        return new RecordPlacement() {
+            @Override
+            public Long getCityId() {
+                return cityId;
+            }
+
+            @Override
+            public LocalDate getDate() {
+                return date;
+            }
+        };
     }
 }
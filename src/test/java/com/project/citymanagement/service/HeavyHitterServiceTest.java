@@ -0,0 +1,105 @@
+package com.project.citymanagement.service;
+
+import com.project.citymanagement.event.ConsumptionRecordedEvent;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.analytics.TopAreaDto;
+import com.project.citymanagement.model.analytics.TopAreasDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHitterServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 1, 6);
+
+    private HeavyHitterService heavyHitterService;
+
+    @BeforeEach
+    void setUp() {
+        heavyHitterService = new HeavyHitterService();
+        ReflectionTestUtils.setField(heavyHitterService, "capacity", 16);
+        ReflectionTestUtils.setField(heavyHitterService, "retainedWeeks", 2);
+        ReflectionTestUtils.setField(heavyHitterService, "clock",
+                Clock.fixed(MONDAY.plusWeeks(2).atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private void record(UtilityType type, Long cityId, String area, LocalDate date, double consumption) {
+        heavyHitterService.onConsumptionRecorded(new ConsumptionRecordedEvent(type, cityId, area, date, consumption));
+    }
+
+    @Test
+    void testGetTopAreas_PerCityAndAcrossCities() {
+        record(UtilityType.ELECTRICITY, 1L, "Urban", MONDAY, 100.0);
+        record(UtilityType.ELECTRICITY, 1L, "Rural", MONDAY.plusDays(2), 50.0);
+        record(UtilityType.ELECTRICITY, 2L, "Rural", MONDAY.plusDays(6), 80.0);
+        record(UtilityType.WATER_SUPPLY, 1L, "Coastal", MONDAY, 1_000.0);
+
+        TopAreasDto city = heavyHitterService.getTopAreas(UtilityType.ELECTRICITY, 1L, MONDAY.plusDays(3), 1);
+        assertEquals(MONDAY, city.getWeekStart());
+        assertEquals(MONDAY.plusDays(6), city.getWeekEnd());
+        assertEquals(150.0, city.getTotalConsumption());
+        assertEquals(1, city.getAreas().size());
+        TopAreaDto urban = city.getAreas().get(0);
+        assertEquals("Urban", urban.getArea());
+        assertEquals(100.0, urban.getEstimatedConsumption());
+        assertEquals(0.0, urban.getMaxError());
+        assertTrue(urban.isGuaranteedInTopK());
+        assertEquals(50.0, city.getUnlistedAreaMaxConsumption());
+
+        assertNull(urban.getCityId());
+
+        // Same-named areas of different cities are counted apart
+        List<TopAreaDto> allCities = heavyHitterService.getTopAreas(UtilityType.ELECTRICITY, null, MONDAY, 10).getAreas();
+        assertEquals(3, allCities.size());
+        assertEquals(1L, allCities.get(0).getCityId());
+        assertEquals("Urban", allCities.get(0).getArea());
+        assertEquals(2L, allCities.get(1).getCityId());
+        assertEquals("Rural", allCities.get(1).getArea());
+        assertEquals(80.0, allCities.get(1).getEstimatedConsumption());
+        assertEquals(1L, allCities.get(2).getCityId());
+        assertEquals("Rural", allCities.get(2).getArea());
+        assertEquals(50.0, allCities.get(2).getEstimatedConsumption());
+    }
+
+    @Test
+    void testGetTopAreas_UnknownWeekIsEmpty() {
+        TopAreasDto result = heavyHitterService.getTopAreas(UtilityType.WATER_SUPPLY, 1L, MONDAY, 5);
+        assertTrue(result.getAreas().isEmpty());
+    }
+
+    @Test
+    void testOldWeeksAreNotRetained() {
+        record(UtilityType.ELECTRICITY, 1L, "Urban", MONDAY, 100.0);
+        record(UtilityType.ELECTRICITY, 1L, "Urban", MONDAY.plusWeeks(2), 100.0);
+        record(UtilityType.ELECTRICITY, 1L, "Urban", MONDAY, 100.0);
+
+        assertTrue(heavyHitterService.getTopAreas(UtilityType.ELECTRICITY, 1L, MONDAY, 5).getAreas().isEmpty());
+        assertEquals(1, heavyHitterService.getTopAreas(UtilityType.ELECTRICITY, 1L, MONDAY.plusWeeks(2), 5).getAreas().size());
+    }
+
+    @Test
+    void testFutureDatedReadingsDoNotEvictCurrentWeeks() {
+        record(UtilityType.ELECTRICITY, 1L, "Urban", MONDAY.plusWeeks(2), 100.0);
+        record(UtilityType.ELECTRICITY, 1L, "Urban", MONDAY.plusWeeks(10), 100.0);
+        record(UtilityType.ELECTRICITY, 1L, "Urban", MONDAY.plusWeeks(2), 50.0);
+
+        assertEquals(150.0, heavyHitterService.getTopAreas(UtilityType.ELECTRICITY, 1L, MONDAY.plusWeeks(2), 5)
+                .getTotalConsumption());
+        assertTrue(heavyHitterService.getTopAreas(UtilityType.ELECTRICITY, 1L, MONDAY.plusWeeks(10), 5).getAreas().isEmpty());
+    }
+
+    @Test
+    void testGetTopAreas_InvalidK() {
+        assertThrows(IllegalArgumentException.class,
+                () -> heavyHitterService.getTopAreas(UtilityType.ELECTRICITY, null, MONDAY, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> heavyHitterService.getTopAreas(UtilityType.ELECTRICITY, null, MONDAY, 17));
+    }
+}
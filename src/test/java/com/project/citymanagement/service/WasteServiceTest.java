@@ -1,21 +1,39 @@
 package com.project.citymanagement.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import com.project.citymanagement.entity.City;
 import com.project.citymanagement.entity.Waste;
+import com.project.citymanagement.event.UtilityDataChangedEvent;
+import com.project.citymanagement.exception.ConflictException;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.waste.WasteDataRequest;
+import com.project.citymanagement.model.waste.WasteDto;
+import com.project.citymanagement.model.waste.WastePatchRequest;
+import com.project.citymanagement.model.waste.WasteSummaryDto;
+import com.project.citymanagement.repository.ChunkedDeleteRepository;
+import com.project.citymanagement.repository.PartialUpdateRepository;
+import com.project.citymanagement.repository.RecordPlacement;
 import com.project.citymanagement.repository.WasteRepository;
 import com.project.citymanagement.service.WasteService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,15 +42,82 @@ class WasteServiceTest {
     @Mock
     private WasteRepository wasteRepository;
 
+    @Mock
+    private ChunkedDeleteRepository chunkedDeleteRepository;
+
+    @Mock
+    private PartialUpdateRepository partialUpdateRepository;
+
+    @Mock
+    private CityRegistry cityRegistry;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private WasteService wasteService;
 
+    @Test
+    void testDeleteWasteDataForPeriod() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+        when(chunkedDeleteRepository.deleteByCityIdAndDateBetween("waste", 1L, start, end, null)).thenReturn(42L);
+
+        assertEquals(42L, wasteService.deleteWasteDataForPeriod(1L, start, end, null));
+        UtilityDataChangedEvent event = publishedChange();
+        assertEquals(UtilityType.WASTE, event.getType());
+        assertEquals(1L, event.getCityId());
+        assertEquals(-42L, event.getAddedRecords());
+        assertEquals(start, event.getFirstDate());
+        assertEquals(end, event.getLastDate());
+    }
+
+    @Test
+    void testDeleteWasteDataForPeriod_NothingDeleted() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+        when(chunkedDeleteRepository.deleteByCityIdAndDateBetween("waste", 1L, start, end, null)).thenReturn(0L);
+
+        assertEquals(0L, wasteService.deleteWasteDataForPeriod(1L, start, end, null));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testPatchWasteData() {
+        when(partialUpdateRepository.updateById(Waste.class, 1L, null, Map.of("quantityKg", 12.5))).thenReturn(1);
+
+        assertTrue(wasteService.patchWasteData(1L, WastePatchRequest.builder().quantityKg(12.5).build(), null));
+        verify(wasteRepository, never()).findPlacementById(any());
+        UtilityDataChangedEvent event = publishedChange();
+        assertNull(event.getCityId());
+        assertEquals(0L, event.getAddedRecords());
+    }
+
+    @Test
+    void testPatchWasteData_MovesRecordToDate() {
+        LocalDate before = LocalDate.of(2025, 1, 15);
+        LocalDate after = LocalDate.of(2025, 2, 1);
+        when(wasteRepository.findPlacementById(1L)).thenReturn(Optional.of(placement(3L, before)));
+        when(partialUpdateRepository.updateById(Waste.class, 1L, 4L, Map.of("date", after))).thenReturn(1);
+
+        assertTrue(wasteService.patchWasteData(1L, WastePatchRequest.builder().date(after).build(), 4L));
+
+        ArgumentCaptor<UtilityDataChangedEvent> events = ArgumentCaptor.forClass(UtilityDataChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        UtilityDataChangedEvent removed = events.getAllValues().get(0);
+        UtilityDataChangedEvent added = events.getAllValues().get(1);
+        assertEquals(List.of(3L, -1L), List.of(removed.getCityId(), removed.getAddedRecords()));
+        assertEquals(before, removed.getFirstDate());
+        assertEquals(List.of(3L, 1L), List.of(added.getCityId(), added.getAddedRecords()));
+        assertEquals(after, added.getFirstDate());
+    }
+
     @Test
     void testGetAllWasteRecords() {
-        List<Waste> wasteList = List.of(new Waste());
-        when(wasteRepository.findAll()).thenReturn(wasteList);
+        List<WasteDto> wasteList = List.of(new WasteDto());
+        when(wasteRepository.findAllDtos()).thenReturn(wasteList);
 
-        List<Waste> result = wasteService.getAllWasteRecords();
+        List<WasteDto> result = wasteService.getAllWasteRecords();
         assertEquals(wasteList, result);
     }
 
@@ -48,38 +133,97 @@ class WasteServiceTest {
 
     @Test
     void testGetAllWasteDataForCity() {
-        List<Waste> wasteList = List.of(new Waste());
-        when(wasteRepository.findByCityId(1L)).thenReturn(wasteList);
+        List<WasteDto> wasteList = List.of(new WasteDto());
+        when(wasteRepository.findDtosByCityId(1L)).thenReturn(wasteList);
 
-        List<Waste> result = wasteService.getAllWasteDataForCity(1L);
+        List<WasteDto> result = wasteService.getAllWasteDataForCity(1L);
         assertEquals(wasteList, result);
     }
 
     @Test
     void testGetWasteDataForPeriod() {
-        List<Waste> wasteList = List.of(new Waste());
+        List<WasteDto> wasteList = List.of(new WasteDto());
         LocalDate startDate = LocalDate.now().minusDays(1);
         LocalDate endDate = LocalDate.now();
-        when(wasteRepository.findByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(wasteList);
+        when(wasteRepository.findDtosByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(wasteList);
 
-        List<Waste> result = wasteService.getWasteDataForPeriod(1L, startDate, endDate);
+        List<WasteDto> result = wasteService.getWasteDataForPeriod(1L, startDate, endDate);
         assertEquals(wasteList, result);
     }
 
     @Test
     void testSaveWasteData() {
+        City city = new City();
+        city.setId(1L);
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        when(wasteRepository.save(any(Waste.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Waste result = wasteService.saveWasteData(WasteDataRequest.builder()
+                .cityId(1L).area("Urban").wasteType("Organic").quantityKg(12.5).date(LocalDate.now()).build());
+        assertEquals(city, result.getCity());
+        assertEquals("Organic", result.getWasteType());
+        assertEquals(12.5, result.getQuantityKg());
+        UtilityDataChangedEvent event = publishedChange();
+        assertEquals(UtilityType.WASTE, event.getType());
+        assertEquals(1L, event.getCityId());
+        assertEquals(1L, event.getAddedRecords());
+        assertEquals(result.getDate(), event.getFirstDate());
+    }
+
+    @Test
+    void testUpdateWasteData_StaleVersion() {
         Waste waste = new Waste();
-        when(wasteRepository.save(waste)).thenReturn(waste);
+        waste.setVersion(2L);
+        when(wasteRepository.findById(1L)).thenReturn(Optional.of(waste));
 
-        Waste result = wasteService.saveWasteData(waste);
-        assertEquals(waste, result);
+        WasteDataRequest request = WasteDataRequest.builder().cityId(1L).area("Urban").quantityKg(1.0).build();
+        assertThrows(ConflictException.class, () -> wasteService.updateWasteData(1L, request, 1L));
     }
 
     @Test
     void testDeleteWasteData() {
-        doNothing().when(wasteRepository).deleteById(1L);
+        LocalDate date = LocalDate.of(2025, 1, 15);
+        when(wasteRepository.findPlacementById(1L)).thenReturn(Optional.of(placement(3L, date)));
 
         wasteService.deleteWasteData(1L);
-        verify(wasteRepository, times(1)).deleteById(1L);
+        verify(wasteRepository, times(1)).deleteRecordById(1L);
+        UtilityDataChangedEvent event = publishedChange();
+        assertEquals(3L, event.getCityId());
+        assertEquals(-1L, event.getAddedRecords());
+        assertEquals(date, event.getFirstDate());
+        assertEquals(date, event.getLastDate());
+    }
+
+    @Test
+    void testGetWasteSummaryForPeriod() {
+        LocalDate startDate = LocalDate.now().minusDays(7);
+        LocalDate endDate = LocalDate.now();
+        List<Object[]> rows = List.of(new Object[]{"Organic", 2L, 30.0}, new Object[]{null, 1L, 5.0});
+        when(wasteRepository.summarizeByWasteTypeForCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(rows);
+
+        WasteSummaryDto result = wasteService.getWasteSummaryForPeriod(1L, startDate, endDate);
+        assertEquals(3L, result.getRecordCount());
+        assertEquals(35.0, result.getTotalQuantityKg());
+        assertEquals(Map.of("Organic", 30.0, "Unspecified", 5.0), result.getQuantityKgByWasteType());
+    }
+
+    private UtilityDataChangedEvent publishedChange() {
+        ArgumentCaptor<UtilityDataChangedEvent> event = ArgumentCaptor.forClass(UtilityDataChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        return event.getValue();
+    }
+
+    private static RecordPlacement placement(Long cityId, LocalDate date) {
+        return new RecordPlacement() {
+            @Override
+            public Long getCityId() {
+                return cityId;
+            }
+
+            @Override
+            public LocalDate getDate() {
+                return date;
+            }
+        };
     }
 }
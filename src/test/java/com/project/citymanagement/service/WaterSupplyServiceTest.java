@@ -2,26 +2,42 @@ package com.project.citymanagement.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import com.project.citymanagement.entity.City;
 import com.project.citymanagement.entity.WaterSupply;
+import com.project.citymanagement.event.ConsumptionRecordedEvent;
+import com.project.citymanagement.event.UtilityDataChangedEvent;
 import com.project.citymanagement.exception.ResourceNotFoundException;
+import com.project.citymanagement.model.UtilityType;
+import com.project.citymanagement.model.bulk.BulkCreateResultDto;
+import com.project.citymanagement.model.bulk.BulkItemStatus;
 import com.project.citymanagement.model.watersupply.WaterSupplyDataRequest;
-import com.project.citymanagement.repository.CityRepository;
+import com.project.citymanagement.model.watersupply.WaterSupplyDto;
+import com.project.citymanagement.model.watersupply.WaterSupplySummaryDto;
+import com.project.citymanagement.repository.RecordPlacement;
+import com.project.citymanagement.repository.WaterSupplyJdbcRepository;
 import com.project.citymanagement.repository.WaterSupplyRepository;
 import com.project.citymanagement.service.WaterSupplyService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -33,7 +49,13 @@ class WaterSupplyServiceTest {
     private WaterSupplyRepository waterSupplyRepository;
 
     @Mock
-    private CityRepository cityRepository;
+    private WaterSupplyJdbcRepository waterSupplyJdbcRepository;
+
+    @Mock
+    private CityRegistry cityRegistry;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private WaterSupplyService waterSupplyService;
@@ -68,15 +90,33 @@ class WaterSupplyServiceTest {
 
     @Test
     void testGetWaterSupplyDataForPeriod() {
-        List<WaterSupply> waterSupplyList = List.of(new WaterSupply());
+        List<WaterSupplyDto> waterSupplyList = List.of(WaterSupplyDto.builder().id(1L).build());
         LocalDate startDate = LocalDate.now().minusDays(1);
         LocalDate endDate = LocalDate.now();
-        when(waterSupplyRepository.findByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(waterSupplyList);
+        when(waterSupplyRepository.findDtosByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(waterSupplyList);
 
-        List<WaterSupply> result = waterSupplyService.getWaterSupplyDataForPeriod(1L, startDate, endDate);
+        List<WaterSupplyDto> result = waterSupplyService.getWaterSupplyDataForPeriod(1L, startDate, endDate);
         assertEquals(waterSupplyList, result);
     }
 
+    @Test
+    void testStreamWaterSupplyDataForPeriod() {
+        ReflectionTestUtils.setField(waterSupplyService, "recordStreamScheduler", Schedulers.immediate());
+        ReflectionTestUtils.setField(waterSupplyService, "streamPageSize", 2);
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+        LocalDate endDate = LocalDate.of(2024, 1, 31);
+        WaterSupplyDto first = WaterSupplyDto.builder().id(2L).build();
+        WaterSupplyDto second = WaterSupplyDto.builder().id(3L).build();
+        when(waterSupplyRepository.findDtosByCityIdAndDateBetweenAfterId(1L, startDate, endDate, 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(first, second));
+        when(waterSupplyRepository.findDtosByCityIdAndDateBetweenAfterId(1L, startDate, endDate, 3L, PageRequest.of(0, 2)))
+                .thenReturn(List.of());
+
+        StepVerifier.create(waterSupplyService.streamWaterSupplyDataForPeriod(1L, startDate, endDate))
+                .expectNext(first, second)
+                .verifyComplete();
+    }
+
     @Test
     void testSaveWaterSupplyData() {
         City city = new City();
@@ -89,7 +129,7 @@ class WaterSupplyServiceTest {
         request.setRainfallMm(10.0);
         request.setDate(LocalDate.now());
 
-        when(cityRepository.findById(1L)).thenReturn(Optional.of(city));
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
         WaterSupply waterSupply = new WaterSupply();
         when(waterSupplyRepository.save(any(WaterSupply.class))).thenReturn(waterSupply);
 
@@ -111,19 +151,20 @@ class WaterSupplyServiceTest {
         request.setDate(LocalDate.now());
 
         when(waterSupplyRepository.findById(1L)).thenReturn(Optional.of(waterSupply));
-        when(cityRepository.findById(1L)).thenReturn(Optional.of(city));
-        when(waterSupplyRepository.save(any(WaterSupply.class))).thenReturn(waterSupply);
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        when(waterSupplyRepository.saveAndFlush(any(WaterSupply.class))).thenReturn(waterSupply);
 
-        WaterSupply result = waterSupplyService.updateWaterSupplyData(1L, request);
+        WaterSupply result = waterSupplyService.updateWaterSupplyData(1L, request, null);
         assertEquals(waterSupply, result);
     }
 
     @Test
     void testDeleteWaterSupplyData() {
-        doNothing().when(waterSupplyRepository).deleteById(1L);
+        when(waterSupplyRepository.findPlacementById(1L)).thenReturn(Optional.of(placement(1L, LocalDate.now())));
 
         waterSupplyService.deleteWaterSupplyData(1L);
-        verify(waterSupplyRepository, times(1)).deleteById(1L);
+        verify(waterSupplyRepository, times(1)).deleteRecordById(1L);
+        verify(waterSupplyRepository, never()).deleteById(any());
     }
 
     @Test
@@ -145,7 +186,7 @@ class WaterSupplyServiceTest {
         request.setRainfallMm(10.0);
         request.setDate(LocalDate.now());
 
-        when(cityRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cityRegistry.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             waterSupplyService.saveWaterSupplyData(request);
@@ -166,7 +207,7 @@ class WaterSupplyServiceTest {
         when(waterSupplyRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
-            waterSupplyService.updateWaterSupplyData(1L, request);
+            waterSupplyService.updateWaterSupplyData(1L, request, null);
         });
     }
 
@@ -183,19 +224,121 @@ class WaterSupplyServiceTest {
         request.setDate(LocalDate.now());
 
         when(waterSupplyRepository.findById(1L)).thenReturn(Optional.of(waterSupply));
-        when(cityRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cityRegistry.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
-            waterSupplyService.updateWaterSupplyData(1L, request);
+            waterSupplyService.updateWaterSupplyData(1L, request, null);
         });
     }
 
     @Test
     void testDeleteWaterSupplyData_NotFound() {
-        doThrow(new ResourceNotFoundException("Water Supply record not found with id: 1")).when(waterSupplyRepository).deleteById(1L);
+        when(waterSupplyRepository.findPlacementById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             waterSupplyService.deleteWaterSupplyData(1L);
         });
+        verify(waterSupplyRepository, never()).deleteRecordById(any());
+    }
+
+    @Test
+    void testGetWaterSupplySummaryForPeriod() {
+        LocalDate startDate = LocalDate.now().minusDays(7);
+        LocalDate endDate = LocalDate.now();
+        List<Object[]> totals = List.<Object[]>of(new Object[]{2L, 150.0, 300.0, 75.5, 12.0});
+        when(waterSupplyRepository.summarizeByCityIdAndDateBetween(1L, startDate, endDate)).thenReturn(totals);
+
+        WaterSupplySummaryDto result = waterSupplyService.getWaterSupplySummaryForPeriod(1L, startDate, endDate);
+        assertEquals(2L, result.getRecordCount());
+        assertEquals(150.0, result.getTotalConsumptionLiters());
+        assertEquals(300.0, result.getTotalProductionLiters());
+        assertEquals(75.5, result.getAverageReservoirLevelPercentage());
+        assertEquals(12.0, result.getTotalRainfallMm());
+    }
+
+    @Test
+    void testSaveWaterSupplyData_PublishesConsumption() {
+        City city = new City();
+        city.setId(1L);
+        WaterSupplyDataRequest request = new WaterSupplyDataRequest();
+        request.setCityId(1L);
+        request.setArea("Area");
+        request.setConsumptionLiters(100.0);
+        request.setProductionLiters(200.0);
+        request.setReservoirLevelPercentage(50.0);
+        request.setRainfallMm(10.0);
+        request.setDate(LocalDate.of(2025, 1, 6));
+
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        when(waterSupplyRepository.save(any(WaterSupply.class))).thenReturn(new WaterSupply());
+
+        waterSupplyService.saveWaterSupplyData(request);
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        ConsumptionRecordedEvent event = (ConsumptionRecordedEvent) events.getAllValues().get(0);
+        assertEquals(UtilityType.WATER_SUPPLY, event.getType());
+        assertEquals(1L, event.getCityId());
+        assertEquals("Area", event.getArea());
+        assertEquals(LocalDate.of(2025, 1, 6), event.getDate());
+        assertEquals(100.0, event.getConsumption());
+        UtilityDataChangedEvent change = (UtilityDataChangedEvent) events.getAllValues().get(1);
+        assertEquals(UtilityType.WATER_SUPPLY, change.getType());
+        assertEquals(1L, change.getCityId());
+    }
+
+    @Test
+    void testSaveWaterSupplyDataBatch() {
+        City city = new City();
+        city.setId(1L);
+        WaterSupplyDataRequest valid = new WaterSupplyDataRequest(1L, 10.0, "Area", 20.0, 50.0, 1.0, LocalDate.of(2025, 1, 6));
+        WaterSupplyDataRequest missingDate = new WaterSupplyDataRequest(1L, 10.0, "Area", 20.0, 50.0, 1.0, null);
+
+        when(cityRegistry.findById(1L)).thenReturn(Optional.of(city));
+        doAnswer(invocation -> {
+            List<WaterSupply> records = invocation.getArgument(0);
+            records.get(0).setId(7L);
+            return null;
+        }).when(waterSupplyJdbcRepository).insertAll(anyList());
+
+        BulkCreateResultDto result = waterSupplyService.saveWaterSupplyDataBatch(List.of(missingDate, valid));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(BulkItemStatus.REJECTED, result.getItems().get(0).getStatus());
+        assertEquals("date is required", result.getItems().get(0).getError());
+        assertEquals(BulkItemStatus.CREATED, result.getItems().get(1).getStatus());
+        assertEquals(7L, result.getItems().get(1).getId());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(UtilityType.WATER_SUPPLY, ((UtilityDataChangedEvent) events.getAllValues().get(1)).getType());
+    }
+
+    @Test
+    void testDeleteWaterSupplyData_PublishesChange() {
+        LocalDate date = LocalDate.of(2025, 1, 15);
+        when(waterSupplyRepository.findPlacementById(1L)).thenReturn(Optional.of(placement(3L, date)));
+
+        waterSupplyService.deleteWaterSupplyData(1L);
+
+        ArgumentCaptor<UtilityDataChangedEvent> change = ArgumentCaptor.forClass(UtilityDataChangedEvent.class);
+        verify(eventPublisher).publishEvent(change.capture());
+        assertEquals(UtilityType.WATER_SUPPLY, change.getValue().getType());
+        assertEquals(3L, change.getValue().getCityId());
+        assertEquals(-1L, change.getValue().getAddedRecords());
+        assertEquals(date, change.getValue().getFirstDate());
+    }
+
+    private static RecordPlacement placement(Long cityId, LocalDate date) {
+        return new RecordPlacement() {
+            @Override
+            public Long getCityId() {
+                return cityId;
+            }
+
+            @Override
+            public LocalDate getDate() {
+                return date;
+            }
+        };
     }
 }
@@ -0,0 +1,63 @@
+package com.project.citymanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdLimiterTest {
+
+    private static final long THRESHOLD = 100;
+
+    @Test
+    void testCallsOverTheLimitAreRejected() {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 10, THRESHOLD, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testSlowCallsShrinkTheLimitDownToTheMinimum() {
+        AimdLimiter limiter = new AimdLimiter(8, 3, 10, THRESHOLD, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(THRESHOLD + 1);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.release(THRESHOLD + 1);
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testFastCallsGrowAUsedLimitUpToTheMaximum() {
+        AimdLimiter limiter = new AimdLimiter(4, 1, 5, THRESHOLD, 0.5);
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(THRESHOLD);
+        assertEquals(5, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(1);
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void testFastCallsDoNotGrowAnIdleLimit() {
+        AimdLimiter limiter = new AimdLimiter(10, 1, 20, THRESHOLD, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(1);
+
+        assertEquals(10, limiter.getLimit());
+    }
+}
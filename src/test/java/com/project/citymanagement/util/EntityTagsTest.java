@@ -0,0 +1,29 @@
+package com.project.citymanagement.util;
+
+import com.project.citymanagement.exception.ConflictException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityTagsTest {
+
+    @Test
+    void testExpectedVersion() {
+        assertEquals(3L, EntityTags.expectedVersion("\"3\""));
+        assertEquals(3L, EntityTags.expectedVersion("W/\"3\""));
+        assertEquals(3L, EntityTags.expectedVersion(" 3 "));
+        assertNull(EntityTags.expectedVersion(null));
+        assertNull(EntityTags.expectedVersion("*"));
+    }
+
+    @Test
+    void testExpectedVersion_TagOfNoVersion() {
+        assertThrows(ConflictException.class, () -> EntityTags.expectedVersion("\"abc\""));
+    }
+
+    @Test
+    void testHeaders() {
+        assertEquals("\"7\"", EntityTags.headers(7L).getETag());
+        assertNull(EntityTags.headers(null).getETag());
+    }
+}
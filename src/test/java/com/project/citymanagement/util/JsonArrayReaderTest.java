@@ -0,0 +1,64 @@
+package com.project.citymanagement.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.citymanagement.exception.PayloadTooLargeException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonArrayReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static InputStream json(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testReadsElementsInOrder() throws Exception {
+        List<Map> values = JsonArrayReader.readAll(objectMapper, json("[{\"id\":1},{\"id\":2}]"), Map.class, 2);
+
+        assertEquals(List.of(Map.of("id", 1), Map.of("id", 2)), values);
+        assertTrue(JsonArrayReader.readAll(objectMapper, json(" [] "), Map.class, 2).isEmpty());
+    }
+
+    @Test
+    void testStopsReadingOncePastTheLimit() {
+        // An endless array: only the elements up to the limit may ever be read
+        int[] elementsServed = new int[1];
+        InputStream endless = new InputStream() {
+            private byte[] chunk = "[".getBytes(StandardCharsets.UTF_8);
+            private int position;
+
+            @Override
+            public int read() {
+                if (position == chunk.length) {
+                    elementsServed[0]++;
+                    chunk = "{\"id\":1},".getBytes(StandardCharsets.UTF_8);
+                    position = 0;
+                }
+                return chunk[position++];
+            }
+        };
+
+        assertThrows(PayloadTooLargeException.class, () -> JsonArrayReader.readAll(objectMapper, endless, Map.class, 3));
+        assertTrue(elementsServed[0] < 10_000, "read " + elementsServed[0] + " elements");
+    }
+
+    @Test
+    void testRejectsAnythingButOneArray() {
+        assertThrows(JsonProcessingException.class,
+                () -> JsonArrayReader.readAll(objectMapper, json("{\"id\":1}"), Map.class, 2));
+        assertThrows(JsonProcessingException.class,
+                () -> JsonArrayReader.readAll(objectMapper, json("[{\"id\":1}] [{\"id\":2}]"), Map.class, 2));
+        assertThrows(JsonProcessingException.class,
+                () -> JsonArrayReader.readAll(objectMapper, json("[{\"id\":1},"), Map.class, 2));
+    }
+}
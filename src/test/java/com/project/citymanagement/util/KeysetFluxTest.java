@@ -0,0 +1,53 @@
+package com.project.citymanagement.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeysetFluxTest {
+
+    private final List<Long> queriedAfter = new ArrayList<>();
+
+    /** Page of at most 3 of the keys 1..total after the given key. */
+    private List<Long> page(long afterKey, long total) {
+        queriedAfter.add(afterKey);
+        return LongStream.rangeClosed(afterKey + 1, Math.min(afterKey + 3, total)).boxed().toList();
+    }
+
+    @Test
+    void testAllRecordsAreStreamedInKeyOrder() {
+        Flux<Long> records = KeysetFlux.of(afterKey -> page(afterKey, 7), Long::longValue, 3, Schedulers.immediate());
+
+        StepVerifier.create(records)
+                .expectNext(1L, 2L, 3L, 4L, 5L, 6L, 7L)
+                .verifyComplete();
+        assertEquals(List.of(0L, 3L, 6L), queriedAfter);
+    }
+
+    @Test
+    void testFullLastPageEndsWithAnEmptyPage() {
+        StepVerifier.create(KeysetFlux.of(afterKey -> page(afterKey, 6), Long::longValue, 3, Schedulers.immediate()))
+                .expectNextCount(6)
+                .verifyComplete();
+        assertEquals(List.of(0L, 3L, 6L), queriedAfter);
+    }
+
+    @Test
+    void testPagesAreQueriedAtMostOnePageAhead() {
+        StepVerifier.create(KeysetFlux.of(afterKey -> page(afterKey, 100), Long::longValue, 3, Schedulers.immediate()), 2)
+                .expectNext(1L, 2L)
+                .then(() -> assertEquals(List.of(0L, 3L), queriedAfter))
+                .thenRequest(2)
+                .expectNext(3L, 4L)
+                .then(() -> assertEquals(List.of(0L, 3L, 6L), queriedAfter))
+                .thenCancel()
+                .verify();
+    }
+}
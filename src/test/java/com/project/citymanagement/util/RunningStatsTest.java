@@ -0,0 +1,39 @@
+package com.project.citymanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunningStatsTest {
+
+    @Test
+    void testMeanAndStandardDeviation() {
+        RunningStats stats = RunningStats.EMPTY;
+        for (double value : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            stats = stats.add(value);
+        }
+
+        assertEquals(8, stats.getCount());
+        assertEquals(5.0, stats.getMean(), 1e-9);
+        assertEquals(Math.sqrt(32.0 / 7), stats.getStandardDeviation(), 1e-9);
+        assertEquals((12.0 - 5.0) / Math.sqrt(32.0 / 7), stats.zScore(12.0), 1e-9);
+    }
+
+    @Test
+    void testZScoreIsZeroWithoutDeviation() {
+        RunningStats stats = RunningStats.EMPTY.add(3.0).add(3.0);
+
+        assertEquals(0.0, stats.getStandardDeviation());
+        assertEquals(0.0, stats.zScore(100.0));
+        assertEquals(0.0, RunningStats.EMPTY.zScore(1.0));
+    }
+
+    @Test
+    void testAddDoesNotMutate() {
+        RunningStats stats = RunningStats.EMPTY.add(1.0);
+
+        stats.add(5.0);
+        assertEquals(1, stats.getCount());
+        assertEquals(1.0, stats.getMean());
+    }
+}
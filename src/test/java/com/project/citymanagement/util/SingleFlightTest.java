@@ -0,0 +1,108 @@
+package com.project.citymanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    try {
+                        return flight.execute("key", () -> {
+                            executions.incrementAndGet();
+                            release.await();
+                            return 42;
+                        });
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                    }
+                }));
+            }
+            while (flight.getCoalescedCount() < 3) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, executions.get());
+        assertEquals(1, flight.getExecutionCount());
+        assertEquals(3, flight.getCoalescedCount());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    void testSequentialCallsAreNotShared() throws Throwable {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+
+        assertEquals(1, flight.execute("key", executions::incrementAndGet));
+        assertEquals(2, flight.execute("key", executions::incrementAndGet));
+        assertEquals(0, flight.getCoalescedCount());
+    }
+
+    @Test
+    void testExceptionIsRethrownAndKeyReleased() throws Throwable {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(0, flight.getInFlightCount());
+        assertEquals(7, flight.execute("key", () -> 7));
+    }
+
+    @Test
+    void testWaitingCallsGiveUpAfterFollowerTimeout() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> leader = executor.submit(() -> {
+                try {
+                    return flight.execute("key", () -> {
+                        started.countDown();
+                        release.await();
+                        return 42;
+                    });
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(TimeoutException.class, () -> flight.execute("key", () -> 7));
+            assertEquals(1, flight.getTimedOutCount());
+
+            release.countDown();
+            assertEquals(42, leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.project.citymanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void testTopIsExactWhileCountersAreFree() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+        sketch.offer("A", 10);
+        sketch.offer("B", 30);
+        sketch.offer("C", 20);
+        sketch.offer("A", 15);
+
+        List<SpaceSavingSketch.Estimate> top = sketch.top(2);
+        assertEquals(2, top.size());
+        assertEquals("B", top.get(0).getKey());
+        assertEquals(30.0, top.get(0).getCount());
+        assertEquals("A", top.get(1).getKey());
+        assertEquals(25.0, top.get(1).getCount());
+        assertEquals(0.0, top.get(1).getError());
+        assertEquals(75.0, sketch.getTotalWeight());
+        assertEquals(0.0, sketch.getMinCount());
+    }
+
+    @Test
+    void testIgnoresNonPositiveWeights() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer("A", 0);
+        sketch.offer("B", -5);
+
+        assertTrue(sketch.top(2).isEmpty());
+        assertEquals(0.0, sketch.getTotalWeight());
+    }
+
+    @Test
+    void testEstimatesBoundTrueTotalsWhenKeysExceedCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(20);
+        Map<String, Double> truth = new HashMap<>();
+        Random random = new Random(42);
+
+        // A few heavy areas hidden among many light ones
+        for (int i = 0; i < 20_000; i++) {
+            String key = random.nextInt(10) < 3 ? "heavy-" + random.nextInt(3) : "light-" + random.nextInt(1_000);
+            double weight = 1 + random.nextInt(10);
+            truth.merge(key, weight, Double::sum);
+            sketch.offer(key, weight);
+        }
+
+        List<SpaceSavingSketch.Estimate> top = sketch.top(3);
+        for (SpaceSavingSketch.Estimate estimate : top) {
+            assertTrue(estimate.getKey().startsWith("heavy-"));
+            double actual = truth.get(estimate.getKey());
+            assertTrue(estimate.getCount() >= actual);
+            assertTrue(estimate.getLowerBound() <= actual);
+        }
+        assertTrue(sketch.getMinCount() <= sketch.getTotalWeight() / sketch.getCapacity());
+    }
+
+    @Test
+    void testRejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSavingSketch(0));
+    }
+}
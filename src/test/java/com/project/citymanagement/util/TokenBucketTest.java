@@ -0,0 +1,82 @@
+package com.project.citymanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testFullBucketAllowsABurstThenThrottles() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryConsume(1, 0));
+        }
+        assertEquals(SECOND / 10, bucket.tryConsume(1, 0));
+    }
+
+    @Test
+    void testTokensRefillOverTime() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        assertEquals(0, bucket.tryConsume(5, 0));
+
+        assertTrue(bucket.tryConsume(1, SECOND / 20) > 0);
+        assertEquals(0, bucket.tryConsume(1, SECOND / 10));
+        assertEquals(0, bucket.tryConsume(4, SECOND / 2));
+        assertTrue(bucket.tryConsume(1, SECOND / 2) > 0);
+    }
+
+    @Test
+    void testIdleTimeDoesNotOverfillTheBucket() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        assertEquals(0, bucket.tryConsume(5, 100 * SECOND));
+        assertTrue(bucket.tryConsume(1, 100 * SECOND) > 0);
+    }
+
+    @Test
+    void testExpensiveRequestsSpendMoreTokens() {
+        TokenBucket bucket = new TokenBucket(10, 25, 0);
+
+        assertEquals(0, bucket.tryConsume(10, 0));
+        assertEquals(0, bucket.tryConsume(10, 0));
+        assertEquals(5 * SECOND / 10, bucket.tryConsume(10, 0));
+        assertEquals(0, bucket.tryConsume(5, 0));
+    }
+
+    @Test
+    void testConcurrentCallersNeverExceedTheCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(0.001, 100, 0);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (bucket.tryConsume(1, 0) == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(100, granted.get());
+    }
+}
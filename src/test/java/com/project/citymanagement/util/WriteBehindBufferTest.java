@@ -0,0 +1,183 @@
+package com.project.citymanagement.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindBufferTest {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    private WriteBehindBuffer<Integer> buffer;
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.close(1000);
+        }
+    }
+
+    @Test
+    void testWritesFullBatchWithoutWaitingForInterval() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        buffer = new WriteBehindBuffer<>("test", 16, 3, 60_000, 1, 0, batch -> {
+            batches.add(List.copyOf(batch));
+            written.countDown();
+        });
+        buffer.start();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(WriteBehindBuffer.Offer.ACCEPTED, buffer.offer(i));
+        }
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2), batches.get(0));
+    }
+
+    @Test
+    void testWritesPartialBatchAfterInterval() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        buffer = new WriteBehindBuffer<>("test", 16, 100, 50, 1, 0, batch -> {
+            batches.add(List.copyOf(batch));
+            written.countDown();
+        });
+        buffer.start();
+
+        buffer.offer(1);
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1), batches.get(0));
+        buffer.close(1000);
+        assertEquals(1, buffer.getWrittenCount());
+    }
+
+    @Test
+    void testFullBufferRefusesAfterTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        buffer = new WriteBehindBuffer<>("test", 2, 1, 60_000, 1, 20, batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(List.copyOf(batch));
+        });
+        buffer.start();
+
+        // The writer blocks on the first record while the next two fill the buffer
+        WriteBehindBuffer.Offer last = WriteBehindBuffer.Offer.ACCEPTED;
+        for (int i = 0; i < 4 && last == WriteBehindBuffer.Offer.ACCEPTED; i++) {
+            last = buffer.offer(i);
+        }
+
+        assertEquals(WriteBehindBuffer.Offer.FULL, last);
+        assertEquals(1, buffer.getRejectedCount());
+        release.countDown();
+    }
+
+    @Test
+    void testCloseWritesEverythingAcceptedAndRefusesLaterOffers() {
+        buffer = new WriteBehindBuffer<>("test", 64, 10, 60_000, 1, 0, batch -> batches.add(List.copyOf(batch)));
+        buffer.start();
+        for (int i = 0; i < 25; i++) {
+            buffer.offer(i);
+        }
+
+        buffer.close(1000);
+
+        assertEquals(25, batches.stream().mapToInt(List::size).sum());
+        assertEquals(0, buffer.size());
+        assertFalse(buffer.isRunning());
+        assertEquals(WriteBehindBuffer.Offer.CLOSED, buffer.offer(99));
+    }
+
+    @Test
+    void testFailedBatchIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        buffer = new WriteBehindBuffer<>("test", 16, 10, 1, 3, 0, batch -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new DataAccessResourceFailureException("Database unavailable");
+            }
+            batches.add(List.copyOf(batch));
+        });
+        buffer.start();
+        buffer.offer(1);
+
+        buffer.close(1000);
+
+        assertEquals(3, attempts.get());
+        assertEquals(List.of(List.of(1)), batches);
+        assertEquals(1, buffer.getWrittenCount());
+    }
+
+    @Test
+    void testFailedBatchIsDroppedAfterLastAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+        buffer = new WriteBehindBuffer<>("test", 16, 10, 1, 3, 0, batch -> {
+            attempts.incrementAndGet();
+            throw new DataAccessResourceFailureException("Database unavailable");
+        });
+        buffer.start();
+        buffer.offer(1);
+
+        buffer.close(1000);
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, buffer.getFailedCount());
+        assertEquals(0, buffer.getWrittenCount());
+    }
+
+    @Test
+    void testFailingAfterWriteIsNotRetried() {
+        AtomicInteger handled = new AtomicInteger();
+        buffer = new WriteBehindBuffer<>("test", 16, 10, 1, 3, 0, batch -> batches.add(List.copyOf(batch)), batch -> {
+            handled.incrementAndGet();
+            throw new IllegalStateException("Listener failed");
+        });
+        buffer.start();
+        buffer.offer(1);
+        buffer.offer(2);
+
+        buffer.close(1000);
+
+        // The rows were stored once; the failing listener must not store them again
+        assertEquals(List.of(List.of(1, 2)), batches);
+        assertEquals(1, handled.get());
+        assertEquals(2, buffer.getWrittenCount());
+        assertEquals(0, buffer.getFailedCount());
+    }
+
+    @Test
+    void testOnlyRecordsRejectedByTheDatabaseAreDropped() {
+        AtomicInteger attempts = new AtomicInteger();
+        // Written only once all eight are buffered, so the halves do not depend on timing
+        buffer = new WriteBehindBuffer<>("test", 16, 8, 60_000, 3, 0, batch -> {
+            attempts.incrementAndGet();
+            if (batch.contains(3) || batch.contains(6)) {
+                throw new DataIntegrityViolationException("City of the reading was deleted");
+            }
+            batches.add(List.copyOf(batch));
+        });
+        buffer.start();
+        for (int i = 0; i < 8; i++) {
+            buffer.offer(i);
+        }
+
+        buffer.close(1000);
+
+        assertEquals(List.of(0, 1, 2, 4, 5, 7), batches.stream().flatMap(List::stream).sorted().toList());
+        assertEquals(6, buffer.getWrittenCount());
+        assertEquals(2, buffer.getFailedCount());
+        // Split in halves down to the failing records, never retried as they were
+        assertEquals(11, attempts.get());
+    }
+}